@@ -1,11 +1,21 @@
 package com.mycompany.drivequestrentals;
 
+import com.mycompany.drivequestrentals.persistencia.CargadorDatos;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
 import com.mycompany.drivequestrentals.servicios.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
+
 /**
  * Clase utilitaria que centraliza todas las instancias de servicios de la
  * aplicación. Permite un acceso sencillo y evita instanciaciones duplicadas
  * en los distintos controladores.
+ *
+ * <p>El almacenamiento de los servicios se elige por despliegue con las propiedades de sistema
+ * de {@link FabricaRepositorios}; por defecto los datos se mantienen solo en memoria. Los servicios
+ * que dependen de los historiales de arriendos y pagos se crean en su primer acceso, de modo que el
+ * arranque no recorre el historial.</p>
  */
 public final class ServiceManager {
 
@@ -14,18 +24,33 @@ public final class ServiceManager {
 
     private final ClienteService clienteService;
     private final FlotaVehiculosService flotaService;
-    private final ArriendoService arriendoService;
-    private final PagoService pagoService;
     private final MantenimientoService mantenimientoService;
     private final ReservaService reservaService;
+    // Dependen de los historiales, que se abren en el primer acceso; ver arriendos()
+    private ArriendoService arriendoService;
+    private PagoService pagoService;
+    private DisponibilidadService disponibilidadService;
+    private final CalendarioOcupacion calendarioOcupacion;
+    private final FabricaRepositorios repositorios;
 
     private ServiceManager() {
-        clienteService = new ClienteService();
-        flotaService = new FlotaVehiculosService();
-        arriendoService = new ArriendoService();
-        pagoService = new PagoService();
-        mantenimientoService = new MantenimientoService();
-        reservaService = new ReservaService();
+        repositorios = FabricaRepositorios.desdePropiedades();
+        if (repositorios.getRespaldo() != FabricaRepositorios.Respaldo.MEMORIA) {
+            // En disco los repositorios se abren en paralelo antes de crear los servicios
+            try (CargadorDatos cargador = new CargadorDatos(repositorios)) {
+                cargador.esperar();
+                System.out.println(cargador.resumenTiempos());
+            }
+        }
+        clienteService = new ClienteService(repositorios.clientes(), repositorios.filtroClientes());
+        calendarioOcupacion = new CalendarioOcupacion(LocalDate.now());
+        flotaService = new FlotaVehiculosService(repositorios.vehiculos(), calendarioOcupacion);
+        mantenimientoService = new MantenimientoService(repositorios.mantenimientos());
+        reservaService = new ReservaService(repositorios.reservas(), repositorios.filtroReservas(), calendarioOcupacion);
+
+        if (repositorios.getRespaldo() != FabricaRepositorios.Respaldo.MEMORIA) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::cerrarRepositorios, "cierre-repositorios"));
+        }
     }
 
     /**
@@ -49,11 +74,11 @@ public final class ServiceManager {
     }
 
     public static ArriendoService getArriendoService() {
-        return getInstance().arriendoService;
+        return getInstance().arriendos();
     }
 
     public static PagoService getPagoService() {
-        return getInstance().pagoService;
+        return getInstance().pagos();
     }
 
     public static MantenimientoService getMantenimientoService() {
@@ -63,4 +88,62 @@ public final class ServiceManager {
     public static ReservaService getReservaService() {
         return getInstance().reservaService;
     }
+
+    public static DisponibilidadService getDisponibilidadService() {
+        ServiceManager gestor = getInstance();
+        gestor.calendarioOcupacion.avanzarHasta(LocalDate.now());
+        return gestor.disponibilidad();
+    }
+
+    /**
+     * Calendario de ocupación compartido por reservas, arriendos y búsquedas de disponibilidad. Su
+     * horizonte se avanza al día actual en cada acceso, así que una aplicación que sigue abierta
+     * varios días no lo deja atrás.
+     */
+    public static CalendarioOcupacion getCalendarioOcupacion() {
+        ServiceManager gestor = getInstance();
+        // Los arriendos vigentes se marcan en el calendario al crear su servicio
+        gestor.arriendos();
+        gestor.calendarioOcupacion.avanzarHasta(LocalDate.now());
+        return gestor.calendarioOcupacion;
+    }
+
+    /**
+     * Servicio de arriendos, abriendo el historial de arriendos en el primer acceso.
+     */
+    private synchronized ArriendoService arriendos() {
+        if (arriendoService == null) {
+            arriendoService = new ArriendoService(repositorios.arriendos(), calendarioOcupacion);
+        }
+        return arriendoService;
+    }
+
+    /**
+     * Servicio de pagos, abriendo el historial de pagos en el primer acceso.
+     */
+    private synchronized PagoService pagos() {
+        if (pagoService == null) {
+            pagoService = new PagoService(repositorios.pagos());
+        }
+        return pagoService;
+    }
+
+    private synchronized DisponibilidadService disponibilidad() {
+        if (disponibilidadService == null) {
+            disponibilidadService = new DisponibilidadService(flotaService, reservaService, arriendos(),
+                    calendarioOcupacion);
+        }
+        return disponibilidadService;
+    }
+
+    /**
+     * Cierra los repositorios en disco para que sus datos queden sincronizados.
+     */
+    private void cerrarRepositorios() {
+        try {
+            repositorios.close();
+        } catch (IOException e) {
+            System.err.println("❌ Error al cerrar los repositorios: " + e.getMessage());
+        }
+    }
 }
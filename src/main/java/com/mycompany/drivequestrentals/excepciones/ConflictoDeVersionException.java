@@ -0,0 +1,32 @@
+package com.mycompany.drivequestrentals.excepciones;
+
+/**
+ * Se lanza cuando una actualización condicional encuentra la entidad en una versión distinta
+ * de la esperada, porque otro operador o hilo la modificó después de leerla.
+ */
+public class ConflictoDeVersionException extends Exception {
+
+    private final String identificador;
+    private final long versionEsperada;
+    private final long versionActual;
+
+    public ConflictoDeVersionException(String identificador, long versionEsperada, long versionActual) {
+        super("El registro " + identificador + " fue modificado por otro usuario (versión esperada "
+                + versionEsperada + ", actual " + versionActual + ").");
+        this.identificador = identificador;
+        this.versionEsperada = versionEsperada;
+        this.versionActual = versionActual;
+    }
+
+    public String getIdentificador() {
+        return identificador;
+    }
+
+    public long getVersionEsperada() {
+        return versionEsperada;
+    }
+
+    public long getVersionActual() {
+        return versionActual;
+    }
+}
@@ -1,8 +1,10 @@
 package com.mycompany.drivequestrentals.interfaz;
 
 import com.mycompany.drivequestrentals.App;
+import com.mycompany.drivequestrentals.excepciones.ConflictoDeVersionException;
 import com.mycompany.drivequestrentals.modelo.Arriendo;
 import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.modelo.EstadoVehiculo;
 import com.mycompany.drivequestrentals.modelo.Vehiculo;
 import com.mycompany.drivequestrentals.servicios.ArriendoService;
 import com.mycompany.drivequestrentals.servicios.ClienteService;
@@ -57,20 +59,52 @@ public class RegistroArriendoController {
             mostrarAlerta("Vehículo no encontrado.");
             return;
         }
+        long version = vehiculo.getVersion();
 
         if (!vehiculo.isDisponible()) {
             mostrarAlerta("El vehículo no está disponible.");
             return;
         }
 
+        // El vehículo se reserva primero, condicionado a la versión leída: si otro operador lo
+        // arrendó o modificó entretanto, el cambio falla y no se registra un segundo arriendo
         try {
-            Arriendo arriendo = new Arriendo(cliente, vehiculo, fechaInicio, fechaFin);
+            if (!vehiculoService.cambiarEstado(vehiculo.getPatente(), EstadoVehiculo.ARRENDADO, version)) {
+                mostrarAlerta("Vehículo no encontrado.");
+                return;
+            }
+        } catch (ConflictoDeVersionException e) {
+            mostrarAlerta("El vehículo fue modificado por otro usuario. Vuelva a buscarlo e intente de nuevo.");
+            return;
+        } catch (IllegalStateException e) {
+            mostrarAlerta("El vehículo no está disponible.");
+            return;
+        } catch (RuntimeException e) {
+            mostrarAlerta("Error al registrar arriendo: " + e.getMessage());
+            return;
+        }
+
+        try {
+            Vehiculo arrendado = vehiculoService.buscarPorPatente(vehiculo.getPatente());
+            Arriendo arriendo = new Arriendo(cliente, arrendado != null ? arrendado : vehiculo, fechaInicio, fechaFin);
             arriendoService.registrarArriendo(arriendo);
-            vehiculo.setDisponible(false);
-            mostrarAlerta("Arriendo registrado correctamente.");
-            limpiarCampos();
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
+            liberarVehiculo(vehiculo.getPatente());
             mostrarAlerta("Error al registrar arriendo: " + e.getMessage());
+            return;
+        }
+        mostrarAlerta("Arriendo registrado correctamente.");
+        limpiarCampos();
+    }
+
+    /**
+     * Devuelve a disponible un vehículo cuyo arriendo no se pudo registrar.
+     */
+    private void liberarVehiculo(String patente) {
+        try {
+            vehiculoService.cambiarEstado(patente, EstadoVehiculo.DISPONIBLE);
+        } catch (RuntimeException e) {
+            System.err.println("❌ No se pudo liberar el vehículo " + patente + ": " + e.getMessage());
         }
     }
 
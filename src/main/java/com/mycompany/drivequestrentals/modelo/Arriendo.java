@@ -1,5 +1,6 @@
 package com.mycompany.drivequestrentals.modelo;
 
+import java.io.Serializable;
 import java.time.temporal.ChronoUnit;
 import java.time.LocalDate;
 import java.util.Objects;
@@ -8,7 +9,9 @@ import java.util.UUID;
 /**
  * Clase que representa un arriendo de vehículo por parte de un cliente.
  */
-public class Arriendo {
+public class Arriendo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String id;
     private Cliente cliente;
@@ -1,5 +1,6 @@
 package com.mycompany.drivequestrentals.modelo;
 
+import java.io.Serializable;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -7,7 +8,9 @@ import java.util.UUID;
  * Clase que representa un cliente de la empresa DriveQuest Rentals.
  * Incluye validaciones básicas y generación automática de identificador.
  */
-public class Cliente {
+public class Cliente implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String id;
     private String nombreCompleto;
@@ -16,6 +19,8 @@ public class Cliente {
     private String correo;
     private String domicilio;
     private String numeroTarjetaCredito;
+    // Cantidad de actualizaciones confirmadas; la asigna el servicio para detectar escrituras concurrentes
+    private volatile long version;
 
     /**
      * Constructor completo con todos los campos del cliente.
@@ -39,6 +44,16 @@ public class Cliente {
         this(UUID.randomUUID().toString(), nombreCompleto, rutOPasaporte, telefono, correo, domicilio, null);
     }
 
+    /**
+     * Constructor de copia, para editar un cliente sin modificar la instancia registrada.
+     * La copia conserva la versión, de modo que puede usarse en una actualización condicional.
+     */
+    public Cliente(Cliente otro) {
+        this(otro.id, otro.nombreCompleto, otro.rutOPasaporte, otro.telefono, otro.correo, otro.domicilio,
+                otro.numeroTarjetaCredito);
+        this.version = otro.version;
+    }
+
     /**
      * Constructor vacío requerido por frameworks o para inicialización posterior.
      */
@@ -109,6 +124,14 @@ public class Cliente {
         this.numeroTarjetaCredito = numeroTarjetaCredito;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // ============================ MÉTODOS AUXILIARES =============================
 
     /**
@@ -0,0 +1,110 @@
+package com.mycompany.drivequestrentals.modelo;
+
+import java.text.Normalizer;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Estados posibles de un vehículo de la flota y las transiciones permitidas entre ellos.
+ *
+ * <p>Un vehículo disponible puede arrendarse o enviarse a mantención; uno arrendado vuelve a estar
+ * disponible o pasa directo a mantención si se devuelve con daños; uno en mantención solo puede
+ * volver a estar disponible. Asignar el mismo estado que ya tiene se permite, salvo arrendar un vehículo
+ * ya arrendado: así dos arriendos simultáneos del mismo vehículo no pueden confirmarse ambos.</p>
+ */
+public enum EstadoVehiculo {
+    DISPONIBLE("Disponible"),
+    ARRENDADO("Arrendado"),
+    EN_MANTENCION("En Mantención");
+
+    private final String texto;
+
+    EstadoVehiculo(String texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Texto con que se muestra y se guarda el estado.
+     */
+    public String getTexto() {
+        return texto;
+    }
+
+    /**
+     * Estados a los que se puede pasar desde este.
+     */
+    public Set<EstadoVehiculo> siguientes() {
+        switch (this) {
+            case DISPONIBLE:
+                return EnumSet.of(DISPONIBLE, ARRENDADO, EN_MANTENCION);
+            case ARRENDADO:
+                return EnumSet.of(DISPONIBLE, EN_MANTENCION);
+            default:
+                return EnumSet.of(EN_MANTENCION, DISPONIBLE);
+        }
+    }
+
+    /**
+     * @return true si se puede pasar de este estado al indicado
+     */
+    public boolean puedeCambiarA(EstadoVehiculo destino) {
+        return destino != null && siguientes().contains(destino);
+    }
+
+    /**
+     * Interpreta el texto de un estado sin distinguir mayúsculas ni tildes, de modo que
+     * "en mantencion" y "En Mantención" son el mismo estado.
+     *
+     * @param texto texto del estado
+     * @return el estado correspondiente
+     * @throws IllegalArgumentException si el texto está vacío o no corresponde a ningún estado
+     */
+    public static EstadoVehiculo desde(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("El estado del vehículo no puede estar vacío.");
+        }
+        for (EstadoVehiculo estado : values()) {
+            if (estado.texto.equalsIgnoreCase(texto)) return estado;
+        }
+        String normalizado = Normalizer.normalize(texto.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[\\s_]+", " ");
+        switch (normalizado) {
+            case "disponible":
+                return DISPONIBLE;
+            case "arrendado":
+                return ARRENDADO;
+            case "en mantencion":
+                return EN_MANTENCION;
+            default:
+                throw new IllegalArgumentException("Estado de vehículo desconocido: " + texto);
+        }
+    }
+
+    /**
+     * Interpreta un estado ya guardado. Las versiones anteriores aceptaban cualquier texto no vacío,
+     * así que un valor desconocido no se rechaza: el vehículo queda {@link #EN_MANTENCION} para que se
+     * revise antes de volver a arrendarlo, y se informa en la salida de errores. Los datos nuevos
+     * (formularios, importaciones) se validan con {@link #desde}.
+     *
+     * @param texto texto del estado guardado
+     * @return el estado correspondiente, o {@link #EN_MANTENCION} si no se reconoce
+     * @throws IllegalArgumentException si el texto está vacío
+     */
+    public static EstadoVehiculo desdeGuardado(String texto) {
+        try {
+            return desde(texto);
+        } catch (IllegalArgumentException e) {
+            if (texto == null || texto.isBlank()) throw e;
+            System.err.println("⚠️ Estado de vehículo desconocido \"" + texto + "\"; se asigna " + EN_MANTENCION + ".");
+            return EN_MANTENCION;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return texto;
+    }
+}
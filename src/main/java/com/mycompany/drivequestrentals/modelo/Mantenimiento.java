@@ -1,5 +1,6 @@
 package com.mycompany.drivequestrentals.modelo;
 
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.Objects;
 
@@ -7,7 +8,9 @@ import java.util.Objects;
  * Clase que representa un mantenimiento realizado a un vehículo.
  * Contiene información sobre la fecha, costo, descripción, vehículo y kilometraje.
  */
-public class Mantenimiento {
+public class Mantenimiento implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String id;
     private Vehiculo vehiculo;
@@ -1,12 +1,15 @@
 package com.mycompany.drivequestrentals.modelo;
 
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.Objects;
 
 /**
  * Clase que representa un pago realizado por el arriendo de un vehículo.
  */
-public class Pago {
+public class Pago implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String id;
     private Arriendo arriendo;
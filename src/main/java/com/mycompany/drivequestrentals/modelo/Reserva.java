@@ -1,5 +1,6 @@
 package com.mycompany.drivequestrentals.modelo;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
@@ -10,7 +11,9 @@ import com.mycompany.drivequestrentals.modelo.Vehiculo;
  * Clase que representa una reserva futura de un vehículo por parte de un cliente.
  * Una reserva puede ser convertida en un arriendo efectivo al momento de entrega.
  */
-public class Reserva {
+public class Reserva implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String codigoReserva;
     private Cliente cliente;
@@ -1,5 +1,6 @@
 package com.mycompany.drivequestrentals.modelo;
 
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.Objects;
 
@@ -8,16 +9,22 @@ import java.util.Objects;
  * Esta clase sirve como base para las subclases VehiculoCarga y VehiculoPasajeros.
  * Contiene atributos comunes como patente, marca, modelo, año, estado, foto y precio diario.
  */
-public abstract class Vehiculo {
+public abstract class Vehiculo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     protected String id;
     protected String patente;
     protected String marca;
     protected String modelo;
     protected int anio;
-    protected String estado; // Disponible, Arrendado, En Mantención
+    // Texto de un EstadoVehiculo; se conserva como String por compatibilidad con los archivos serializados
+    protected String estado;
+    private transient volatile EstadoVehiculo estadoVehiculo;
     protected String fotoRuta;
     private double precioDiario;
+    // Cantidad de actualizaciones confirmadas; la asigna el servicio para detectar escrituras concurrentes
+    private volatile long version;
 
     /**
      * Constructor de vehículo.
@@ -96,11 +103,34 @@ public abstract class Vehiculo {
         return estado;
     }
 
+    /**
+     * Asigna el estado a partir de su texto, que se guarda en su forma canónica. Un texto desconocido,
+     * como los que aceptaban versiones anteriores, se interpreta con {@link EstadoVehiculo#desdeGuardado}.
+     * No valida la transición: para vehículos de la flota se usa
+     * {@code FlotaVehiculosService.cambiarEstado}, que además mantiene los índices por estado.
+     *
+     * @throws IllegalArgumentException si el estado está vacío
+     */
     public void setEstado(String estado) {
-        if (estado == null || estado.isBlank()) {
+        setEstadoVehiculo(EstadoVehiculo.desdeGuardado(estado));
+    }
+
+    public EstadoVehiculo getEstadoVehiculo() {
+        EstadoVehiculo actual = estadoVehiculo;
+        if (actual == null && estado != null) {
+            // Vehículo deserializado: el campo transitorio se recupera desde el texto
+            actual = EstadoVehiculo.desdeGuardado(estado);
+            estadoVehiculo = actual;
+        }
+        return actual;
+    }
+
+    public void setEstadoVehiculo(EstadoVehiculo estadoVehiculo) {
+        if (estadoVehiculo == null) {
             throw new IllegalArgumentException("El estado del vehículo no puede estar vacío.");
         }
-        this.estado = estado;
+        this.estado = estadoVehiculo.getTexto();
+        this.estadoVehiculo = estadoVehiculo;
     }
 
     public String getFotoRuta() {
@@ -122,14 +152,22 @@ public abstract class Vehiculo {
         this.precioDiario = precioDiario;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // ==== Métodos funcionales ====
 
     /**
      * Indica si el vehículo está disponible para arriendo.
-     * @return true si el estado es "Disponible".
+     * @return true si el estado es {@link EstadoVehiculo#DISPONIBLE}.
      */
     public boolean isDisponible() {
-        return "Disponible".equalsIgnoreCase(this.estado);
+        return getEstadoVehiculo() == EstadoVehiculo.DISPONIBLE;
     }
 
     /**
@@ -137,7 +175,7 @@ public abstract class Vehiculo {
      * @param disponible true para marcar como "Disponible", false como "Arrendado".
      */
     public void setDisponible(boolean disponible) {
-        this.estado = disponible ? "Disponible" : "Arrendado";
+        setEstadoVehiculo(disponible ? EstadoVehiculo.DISPONIBLE : EstadoVehiculo.ARRENDADO);
     }
 
     /**
@@ -6,6 +6,8 @@ package com.mycompany.drivequestrentals.modelo;
  */
 public class VehiculoCarga extends Vehiculo implements IFacturable {
 
+    private static final long serialVersionUID = 1L;
+
     private double capacidadCarga; // en kilogramos
 
     /**
@@ -7,6 +7,8 @@ package com.mycompany.drivequestrentals.modelo;
  */
 public class VehiculoPasajeros extends Vehiculo implements IFacturable {
 
+    private static final long serialVersionUID = 1L;
+
     private int numeroPasajeros;
 
     /**
@@ -0,0 +1,431 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.persistencia.codec.CodecBinario;
+import com.mycompany.drivequestrentals.persistencia.codec.CodecUtil;
+import com.mycompany.drivequestrentals.persistencia.codec.FiltroRegistro;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de registros históricos particionado por mes. Cada mes se guarda en un segmento
+ * propio ({@code <nombre>-AAAA-MM.dat}) según la fecha de partición del registro, y un manifiesto
+ * de texto lista los segmentos con su cantidad de registros, la fecha de término máxima y su estado.
+ *
+ * <p>Las escrituras reescriben solo los segmentos afectados. Las consultas por rango abren solo
+ * los segmentos que se cruzan con el rango. Los meses cerrados son inmutables: no se reescriben y
+ * sus archivos pueden archivarse en otro directorio sin tocar los datos recientes.</p>
+ *
+ * <p>La fecha de partición de un registro no debe cambiar una vez que su mes está cerrado.</p>
+ *
+ * <p>Los segmentos se escriben con la compresión configurada ({@link #setCompresion}); al archivar
+ * un segmento se puede elegir otra, por ejemplo una de mayor reducción para el almacenamiento frío.</p>
+ *
+ * @param <T> tipo de registro
+ */
+public class AlmacenSegmentado<T> {
+
+    private static final String ARCHIVO_MANIFIESTO = "manifiesto.txt";
+    private static final String SEPARADOR = ";";
+
+    private final Path directorio;
+    private final String nombre;
+    private final CodecBinario<T> codec;
+    private final Function<T, String> extractorClave;
+    private final Function<T, LocalDate> extractorFecha;
+    private final Function<T, LocalDate> extractorFin;
+
+    private NavigableMap<YearMonth, Segmento> manifiesto;
+    private volatile Compresion compresion = Compresion.NINGUNA;
+
+    /**
+     * Información de un segmento registrada en el manifiesto.
+     */
+    public static final class Segmento {
+        private final YearMonth mes;
+        private final int registros;
+        private final LocalDate finMaximo;
+        private final boolean cerrado;
+        private final Path archivo;
+
+        Segmento(YearMonth mes, int registros, LocalDate finMaximo, boolean cerrado, Path archivo) {
+            this.mes = mes;
+            this.registros = registros;
+            this.finMaximo = finMaximo;
+            this.cerrado = cerrado;
+            this.archivo = archivo;
+        }
+
+        public YearMonth getMes() { return mes; }
+        public int getRegistros() { return registros; }
+        public LocalDate getFinMaximo() { return finMaximo; }
+        public boolean isCerrado() { return cerrado; }
+        public Path getArchivo() { return archivo; }
+
+        /**
+         * Indica si algún registro del segmento puede cruzarse con el rango [desde, hasta].
+         */
+        boolean seCruzaCon(LocalDate desde, LocalDate hasta) {
+            boolean empiezaDespues = hasta != null && mes.atDay(1).isAfter(hasta);
+            boolean terminaAntes = desde != null && finMaximo.isBefore(desde);
+            return !empiezaDespues && !terminaAntes;
+        }
+    }
+
+    /**
+     * @param directorio     carpeta de los segmentos y el manifiesto
+     * @param nombre         prefijo de los archivos de segmento
+     * @param codec          codec de los registros
+     * @param extractorClave clave única de cada registro
+     * @param extractorFecha fecha que determina el mes del registro
+     * @param extractorFin   fecha de término del registro (igual a la de partición si no aplica)
+     */
+    public AlmacenSegmentado(Path directorio, String nombre, CodecBinario<T> codec,
+                             Function<T, String> extractorClave,
+                             Function<T, LocalDate> extractorFecha,
+                             Function<T, LocalDate> extractorFin) {
+        this.directorio = Objects.requireNonNull(directorio);
+        this.nombre = Objects.requireNonNull(nombre);
+        this.codec = Objects.requireNonNull(codec);
+        this.extractorClave = Objects.requireNonNull(extractorClave);
+        this.extractorFecha = Objects.requireNonNull(extractorFecha);
+        this.extractorFin = Objects.requireNonNull(extractorFin);
+    }
+
+    /**
+     * Compresión de los segmentos escritos desde ahora. Los segmentos existentes se siguen
+     * leyendo en su formato hasta que se reescriben.
+     */
+    public void setCompresion(Compresion compresion) {
+        this.compresion = Objects.requireNonNull(compresion, "La compresión no puede ser null");
+    }
+
+    public Compresion getCompresion() {
+        return compresion;
+    }
+
+    // ---------- ESCRITURA ----------
+
+    /**
+     * Reemplaza el contenido de todos los meses abiertos por los registros indicados.
+     * Los registros de meses cerrados se ignoran, porque esos segmentos son inmutables.
+     */
+    public synchronized void reemplazarTodo(List<T> registros) throws IOException {
+        NavigableMap<YearMonth, Segmento> segmentos = segmentos();
+        Map<YearMonth, List<T>> porMes = agruparPorMes(registros);
+
+        for (Segmento segmento : new ArrayList<>(segmentos.values())) {
+            if (!segmento.cerrado && !porMes.containsKey(segmento.mes)) {
+                Files.deleteIfExists(segmento.archivo);
+                segmentos.remove(segmento.mes);
+            }
+        }
+        for (Map.Entry<YearMonth, List<T>> mes : porMes.entrySet()) {
+            Segmento actual = segmentos.get(mes.getKey());
+            if (actual == null || !actual.cerrado) {
+                escribirSegmento(mes.getKey(), mes.getValue());
+            }
+        }
+        guardarManifiesto();
+    }
+
+    /**
+     * Aplica un conjunto de cambios reescribiendo solo los segmentos afectados: los meses de
+     * los registros nuevos o actualizados y los meses abiertos que contienen alguna clave modificada.
+     *
+     * @param cambios último estado de cada clave modificada; {@code null} indica eliminación
+     * @throws IllegalStateException si un cambio corresponde a un mes cerrado
+     */
+    public synchronized void aplicarCambios(Map<String, T> cambios) throws IOException, ClassNotFoundException {
+        if (cambios.isEmpty()) return;
+        NavigableMap<YearMonth, Segmento> segmentos = segmentos();
+
+        Set<YearMonth> afectados = new TreeSet<>();
+        for (T registro : cambios.values()) {
+            if (registro != null) {
+                YearMonth mes = mesDe(registro);
+                verificarAbierto(mes);
+                afectados.add(mes);
+            }
+        }
+        for (Segmento segmento : segmentos.values()) {
+            if (!segmento.cerrado && !afectados.contains(segmento.mes) && contieneAlguna(segmento, cambios.keySet())) {
+                afectados.add(segmento.mes);
+            }
+        }
+
+        for (YearMonth mes : afectados) {
+            Segmento segmento = segmentos.get(mes);
+            Map<String, T> contenido = new LinkedHashMap<>();
+            if (segmento != null) {
+                for (T registro : ArchivoUtil.cargarRegistros(segmento.archivo.toString(), codec)) {
+                    contenido.put(extractorClave.apply(registro), registro);
+                }
+            }
+            for (Map.Entry<String, T> cambio : cambios.entrySet()) {
+                T registro = cambio.getValue();
+                if (registro != null && mesDe(registro).equals(mes)) {
+                    contenido.put(cambio.getKey(), registro);
+                } else {
+                    contenido.remove(cambio.getKey());
+                }
+            }
+
+            if (contenido.isEmpty()) {
+                if (segmento != null) Files.deleteIfExists(segmento.archivo);
+                segmentos.remove(mes);
+            } else {
+                escribirSegmento(mes, new ArrayList<>(contenido.values()));
+            }
+        }
+        guardarManifiesto();
+    }
+
+    /**
+     * Lanza {@link IllegalStateException} si el registro pertenece a un mes cerrado.
+     */
+    public void verificarEscribible(T registro) throws IOException {
+        verificarAbierto(mesDe(registro));
+    }
+
+    // ---------- LECTURA ----------
+
+    /**
+     * Carga todos los registros, en orden de mes. Un segmento dañado aporta solo sus registros sanos.
+     */
+    public synchronized List<T> cargarTodo() throws IOException, ClassNotFoundException {
+        List<T> registros = new ArrayList<>();
+        for (Segmento segmento : segmentos().values()) {
+            registros.addAll(IntegridadRegistros.cargarTolerante(segmento.archivo.toString(), codec));
+        }
+        return registros;
+    }
+
+    /**
+     * Recorre los registros de los segmentos que se cruzan con el rango, abriendo cada segmento
+     * solo cuando se llega a él. El stream debe cerrarse para liberar el segmento en curso.
+     * El rango se usa únicamente para elegir segmentos; el filtro fino corresponde al llamador.
+     *
+     * @param desde  inicio del rango (inclusive), o null para no acotar
+     * @param hasta  fin del rango (inclusive), o null para no acotar
+     * @param filtro filtro evaluado sobre los bytes de cada registro
+     */
+    public Stream<T> stream(LocalDate desde, LocalDate hasta, FiltroRegistro filtro) throws IOException {
+        List<Segmento> seleccionados;
+        synchronized (this) {
+            seleccionados = segmentos().values().stream()
+                    .filter(s -> s.seCruzaCon(desde, hasta))
+                    .collect(Collectors.toList());
+        }
+        return seleccionados.stream().flatMap(segmento -> {
+            try {
+                return CursorRegistros.abrir(segmento.archivo.toString(), codec, filtro).stream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new UncheckedIOException(new IOException(e));
+            }
+        });
+    }
+
+    /**
+     * Carga los registros de un mes, o una lista vacía si el mes no tiene segmento. Un segmento
+     * dañado aporta solo sus registros sanos.
+     */
+    public List<T> cargarMes(YearMonth mes) throws IOException, ClassNotFoundException {
+        Segmento segmento;
+        synchronized (this) {
+            segmento = segmentos().get(mes);
+        }
+        if (segmento == null) return new ArrayList<>();
+        return IntegridadRegistros.cargarTolerante(segmento.archivo.toString(), codec);
+    }
+
+    /**
+     * Entrega la clave de cada registro junto con el mes de su segmento, sin decodificar los
+     * registros: igual que al aplicar cambios, se lee solo el primer campo.
+     */
+    public void recorrerClaves(BiConsumer<String, YearMonth> visitante) throws IOException, ClassNotFoundException {
+        for (Segmento segmento : getSegmentos()) {
+            FiltroRegistro soloClave = (entrada, version) -> {
+                visitante.accept(CodecUtil.leerTexto(entrada), segmento.mes);
+                return false;
+            };
+            try (CursorRegistros<T> cursor = CursorRegistros.abrir(segmento.archivo.toString(), codec, soloClave)) {
+                // Los archivos en el formato anterior no aplican el filtro y entregan los registros completos
+                while (cursor.hasNext()) {
+                    visitante.accept(extractorClave.apply(cursor.next()), segmento.mes);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Segmentos registrados en el manifiesto, en orden de mes.
+     */
+    public synchronized List<Segmento> getSegmentos() throws IOException {
+        return new ArrayList<>(segmentos().values());
+    }
+
+    /**
+     * Indica si el almacén ya tiene manifiesto (es decir, si ya se escribió en formato segmentado).
+     */
+    public boolean existe() {
+        return Files.exists(directorio.resolve(ARCHIVO_MANIFIESTO));
+    }
+
+    // ---------- CICLO DE VIDA DE LOS SEGMENTOS ----------
+
+    /**
+     * Cierra todos los segmentos anteriores al mes indicado. Un segmento cerrado no vuelve a escribirse.
+     */
+    public synchronized void cerrarAnterioresA(YearMonth mes) throws IOException {
+        NavigableMap<YearMonth, Segmento> segmentos = segmentos();
+        for (Segmento s : new ArrayList<>(segmentos.headMap(mes, false).values())) {
+            if (!s.cerrado) {
+                segmentos.put(s.mes, new Segmento(s.mes, s.registros, s.finMaximo, true, s.archivo));
+            }
+        }
+        guardarManifiesto();
+    }
+
+    /**
+     * Mueve el archivo de un segmento cerrado a otro directorio (por ejemplo, almacenamiento frío).
+     * El segmento sigue disponible para las consultas desde su nueva ubicación.
+     *
+     * @throws IllegalStateException si el segmento no existe o no está cerrado
+     */
+    public synchronized void archivar(YearMonth mes, Path destino) throws IOException {
+        Segmento s = segmentoCerrado(mes);
+        Files.createDirectories(destino);
+        Path nuevo = destino.toAbsolutePath().resolve(s.archivo.getFileName());
+        Files.move(s.archivo, nuevo, StandardCopyOption.REPLACE_EXISTING);
+        segmentos().put(mes, new Segmento(mes, s.registros, s.finMaximo, true, nuevo));
+        guardarManifiesto();
+    }
+
+    /**
+     * Archiva un segmento cerrado reescribiéndolo con la compresión indicada en el destino.
+     * El archivo original se elimina una vez escrito el nuevo.
+     *
+     * @throws IllegalStateException si el segmento no existe o no está cerrado
+     */
+    public synchronized void archivar(YearMonth mes, Path destino, Compresion compresionArchivo)
+            throws IOException, ClassNotFoundException {
+        Segmento s = segmentoCerrado(mes);
+        Files.createDirectories(destino);
+        Path nuevo = destino.toAbsolutePath().resolve(s.archivo.getFileName());
+        List<T> registros = ArchivoUtil.cargarRegistros(s.archivo.toString(), codec);
+        ArchivoUtil.guardarRegistros(nuevo.toString(), registros, codec, compresionArchivo);
+        if (!nuevo.equals(s.archivo.toAbsolutePath())) Files.deleteIfExists(s.archivo);
+        segmentos().put(mes, new Segmento(mes, s.registros, s.finMaximo, true, nuevo));
+        guardarManifiesto();
+    }
+
+    private Segmento segmentoCerrado(YearMonth mes) throws IOException {
+        Segmento s = segmentos().get(mes);
+        if (s == null || !s.cerrado) {
+            throw new IllegalStateException("Solo se pueden archivar segmentos cerrados: " + nombre + " " + mes);
+        }
+        return s;
+    }
+
+    // ---------- MÉTODOS AUXILIARES ----------
+
+    private YearMonth mesDe(T registro) {
+        LocalDate fecha = extractorFecha.apply(registro);
+        if (fecha == null) {
+            throw new IllegalArgumentException("Registro sin fecha de partición: " + extractorClave.apply(registro));
+        }
+        return YearMonth.from(fecha);
+    }
+
+    private void verificarAbierto(YearMonth mes) throws IOException {
+        Segmento segmento;
+        synchronized (this) {
+            segmento = segmentos().get(mes);
+        }
+        if (segmento != null && segmento.cerrado) {
+            throw new IllegalStateException("El segmento " + nombre + " " + mes + " está cerrado");
+        }
+    }
+
+    private Map<YearMonth, List<T>> agruparPorMes(List<T> registros) {
+        Map<YearMonth, List<T>> porMes = new TreeMap<>();
+        for (T registro : registros) {
+            porMes.computeIfAbsent(mesDe(registro), m -> new ArrayList<>()).add(registro);
+        }
+        return porMes;
+    }
+
+    private boolean contieneAlguna(Segmento segmento, Set<String> claves) throws IOException, ClassNotFoundException {
+        // Los registros históricos escriben su id como primer campo, por lo que basta leerlo
+        FiltroRegistro porClave = (entrada, version) ->
+                claves.contains(CodecUtil.leerTexto(entrada));
+        try (CursorRegistros<T> cursor = CursorRegistros.abrir(segmento.archivo.toString(), codec, porClave)) {
+            return cursor.hasNext();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void escribirSegmento(YearMonth mes, List<T> registros) throws IOException {
+        Files.createDirectories(directorio);
+        Path archivo = directorio.toAbsolutePath().resolve(nombre + "-" + mes + ".dat");
+        ArchivoUtil.guardarRegistros(archivo.toString(), registros, codec, compresion);
+
+        LocalDate finMaximo = mes.atEndOfMonth();
+        for (T registro : registros) {
+            LocalDate fin = extractorFin.apply(registro);
+            if (fin != null && fin.isAfter(finMaximo)) finMaximo = fin;
+        }
+        segmentos().put(mes, new Segmento(mes, registros.size(), finMaximo, false, archivo));
+    }
+
+    private NavigableMap<YearMonth, Segmento> segmentos() throws IOException {
+        if (manifiesto == null) {
+            manifiesto = leerManifiesto();
+        }
+        return manifiesto;
+    }
+
+    private NavigableMap<YearMonth, Segmento> leerManifiesto() throws IOException {
+        NavigableMap<YearMonth, Segmento> segmentos = new TreeMap<>();
+        for (String linea : ArchivoUtil.leerLineas(directorio.resolve(ARCHIVO_MANIFIESTO).toString())) {
+            if (linea.isBlank()) continue;
+            String[] campos = linea.split(SEPARADOR, -1);
+            if (campos.length != 5) {
+                throw new IOException("Línea de manifiesto inválida en " + nombre + ": " + linea);
+            }
+            YearMonth mes = YearMonth.parse(campos[0]);
+            Path archivo = directorio.toAbsolutePath().resolve(campos[4]);
+            segmentos.put(mes, new Segmento(mes, Integer.parseInt(campos[1]), LocalDate.parse(campos[2]),
+                    "CERRADO".equals(campos[3]), archivo));
+        }
+        return segmentos;
+    }
+
+    private void guardarManifiesto() throws IOException {
+        Files.createDirectories(directorio);
+        Path base = directorio.toAbsolutePath();
+        List<String> lineas = new ArrayList<>();
+        for (Segmento s : segmentos().values()) {
+            Path archivo = s.archivo.startsWith(base) ? base.relativize(s.archivo) : s.archivo;
+            lineas.add(String.join(SEPARADOR, s.mes.toString(), String.valueOf(s.registros),
+                    s.finMaximo.toString(), s.cerrado ? "CERRADO" : "ABIERTO", archivo.toString()));
+        }
+        ArchivoUtil.guardarLineas(directorio.resolve(ARCHIVO_MANIFIESTO).toString(), lineas);
+    }
+}
@@ -1,17 +1,58 @@
 package com.mycompany.drivequestrentals.persistencia;
 
+import com.mycompany.drivequestrentals.persistencia.codec.CodecBinario;
+
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.CRC32C;
 
 /**
- * Clase utilitaria para manejo de archivos de texto y objetos serializados.
+ * Clase utilitaria para manejo de archivos de texto, objetos serializados y archivos de registros binarios.
  * Proporciona métodos reutilizables para guardar y leer información desde archivos.
+ *
+ * <p>Todos los métodos de guardado escriben primero en un archivo temporal, lo sincronizan con el disco
+ * y luego lo renombran atómicamente sobre el destino, de modo que una caída a mitad de escritura
+ * deja el archivo anterior intacto en vez de uno truncado.</p>
  */
 public class ArchivoUtil {
 
+    /** Número mágico ("DQRR") al inicio de todo archivo de registros binarios. */
+    static final int MAGIA_REGISTROS = 0x44515252;
+    /** Formato contenedor anterior, con registros {@code [int largo][bytes]} sin suma de verificación. */
+    static final short VERSION_FORMATO = 1;
+    /** Formato contenedor actual sin compresión: registros {@code [int largo][int CRC32C][bytes]}. */
+    static final short FORMATO_VERIFICADO = 3;
+    /** Primeros bytes de un archivo escrito con {@link ObjectOutputStream}. */
+    static final short MAGIA_SERIALIZACION_JAVA = (short) 0xACED;
+    /** Sufijo de los archivos temporales usados durante un guardado atómico. */
+    static final String EXTENSION_TEMPORAL = ".tmp";
+
+    /**
+     * Receptor de los bloques de líneas de {@link #leerLineasPorBloques}.
+     */
+    @FunctionalInterface
+    public interface ConsumidorLineas {
+        /**
+         * @param bloque       líneas consecutivas del archivo
+         * @param primeraLinea número (desde 1) de la primera línea del bloque
+         */
+        void aceptar(List<String> bloque, long primeraLinea) throws IOException;
+    }
+
+    /**
+     * Contenido a escribir en un guardado atómico.
+     */
+    @FunctionalInterface
+    public interface Escritor {
+        void escribir(OutputStream salida) throws IOException;
+    }
+
     /**
      * Guarda una lista de líneas en un archivo de texto. Sobrescribe el archivo si ya existe.
      *
@@ -21,8 +62,59 @@ public class ArchivoUtil {
      */
     public static void guardarLineas(String ruta, List<String> lineas) throws IOException {
         if (ruta == null || ruta.isEmpty() || lineas == null) return;
-        Path path = Paths.get(ruta);
-        Files.write(path, lineas, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        escribirAtomico(ruta, salida -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            for (String linea : lineas) {
+                writer.write(linea);
+                writer.newLine();
+            }
+            writer.flush();
+        });
+    }
+
+    /**
+     * Reemplaza un archivo de forma atómica y durable: el contenido se escribe en un archivo
+     * temporal del mismo directorio, se fuerza al disco con {@link FileChannel#force(boolean)} y
+     * se renombra sobre el destino. Si algo falla, el archivo original no se modifica.
+     *
+     * @param ruta     Ruta completa del archivo destino.
+     * @param escritor Escribe el contenido completo del archivo.
+     * @throws IOException si ocurre un error al escribir, sincronizar o renombrar.
+     */
+    public static void escribirAtomico(String ruta, Escritor escritor) throws IOException {
+        Path destino = Paths.get(ruta).toAbsolutePath();
+        Path directorio = destino.getParent();
+        Path temporal = Files.createTempFile(directorio, destino.getFileName().toString(), EXTENSION_TEMPORAL);
+
+        try {
+            try (FileOutputStream fos = new FileOutputStream(temporal.toFile())) {
+                BufferedOutputStream salida = new BufferedOutputStream(fos, 64 * 1024);
+                escritor.escribir(salida);
+                salida.flush();
+                fos.getChannel().force(true);
+            }
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        sincronizarDirectorio(directorio);
+    }
+
+    /**
+     * Fuerza al disco la entrada de directorio del renombrado. No todos los sistemas
+     * permiten abrir un directorio (por ejemplo Windows), por lo que es de mejor esfuerzo.
+     */
+    private static void sincronizarDirectorio(Path directorio) {
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // El renombrado ya es visible; solo se pierde la garantía ante un corte de energía
+        }
     }
 
     /**
@@ -39,8 +131,276 @@ public class ArchivoUtil {
         return Files.readAllLines(path);
     }
 
+    /**
+     * Lee un archivo de texto UTF-8 en bloques de líneas, sin cargarlo completo en memoria.
+     * Cada bloque se entrega al consumidor apenas se completa; el último puede ser más corto.
+     *
+     * @param ruta            Ruta completa del archivo.
+     * @param lineasPorBloque Máximo de líneas por bloque.
+     * @param consumidor      Recibe cada bloque en orden.
+     * @return Cantidad total de líneas leídas.
+     * @throws IOException si ocurre un error al leer el archivo o lo lanza el consumidor.
+     */
+    public static long leerLineasPorBloques(String ruta, int lineasPorBloque, ConsumidorLineas consumidor)
+            throws IOException {
+        if (lineasPorBloque <= 0) throw new IllegalArgumentException("El tamaño de bloque debe ser positivo");
+        long leidas = 0;
+        try (BufferedReader lector = Files.newBufferedReader(Paths.get(ruta), StandardCharsets.UTF_8)) {
+            List<String> bloque = new ArrayList<>(lineasPorBloque);
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                bloque.add(linea);
+                if (bloque.size() == lineasPorBloque) {
+                    consumidor.aceptar(bloque, leidas + 1);
+                    leidas += bloque.size();
+                    bloque = new ArrayList<>(lineasPorBloque);
+                }
+            }
+            if (!bloque.isEmpty()) {
+                consumidor.aceptar(bloque, leidas + 1);
+                leidas += bloque.size();
+            }
+        }
+        return leidas;
+    }
+
+    /**
+     * Guarda una lista de registros en un archivo binario usando un codec campo a campo.
+     * Formato: {@code [int mágico][short formato][int versión codec]} seguido de cada
+     * registro como {@code [int largo][int CRC32C][bytes]}. Las sumas no se comprueban en la carga
+     * normal sino con {@link IntegridadRegistros}, que también permite recuperar los registros sanos.
+     *
+     * @param ruta      Ruta completa del archivo.
+     * @param registros Registros a guardar.
+     * @param codec     Codec que escribe cada registro.
+     * @throws IOException si ocurre un error al escribir el archivo.
+     */
+    public static <T> void guardarRegistros(String ruta, Collection<T> registros, CodecBinario<T> codec) throws IOException {
+        guardarRegistros(ruta, registros, codec, Compresion.NINGUNA);
+    }
+
+    /**
+     * Guarda una lista de registros con la compresión indicada. Sin compresión se usa el formato
+     * de {@link #guardarRegistros(String, Collection, CodecBinario)}; con compresión, los registros se
+     * agrupan en bloques de {@value BloquesRegistros#TAMANIO_BLOQUE_POR_DEFECTO} bytes comprimidos
+     * de forma independiente, seguidos de un índice de bloques (ver {@link LectorBloques}).
+     * La lectura con {@link #cargarRegistros} y {@link CursorRegistros} es transparente.
+     *
+     * @param ruta       Ruta completa del archivo.
+     * @param registros  Registros a guardar.
+     * @param codec      Codec que escribe cada registro.
+     * @param compresion Compresión del archivo.
+     * @throws IOException si ocurre un error al escribir el archivo.
+     */
+    public static <T> void guardarRegistros(String ruta, Collection<T> registros, CodecBinario<T> codec,
+                                            Compresion compresion) throws IOException {
+        guardarRegistros(ruta, registros, codec, compresion, BloquesRegistros.TAMANIO_BLOQUE_POR_DEFECTO);
+    }
+
+    /**
+     * Igual que {@link #guardarRegistros(String, Collection, CodecBinario, Compresion)} con un tamaño de
+     * bloque explícito. Bloques más chicos permiten saltos más finos a costa de peor compresión.
+     *
+     * @param tamanioBloque Bytes sin comprimir acumulados antes de cerrar cada bloque.
+     */
+    public static <T> void guardarRegistros(String ruta, Collection<T> registros, CodecBinario<T> codec,
+                                            Compresion compresion, int tamanioBloque) throws IOException {
+        if (ruta == null || ruta.isEmpty() || registros == null) return;
+        if (tamanioBloque <= 0) throw new IllegalArgumentException("El tamaño de bloque debe ser positivo");
+
+        BufferRegistro buffer = new BufferRegistro();
+        DataOutputStream salidaRegistro = new DataOutputStream(buffer);
+
+        if (compresion == null || compresion == Compresion.NINGUNA) {
+            escribirAtomico(ruta, salida -> {
+                DataOutputStream out = new DataOutputStream(salida);
+                out.writeInt(MAGIA_REGISTROS);
+                out.writeShort(FORMATO_VERIFICADO);
+                out.writeInt(codec.getVersion());
+
+                for (T registro : registros) {
+                    buffer.reset();
+                    codec.escribir(salidaRegistro, registro);
+                    out.writeInt(buffer.size());
+                    out.writeInt(buffer.sumaVerificacion());
+                    buffer.writeTo(out);
+                }
+                out.flush();
+            });
+            return;
+        }
+
+        escribirAtomico(ruta, salida -> {
+            BloquesRegistros.Escritor escritor = new BloquesRegistros.Escritor(
+                    new DataOutputStream(salida), codec.getVersion(), compresion, tamanioBloque);
+            for (T registro : registros) {
+                buffer.reset();
+                codec.escribir(salidaRegistro, registro);
+                escritor.agregar(buffer);
+            }
+            escritor.terminar();
+        });
+    }
+
+    /**
+     * Carga todos los registros de un archivo escrito con {@link #guardarRegistros}.
+     * Si el archivo fue escrito con la serialización por defecto de Java (formato anterior),
+     * se lee con {@link ObjectInputStream} para permitir la migración.
+     *
+     * @param ruta  Ruta completa del archivo.
+     * @param codec Codec que lee cada registro.
+     * @return Lista de registros. Si el archivo no existe, retorna una lista vacía.
+     * @throws IOException            si ocurre un error de lectura o el formato es inválido.
+     * @throws ClassNotFoundException si un archivo en formato anterior contiene clases desconocidas.
+     */
+    public static <T> List<T> cargarRegistros(String ruta, CodecBinario<T> codec)
+            throws IOException, ClassNotFoundException {
+        if (ruta == null || ruta.isEmpty()) return new ArrayList<>();
+        File archivo = new File(ruta);
+        if (!archivo.exists() || archivo.length() == 0) return new ArrayList<>();
+
+        try (InputStream in = new FileInputStream(archivo)) {
+            return leerRegistros(in, archivo.length(), ruta, codec);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> leerRegistros(InputStream origen, long tamanio, String ruta, CodecBinario<T> codec)
+            throws IOException, ClassNotFoundException {
+        List<T> registros = new ArrayList<>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(origen, 64 * 1024));
+
+        in.mark(2);
+        if (in.readShort() == MAGIA_SERIALIZACION_JAVA) {
+            in.reset();
+            Object objeto = new ObjectInputStream(in).readObject();
+            return objeto instanceof List<?> ? new ArrayList<>((List<T>) objeto) : registros;
+        }
+        in.reset();
+
+        Encabezado encabezado = leerEncabezado(in, tamanio, ruta);
+        int version = encabezado.versionCodec;
+        byte[] bytes = new byte[256];
+        int largo;
+        while ((largo = encabezado.leerLargo()) >= 0) {
+            if (largo > bytes.length) bytes = new byte[Math.max(largo, bytes.length * 2)];
+            encabezado.cuerpo.readFully(bytes, 0, largo);
+            registros.add(decodificar(codec, bytes, largo, version));
+        }
+        return registros;
+    }
+
+    /**
+     * Encabezado leído de un archivo de registros.
+     */
+    static final class Encabezado {
+        /** Formato contenedor del archivo. */
+        final short formato;
+        /** Versión del codec con la que se escribieron los registros. */
+        final int versionCodec;
+        /** Compresión del archivo. */
+        final Compresion compresion;
+        /** Flujo con los registros, ya descomprimidos si corresponde. */
+        final DataInputStream cuerpo;
+        private final long tamanio;
+        private final String ruta;
+
+        Encabezado(short formato, int versionCodec, Compresion compresion, DataInputStream cuerpo,
+                   long tamanio, String ruta) {
+            this.formato = formato;
+            this.versionCodec = versionCodec;
+            this.compresion = compresion;
+            this.cuerpo = cuerpo;
+            this.tamanio = tamanio;
+            this.ruta = ruta;
+        }
+
+        /**
+         * Indica si cada registro sin comprimir lleva su propia suma de verificación.
+         */
+        boolean registrosConSuma() {
+            return formato == FORMATO_VERIFICADO;
+        }
+
+        /**
+         * Lee el enmarcado del siguiente registro y devuelve su largo, o -1 al final del archivo.
+         * La suma de verificación se descarta: la carga normal no la comprueba. Un largo imposible
+         * (mayor que el archivo o, en los comprimidos, que lo que resta del bloque, ya que los
+         * registros no cruzan bloques) se rechaza antes de reservar memoria para el registro.
+         */
+        int leerLargo() throws IOException {
+            int largo;
+            try {
+                largo = cuerpo.readInt();
+            } catch (EOFException e) {
+                return -1;
+            }
+            long maximo = compresion == Compresion.NINGUNA ? tamanio : cuerpo.available();
+            if (largo < 0 || largo > maximo) {
+                throw new IOException("Largo de registro inválido en " + ruta + ": " + largo);
+            }
+            if (registrosConSuma()) cuerpo.readInt();
+            return largo;
+        }
+    }
+
+    /**
+     * Buffer de un registro codificado que expone sus bytes para calcular la suma sin copiarlos.
+     */
+    static final class BufferRegistro extends ByteArrayOutputStream {
+        private final CRC32C crc = new CRC32C();
+
+        BufferRegistro() {
+            super(256);
+        }
+
+        int sumaVerificacion() {
+            crc.reset();
+            crc.update(buf, 0, count);
+            return (int) crc.getValue();
+        }
+    }
+
+    /**
+     * Lee y valida el encabezado de un archivo de registros. En archivos comprimidos el cuerpo
+     * devuelto descomprime los bloques a medida que se lee, por lo que los registros se recorren
+     * igual que en un archivo sin compresión.
+     *
+     * @param tamanio tamaño del archivo, que acota el largo de los registros y bloques
+     */
+    static Encabezado leerEncabezado(DataInputStream in, long tamanio, String ruta) throws IOException {
+        if (in.readInt() != MAGIA_REGISTROS) {
+            throw new IOException("El archivo no tiene formato de registros: " + ruta);
+        }
+        short formato = in.readShort();
+        if (formato == VERSION_FORMATO || formato == FORMATO_VERIFICADO) {
+            return new Encabezado(formato, in.readInt(), Compresion.NINGUNA, in, tamanio, ruta);
+        }
+        if (BloquesRegistros.esFormatoBloques(formato)) {
+            int version = in.readInt();
+            Compresion compresion = Compresion.desdeCodigo(in.readByte());
+            in.readInt(); // tamaño de bloque, solo informativo al leer en orden
+            DataInputStream cuerpo = new DataInputStream(new BloquesRegistros.Entrada(in, formato, tamanio));
+            return new Encabezado(formato, version, compresion, cuerpo, tamanio, ruta);
+        }
+        throw new IOException("Versión de formato de archivo no soportada en " + ruta + ": " + formato);
+    }
+
+    /**
+     * Decodifica un registro desde un arreglo de bytes. Los errores de validación del modelo
+     * se informan como {@link IOException} porque indican datos persistidos inválidos.
+     */
+    static <T> T decodificar(CodecBinario<T> codec, byte[] bytes, int largo, int version) throws IOException {
+        try {
+            return codec.leer(new DataInputStream(new ByteArrayInputStream(bytes, 0, largo)), version);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IOException("Registro inválido: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Guarda un objeto serializable en un archivo binario.
+     * Para listas de entidades del modelo se debe preferir {@link #guardarRegistros}.
      *
      * @param ruta   Ruta completa del archivo.
      * @param objeto Objeto a guardar. Debe implementar Serializable.
@@ -48,9 +408,11 @@ public class ArchivoUtil {
      */
     public static void guardarObjeto(String ruta, Object objeto) throws IOException {
         if (ruta == null || ruta.isEmpty() || objeto == null) return;
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(ruta))) {
+        escribirAtomico(ruta, salida -> {
+            ObjectOutputStream oos = new ObjectOutputStream(salida);
             oos.writeObject(objeto);
-        }
+            oos.flush();
+        });
     }
 
     /**
@@ -0,0 +1,268 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.CRC32C;
+import java.util.zip.Inflater;
+
+/**
+ * Enmarcado en bloques de los archivos de registros comprimidos (formato contenedor 4; el formato 2
+ * anterior es igual pero sin suma de verificación por bloque y solo se lee).
+ *
+ * <p>Tras el encabezado {@code [int mágico][short formato][int versión codec][byte compresión][int tamaño bloque]}
+ * vienen los bloques {@code [int largo comprimido][int largo original][int registros][int CRC32C][bytes]},
+ * donde la suma cubre los bytes comprimidos, una marca de fin
+ * {@code [int -1]}, el índice {@code [int bloques]} seguido de {@code [long posición][int registros]} por bloque
+ * y, al final, la posición del índice como {@code [long]}. Cada bloque contiene registros completos
+ * {@code [int largo][bytes]} y se comprime de forma independiente, de modo que un lector puede ir
+ * directamente a cualquier bloque usando el índice.</p>
+ */
+final class BloquesRegistros {
+
+    /** Formato anterior, sin suma de verificación por bloque. */
+    static final short FORMATO_BLOQUES = 2;
+    static final short FORMATO_BLOQUES_VERIFICADO = 4;
+    static final int TAMANIO_BLOQUE_POR_DEFECTO = 64 * 1024;
+    static final int FIN_BLOQUES = -1;
+    /** Proporción máxima entre los datos descomprimidos y comprimidos que produce deflate. */
+    static final int EXPANSION_MAXIMA = 1032;
+    /** Bytes del encabezado del archivo hasta el primer bloque. */
+    static final int TAMANIO_ENCABEZADO = Integer.BYTES + Short.BYTES + Integer.BYTES + 1 + Integer.BYTES;
+
+    private BloquesRegistros() {
+    }
+
+    static boolean esFormatoBloques(short formato) {
+        return formato == FORMATO_BLOQUES || formato == FORMATO_BLOQUES_VERIFICADO;
+    }
+
+    /**
+     * Bytes de la cabecera de cada bloque: largo comprimido, largo original, cantidad de registros
+     * y, en el formato actual, la suma de verificación.
+     */
+    static int cabeceraBloque(short formato) {
+        return (formato == FORMATO_BLOQUES_VERIFICADO ? 4 : 3) * Integer.BYTES;
+    }
+
+    /**
+     * Verifica que los largos de la cabecera de un bloque sean posibles antes de reservar memoria:
+     * el bloque comprimido cabe en el archivo y el original no excede la expansión máxima de deflate.
+     */
+    static void validarLargos(int largoComprimido, int largoOriginal, long tamanioArchivo) throws IOException {
+        if (largoComprimido < 0 || largoOriginal < 0 || largoComprimido > tamanioArchivo
+                || largoOriginal > (long) largoComprimido * EXPANSION_MAXIMA + 1024) {
+            throw new IOException("Cabecera de bloque inválida: " + largoComprimido + " / " + largoOriginal);
+        }
+    }
+
+    static int sumaVerificacion(byte[] bytes, int desde, int largo) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, desde, largo);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Agrupa registros en bloques, los comprime y escribe el índice al terminar.
+     */
+    static final class Escritor {
+
+        private final DataOutputStream salida;
+        private final int tamanioBloque;
+        private final Deflater deflater;
+
+        private final ByteArrayOutputStream bloque;
+        private final DataOutputStream datosBloque;
+        private byte[] comprimido;
+        private int registrosBloque;
+
+        private long posicion;
+        private final List<Long> posiciones = new ArrayList<>();
+        private final List<Integer> registrosPorBloque = new ArrayList<>();
+
+        /**
+         * Escribe el encabezado del archivo.
+         */
+        Escritor(DataOutputStream salida, int versionCodec, Compresion compresion, int tamanioBloque) throws IOException {
+            this.salida = salida;
+            this.tamanioBloque = tamanioBloque;
+            this.deflater = new Deflater(compresion.getNivel());
+            this.bloque = new ByteArrayOutputStream(tamanioBloque + 1024);
+            this.datosBloque = new DataOutputStream(bloque);
+            this.comprimido = new byte[tamanioBloque];
+
+            salida.writeInt(ArchivoUtil.MAGIA_REGISTROS);
+            salida.writeShort(FORMATO_BLOQUES_VERIFICADO);
+            salida.writeInt(versionCodec);
+            salida.writeByte(compresion.getCodigo());
+            salida.writeInt(tamanioBloque);
+            posicion = TAMANIO_ENCABEZADO;
+        }
+
+        /**
+         * Agrega un registro al bloque actual; el bloque se escribe al alcanzar el tamaño configurado.
+         */
+        void agregar(ByteArrayOutputStream registro) throws IOException {
+            datosBloque.writeInt(registro.size());
+            registro.writeTo(datosBloque);
+            registrosBloque++;
+            if (bloque.size() >= tamanioBloque) {
+                escribirBloque();
+            }
+        }
+
+        /**
+         * Escribe el último bloque, la marca de fin y el índice. Libera el compresor.
+         */
+        void terminar() throws IOException {
+            try {
+                if (registrosBloque > 0) escribirBloque();
+                salida.writeInt(FIN_BLOQUES);
+                long posicionIndice = posicion + Integer.BYTES;
+                salida.writeInt(posiciones.size());
+                for (int i = 0; i < posiciones.size(); i++) {
+                    salida.writeLong(posiciones.get(i));
+                    salida.writeInt(registrosPorBloque.get(i));
+                }
+                salida.writeLong(posicionIndice);
+                salida.flush();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void escribirBloque() throws IOException {
+            byte[] original = bloque.toByteArray();
+            deflater.reset();
+            deflater.setInput(original);
+            deflater.finish();
+            int largo = 0;
+            while (!deflater.finished()) {
+                if (largo == comprimido.length) {
+                    comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+                }
+                largo += deflater.deflate(comprimido, largo, comprimido.length - largo);
+            }
+
+            posiciones.add(posicion);
+            registrosPorBloque.add(registrosBloque);
+            salida.writeInt(largo);
+            salida.writeInt(original.length);
+            salida.writeInt(registrosBloque);
+            salida.writeInt(sumaVerificacion(comprimido, 0, largo));
+            salida.write(comprimido, 0, largo);
+            posicion += cabeceraBloque(FORMATO_BLOQUES_VERIFICADO) + largo;
+
+            bloque.reset();
+            registrosBloque = 0;
+        }
+    }
+
+    /**
+     * Flujo que recorre los bloques en orden y entrega los registros descomprimidos, tal como
+     * aparecerían en un archivo sin compresión. Termina en la marca de fin de bloques.
+     */
+    static final class Entrada extends InputStream {
+
+        private final DataInputStream origen;
+        private final boolean conSuma;
+        private final long tamanioArchivo;
+        private final Inflater inflater = new Inflater();
+        private byte[] comprimido = new byte[0];
+        private byte[] actual = new byte[0];
+        private int posicion;
+        private int limite;
+        private boolean terminado;
+
+        Entrada(DataInputStream origen, short formato, long tamanioArchivo) {
+            this.origen = origen;
+            this.conSuma = formato == FORMATO_BLOQUES_VERIFICADO;
+            this.tamanioArchivo = tamanioArchivo;
+        }
+
+        /**
+         * Bytes que quedan en el bloque actual. Los registros no cruzan bloques, por lo que acota
+         * el largo del siguiente registro.
+         */
+        @Override
+        public int available() {
+            return limite - posicion;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (posicion >= limite && !cargarBloque()) return -1;
+            return actual[posicion++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int largo) throws IOException {
+            if (largo == 0) return 0;
+            if (posicion >= limite && !cargarBloque()) return -1;
+            int copiados = Math.min(largo, limite - posicion);
+            System.arraycopy(actual, posicion, destino, desde, copiados);
+            posicion += copiados;
+            return copiados;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            origen.close();
+        }
+
+        private boolean cargarBloque() throws IOException {
+            if (terminado) return false;
+            int largoComprimido;
+            int largoOriginal;
+            try {
+                largoComprimido = origen.readInt();
+                if (largoComprimido == FIN_BLOQUES) {
+                    terminado = true;
+                    return false;
+                }
+                largoOriginal = origen.readInt();
+                origen.readInt(); // cantidad de registros, usada solo por el índice
+                // La suma no se comprueba en la lectura normal; ver IntegridadRegistros
+                if (conSuma) origen.readInt();
+                validarLargos(largoComprimido, largoOriginal, tamanioArchivo);
+                if (comprimido.length < largoComprimido) comprimido = new byte[largoComprimido];
+                origen.readFully(comprimido, 0, largoComprimido);
+            } catch (EOFException e) {
+                // Un archivo truncado no debe confundirse con el fin normal de los registros
+                throw new IOException("Archivo comprimido truncado", e);
+            }
+            if (actual.length < largoOriginal) actual = new byte[largoOriginal];
+            descomprimir(inflater, comprimido, largoComprimido, actual, largoOriginal);
+            posicion = 0;
+            limite = largoOriginal;
+            return true;
+        }
+    }
+
+    /**
+     * Descomprime un bloque completo y verifica que tenga el largo esperado.
+     */
+    static void descomprimir(Inflater inflater, byte[] comprimido, int largoComprimido,
+                             byte[] destino, int largoOriginal) throws IOException {
+        inflater.reset();
+        inflater.setInput(comprimido, 0, largoComprimido);
+        try {
+            int total = 0;
+            while (total < largoOriginal && !inflater.finished()) {
+                int leidos = inflater.inflate(destino, total, largoOriginal - total);
+                if (leidos == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                total += leidos;
+            }
+            if (total != largoOriginal) {
+                throw new IOException("Bloque comprimido corrupto: se esperaban " + largoOriginal
+                        + " bytes y se obtuvieron " + total);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloque comprimido corrupto", e);
+        }
+    }
+}
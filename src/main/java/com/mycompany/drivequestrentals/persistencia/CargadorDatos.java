@@ -0,0 +1,142 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Apertura inicial de los repositorios de una {@link FabricaRepositorios}.
+ *
+ * <p>Los repositorios se abren en paralelo en un pool de hilos acotado, respetando sus referencias:
+ * clientes y vehículos primero; mantenimientos y reservas cuando ambos están abiertos. Los filtros de
+ * claves de clientes y reservas se abren (o se reconstruyen) apenas está abierto su repositorio.</p>
+ *
+ * <p>Los historiales de arriendos y pagos no se abren aquí: abrirlos recorre las claves de todos sus
+ * segmentos, así que el arranque dependería del tamaño del historial. La fábrica los abre en el primer
+ * llamado a {@link FabricaRepositorios#arriendos()} o {@link FabricaRepositorios#pagos()}.</p>
+ *
+ * <p>Se registra el tiempo de apertura de cada repositorio para poder vigilar la latencia de arranque.</p>
+ */
+public class CargadorDatos implements AutoCloseable {
+
+    /** Máximo de hilos usados para la carga, independiente de la cantidad de núcleos. */
+    private static final int MAXIMO_HILOS = 3;
+
+    private final FabricaRepositorios fabrica;
+    private final ExecutorService executor;
+    private final Map<String, Long> tiemposNanos = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private CompletableFuture<Void> carga;
+
+    public CargadorDatos(FabricaRepositorios fabrica) {
+        this(fabrica, Math.min(MAXIMO_HILOS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param fabrica fábrica cuyos repositorios se abren
+     * @param hilos   tamaño del pool de carga
+     */
+    public CargadorDatos(FabricaRepositorios fabrica, int hilos) {
+        if (hilos < 1) throw new IllegalArgumentException("Se requiere al menos un hilo de carga");
+        this.fabrica = fabrica;
+        this.executor = Executors.newFixedThreadPool(hilos, new FabricaHilos());
+    }
+
+    /**
+     * Inicia la apertura de los repositorios de la fábrica, salvo los historiales. No bloquea.
+     */
+    public synchronized CargadorDatos iniciar() {
+        if (carga != null) return this;
+
+        CompletableFuture<?> clientes = tarea("clientes", fabrica::clientes);
+        CompletableFuture<?> vehiculos = tarea("vehiculos", fabrica::vehiculos);
+        CompletableFuture<Void> referenciados = CompletableFuture.allOf(clientes, vehiculos);
+
+        CompletableFuture<?> filtroClientes =
+                clientes.thenCompose(listo -> tarea("clientes (filtro)", fabrica::filtroClientes));
+        CompletableFuture<?> mantenimientos =
+                referenciados.thenCompose(listo -> tarea("mantenimientos", fabrica::mantenimientos));
+        CompletableFuture<?> filtroReservas = referenciados
+                .thenCompose(listo -> tarea("reservas", fabrica::reservas))
+                .thenCompose(listo -> tarea("reservas (filtro)", fabrica::filtroReservas));
+
+        carga = CompletableFuture.allOf(filtroClientes, mantenimientos, filtroReservas);
+        return this;
+    }
+
+    /**
+     * Inicia la apertura si hace falta y espera a que los repositorios estén abiertos.
+     *
+     * @throws java.io.UncheckedIOException si algún repositorio no se pudo abrir
+     */
+    public void esperar() {
+        CompletableFuture<Void> pendiente;
+        synchronized (this) {
+            iniciar();
+            pendiente = carga;
+        }
+        try {
+            pendiente.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Tiempo de apertura de cada repositorio ya abierto, en orden de término.
+     */
+    public Map<String, Duration> getTiemposCarga() {
+        Map<String, Duration> tiempos = new LinkedHashMap<>();
+        synchronized (tiemposNanos) {
+            tiemposNanos.forEach((archivo, nanos) -> tiempos.put(archivo, Duration.ofNanos(nanos)));
+        }
+        return tiempos;
+    }
+
+    /**
+     * Resumen legible de los tiempos de carga, una línea por repositorio.
+     */
+    public String resumenTiempos() {
+        StringBuilder sb = new StringBuilder("⏱️ Tiempos de carga:");
+        getTiemposCarga().forEach((archivo, tiempo) ->
+                sb.append(String.format("%n  %-28s %8.1f ms", archivo, tiempo.toNanos() / 1e6)));
+        return sb.toString();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // ---------- MÉTODOS AUXILIARES ----------
+
+    private <T> CompletableFuture<T> tarea(String nombre, Supplier<T> apertura) {
+        return CompletableFuture.supplyAsync(() -> {
+            long inicio = System.nanoTime();
+            try {
+                return apertura.get();
+            } finally {
+                tiemposNanos.put(nombre, System.nanoTime() - inicio);
+            }
+        }, executor);
+    }
+
+    /**
+     * Hilos demonio con nombre, para que la carga no impida cerrar la aplicación.
+     */
+    private static final class FabricaHilos implements ThreadFactory {
+        private final AtomicInteger contador = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable tarea) {
+            Thread hilo = new Thread(tarea, "carga-datos-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura de solo anexado con commit agrupado (group commit) sobre un archivo.
+ * Cada llamada a {@link #anexar(byte[])} retorna solo cuando sus bytes están en disco, pero las
+ * solicitudes concurrentes de varios hilos que llegan dentro de una ventana corta se escriben
+ * juntas y se confirman con un único {@link FileChannel#force(boolean)}.
+ *
+ * <p>El primer hilo de cada lote actúa como líder: espera la ventana, toma todas las solicitudes
+ * acumuladas, las escribe y sincroniza. Los demás hilos del lote esperan a que el líder termine.
+ * Mientras un lote se sincroniza, las nuevas solicitudes forman el lote siguiente.</p>
+ */
+public class CommitGrupal implements Closeable {
+
+    /** Ventana por defecto durante la que el líder espera más solicitudes. */
+    public static final long VENTANA_POR_DEFECTO_MICROS = 2_000;
+
+    private final FileChannel canal;
+    private final long ventanaNanos;
+
+    private final Object monitor = new Object();
+    private final ReentrantLock escritura = new ReentrantLock();
+    private List<Solicitud> pendientes = new ArrayList<>();
+    private boolean hayLider;
+
+    private final AtomicLong solicitudesConfirmadas = new AtomicLong();
+    private final AtomicLong sincronizaciones = new AtomicLong();
+
+    /**
+     * Abre (o crea) el archivo en modo anexado.
+     *
+     * @param archivo       archivo de destino
+     * @param ventanaMicros tiempo que el líder de un lote espera nuevas solicitudes (0 = sin espera)
+     * @throws IOException si no se puede abrir el archivo
+     */
+    public CommitGrupal(Path archivo, long ventanaMicros) throws IOException {
+        if (ventanaMicros < 0) {
+            throw new IllegalArgumentException("La ventana no puede ser negativa");
+        }
+        this.canal = FileChannel.open(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.ventanaNanos = TimeUnit.MICROSECONDS.toNanos(ventanaMicros);
+    }
+
+    public CommitGrupal(Path archivo) throws IOException {
+        this(archivo, VENTANA_POR_DEFECTO_MICROS);
+    }
+
+    /**
+     * Agrega bytes al final del archivo y espera a que estén sincronizados con el disco.
+     * Los bytes de una misma llamada nunca se intercalan con los de otra.
+     *
+     * @param datos bytes a anexar
+     * @throws IOException si falla la escritura o la sincronización del lote
+     */
+    public void anexar(byte[] datos) throws IOException {
+        Solicitud solicitud = new Solicitud(datos);
+        boolean lider;
+        synchronized (monitor) {
+            pendientes.add(solicitud);
+            lider = !hayLider;
+            hayLider = true;
+        }
+
+        if (lider) {
+            confirmarLote();
+        } else {
+            esperar(solicitud);
+        }
+
+        if (solicitud.error != null) {
+            throw new IOException("No se pudo confirmar la escritura en el archivo", solicitud.error);
+        }
+    }
+
+    /**
+     * Cantidad de solicitudes confirmadas en disco.
+     */
+    public long getSolicitudesConfirmadas() {
+        return solicitudesConfirmadas.get();
+    }
+
+    /**
+     * Cantidad de llamadas a {@link FileChannel#force(boolean)} realizadas.
+     */
+    public long getSincronizaciones() {
+        return sincronizaciones.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        escritura.lock();
+        try {
+            canal.close();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void confirmarLote() {
+        if (ventanaNanos > 0) {
+            LockSupport.parkNanos(ventanaNanos);
+        }
+
+        escritura.lock();
+        try {
+            List<Solicitud> lote;
+            synchronized (monitor) {
+                lote = pendientes;
+                pendientes = new ArrayList<>();
+                hayLider = false;
+            }
+
+            IOException error = null;
+            try {
+                ByteBuffer[] buffers = new ByteBuffer[lote.size()];
+                long total = 0;
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = ByteBuffer.wrap(lote.get(i).datos);
+                    total += buffers[i].remaining();
+                }
+                while (total > 0) {
+                    total -= canal.write(buffers);
+                }
+                canal.force(false);
+                sincronizaciones.incrementAndGet();
+                solicitudesConfirmadas.addAndGet(lote.size());
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (monitor) {
+                for (Solicitud pendiente : lote) {
+                    pendiente.error = error;
+                    pendiente.confirmada = true;
+                }
+                monitor.notifyAll();
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void esperar(Solicitud solicitud) throws IOException {
+        synchronized (monitor) {
+            while (!solicitud.confirmada) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrumpido mientras se esperaba la confirmación", e);
+                }
+            }
+        }
+    }
+
+    private static final class Solicitud {
+        private final byte[] datos;
+        private boolean confirmada;
+        private IOException error;
+
+        private Solicitud(byte[] datos) {
+            this.datos = datos;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * Compresión de los archivos de registros, elegible por archivo.
+ * Con compresión, los registros se agrupan en bloques comprimidos de forma independiente,
+ * lo que permite saltar a un bloque sin descomprimir los anteriores (ver {@link LectorBloques}).
+ */
+public enum Compresion {
+
+    /** Sin compresión: formato de registros original. */
+    NINGUNA(0, Deflater.NO_COMPRESSION),
+    /** Deflate con el nivel por defecto: mejor proporción, más CPU al escribir. */
+    DEFLATE(1, Deflater.DEFAULT_COMPRESSION),
+    /** Deflate con el nivel más rápido: menor costo al escribir, algo menos de reducción. */
+    DEFLATE_RAPIDO(2, Deflater.BEST_SPEED);
+
+    private final byte codigo;
+    private final int nivel;
+
+    Compresion(int codigo, int nivel) {
+        this.codigo = (byte) codigo;
+        this.nivel = nivel;
+    }
+
+    public byte getCodigo() {
+        return codigo;
+    }
+
+    /**
+     * Nivel de {@link Deflater} usado al comprimir cada bloque.
+     */
+    public int getNivel() {
+        return nivel;
+    }
+
+    /**
+     * Obtiene la compresión a partir del código guardado en el encabezado de un archivo.
+     *
+     * @throws IOException si el código no corresponde a ninguna compresión conocida
+     */
+    public static Compresion desdeCodigo(byte codigo) throws IOException {
+        for (Compresion compresion : values()) {
+            if (compresion.codigo == codigo) return compresion;
+        }
+        throw new IOException("Compresión desconocida: " + codigo);
+    }
+}
@@ -0,0 +1,173 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.persistencia.codec.CodecBinario;
+import com.mycompany.drivequestrentals.persistencia.codec.FiltroRegistro;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Cursor de solo avance sobre un archivo de registros escrito con {@link ArchivoUtil#guardarRegistros}.
+ * Decodifica un registro a la vez desde un canal con buffer, por lo que la memoria usada no
+ * depende del tamaño del archivo. Un {@link FiltroRegistro} se evalúa sobre los bytes de cada
+ * registro antes de decodificarlo, de modo que los registros descartados no se construyen.
+ *
+ * <p>El cursor debe cerrarse; {@link #stream()} devuelve un stream que lo cierra en {@code close()}.
+ * Los archivos en el formato de serialización anterior no se pueden recorrer registro a registro:
+ * se cargan completos y se recorren en memoria, y el filtro se evalúa sobre cada objeto codificado
+ * con la versión actual del codec, de modo que quien llama recibe los mismos registros en ambos
+ * formatos.</p>
+ *
+ * @param <T> tipo de registro
+ */
+public class CursorRegistros<T> implements Iterator<T>, Closeable {
+
+    private final CodecBinario<T> codec;
+    private final FiltroRegistro filtro;
+
+    private final ArchivoUtil.Encabezado encabezado;
+    private final Iterator<T> anterior; // solo para archivos en formato anterior
+
+    private byte[] bytes = new byte[256];
+    private T siguiente;
+    private boolean terminado;
+
+    private CursorRegistros(CodecBinario<T> codec, FiltroRegistro filtro,
+                            ArchivoUtil.Encabezado encabezado, Iterator<T> anterior) {
+        this.codec = codec;
+        this.filtro = filtro;
+        this.encabezado = encabezado;
+        this.anterior = anterior;
+        this.terminado = encabezado == null && anterior == null;
+    }
+
+    /**
+     * Abre un cursor sobre un archivo. Si el archivo no existe, el cursor queda vacío.
+     *
+     * @param ruta   ruta del archivo de registros
+     * @param codec  codec que decodifica cada registro
+     * @param filtro filtro evaluado sobre los bytes de cada registro
+     * @throws IOException            si el archivo no se puede abrir o su encabezado es inválido
+     * @throws ClassNotFoundException si un archivo en formato anterior contiene clases desconocidas
+     */
+    public static <T> CursorRegistros<T> abrir(String ruta, CodecBinario<T> codec, FiltroRegistro filtro)
+            throws IOException, ClassNotFoundException {
+        Objects.requireNonNull(codec, "El codec no puede ser null");
+        Objects.requireNonNull(filtro, "El filtro no puede ser null");
+        Path path = Paths.get(ruta);
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            return new CursorRegistros<>(codec, filtro, null, null);
+        }
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ)), 64 * 1024));
+        try {
+            in.mark(2);
+            if (in.readShort() == ArchivoUtil.MAGIA_SERIALIZACION_JAVA) {
+                in.close();
+                List<T> registros = ArchivoUtil.cargarRegistros(ruta, codec);
+                return new CursorRegistros<>(codec, filtro, null, registros.iterator());
+            }
+            in.reset();
+            return new CursorRegistros<>(codec, filtro, ArchivoUtil.leerEncabezado(in, Files.size(path), ruta), null);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException si ocurre un error al leer o decodificar el siguiente registro
+     */
+    @Override
+    public boolean hasNext() {
+        if (siguiente != null) return true;
+        if (terminado) return false;
+        try {
+            siguiente = anterior != null ? avanzarEnMemoria() : avanzar();
+        } catch (IOException e) {
+            cerrarSilenciosamente();
+            throw new UncheckedIOException(e);
+        }
+        if (siguiente == null) {
+            terminado = true;
+            cerrarSilenciosamente();
+        }
+        return siguiente != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T actual = siguiente;
+        siguiente = null;
+        return actual;
+    }
+
+    /**
+     * Stream secuencial sobre los registros restantes. Cerrar el stream cierra el cursor,
+     * por lo que se recomienda usarlo en un try-with-resources.
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::cerrarSilenciosamente);
+    }
+
+    @Override
+    public void close() throws IOException {
+        terminado = true;
+        siguiente = null;
+        if (encabezado != null) encabezado.cuerpo.close();
+    }
+
+    private T avanzar() throws IOException {
+        int version = encabezado.versionCodec;
+        int largo;
+        while ((largo = encabezado.leerLargo()) >= 0) {
+            if (largo > bytes.length) bytes = new byte[Math.max(largo, bytes.length * 2)];
+            encabezado.cuerpo.readFully(bytes, 0, largo);
+
+            if (filtro.acepta(new DataInputStream(new ByteArrayInputStream(bytes, 0, largo)), version)) {
+                return ArchivoUtil.decodificar(codec, bytes, largo, version);
+            }
+        }
+        return null;
+    }
+
+    private T avanzarEnMemoria() throws IOException {
+        // En formato anterior no hay bytes por registro: cada objeto se codifica con la versión actual
+        // para evaluar el mismo filtro que en los archivos de registros
+        ByteArrayOutputStream registro = new ByteArrayOutputStream(256);
+        while (anterior.hasNext()) {
+            T candidato = anterior.next();
+            registro.reset();
+            codec.escribir(new DataOutputStream(registro), candidato);
+            if (filtro.acepta(new DataInputStream(new ByteArrayInputStream(registro.toByteArray())), codec.getVersion())) {
+                return candidato;
+            }
+        }
+        return null;
+    }
+
+    private void cerrarSilenciosamente() {
+        try {
+            close();
+        } catch (IOException e) {
+            // El cursor ya no se usará; no hay nada que recuperar
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.persistencia.codec.CodecBinario;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario de cambios (write-ahead log) de solo anexado para un tipo de entidad.
+ * Cada inserción, actualización o eliminación se agrega al final del archivo, de modo
+ * que el costo de escritura depende del cambio y no del tamaño total de los datos.
+ * Al cargar, el diario se reproduce sobre la última instantánea guardada.
+ *
+ * <p>Formato de cada registro:
+ * {@code [byte operación][UTF clave][int versión codec][int largo][int suma][bytes entidad]}, donde la suma es
+ * un CRC32C del registro completo. Los registros escritos antes de que existiera la suma no la tienen y se
+ * distinguen por el código de operación. Lo que queda tras una caída a mitad de escritura (un registro cortado,
+ * o bytes en cero o basura al final) se ignora al reproducir y se trunca antes de anexar el primer registro
+ * nuevo. Un registro bien enmarcado cuya suma no coincide, en cambio, es un daño en medio del archivo: se omite,
+ * se informa como {@link IntegridadRegistros.RegistroCorrupto} y se siguen leyendo los siguientes.</p>
+ *
+ * <p>Cada registro queda sincronizado con el disco antes de que {@link #registrar} retorne. Los registros
+ * concurrentes de varios hilos se confirman juntos mediante {@link CommitGrupal}, con un solo fsync por lote.</p>
+ *
+ * @param <T> tipo de entidad registrada
+ */
+public class DiarioCambios<T> {
+
+    // Operación, largo de la clave, versión y largo del contenido
+    private static final int CABECERA_REGISTRO = 1 + Short.BYTES + Integer.BYTES + Integer.BYTES;
+    // Bit del código de operación que indica que el registro lleva suma de verificación
+    private static final int CON_SUMA = 0x10;
+
+    private final String archivo;
+    private final Function<T, String> extractorClave;
+    private final CodecBinario<T> codec;
+    private final long ventanaCommitMicros;
+
+    // Los registros comparten el candado de lectura; reproducir, vaciar y compactar usan el de escritura
+    private final ReadWriteLock candado = new ReentrantReadWriteLock();
+    private CommitGrupal commit;
+    private volatile List<IntegridadRegistros.RegistroCorrupto> corruptos = List.of();
+
+    /**
+     * Acción que requiere acceso exclusivo al diario (ningún registro concurrente).
+     */
+    @FunctionalInterface
+    public interface AccionExclusiva {
+        void ejecutar() throws IOException, ClassNotFoundException;
+    }
+
+    /**
+     * Crea un diario asociado a un archivo.
+     *
+     * @param archivo        ruta del archivo de diario
+     * @param extractorClave función que obtiene la clave única de cada entidad
+     * @param codec          codec con el que se escriben las entidades
+     */
+    public DiarioCambios(String archivo, Function<T, String> extractorClave, CodecBinario<T> codec) {
+        this(archivo, extractorClave, codec, CommitGrupal.VENTANA_POR_DEFECTO_MICROS);
+    }
+
+    /**
+     * Crea un diario indicando la ventana del commit agrupado.
+     *
+     * @param ventanaCommitMicros tiempo que se esperan otros registros concurrentes antes de sincronizar
+     */
+    public DiarioCambios(String archivo, Function<T, String> extractorClave, CodecBinario<T> codec,
+                         long ventanaCommitMicros) {
+        this.archivo = Objects.requireNonNull(archivo, "La ruta del diario no puede ser null");
+        this.extractorClave = Objects.requireNonNull(extractorClave, "El extractor de clave no puede ser null");
+        this.codec = Objects.requireNonNull(codec, "El codec no puede ser null");
+        this.ventanaCommitMicros = ventanaCommitMicros;
+    }
+
+    /**
+     * Agrega una operación al final del diario y espera a que quede en disco.
+     *
+     * @param operacion operación realizada
+     * @param entidad   entidad afectada (en eliminaciones solo se guarda su clave)
+     * @throws IOException si ocurre un error al escribir el archivo
+     */
+    public void registrar(OperacionDiario operacion, T entidad) throws IOException {
+        Objects.requireNonNull(operacion, "La operación no puede ser null");
+        Objects.requireNonNull(entidad, "La entidad no puede ser null");
+
+        byte[] registro = serializarRegistro(operacion, entidad);
+
+        candado.readLock().lock();
+        try {
+            commitAbierto().anexar(registro);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega la misma operación para varias entidades en una sola escritura, con un único
+     * fsync para todo el lote.
+     *
+     * @param operacion operación realizada
+     * @param entidades entidades afectadas
+     * @throws IOException si ocurre un error al escribir el archivo
+     */
+    public void registrarTodos(OperacionDiario operacion, Collection<T> entidades) throws IOException {
+        Objects.requireNonNull(operacion, "La operación no puede ser null");
+        if (entidades.isEmpty()) return;
+
+        ByteArrayOutputStream lote = new ByteArrayOutputStream(entidades.size() * 128);
+        for (T entidad : entidades) {
+            Objects.requireNonNull(entidad, "La entidad no puede ser null");
+            lote.write(serializarRegistro(operacion, entidad));
+        }
+
+        candado.readLock().lock();
+        try {
+            commitAbierto().anexar(lote.toByteArray());
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ejecuta una acción sin que se registren cambios de forma concurrente.
+     * Se usa al compactar, para que ningún cambio quede entre la lectura y el vaciado.
+     */
+    public void ejecutarExclusivo(AccionExclusiva accion) throws IOException, ClassNotFoundException {
+        candado.writeLock().lock();
+        try {
+            accion.ejecutar();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reproduce el diario sobre una instantánea y devuelve el estado resultante.
+     * Las operaciones son idempotentes, por lo que reproducir un diario ya incluido
+     * en la instantánea no altera el resultado.
+     *
+     * @param instantanea lista cargada desde el último archivo de instantánea
+     * @return lista con todos los cambios del diario aplicados
+     * @throws IOException si ocurre un error de lectura o un registro es inválido
+     */
+    public List<T> reproducir(List<T> instantanea) throws IOException {
+        candado.writeLock().lock();
+        try {
+            return reproducirSobre(instantanea);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private List<T> reproducirSobre(List<T> instantanea) throws IOException {
+        Map<String, T> estado = new LinkedHashMap<>();
+        if (instantanea != null) {
+            for (T entidad : instantanea) {
+                estado.put(extractorClave.apply(entidad), entidad);
+            }
+        }
+
+        recorrer((operacion, clave, entidad) -> {
+            if (operacion == OperacionDiario.ELIMINAR) {
+                estado.remove(clave);
+            } else {
+                estado.put(clave, entidad);
+            }
+        });
+        return new ArrayList<>(estado.values());
+    }
+
+    /**
+     * Devuelve el último estado de cada clave modificada en el diario, en orden de primera
+     * aparición. Las claves eliminadas se asocian a {@code null}. Su tamaño depende solo del
+     * diario, lo que permite superponer los cambios a una instantánea recorrida con un cursor.
+     *
+     * @throws IOException si ocurre un error de lectura o un registro es inválido
+     */
+    public Map<String, T> leerCambios() throws IOException {
+        candado.writeLock().lock();
+        try {
+            Map<String, T> cambios = new LinkedHashMap<>();
+            recorrer((operacion, clave, entidad) -> cambios.put(clave, entidad));
+            return cambios;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de registros válidos del diario, es decir, de escrituras persistidas desde la última
+     * instantánea.
+     *
+     * @throws IOException si ocurre un error de lectura
+     */
+    public int contarRegistros() throws IOException {
+        candado.writeLock().lock();
+        try {
+            int[] cantidad = new int[1];
+            recorrer((operacion, clave, entidad) -> cantidad[0]++);
+            return cantidad[0];
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve el tamaño actual del diario en bytes (0 si no existe).
+     */
+    public long tamanio() {
+        File file = new File(archivo);
+        return file.exists() ? file.length() : 0;
+    }
+
+    /**
+     * Elimina el contenido del diario. Se invoca después de escribir una instantánea
+     * que ya incluye todos sus cambios.
+     *
+     * @throws IOException si no se puede eliminar el archivo
+     */
+    public void vaciar() throws IOException {
+        candado.writeLock().lock();
+        try {
+            cerrarCommit();
+            Files.deleteIfExists(Paths.get(archivo));
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de sincronizaciones con el disco realizadas por el archivo abierto actualmente.
+     */
+    public long getSincronizaciones() {
+        CommitGrupal actual = commit;
+        return actual == null ? 0 : actual.getSincronizaciones();
+    }
+
+    /**
+     * Registros omitidos en la última lectura del diario porque su suma de verificación no coincide
+     * o su contenido no se pudo decodificar.
+     */
+    public List<IntegridadRegistros.RegistroCorrupto> getRegistrosCorruptos() {
+        return corruptos;
+    }
+
+    public String getArchivo() {
+        return archivo;
+    }
+
+    public CodecBinario<T> getCodec() {
+        return codec;
+    }
+
+    @FunctionalInterface
+    private interface VisitanteRegistro<T> {
+        void visitar(OperacionDiario operacion, String clave, T entidad);
+    }
+
+    /**
+     * Recorre los registros del diario en orden. En las eliminaciones la entidad es null.
+     * Se detiene en el primer registro que no se puede enmarcar: uno incompleto o con un código
+     * de operación o un largo imposibles. Es lo que deja una caída a mitad de escritura, ya sea un
+     * registro cortado o bytes en cero o basura al final. En los registros sin suma tampoco se puede
+     * distinguir un contenido escrito a medias, por lo que un contenido ilegible también detiene el
+     * recorrido; en los que tienen suma, el registro se omite y se informa.
+     *
+     * @param visitante receptor de cada registro, o null para solo medir la parte válida
+     * @return bytes desde el inicio del archivo que ocupan los registros enmarcados
+     */
+    private long recorrer(VisitanteRegistro<T> visitante) throws IOException {
+        File file = new File(archivo);
+        if (!file.exists()) return 0;
+
+        long tamanio = file.length();
+        long largoValido = 0;
+        List<IntegridadRegistros.RegistroCorrupto> omitidos = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (largoValido < tamanio) {
+                long restante = tamanio - largoValido;
+                OperacionDiario operacion;
+                boolean conSuma;
+                String clave;
+                int version;
+                byte[] contenido;
+                long largoRegistro;
+                CRC32C suma = new CRC32C();
+                int sumaEsperada = 0;
+                try {
+                    byte codigo = in.readByte();
+                    conSuma = (codigo & CON_SUMA) != 0;
+                    operacion = OperacionDiario.desdeCodigo((byte) (codigo & ~CON_SUMA));
+                    int cabecera = CABECERA_REGISTRO + (conSuma ? Integer.BYTES : 0);
+                    int largoClave = in.readUnsignedShort();
+                    if (cabecera + largoClave > restante) break;
+                    byte[] bytesClave = new byte[Short.BYTES + largoClave];
+                    bytesClave[0] = (byte) (largoClave >>> 8);
+                    bytesClave[1] = (byte) largoClave;
+                    in.readFully(bytesClave, Short.BYTES, largoClave);
+                    clave = DataInputStream.readUTF(new DataInputStream(new ByteArrayInputStream(bytesClave)));
+                    version = in.readInt();
+                    int largo = in.readInt();
+                    largoRegistro = cabecera + largoClave + (long) largo;
+                    if (largo < 0 || largoRegistro > restante) break;
+                    if (conSuma) {
+                        sumaEsperada = in.readInt();
+                        suma.update(codigo);
+                        suma.update(bytesClave);
+                        suma.update(ByteBuffer.allocate(2 * Integer.BYTES).putInt(version).putInt(largo).flip());
+                    }
+                    contenido = new byte[largo];
+                    in.readFully(contenido);
+                } catch (EOFException | UTFDataFormatException | IllegalArgumentException e) {
+                    break; // Registro final incompleto o bytes que no forman un registro
+                }
+                if (conSuma) {
+                    suma.update(contenido);
+                    if ((int) suma.getValue() != sumaEsperada) {
+                        omitidos.add(new IntegridadRegistros.RegistroCorrupto(largoValido, largoRegistro,
+                                "la suma de verificación no coincide"));
+                        largoValido += largoRegistro;
+                        continue;
+                    }
+                }
+                T entidad = null;
+                if (operacion != OperacionDiario.ELIMINAR) {
+                    try {
+                        entidad = ArchivoUtil.decodificar(codec, contenido, contenido.length, version);
+                    } catch (IOException e) {
+                        if (!conSuma) break; // Contenido escrito a medias
+                        omitidos.add(new IntegridadRegistros.RegistroCorrupto(largoValido, largoRegistro,
+                                "no se pudo decodificar: " + e.getMessage()));
+                        largoValido += largoRegistro;
+                        continue;
+                    }
+                }
+                if (visitante != null) visitante.visitar(operacion, clave, entidad);
+                largoValido += largoRegistro;
+            }
+        }
+
+        if (visitante != null) {
+            corruptos = Collections.unmodifiableList(omitidos);
+            if (!omitidos.isEmpty()) {
+                System.err.printf("⚠️ El diario %s tiene %d registros dañados que se omiten: %s%n",
+                        archivo, omitidos.size(), omitidos);
+            }
+            if (largoValido < tamanio) {
+                System.err.printf("⚠️ El diario %s termina con %d bytes que no forman un registro; se ignoran%n",
+                        archivo, tamanio - largoValido);
+            }
+        }
+        return largoValido;
+    }
+
+    private synchronized CommitGrupal commitAbierto() throws IOException {
+        if (commit == null) {
+            descartarRegistroIncompleto();
+            commit = new CommitGrupal(Paths.get(archivo), ventanaCommitMicros);
+        }
+        return commit;
+    }
+
+    /**
+     * Trunca lo que sigue al último registro válido, dejado por una caída, para que los registros
+     * nuevos no queden a continuación de bytes inválidos.
+     */
+    private void descartarRegistroIncompleto() throws IOException {
+        File file = new File(archivo);
+        if (!file.exists()) return;
+
+        long largoValido = recorrer(null);
+        if (largoValido < file.length()) {
+            System.err.printf("⚠️ Se descartan %d bytes inválidos al final del diario %s%n",
+                    file.length() - largoValido, archivo);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(largoValido);
+            }
+        }
+    }
+
+    private synchronized void cerrarCommit() throws IOException {
+        if (commit != null) {
+            commit.close();
+            commit = null;
+        }
+    }
+
+    private byte[] serializarRegistro(OperacionDiario operacion, T entidad) throws IOException {
+        ByteArrayOutputStream contenido = new ByteArrayOutputStream(256);
+        if (operacion != OperacionDiario.ELIMINAR) {
+            codec.escribir(new DataOutputStream(contenido), entidad);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(contenido.size() + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(operacion.getCodigo() | CON_SUMA);
+        out.writeUTF(extractorClave.apply(entidad));
+        out.writeInt(codec.getVersion());
+        out.writeInt(contenido.size());
+        int largoCabecera = bytes.size();
+        out.writeInt(0); // Lugar de la suma, que se calcula con el registro completo
+        contenido.writeTo(out);
+
+        byte[] registro = bytes.toByteArray();
+        CRC32C suma = new CRC32C();
+        suma.update(registro, 0, largoCabecera);
+        suma.update(registro, largoCabecera + Integer.BYTES, contenido.size());
+        ByteBuffer.wrap(registro).putInt(largoCabecera, (int) suma.getValue());
+        return registro;
+    }
+}
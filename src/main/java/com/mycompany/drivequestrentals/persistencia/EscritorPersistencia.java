@@ -0,0 +1,286 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Hilo escritor de la persistencia. Los repositorios envueltos con {@link #envolver} encolan sus
+ * escrituras en una cola acotada y retornan de inmediato; este hilo las toma, combina las escrituras
+ * repetidas de una misma entidad dentro del intervalo de vaciado y las aplica en lote sobre el
+ * repositorio de destino (una sola llamada a {@link Repositorio#guardarTodos} por repositorio y lote).
+ *
+ * <p>Cada escritura devuelve un {@link CompletableFuture} que se completa cuando el repositorio de
+ * destino la confirmó, es decir, cuando es durable si el destino lo es. Cuando la cola está llena
+ * quien escribe espera (contrapresión); las esperas y la ocupación de la cola se registran en
+ * {@link MetricasEscritura}.</p>
+ */
+public class EscritorPersistencia implements Closeable {
+
+    /** Capacidad por defecto de la cola de escrituras. */
+    public static final int CAPACIDAD_POR_DEFECTO = 10_000;
+    /** Intervalo por defecto durante el que se acumulan escrituras antes de aplicar un lote. */
+    public static final long INTERVALO_POR_DEFECTO_MILLIS = 5;
+    /** Máximo de solicitudes tomadas de la cola por lote. */
+    private static final int MAXIMO_LOTE = 4_096;
+
+    private final BlockingQueue<Solicitud> cola;
+    private final int capacidad;
+    private final long intervaloNanos;
+    private final Thread hilo;
+    private volatile boolean cerrado;
+    // Hilos dentro de encolar(); close() no termina mientras alguno pueda dejar una solicitud en la cola
+    private final AtomicInteger productores = new AtomicInteger();
+
+    private final AtomicLong encoladas = new AtomicLong();
+    private final AtomicLong aplicadas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong fallidas = new AtomicLong();
+    private final AtomicLong esperas = new AtomicLong();
+    private final AtomicLong nanosEsperando = new AtomicLong();
+    private final AtomicInteger ocupacionMaxima = new AtomicInteger();
+
+    public EscritorPersistencia() {
+        this(CAPACIDAD_POR_DEFECTO, INTERVALO_POR_DEFECTO_MILLIS);
+    }
+
+    /**
+     * @param capacidad       solicitudes que admite la cola antes de bloquear a quien escribe
+     * @param intervaloMillis tiempo que se acumulan escrituras para combinarlas en un lote
+     */
+    public EscritorPersistencia(int capacidad, long intervaloMillis) {
+        if (capacidad < 1) throw new IllegalArgumentException("La capacidad debe ser positiva");
+        if (intervaloMillis < 0) throw new IllegalArgumentException("El intervalo no puede ser negativo");
+        this.capacidad = capacidad;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMillis);
+        // Demonio: el cierre ordenado lo hace close(), normalmente desde el gancho de apagado
+        this.hilo = new Thread(this::ejecutar, "escritor-persistencia");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Envuelve un repositorio para que sus escrituras pasen por este hilo.
+     *
+     * @param destino     repositorio donde se aplican las escrituras
+     * @param extractorId función que obtiene la clave de cada entidad
+     */
+    public <T, ID> RepositorioAsincrono<T, ID> envolver(Repositorio<T, ID> destino, Function<T, ID> extractorId) {
+        return new RepositorioAsincrono<>(this, destino, extractorId);
+    }
+
+    /**
+     * Devuelve un futuro que se completa cuando todas las escrituras encoladas hasta ahora
+     * fueron aplicadas (con o sin error). Tras {@link #close()} no queda nada pendiente.
+     */
+    public CompletableFuture<Void> vaciar() {
+        if (cerrado) return CompletableFuture.completedFuture(null);
+        return encolar(new Solicitud(null, null, null, false));
+    }
+
+    public MetricasEscritura getMetricas() {
+        return new MetricasEscritura(encoladas.get(), aplicadas.get(), lotes.get(), fallidas.get(),
+                cola.size(), ocupacionMaxima.get(), capacidad, esperas.get(), nanosEsperando.get());
+    }
+
+    /**
+     * Deja de aceptar escrituras, aplica las pendientes y espera a que termine el hilo.
+     */
+    @Override
+    public void close() {
+        if (cerrado) return;
+        cerrado = true;
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Las escrituras encoladas mientras se cerraba, incluidas las de quien esperaba espacio en la
+        // cola, se aplican aquí. Quien entra a encolar() después de ver el cierre no encola nada.
+        List<Solicitud> restantes = new ArrayList<>();
+        while (productores.get() > 0 || !cola.isEmpty()) {
+            cola.drainTo(restantes);
+            if (restantes.isEmpty()) {
+                Thread.yield();
+                continue;
+            }
+            aplicar(restantes);
+            restantes.clear();
+        }
+    }
+
+    // ---------- ENCOLADO ----------
+
+    CompletableFuture<Void> encolar(Solicitud solicitud) {
+        // Se anuncia antes de mirar el cierre: o close() ve a este productor y espera su solicitud,
+        // o este productor ve el cierre y no encola
+        productores.incrementAndGet();
+        try {
+            if (cerrado) throw new IllegalStateException("El escritor de persistencia está cerrado");
+            encoladas.incrementAndGet();
+            if (!cola.offer(solicitud)) {
+                esperas.incrementAndGet();
+                long inicio = System.nanoTime();
+                try {
+                    cola.put(solicitud);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    encoladas.decrementAndGet();
+                    solicitud.futuro.completeExceptionally(e);
+                    return solicitud.futuro;
+                } finally {
+                    nanosEsperando.addAndGet(System.nanoTime() - inicio);
+                }
+            }
+            ocupacionMaxima.accumulateAndGet(cola.size(), Math::max);
+            return solicitud.futuro;
+        } finally {
+            productores.decrementAndGet();
+        }
+    }
+
+    // ---------- HILO ESCRITOR ----------
+
+    private void ejecutar() {
+        List<Solicitud> lote = new ArrayList<>();
+        while (!cerrado || !cola.isEmpty()) {
+            try {
+                Solicitud primera = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primera == null) continue;
+                lote.add(primera);
+                long limite = System.nanoTime() + intervaloNanos;
+                while (lote.size() < MAXIMO_LOTE) {
+                    long restante = limite - System.nanoTime();
+                    Solicitud siguiente = restante > 0 ? cola.poll(restante, TimeUnit.NANOSECONDS) : cola.poll();
+                    if (siguiente == null) break;
+                    lote.add(siguiente);
+                }
+            } catch (InterruptedException e) {
+                // Solo close() detiene el hilo; se sigue vaciando la cola
+            }
+            if (!lote.isEmpty()) {
+                aplicar(lote);
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Combina las solicitudes del lote por repositorio y clave, conservando la última operación
+     * de cada entidad, y aplica cada repositorio en una sola llamada.
+     */
+    private void aplicar(List<Solicitud> lote) {
+        Map<RepositorioAsincrono<?, ?>, Map<Object, Solicitud>> porDestino = new LinkedHashMap<>();
+        Map<Solicitud, List<CompletableFuture<Void>>> esperando = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> barreras = new ArrayList<>();
+
+        for (Solicitud solicitud : lote) {
+            if (solicitud.destino == null) {
+                barreras.add(solicitud.futuro);
+                continue;
+            }
+            Map<Object, Solicitud> cambios = porDestino.computeIfAbsent(solicitud.destino, d -> new LinkedHashMap<>());
+            Solicitud anterior = cambios.put(solicitud.id, solicitud);
+            List<CompletableFuture<Void>> futuros = anterior == null ? new ArrayList<>() : esperando.remove(anterior);
+            futuros.add(solicitud.futuro);
+            esperando.put(solicitud, futuros);
+        }
+
+        for (Map.Entry<RepositorioAsincrono<?, ?>, Map<Object, Solicitud>> entrada : porDestino.entrySet()) {
+            Throwable error = entrada.getKey().aplicar(entrada.getValue().values());
+            aplicadas.addAndGet(entrada.getValue().size());
+            for (Solicitud solicitud : entrada.getValue().values()) {
+                for (CompletableFuture<Void> futuro : esperando.get(solicitud)) {
+                    if (error == null) {
+                        futuro.complete(null);
+                    } else {
+                        fallidas.incrementAndGet();
+                        futuro.completeExceptionally(error);
+                    }
+                }
+            }
+        }
+        lotes.incrementAndGet();
+        barreras.forEach(barrera -> barrera.complete(null));
+    }
+
+    /**
+     * Escritura encolada: guardar ({@code eliminar == false}) o eliminar una entidad de un repositorio.
+     * Una solicitud sin destino es una barrera de {@link #vaciar()}.
+     */
+    static final class Solicitud {
+        final RepositorioAsincrono<?, ?> destino;
+        final Object id;
+        final Object entidad;
+        final boolean eliminar;
+        final CompletableFuture<Void> futuro = new CompletableFuture<>();
+
+        Solicitud(RepositorioAsincrono<?, ?> destino, Object id, Object entidad, boolean eliminar) {
+            this.destino = destino;
+            this.id = id;
+            this.entidad = entidad;
+            this.eliminar = eliminar;
+        }
+    }
+
+    /**
+     * Métricas acumuladas del escritor.
+     */
+    public static final class MetricasEscritura {
+        private final long encoladas;
+        private final long aplicadas;
+        private final long lotes;
+        private final long fallidas;
+        private final int ocupacion;
+        private final int ocupacionMaxima;
+        private final int capacidad;
+        private final long esperas;
+        private final long nanosEsperando;
+
+        MetricasEscritura(long encoladas, long aplicadas, long lotes, long fallidas, int ocupacion,
+                          int ocupacionMaxima, int capacidad, long esperas, long nanosEsperando) {
+            this.encoladas = encoladas;
+            this.aplicadas = aplicadas;
+            this.lotes = lotes;
+            this.fallidas = fallidas;
+            this.ocupacion = ocupacion;
+            this.ocupacionMaxima = ocupacionMaxima;
+            this.capacidad = capacidad;
+            this.esperas = esperas;
+            this.nanosEsperando = nanosEsperando;
+        }
+
+        /** Escrituras recibidas, incluidas las barreras de {@link #vaciar()}. */
+        public long getEncoladas() { return encoladas; }
+        /** Escrituras aplicadas en los repositorios después de combinar las repetidas. */
+        public long getAplicadas() { return aplicadas; }
+        public long getLotes() { return lotes; }
+        /** Escrituras cuyo futuro terminó con error. */
+        public long getFallidas() { return fallidas; }
+        /** Solicitudes en la cola al tomar las métricas. */
+        public int getOcupacion() { return ocupacion; }
+        public int getOcupacionMaxima() { return ocupacionMaxima; }
+        public int getCapacidad() { return capacidad; }
+        /** Veces que una escritura tuvo que esperar porque la cola estaba llena. */
+        public long getEsperas() { return esperas; }
+        /** Tiempo total que las escrituras esperaron por espacio en la cola. */
+        public long getNanosEsperando() { return nanosEsperando; }
+
+        @Override
+        public String toString() {
+            return String.format("encoladas=%d aplicadas=%d lotes=%d fallidas=%d cola=%d/%d (máx %d) "
+                            + "esperas=%d (%.1f ms)", encoladas, aplicadas, lotes, fallidas, ocupacion, capacidad,
+                    ocupacionMaxima, esperas, nanosEsperando / 1e6);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.codec.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Crea los repositorios de cada entidad con el respaldo elegido para el despliegue.
+ *
+ * <p>El respaldo se puede indicar con la propiedad de sistema {@value #PROPIEDAD_RESPALDO}
+ * ({@code memoria}, {@code archivo} o {@code mapeado}) y el directorio de datos con
+ * {@value #PROPIEDAD_DIRECTORIO}. Cada repositorio se crea una sola vez; los que dependen de otras
+ * entidades (arriendos, pagos, mantenimientos, reservas) crean primero los de las entidades
+ * referenciadas y resuelven sus claves foráneas contra ellos mediante un {@link MapaIdentidad}.
+ * Cada repositorio tiene su propio candado, así que los que no dependen entre sí se pueden abrir
+ * en paralelo (ver {@link CargadorDatos}).</p>
+ *
+ * <p>Las claves de clientes y vehículos se normalizan a mayúsculas, igual que las búsquedas de los
+ * servicios, que no distinguen mayúsculas de minúsculas.</p>
+ *
+ * <p>Con la propiedad {@value #PROPIEDAD_ESCRITURA} en {@code asincrona}, los repositorios en disco
+ * se envuelven en un {@link RepositorioAsincrono} y sus escrituras las aplica un único
+ * {@link EscritorPersistencia}, fuera del hilo de quien llama. La flota mapeada no se envuelve:
+ * ya escribe en memoria y el servicio de flota la necesita directamente. Los historiales segmentados
+ * tampoco, porque sus consultas por rango leen los segmentos y deben ver todas las escrituras.</p>
+ */
+public class FabricaRepositorios implements Closeable {
+
+    /** Propiedad de sistema con el respaldo a usar. */
+    public static final String PROPIEDAD_RESPALDO = "drivequest.repositorio";
+    /** Propiedad de sistema con el directorio de datos de los respaldos en disco. */
+    public static final String PROPIEDAD_DIRECTORIO = "drivequest.datos";
+    /** Propiedad de sistema que activa la escritura en segundo plano ({@code asincrona}). */
+    public static final String PROPIEDAD_ESCRITURA = "drivequest.escritura";
+
+    /**
+     * Respaldo de almacenamiento de los repositorios.
+     */
+    public enum Respaldo {
+        /** Mapa en memoria, sin persistencia. */
+        MEMORIA,
+        /**
+         * Instantánea más diario de cambios, ver {@link RepositorioArchivo}. Los historiales de
+         * arriendos y pagos usan segmentos mensuales, ver {@link RepositorioSegmentado}.
+         */
+        ARCHIVO,
+        /** Archivo mapeado en memoria con ranuras fijas, ver {@link RepositorioMapeado}. */
+        MAPEADO;
+
+        /**
+         * Interpreta el nombre de un respaldo sin distinguir mayúsculas. Null equivale a memoria.
+         *
+         * @throws IllegalArgumentException si el nombre no corresponde a ningún respaldo
+         */
+        public static Respaldo desde(String nombre) {
+            if (nombre == null || nombre.isBlank()) return MEMORIA;
+            try {
+                return valueOf(nombre.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Respaldo de repositorio desconocido: " + nombre);
+            }
+        }
+    }
+
+    private final Respaldo respaldo;
+    private final Path directorio;
+    private final MapaIdentidad mapa = new MapaIdentidad();
+    private final List<Repositorio<?, ?>> abiertos = new ArrayList<>();
+    private volatile EscritorPersistencia escritor;
+
+    // Un candado por repositorio, para que los independientes se puedan abrir en paralelo
+    // (ver CargadorDatos). Quien abre uno toma después los de sus referencias, nunca al revés.
+    private final Object candadoClientes = new Object();
+    private final Object candadoVehiculos = new Object();
+    private final Object candadoArriendos = new Object();
+    private final Object candadoPagos = new Object();
+    private final Object candadoMantenimientos = new Object();
+    private final Object candadoReservas = new Object();
+
+    private Repositorio<Cliente, String> clientes;
+    private Repositorio<Vehiculo, String> vehiculos;
+    private Repositorio<Arriendo, String> arriendos;
+    private Repositorio<Pago, String> pagos;
+    private Repositorio<Mantenimiento, String> mantenimientos;
+    private Repositorio<Reserva, String> reservas;
+    private FiltroBloom filtroClientes;
+    private FiltroBloom filtroReservas;
+    private final Map<Path, FiltroBloom> filtrosAGuardar = new LinkedHashMap<>();
+
+    /**
+     * @param respaldo   respaldo de todos los repositorios creados
+     * @param directorio directorio de los archivos (ignorado en memoria)
+     */
+    public FabricaRepositorios(Respaldo respaldo, Path directorio) {
+        this.respaldo = Objects.requireNonNull(respaldo, "El respaldo no puede ser null");
+        this.directorio = Objects.requireNonNull(directorio, "El directorio no puede ser null");
+    }
+
+    /**
+     * Crea una fábrica según las propiedades de sistema del despliegue. Por defecto usa memoria,
+     * el directorio {@code datos} y escritura en el hilo de quien llama.
+     */
+    public static FabricaRepositorios desdePropiedades() {
+        FabricaRepositorios fabrica = new FabricaRepositorios(
+                Respaldo.desde(System.getProperty(PROPIEDAD_RESPALDO)),
+                Paths.get(System.getProperty(PROPIEDAD_DIRECTORIO, "datos")));
+        if ("asincrona".equalsIgnoreCase(System.getProperty(PROPIEDAD_ESCRITURA, "").trim())) {
+            fabrica.usarEscritor(new EscritorPersistencia());
+        }
+        return fabrica;
+    }
+
+    public Respaldo getRespaldo() {
+        return respaldo;
+    }
+
+    /**
+     * Hace que los repositorios en disco creados desde ahora escriban en segundo plano mediante
+     * el escritor indicado. La fábrica cierra el escritor al cerrarse. En memoria no tiene efecto,
+     * porque no hay disco que esperar.
+     */
+    public void usarEscritor(EscritorPersistencia escritor) {
+        this.escritor = Objects.requireNonNull(escritor, "El escritor no puede ser null");
+    }
+
+    /**
+     * Escritor de segundo plano en uso, o null si las escrituras son síncronas.
+     */
+    public EscritorPersistencia getEscritor() {
+        return escritor;
+    }
+
+    // ---------- CLAVES ----------
+
+    /**
+     * Normaliza un RUT o pasaporte para usarlo como clave de repositorio.
+     */
+    public static String normalizarRut(String rutOPasaporte) {
+        return rutOPasaporte == null ? null : rutOPasaporte.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Normaliza una patente para usarla como clave de repositorio.
+     */
+    public static String normalizarPatente(String patente) {
+        return patente == null ? null : patente.toUpperCase(Locale.ROOT);
+    }
+
+    public static String claveCliente(Cliente cliente) {
+        return normalizarRut(cliente.getRutOPasaporte());
+    }
+
+    public static String claveVehiculo(Vehiculo vehiculo) {
+        return normalizarPatente(vehiculo.getPatente());
+    }
+
+    // ---------- REPOSITORIOS ----------
+
+    public Repositorio<Cliente, String> clientes() {
+        synchronized (candadoClientes) {
+            if (clientes == null) {
+                clientes = crear("clientes", new ClienteCodec(), FabricaRepositorios::claveCliente);
+                Repositorio<Cliente, String> repositorio = clientes;
+                mapa.setFuenteClientes(rut -> repositorio.buscarPorId(normalizarRut(rut)).orElse(null));
+            }
+            return clientes;
+        }
+    }
+
+    public Repositorio<Vehiculo, String> vehiculos() {
+        synchronized (candadoVehiculos) {
+            if (vehiculos == null) {
+                vehiculos = respaldo == Respaldo.MAPEADO
+                        ? registrar(abrirFlotaMapeada())
+                        : crear("vehiculos", new VehiculoCodec(), FabricaRepositorios::claveVehiculo);
+                Repositorio<Vehiculo, String> repositorio = vehiculos;
+                mapa.setFuenteVehiculos(patente -> repositorio.buscarPorId(normalizarPatente(patente)).orElse(null));
+            }
+            return vehiculos;
+        }
+    }
+
+    public Repositorio<Arriendo, String> arriendos() {
+        synchronized (candadoArriendos) {
+            if (arriendos == null) {
+                clientes();
+                vehiculos();
+                arriendos = crearHistorial("arriendos", new ArriendoCodec(mapa), Arriendo::getId,
+                        Arriendo::getFechaInicio, Arriendo::getFechaFin, ArriendoCodec::filtroPorFechas);
+                Repositorio<Arriendo, String> repositorio = arriendos;
+                mapa.setFuenteArriendos(id -> repositorio.buscarPorId(id).orElse(null));
+            }
+            return arriendos;
+        }
+    }
+
+    /**
+     * Indica si ya se abrió alguno de los historiales de arriendos o pagos.
+     */
+    boolean historialAbierto() {
+        synchronized (candadoArriendos) {
+            if (arriendos != null) return true;
+        }
+        synchronized (candadoPagos) {
+            return pagos != null;
+        }
+    }
+
+    public Repositorio<Pago, String> pagos() {
+        synchronized (candadoPagos) {
+            if (pagos == null) {
+                arriendos();
+                pagos = crearHistorial("pagos", new PagoCodec(mapa), Pago::getId,
+                        Pago::getFechaPago, Pago::getFechaPago, (desde, hasta) -> FiltroRegistro.TODOS);
+            }
+            return pagos;
+        }
+    }
+
+    public Repositorio<Mantenimiento, String> mantenimientos() {
+        synchronized (candadoMantenimientos) {
+            if (mantenimientos == null) {
+                vehiculos();
+                mantenimientos = crear("mantenimientos", new MantenimientoCodec(mapa), Mantenimiento::getId);
+            }
+            return mantenimientos;
+        }
+    }
+
+    public Repositorio<Reserva, String> reservas() {
+        synchronized (candadoReservas) {
+            if (reservas == null) {
+                clientes();
+                vehiculos();
+                reservas = crear("reservas", new ReservaCodec(mapa), Reserva::getCodigoReserva);
+            }
+            return reservas;
+        }
+    }
+
+    // ---------- FILTROS DE CLAVES ----------
+
+    /**
+     * Filtro de Bloom con las claves de los clientes, para descartar sin consultar el repositorio
+     * los RUT que seguro no están registrados. En disco se guarda junto a los datos al cerrar la fábrica.
+     */
+    public synchronized FiltroBloom filtroClientes() {
+        if (filtroClientes == null) {
+            filtroClientes = filtro("clientes", clientes(), FabricaRepositorios::claveCliente);
+        }
+        return filtroClientes;
+    }
+
+    /**
+     * Filtro de Bloom con los códigos de las reservas (ver {@link #filtroClientes()}).
+     */
+    public synchronized FiltroBloom filtroReservas() {
+        if (filtroReservas == null) {
+            filtroReservas = filtro("reservas", reservas(), Reserva::getCodigoReserva);
+        }
+        return filtroReservas;
+    }
+
+    /**
+     * Aplica las escrituras pendientes en segundo plano, guarda los filtros de claves y cierra
+     * los repositorios creados, en orden inverso a su creación.
+     *
+     * @throws IOException si alguno no se pudo cerrar (se intenta cerrar el resto igualmente)
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (escritor != null) escritor.close();
+        IOException error = null;
+        List<Map.Entry<Path, FiltroBloom>> filtros;
+        synchronized (filtrosAGuardar) {
+            filtros = new ArrayList<>(filtrosAGuardar.entrySet());
+            filtrosAGuardar.clear();
+        }
+        for (Map.Entry<Path, FiltroBloom> filtro : filtros) {
+            try {
+                filtro.getValue().guardar(filtro.getKey());
+            } catch (IOException e) {
+                if (error == null) error = e; else error.addSuppressed(e);
+            }
+        }
+        List<Repositorio<?, ?>> aCerrar;
+        synchronized (abiertos) {
+            aCerrar = new ArrayList<>(abiertos);
+            abiertos.clear();
+        }
+        for (int i = aCerrar.size() - 1; i >= 0; i--) {
+            try {
+                aCerrar.get(i).close();
+            } catch (IOException e) {
+                if (error == null) error = e; else error.addSuppressed(e);
+            }
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * La flota mapeada usa registros de ancho fijo en lugar del codec, para poder cambiar
+     * el estado de un vehículo en el lugar.
+     */
+    private FlotaMapeada abrirFlotaMapeada() {
+        try {
+            Files.createDirectories(directorio);
+            return new FlotaMapeada(directorio.resolve("flota.mapa"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el repositorio de vehiculos", e);
+        }
+    }
+
+    /**
+     * Abre el filtro guardado junto a los datos o, si no existe o no se cerró bien, lo reconstruye
+     * recorriendo el repositorio.
+     */
+    private <T> FiltroBloom filtro(String nombre, Repositorio<T, String> repositorio, Function<T, String> extractorId) {
+        Path archivo = directorio.resolve(nombre + ".bloom");
+        FiltroBloom guardado = null;
+        if (respaldo != Respaldo.MEMORIA) {
+            try {
+                guardado = FiltroBloom.abrir(archivo);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo abrir el filtro de " + nombre, e);
+            }
+        }
+        FiltroBloom filtro = guardado;
+        if (filtro == null) {
+            FiltroBloom reconstruido = new FiltroBloom();
+            try (Stream<T> entidades = repositorio.stream()) {
+                entidades.forEach(entidad -> reconstruido.agregar(extractorId.apply(entidad)));
+            }
+            filtro = reconstruido;
+        }
+        if (respaldo != Respaldo.MEMORIA) {
+            synchronized (filtrosAGuardar) {
+                filtrosAGuardar.put(archivo, filtro);
+            }
+        }
+        return filtro;
+    }
+
+    private <R extends Repositorio<?, ?>> R registrar(R repositorio) {
+        synchronized (abiertos) {
+            abiertos.add(repositorio);
+        }
+        return repositorio;
+    }
+
+    private <T> Repositorio<T, String> asincrono(Repositorio<T, String> repositorio, Function<T, String> extractorId) {
+        if (escritor == null || respaldo == Respaldo.MEMORIA) return repositorio;
+        return escritor.envolver(repositorio, extractorId);
+    }
+
+    private <T> Repositorio<T, String> crear(String nombre, CodecBinario<T> codec, Function<T, String> extractorId) {
+        Repositorio<T, String> repositorio;
+        try {
+            switch (respaldo) {
+                case ARCHIVO:
+                    Files.createDirectories(directorio);
+                    repositorio = RepositorioArchivo.abrir(directorio.resolve(nombre + ".dat"), codec, extractorId);
+                    break;
+                case MAPEADO:
+                    Files.createDirectories(directorio);
+                    repositorio = RepositorioMapeado.abrir(directorio.resolve(nombre + ".mapa"), codec, extractorId);
+                    break;
+                default:
+                    repositorio = new RepositorioMemoria<>(extractorId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el repositorio de " + nombre, e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Clase desconocida en el repositorio de " + nombre, e);
+        }
+        return asincrono(registrar(repositorio), extractorId);
+    }
+
+    /**
+     * En archivo, los historiales se guardan en segmentos mensuales para no mantenerlos en el heap;
+     * en los demás respaldos se crean como cualquier otro repositorio.
+     */
+    private <T> Repositorio<T, String> crearHistorial(String nombre, CodecBinario<T> codec,
+                                                     Function<T, String> extractorId,
+                                                     Function<T, LocalDate> extractorFecha,
+                                                     Function<T, LocalDate> extractorFin,
+                                                     BiFunction<LocalDate, LocalDate, FiltroRegistro> filtroPorRango) {
+        if (respaldo != Respaldo.ARCHIVO) return crear(nombre, codec, extractorId);
+        try {
+            Files.createDirectories(directorio);
+            return registrar(RepositorioSegmentado.abrir(directorio, nombre, codec, extractorId,
+                    extractorFecha, extractorFin, filtroPorRango));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el repositorio de " + nombre, e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Clase desconocida en el repositorio de " + nombre, e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Filtro de Bloom escalable sobre claves de texto, para saber sin consultar el repositorio que una
+ * clave <em>seguro no existe</em>. Si {@link #puedeContener} responde false la clave nunca se agregó;
+ * si responde true puede ser un falso positivo y hay que confirmar contra el repositorio.
+ *
+ * <p>El filtro crece por capas: cuando la capa actual alcanza su capacidad se agrega otra del doble
+ * de capacidad y con la mitad de probabilidad de falso positivo, de modo que la probabilidad total
+ * se mantiene bajo la configurada sin conocer de antemano la cantidad de claves. Los bits se marcan
+ * con operaciones atómicas, así que agregar y consultar no toman candados.</p>
+ *
+ * <p>No admite eliminar: una clave eliminada del repositorio sigue dando positivo, lo que solo
+ * cuesta la confirmación. Se persiste junto a los datos con {@link #guardar(Path)}; el archivo queda
+ * marcado como abierto mientras se usa, y si el proceso termina sin guardarlo {@link #abrir(Path)}
+ * lo descarta para reconstruirlo, porque un filtro atrasado daría falsos negativos.</p>
+ */
+public final class FiltroBloom {
+
+    /** Firma del archivo: "DQBF". */
+    private static final int MAGIA = 0x44514246;
+    private static final int FORMATO = 1;
+    private static final int POSICION_ESTADO = 8;
+    private static final byte CERRADO = 1;
+    private static final byte ABIERTO = 0;
+
+    public static final int CAPACIDAD_INICIAL = 1 << 16;
+    public static final double PROBABILIDAD_FALSO_POSITIVO = 0.01;
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final double probabilidad;
+    private volatile Capa[] capas;
+
+    /**
+     * Filtro vacío con la capacidad inicial y la probabilidad de falso positivo por defecto.
+     */
+    public FiltroBloom() {
+        this(CAPACIDAD_INICIAL, PROBABILIDAD_FALSO_POSITIVO);
+    }
+
+    /**
+     * @param capacidadInicial claves de la primera capa
+     * @param probabilidad     probabilidad máxima de falso positivo del filtro completo
+     */
+    public FiltroBloom(int capacidadInicial, double probabilidad) {
+        if (capacidadInicial <= 0) throw new IllegalArgumentException("La capacidad debe ser positiva");
+        if (probabilidad <= 0 || probabilidad >= 1) {
+            throw new IllegalArgumentException("La probabilidad debe estar entre 0 y 1");
+        }
+        this.probabilidad = probabilidad;
+        // La serie p/2 + p/4 + ... suma menos que p
+        this.capas = new Capa[]{Capa.crear(capacidadInicial, probabilidad / 2)};
+    }
+
+    private FiltroBloom(double probabilidad, Capa[] capas) {
+        this.probabilidad = probabilidad;
+        this.capas = capas;
+    }
+
+    /**
+     * Agrega una clave. Si ya podía estar no hace nada, para no ocupar capacidad con repetidas.
+     */
+    public void agregar(String clave) {
+        long hash = hash(clave);
+        if (puedeContener(hash)) return;
+        Capa[] actuales = capas;
+        Capa ultima = actuales[actuales.length - 1];
+        if (ultima.cantidad.get() >= ultima.capacidad) ultima = crecer(actuales);
+        ultima.agregar(hash);
+    }
+
+    /**
+     * @return false si la clave seguro no se agregó; true si pudo agregarse
+     */
+    public boolean puedeContener(String clave) {
+        return puedeContener(hash(clave));
+    }
+
+    private boolean puedeContener(long hash) {
+        for (Capa capa : capas) {
+            if (capa.contiene(hash)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Claves distintas agregadas (aproximado: una clave que era falso positivo no se cuenta).
+     */
+    public long getCantidad() {
+        long total = 0;
+        for (Capa capa : capas) total += capa.cantidad.get();
+        return total;
+    }
+
+    public int getCapas() {
+        return capas.length;
+    }
+
+    /**
+     * Memoria ocupada por los bits de todas las capas.
+     */
+    public long getBytes() {
+        long total = 0;
+        for (Capa capa : capas) total += (long) capa.bits.length * Long.BYTES;
+        return total;
+    }
+
+    private synchronized Capa crecer(Capa[] vistas) {
+        Capa[] actuales = capas;
+        Capa ultima = actuales[actuales.length - 1];
+        // Otro hilo pudo agregar la capa mientras se esperaba el candado
+        if (actuales != vistas || ultima.cantidad.get() < ultima.capacidad) return ultima;
+        Capa nueva = Capa.crear((int) Math.min(Integer.MAX_VALUE / 2, 2L * ultima.capacidad), ultima.probabilidad / 2);
+        Capa[] crecidas = Arrays.copyOf(actuales, actuales.length + 1);
+        crecidas[actuales.length] = nueva;
+        capas = crecidas;
+        return nueva;
+    }
+
+    // ---------- PERSISTENCIA ----------
+
+    /**
+     * Guarda el filtro de forma atómica y lo marca como cerrado. Las claves agregadas durante
+     * el guardado pueden quedar fuera, por lo que debe llamarse sin escrituras en curso.
+     */
+    public void guardar(Path archivo) throws IOException {
+        Capa[] actuales = capas;
+        ArchivoUtil.escribirAtomico(archivo.toString(), salida -> {
+            DataOutputStream out = new DataOutputStream(salida);
+            out.writeInt(MAGIA);
+            out.writeInt(FORMATO);
+            out.writeByte(CERRADO);
+            out.writeDouble(probabilidad);
+            out.writeInt(actuales.length);
+            for (Capa capa : actuales) {
+                out.writeInt(capa.capacidad);
+                out.writeDouble(capa.probabilidad);
+                out.writeInt(capa.funciones);
+                out.writeInt(capa.cantidad.get());
+                out.writeInt(capa.bits.length);
+                for (int i = 0; i < capa.bits.length; i++) {
+                    out.writeLong((long) BITS.getVolatile(capa.bits, i));
+                }
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * Carga un filtro guardado y marca el archivo como abierto hasta el próximo {@link #guardar}.
+     *
+     * @return el filtro, o null si el archivo no existe, es inválido o no se cerró correctamente
+     *         (en ese caso hay que reconstruirlo desde los datos)
+     */
+    public static FiltroBloom abrir(Path archivo) throws IOException {
+        FiltroBloom filtro;
+        try (InputStream origen = Files.newInputStream(archivo);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(origen, 64 * 1024))) {
+            if (in.readInt() != MAGIA || in.readInt() != FORMATO || in.readByte() != CERRADO) return null;
+            double probabilidad = in.readDouble();
+            Capa[] capas = new Capa[in.readInt()];
+            if (capas.length == 0) return null;
+            for (int c = 0; c < capas.length; c++) {
+                int capacidad = in.readInt();
+                double probabilidadCapa = in.readDouble();
+                int funciones = in.readInt();
+                int cantidad = in.readInt();
+                long[] bits = new long[in.readInt()];
+                for (int i = 0; i < bits.length; i++) bits[i] = in.readLong();
+                capas[c] = new Capa(capacidad, probabilidadCapa, funciones, bits, cantidad);
+            }
+            filtro = new FiltroBloom(probabilidad, capas);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Filtro de claves inválido en " + archivo + ", se reconstruirá: " + e.getMessage());
+            return null;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[]{ABIERTO}), POSICION_ESTADO);
+            canal.force(true);
+        }
+        return filtro;
+    }
+
+    // ---------- HASH ----------
+
+    /**
+     * Hash de 64 bits de la clave; sus dos mitades alimentan el doble hash de cada capa.
+     */
+    static long hash(String clave) {
+        long h = 0x9E3779B97F4A7C15L ^ clave.length();
+        for (int i = 0; i < clave.length(); i++) {
+            h = (h ^ clave.charAt(i)) * 0x100000001B3L;
+            h = Long.rotateLeft(h, 23);
+        }
+        // Mezcla final de MurmurHash3
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Capa {
+        final int capacidad;
+        final double probabilidad;
+        final int funciones;
+        final long[] bits;
+        final AtomicInteger cantidad;
+        private final long totalBits;
+
+        Capa(int capacidad, double probabilidad, int funciones, long[] bits, int cantidad) {
+            this.capacidad = capacidad;
+            this.probabilidad = probabilidad;
+            this.funciones = funciones;
+            this.bits = bits;
+            this.cantidad = new AtomicInteger(cantidad);
+            this.totalBits = (long) bits.length * Long.SIZE;
+        }
+
+        /**
+         * Capa con los bits y funciones óptimos: m = -n ln p / (ln 2)^2 y k = (m / n) ln 2.
+         */
+        static Capa crear(int capacidad, double probabilidad) {
+            double ln2 = Math.log(2);
+            long totalBits = (long) Math.ceil(-capacidad * Math.log(probabilidad) / (ln2 * ln2));
+            int palabras = (int) Math.min(Integer.MAX_VALUE - 8, (totalBits + Long.SIZE - 1) / Long.SIZE);
+            int funciones = Math.max(1, (int) Math.round((double) palabras * Long.SIZE / capacidad * ln2));
+            return new Capa(capacidad, probabilidad, funciones, new long[palabras], 0);
+        }
+
+        void agregar(long hash) {
+            boolean nuevo = false;
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < funciones; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, totalBits);
+                long mascara = 1L << bit;
+                long anterior = (long) BITS.getAndBitwiseOr(bits, (int) (bit >>> 6), mascara);
+                nuevo |= (anterior & mascara) == 0;
+            }
+            if (nuevo) cantidad.incrementAndGet();
+        }
+
+        boolean contiene(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < funciones; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, totalBits);
+                if (((long) BITS.getAcquire(bits, (int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Almacén de la flota en un archivo mapeado en memoria con registros de ancho fijo.
+ * Cada campo del vehículo ocupa una posición fija dentro de su ranura, por lo que un cambio
+ * de estado escribe solo ese campo en la página mapeada, sin decodificar ni volver a
+ * serializar el vehículo. El índice patente → ranura se reconstruye al abrir leyendo solo
+ * las patentes, de modo que no hay una fase de carga de la flota.
+ *
+ * <p>Los textos se guardan como {@code [short largo][bytes UTF-8]} dentro de un ancho máximo;
+ * un largo de -1 representa null. Los vehículos con textos más largos se rechazan.</p>
+ */
+public class FlotaMapeada extends RepositorioMapeado<Vehiculo, String> {
+
+    public FlotaMapeada(Path archivo) throws IOException {
+        super(archivo, new FormatoVehiculo());
+    }
+
+    /**
+     * Cambia el estado de un vehículo escribiendo solo ese campo y la versión en su ranura.
+     *
+     * @param patente patente del vehículo
+     * @param estado  nuevo estado
+     * @return true si el vehículo existe
+     * @throws IllegalArgumentException si el estado excede el ancho del campo
+     */
+    public boolean actualizarEstado(String patente, String estado) {
+        byte[] bytes = FormatoVehiculo.codificar(estado, FormatoVehiculo.ANCHO_ESTADO, "estado");
+        return modificarEnLugar(FabricaRepositorios.normalizarPatente(patente), (buffer, posicion) -> {
+            FormatoVehiculo.escribirTexto(buffer, posicion + FormatoVehiculo.ESTADO, bytes);
+            buffer.putLong(posicion + FormatoVehiculo.VERSION, buffer.getLong(posicion + FormatoVehiculo.VERSION) + 1);
+        });
+    }
+
+    /**
+     * Cambia el estado de un vehículo solo si su versión es la esperada, comparando y escribiendo
+     * en la ranura bajo el candado de escritura.
+     *
+     * @param patente         patente del vehículo
+     * @param estado          nuevo estado
+     * @param versionEsperada versión que debe tener el vehículo
+     * @return la versión que tenía el vehículo (el cambio se aplicó solo si es la esperada), o -1 si no existe
+     * @throws IllegalArgumentException si el estado excede el ancho del campo
+     */
+    public long actualizarEstadoSiVersion(String patente, String estado, long versionEsperada) {
+        byte[] bytes = FormatoVehiculo.codificar(estado, FormatoVehiculo.ANCHO_ESTADO, "estado");
+        long[] encontrada = {-1};
+        modificarEnLugar(FabricaRepositorios.normalizarPatente(patente), (buffer, posicion) -> {
+            encontrada[0] = buffer.getLong(posicion + FormatoVehiculo.VERSION);
+            if (encontrada[0] != versionEsperada) return;
+            FormatoVehiculo.escribirTexto(buffer, posicion + FormatoVehiculo.ESTADO, bytes);
+            buffer.putLong(posicion + FormatoVehiculo.VERSION, versionEsperada + 1);
+        });
+        return encontrada[0];
+    }
+
+    /**
+     * Lee el estado de un vehículo sin reconstruirlo.
+     *
+     * @return el estado, o null si el vehículo no existe
+     */
+    public String leerEstado(String patente) {
+        return leerEnLugar(FabricaRepositorios.normalizarPatente(patente),
+                (buffer, posicion) -> FormatoVehiculo.leerTexto(buffer, posicion + FormatoVehiculo.ESTADO));
+    }
+
+    /**
+     * Formato de ancho fijo de un vehículo:
+     * {@code [byte tipo][int anio][double precioDiario][double capacidad | int pasajeros]} seguido de
+     * id, patente, marca, modelo, estado y fotoRuta, cada uno en su ancho máximo, y de {@code [long versión]}.
+     *
+     * <p>El formato 1 no tenía versión y la foto admitía 200 bytes. La versión ocupa los últimos
+     * 8 bytes de la foto, así que el tamaño de la ranura no cambió y un archivo anterior se migra en el
+     * lugar al abrirlo, salvo que alguna foto exceda el nuevo ancho.</p>
+     */
+    private static final class FormatoVehiculo implements FormatoRanura<Vehiculo, String> {
+
+        private static final int IDENTIFICADOR = 2;
+        private static final int IDENTIFICADOR_SIN_VERSION = 1;
+
+        private static final byte TIPO_CARGA = 1;
+        private static final byte TIPO_PASAJEROS = 2;
+
+        static final int ANCHO_ID = 40;
+        static final int ANCHO_PATENTE = 16;
+        static final int ANCHO_MARCA = 32;
+        static final int ANCHO_MODELO = 32;
+        static final int ANCHO_ESTADO = 24;
+        static final int ANCHO_FOTO = 192;
+
+        private static final int TIPO = 0;
+        private static final int ANIO = TIPO + 1;
+        private static final int PRECIO = ANIO + Integer.BYTES;
+        private static final int DETALLE = PRECIO + Double.BYTES;
+        private static final int ID = DETALLE + Double.BYTES;
+        private static final int PATENTE = ID + Short.BYTES + ANCHO_ID;
+        private static final int MARCA = PATENTE + Short.BYTES + ANCHO_PATENTE;
+        private static final int MODELO = MARCA + Short.BYTES + ANCHO_MARCA;
+        static final int ESTADO = MODELO + Short.BYTES + ANCHO_MODELO;
+        private static final int FOTO = ESTADO + Short.BYTES + ANCHO_ESTADO;
+        static final int VERSION = FOTO + Short.BYTES + ANCHO_FOTO;
+        private static final int TAMANIO = VERSION + Long.BYTES;
+
+        @Override
+        public int getIdentificador() {
+            return IDENTIFICADOR;
+        }
+
+        @Override
+        public int getTamanioContenido() {
+            return TAMANIO;
+        }
+
+        @Override
+        public String claveDe(Vehiculo vehiculo) {
+            return FabricaRepositorios.claveVehiculo(vehiculo);
+        }
+
+        @Override
+        public void escribir(ByteBuffer destino, int posicion, Vehiculo vehiculo) throws IOException {
+            byte tipo;
+            if (vehiculo instanceof VehiculoCarga) {
+                tipo = TIPO_CARGA;
+            } else if (vehiculo instanceof VehiculoPasajeros) {
+                tipo = TIPO_PASAJEROS;
+            } else {
+                throw new IOException("Tipo de vehículo no soportado: " + vehiculo.getClass().getName());
+            }
+
+            // Se validan todos los anchos antes de modificar la ranura
+            byte[] id = codificar(vehiculo.getId(), ANCHO_ID, "id");
+            byte[] patente = codificar(vehiculo.getPatente(), ANCHO_PATENTE, "patente");
+            byte[] marca = codificar(vehiculo.getMarca(), ANCHO_MARCA, "marca");
+            byte[] modelo = codificar(vehiculo.getModelo(), ANCHO_MODELO, "modelo");
+            byte[] estado = codificar(vehiculo.getEstado(), ANCHO_ESTADO, "estado");
+            byte[] foto = codificar(vehiculo.getFotoRuta(), ANCHO_FOTO, "fotoRuta");
+
+            destino.put(posicion + TIPO, tipo);
+            destino.putInt(posicion + ANIO, vehiculo.getAnio());
+            destino.putDouble(posicion + PRECIO, vehiculo.getPrecioDiario());
+            if (vehiculo instanceof VehiculoCarga carga) {
+                destino.putDouble(posicion + DETALLE, carga.getCapacidadCarga());
+            } else {
+                destino.putInt(posicion + DETALLE, ((VehiculoPasajeros) vehiculo).getNumeroPasajeros());
+            }
+            escribirTexto(destino, posicion + ID, id);
+            escribirTexto(destino, posicion + PATENTE, patente);
+            escribirTexto(destino, posicion + MARCA, marca);
+            escribirTexto(destino, posicion + MODELO, modelo);
+            escribirTexto(destino, posicion + ESTADO, estado);
+            escribirTexto(destino, posicion + FOTO, foto);
+            destino.putLong(posicion + VERSION, vehiculo.getVersion());
+        }
+
+        @Override
+        public Vehiculo leer(ByteBuffer origen, int posicion) throws IOException {
+            byte tipo = origen.get(posicion + TIPO);
+            String id = leerTexto(origen, posicion + ID);
+            String patente = leerTexto(origen, posicion + PATENTE);
+            String marca = leerTexto(origen, posicion + MARCA);
+            String modelo = leerTexto(origen, posicion + MODELO);
+            int anio = origen.getInt(posicion + ANIO);
+            String estado = leerTexto(origen, posicion + ESTADO);
+            String foto = leerTexto(origen, posicion + FOTO);
+
+            Vehiculo vehiculo;
+            switch (tipo) {
+                case TIPO_CARGA:
+                    vehiculo = new VehiculoCarga(id, patente, marca, modelo, anio, estado, foto,
+                            origen.getDouble(posicion + DETALLE));
+                    break;
+                case TIPO_PASAJEROS:
+                    vehiculo = new VehiculoPasajeros(id, patente, marca, modelo, anio, estado, foto,
+                            origen.getInt(posicion + DETALLE));
+                    break;
+                default:
+                    throw new IOException("Tipo de vehículo desconocido en la posición " + posicion + ": " + tipo);
+            }
+            vehiculo.setPrecioDiario(origen.getDouble(posicion + PRECIO));
+            vehiculo.setVersion(origen.getLong(posicion + VERSION));
+            return vehiculo;
+        }
+
+        @Override
+        public String leerClave(ByteBuffer origen, int posicion) throws IOException {
+            return FabricaRepositorios.normalizarPatente(leerTexto(origen, posicion + PATENTE));
+        }
+
+        @Override
+        public boolean puedeMigrar(int identificadorAnterior) {
+            return identificadorAnterior == IDENTIFICADOR_SIN_VERSION;
+        }
+
+        @Override
+        public void migrar(ByteBuffer buffer, int posicion, int identificadorAnterior) throws IOException {
+            short largoFoto = buffer.getShort(posicion + FOTO);
+            if (largoFoto > ANCHO_FOTO) {
+                throw new IOException("La foto del vehículo en la posición " + posicion + " ocupa " + largoFoto
+                        + " bytes y el formato actual admite " + ANCHO_FOTO);
+            }
+            buffer.putLong(posicion + VERSION, 0L);
+        }
+
+        static byte[] codificar(String texto, int ancho, String campo) {
+            if (texto == null) return null;
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > ancho) {
+                throw new IllegalArgumentException("El campo " + campo + " ocupa " + bytes.length
+                        + " bytes y admite " + ancho + ": " + texto);
+            }
+            return bytes;
+        }
+
+        static void escribirTexto(ByteBuffer destino, int posicion, byte[] bytes) {
+            if (bytes == null) {
+                destino.putShort(posicion, (short) -1);
+                return;
+            }
+            destino.putShort(posicion, (short) bytes.length);
+            destino.put(posicion + Short.BYTES, bytes);
+        }
+
+        static String leerTexto(ByteBuffer origen, int posicion) throws IOException {
+            short largo = origen.getShort(posicion);
+            if (largo == -1) return null;
+            if (largo < 0) {
+                throw new IOException("Largo de texto inválido en la posición " + posicion + ": " + largo);
+            }
+            byte[] bytes = new byte[largo];
+            origen.get(posicion + Short.BYTES, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Formato del contenido de cada ranura de un {@link RepositorioMapeado}.
+ * Lee y escribe directamente sobre el buffer mapeado, a partir de la posición indicada;
+ * el byte de ocupación que precede al contenido lo administra el repositorio.
+ *
+ * @param <T>  tipo de entidad
+ * @param <ID> tipo de la clave de la entidad
+ */
+public interface FormatoRanura<T, ID> {
+
+    /**
+     * Identificador del formato, guardado en el encabezado para no abrir un archivo con otro formato.
+     */
+    int getIdentificador();
+
+    /**
+     * Bytes de contenido de cada ranura.
+     */
+    int getTamanioContenido();
+
+    /**
+     * Clave de una entidad.
+     */
+    ID claveDe(T entidad);
+
+    /**
+     * Escribe la entidad en la ranura. Debe validar que cabe antes de modificar el buffer.
+     *
+     * @throws IllegalArgumentException si la entidad no cabe en la ranura
+     */
+    void escribir(ByteBuffer destino, int posicion, T entidad) throws IOException;
+
+    /**
+     * Reconstruye la entidad guardada en la ranura.
+     */
+    T leer(ByteBuffer origen, int posicion) throws IOException;
+
+    /**
+     * Lee solo la clave de la ranura. Se usa al reconstruir el índice al abrir el archivo.
+     */
+    ID leerClave(ByteBuffer origen, int posicion) throws IOException;
+
+    /**
+     * Indica si el formato sabe convertir las ranuras de un archivo escrito con un identificador anterior.
+     */
+    default boolean puedeMigrar(int identificadorAnterior) {
+        return false;
+    }
+
+    /**
+     * Convierte en el lugar el contenido de una ranura escrita con un identificador anterior.
+     * Se llama al abrir el archivo, antes de leer la clave de la ranura, y debe poder repetirse
+     * sobre una ranura ya convertida.
+     *
+     * @throws IOException si la ranura no se puede convertir
+     */
+    default void migrar(ByteBuffer buffer, int posicion, int identificadorAnterior) throws IOException {
+        throw new IOException("No se puede migrar el formato de ranura " + identificadorAnterior);
+    }
+}
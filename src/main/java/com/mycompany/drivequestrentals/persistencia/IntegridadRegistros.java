@@ -0,0 +1,405 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.persistencia.codec.CodecBinario;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Inflater;
+
+/**
+ * Verificación y recuperación de archivos de registros a partir de sus sumas de verificación.
+ *
+ * <p>La carga normal ({@link ArchivoUtil#cargarRegistros}) no comprueba las sumas, para que el arranque
+ * sea rápido. {@link #verificarEnSegundoPlano} las comprueba después en un hilo aparte, y {@link #recuperar}
+ * lee un archivo dañado omitiendo los registros que no superan la verificación. {@link #cargarTolerante}
+ * combina ambos: carga rápida, verificación en segundo plano y recuperación si la carga falla.</p>
+ *
+ * <p>En los archivos sin compresión cada registro tiene su propia suma, por lo que un sector dañado
+ * cuesta solo los registros que toca: tras un daño se busca el siguiente enmarcado cuya suma coincida.
+ * En los comprimidos la suma es por bloque y se pierde el bloque completo. Los formatos anteriores,
+ * sin sumas, solo se pueden recuperar mientras el enmarcado de los registros esté intacto.</p>
+ */
+public final class IntegridadRegistros {
+
+    /** Hilo demonio único para las verificaciones, que no compiten entre sí por el disco. */
+    private static final ExecutorService VERIFICADOR = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "verificacion-registros");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private static final int TAMANIO_ENCABEZADO = Integer.BYTES + Short.BYTES + Integer.BYTES;
+
+    private IntegridadRegistros() {
+    }
+
+    /**
+     * Zona dañada de un archivo que se omitió al verificar o recuperar.
+     */
+    public static final class RegistroCorrupto {
+        private final long posicion;
+        private final long bytes;
+        private final String motivo;
+
+        RegistroCorrupto(long posicion, long bytes, String motivo) {
+            this.posicion = posicion;
+            this.bytes = bytes;
+            this.motivo = motivo;
+        }
+
+        /** Posición en el archivo donde empieza el daño (en archivos comprimidos, la del bloque). */
+        public long getPosicion() { return posicion; }
+        /** Bytes omitidos a partir de la posición. */
+        public long getBytes() { return bytes; }
+        public String getMotivo() { return motivo; }
+
+        @Override
+        public String toString() {
+            return "posición " + posicion + " (" + bytes + " bytes): " + motivo;
+        }
+    }
+
+    /**
+     * Resultado de verificar un archivo.
+     */
+    public static final class Informe {
+        private final String ruta;
+        private final boolean conSumas;
+        private final int registrosSanos;
+        private final List<RegistroCorrupto> corruptos;
+
+        Informe(String ruta, boolean conSumas, int registrosSanos, List<RegistroCorrupto> corruptos) {
+            this.ruta = ruta;
+            this.conSumas = conSumas;
+            this.registrosSanos = registrosSanos;
+            this.corruptos = Collections.unmodifiableList(corruptos);
+        }
+
+        public String getRuta() { return ruta; }
+        /** Indica si el archivo tiene sumas de verificación; si no, solo se comprobó su estructura. */
+        public boolean isConSumas() { return conSumas; }
+        public int getRegistrosSanos() { return registrosSanos; }
+        public List<RegistroCorrupto> getCorruptos() { return corruptos; }
+
+        public boolean esIntegro() {
+            return corruptos.isEmpty();
+        }
+    }
+
+    /**
+     * Registros recuperados de un archivo y el informe de lo que se omitió.
+     */
+    public static final class Recuperacion<T> {
+        private final List<T> registros;
+        private final Informe informe;
+
+        Recuperacion(List<T> registros, Informe informe) {
+            this.registros = registros;
+            this.informe = informe;
+        }
+
+        public List<T> getRegistros() { return registros; }
+        public Informe getInforme() { return informe; }
+    }
+
+    /**
+     * Recibe los bytes de cada registro sano encontrado durante un recorrido.
+     */
+    @FunctionalInterface
+    private interface Receptor {
+        void recibir(byte[] contenido, int desde, int largo, int version) throws IOException;
+    }
+
+    // ---------- OPERACIONES ----------
+
+    /**
+     * Comprueba todas las sumas de verificación de un archivo sin decodificar los registros.
+     *
+     * @throws IOException si el archivo no se puede leer o su encabezado no es de registros
+     */
+    public static Informe verificar(String ruta) throws IOException {
+        return recorrer(ruta, (contenido, desde, largo, version) -> { });
+    }
+
+    /**
+     * Verifica un archivo en el hilo de verificación. Si encuentra daños los informa por la
+     * salida de error; el informe queda disponible en el resultado.
+     */
+    public static CompletableFuture<Informe> verificarEnSegundoPlano(String ruta) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Informe informe = verificar(ruta);
+                if (!informe.esIntegro()) {
+                    System.err.printf("⚠️ %s tiene %d zonas dañadas: %s%n",
+                            ruta, informe.getCorruptos().size(), informe.getCorruptos());
+                }
+                return informe;
+            } catch (IOException e) {
+                System.err.println("⚠️ No se pudo verificar " + ruta + ": " + e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        }, VERIFICADOR);
+    }
+
+    /**
+     * Lee un archivo omitiendo los registros dañados o que no se pueden decodificar.
+     *
+     * @throws IOException si el archivo no se puede leer o su encabezado no es de registros
+     */
+    public static <T> Recuperacion<T> recuperar(String ruta, CodecBinario<T> codec) throws IOException {
+        List<T> registros = new ArrayList<>();
+        Informe informe = recorrer(ruta, (contenido, desde, largo, version) ->
+                registros.add(ArchivoUtil.decodificar(codec, Arrays.copyOfRange(contenido, desde, desde + largo),
+                        largo, version)));
+        return new Recuperacion<>(registros, informe);
+    }
+
+    /**
+     * Carga un archivo sin verificar y programa su verificación en segundo plano. Si la carga
+     * falla por datos dañados, el archivo se recupera omitiendo los registros afectados y se
+     * informa por la salida de error. El archivo no se modifica: se reescribe sano en el
+     * siguiente guardado.
+     *
+     * @throws IOException            si el archivo no se puede leer ni recuperar
+     * @throws ClassNotFoundException si el archivo está en el formato de serialización anterior y contiene clases desconocidas
+     */
+    public static <T> List<T> cargarTolerante(String ruta, CodecBinario<T> codec)
+            throws IOException, ClassNotFoundException {
+        List<T> registros;
+        try {
+            registros = ArchivoUtil.cargarRegistros(ruta, codec);
+        } catch (IOException e) {
+            Recuperacion<T> recuperacion = recuperar(ruta, codec);
+            System.err.printf("⚠️ %s está dañado (%s). Se recuperaron %d registros y se omitieron %d zonas: %s%n",
+                    ruta, e.getMessage(), recuperacion.getRegistros().size(),
+                    recuperacion.getInforme().getCorruptos().size(), recuperacion.getInforme().getCorruptos());
+            return recuperacion.getRegistros();
+        }
+        File archivo = new File(ruta);
+        if (archivo.length() > 0 && !esSerializacionJava(archivo)) {
+            verificarEnSegundoPlano(ruta);
+        }
+        return registros;
+    }
+
+    // ---------- RECORRIDO ----------
+
+    private static Informe recorrer(String ruta, Receptor receptor) throws IOException {
+        byte[] contenido = Files.readAllBytes(Paths.get(ruta));
+        ByteBuffer buffer = ByteBuffer.wrap(contenido);
+        if (contenido.length < TAMANIO_ENCABEZADO || buffer.getInt() != ArchivoUtil.MAGIA_REGISTROS) {
+            throw new IOException("El archivo no tiene formato de registros: " + ruta);
+        }
+        short formato = buffer.getShort();
+        int version = buffer.getInt();
+
+        Recorrido recorrido = new Recorrido(contenido, version, receptor);
+        boolean conSumas;
+        if (formato == ArchivoUtil.FORMATO_VERIFICADO) {
+            recorrido.registrosConSuma(TAMANIO_ENCABEZADO, contenido.length);
+            conSumas = true;
+        } else if (formato == ArchivoUtil.VERSION_FORMATO) {
+            recorrido.registros(TAMANIO_ENCABEZADO, contenido.length, -1);
+            conSumas = false;
+        } else if (BloquesRegistros.esFormatoBloques(formato)) {
+            recorrido.bloques(formato);
+            conSumas = formato == BloquesRegistros.FORMATO_BLOQUES_VERIFICADO;
+        } else {
+            throw new IOException("Versión de formato de archivo no soportada en " + ruta + ": " + formato);
+        }
+        return new Informe(ruta, conSumas, recorrido.sanos, recorrido.corruptos);
+    }
+
+    private static boolean esSerializacionJava(File archivo) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(archivo))) {
+            return archivo.length() >= Short.BYTES && in.readShort() == ArchivoUtil.MAGIA_SERIALIZACION_JAVA;
+        }
+    }
+
+    /**
+     * Estado de un recorrido sobre el contenido completo de un archivo.
+     */
+    private static final class Recorrido {
+        private final byte[] contenido;
+        private final ByteBuffer buffer;
+        private final int version;
+        private final Receptor receptor;
+        private final List<RegistroCorrupto> corruptos = new ArrayList<>();
+        private int sanos;
+
+        Recorrido(byte[] contenido, int version, Receptor receptor) {
+            this.contenido = contenido;
+            this.buffer = ByteBuffer.wrap(contenido);
+            this.version = version;
+            this.receptor = receptor;
+        }
+
+        /**
+         * Registros {@code [int largo][int suma][bytes]}. Ante un registro dañado avanza byte a byte
+         * hasta encontrar un enmarcado cuya suma coincida, que marca el inicio del siguiente registro sano.
+         * Los codecs nunca escriben registros vacíos, por lo que un largo 0 (por ejemplo, en una zona
+         * puesta a cero) tampoco se acepta como enmarcado.
+         */
+        void registrosConSuma(int inicio, int fin) {
+            final int cabecera = 2 * Integer.BYTES;
+            int posicion = inicio;
+            int inicioDanio = -1;
+            while (posicion < fin) {
+                int largo = fin - posicion >= cabecera ? buffer.getInt(posicion) : -1;
+                boolean valido = largo > 0 && largo <= fin - posicion - cabecera
+                        && buffer.getInt(posicion + Integer.BYTES)
+                        == BloquesRegistros.sumaVerificacion(contenido, posicion + cabecera, largo);
+                if (!valido) {
+                    if (inicioDanio < 0) inicioDanio = posicion;
+                    posicion++;
+                    continue;
+                }
+                if (inicioDanio >= 0) {
+                    omitir(inicioDanio, posicion - inicioDanio, "la suma de verificación no coincide");
+                    inicioDanio = -1;
+                }
+                entregar(posicion + cabecera, largo, posicion);
+                posicion += cabecera + largo;
+            }
+            if (inicioDanio >= 0) {
+                omitir(inicioDanio, fin - inicioDanio, "la suma de verificación no coincide");
+            }
+        }
+
+        /**
+         * Registros {@code [int largo][bytes]} sin suma. Un largo inválido impide encontrar los
+         * registros siguientes, por lo que se omite el resto de la zona.
+         *
+         * @param posicionBloque posición del bloque en el archivo si el contenido es un bloque
+         *                       descomprimido (los daños se informan en esa posición), o -1
+         */
+        void registros(int inicio, int fin, long posicionBloque) {
+            int posicion = inicio;
+            while (posicion < fin) {
+                long donde = posicionBloque < 0 ? posicion : posicionBloque;
+                if (fin - posicion < Integer.BYTES) {
+                    omitir(donde, fin - posicion, "registro final incompleto");
+                    return;
+                }
+                int largo = buffer.getInt(posicion);
+                if (largo < 0 || largo > fin - posicion - Integer.BYTES) {
+                    omitir(donde, fin - posicion, "largo de registro inválido: " + largo);
+                    return;
+                }
+                entregar(posicion + Integer.BYTES, largo, donde);
+                posicion += Integer.BYTES + largo;
+            }
+        }
+
+        /**
+         * Bloques comprimidos. Se recorren según el índice del final del archivo, de modo que una
+         * cabecera de bloque dañada no impide llegar a los siguientes; si el índice también está
+         * dañado se recorren en orden hasta el primer bloque ilegible.
+         */
+        void bloques(short formato) {
+            int tamanioCabecera = BloquesRegistros.cabeceraBloque(formato);
+            long[] posiciones = leerIndice();
+            boolean conIndice = posiciones != null;
+            int fin = conIndice ? (int) buffer.getLong(contenido.length - Long.BYTES) - Integer.BYTES : contenido.length;
+            Inflater inflater = new Inflater();
+            try {
+                int posicion = BloquesRegistros.TAMANIO_ENCABEZADO;
+                for (int i = 0; conIndice ? i < posiciones.length : posicion < fin; i++) {
+                    if (conIndice) posicion = (int) posiciones[i];
+                    if (fin - posicion < Integer.BYTES) {
+                        omitir(posicion, fin - posicion, "archivo truncado");
+                        return;
+                    }
+                    if (!conIndice && buffer.getInt(posicion) == BloquesRegistros.FIN_BLOQUES) return;
+                    if (fin - posicion < tamanioCabecera) {
+                        omitir(posicion, fin - posicion, "cabecera de bloque incompleta");
+                        return;
+                    }
+
+                    int largoComprimido = buffer.getInt(posicion);
+                    int largoOriginal = buffer.getInt(posicion + Integer.BYTES);
+                    int datos = posicion + tamanioCabecera;
+                    if (largoComprimido < 0 || largoOriginal < 0 || largoComprimido > fin - datos
+                            || largoOriginal > (long) largoComprimido * BloquesRegistros.EXPANSION_MAXIMA + 1024) {
+                        omitir(posicion, conIndice ? siguiente(posiciones, i, fin) - posicion : fin - posicion,
+                                "cabecera de bloque inválida");
+                        if (conIndice) continue;
+                        return;
+                    }
+                    int siguiente = datos + largoComprimido;
+                    if (formato == BloquesRegistros.FORMATO_BLOQUES_VERIFICADO
+                            && buffer.getInt(posicion + 3 * Integer.BYTES)
+                            != BloquesRegistros.sumaVerificacion(contenido, datos, largoComprimido)) {
+                        omitir(posicion, siguiente - posicion, "la suma de verificación del bloque no coincide");
+                    } else {
+                        byte[] original = new byte[largoOriginal];
+                        try {
+                            BloquesRegistros.descomprimir(inflater, Arrays.copyOfRange(contenido, datos, siguiente),
+                                    largoComprimido, original, largoOriginal);
+                            Recorrido bloque = new Recorrido(original, version, receptor);
+                            bloque.registros(0, largoOriginal, posicion);
+                            sanos += bloque.sanos;
+                            corruptos.addAll(bloque.corruptos);
+                        } catch (IOException e) {
+                            omitir(posicion, siguiente - posicion, e.getMessage());
+                        }
+                    }
+                    posicion = siguiente;
+                }
+            } finally {
+                inflater.end();
+            }
+        }
+
+        private long[] leerIndice() {
+            if (contenido.length < BloquesRegistros.TAMANIO_ENCABEZADO + Long.BYTES + Integer.BYTES) return null;
+            long posicionIndice = buffer.getLong(contenido.length - Long.BYTES);
+            if (posicionIndice < BloquesRegistros.TAMANIO_ENCABEZADO + Integer.BYTES
+                    || posicionIndice > contenido.length - Long.BYTES - Integer.BYTES) {
+                return null;
+            }
+            int cantidad = buffer.getInt((int) posicionIndice);
+            long esperado = posicionIndice + Integer.BYTES + (long) cantidad * (Long.BYTES + Integer.BYTES);
+            if (cantidad < 0 || esperado != contenido.length - Long.BYTES) return null;
+
+            long[] posiciones = new long[cantidad];
+            int entrada = (int) posicionIndice + Integer.BYTES;
+            for (int i = 0; i < cantidad; i++) {
+                posiciones[i] = buffer.getLong(entrada);
+                if (posiciones[i] < BloquesRegistros.TAMANIO_ENCABEZADO || posiciones[i] >= posicionIndice) return null;
+                entrada += Long.BYTES + Integer.BYTES;
+            }
+            return posiciones;
+        }
+
+        private static long siguiente(long[] posiciones, int i, int fin) {
+            return i + 1 < posiciones.length ? posiciones[i + 1] : fin;
+        }
+
+        private void entregar(int desde, int largo, long posicion) {
+            try {
+                receptor.recibir(contenido, desde, largo, version);
+                sanos++;
+            } catch (IOException e) {
+                omitir(posicion, largo, "no se pudo decodificar: " + e.getMessage());
+            }
+        }
+
+        private void omitir(long posicion, long bytes, String motivo) {
+            corruptos.add(new RegistroCorrupto(posicion, bytes, motivo));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.persistencia.codec.CodecBinario;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Inflater;
+
+/**
+ * Acceso aleatorio por bloques a un archivo de registros comprimido con
+ * {@link ArchivoUtil#guardarRegistros(String, java.util.Collection, CodecBinario, Compresion)}.
+ * Al abrir se lee solo el índice de bloques del final del archivo; cada lectura posterior
+ * descomprime únicamente el bloque pedido, sin recorrer los anteriores.
+ *
+ * @param <T> tipo de registro
+ */
+public class LectorBloques<T> implements Closeable {
+
+    private final String ruta;
+    private final CodecBinario<T> codec;
+    private final FileChannel canal;
+    private final Inflater inflater = new Inflater();
+
+    private final short formato;
+    private final int version;
+    private final Compresion compresion;
+    private final long[] posiciones;
+    /** Número del primer registro de cada bloque; el último elemento es el total de registros. */
+    private final long[] primerRegistro;
+
+    private LectorBloques(String ruta, CodecBinario<T> codec, FileChannel canal) throws IOException {
+        this.ruta = ruta;
+        this.codec = codec;
+        this.canal = canal;
+
+        ByteBuffer encabezado = leer(0, Integer.BYTES + Short.BYTES + Integer.BYTES + 1);
+        if (encabezado.getInt() != ArchivoUtil.MAGIA_REGISTROS) {
+            throw new IOException("El archivo no tiene formato de registros: " + ruta);
+        }
+        this.formato = encabezado.getShort();
+        if (!BloquesRegistros.esFormatoBloques(formato)) {
+            throw new IOException("El archivo no está comprimido en bloques: " + ruta);
+        }
+        this.version = encabezado.getInt();
+        this.compresion = Compresion.desdeCodigo(encabezado.get());
+
+        long posicionIndice = leer(canal.size() - Long.BYTES, Long.BYTES).getLong();
+        int cantidad = leer(posicionIndice, Integer.BYTES).getInt();
+        if (cantidad < 0) throw new IOException("Índice de bloques inválido en " + ruta);
+        ByteBuffer indice = leer(posicionIndice + Integer.BYTES, cantidad * (Long.BYTES + Integer.BYTES));
+        this.posiciones = new long[cantidad];
+        this.primerRegistro = new long[cantidad + 1];
+        for (int i = 0; i < cantidad; i++) {
+            posiciones[i] = indice.getLong();
+            primerRegistro[i + 1] = primerRegistro[i] + indice.getInt();
+        }
+    }
+
+    /**
+     * Abre un archivo comprimido en bloques.
+     *
+     * @throws IOException si el archivo no existe, no está comprimido o su índice es inválido
+     */
+    public static <T> LectorBloques<T> abrir(String ruta, CodecBinario<T> codec) throws IOException {
+        Objects.requireNonNull(codec, "El codec no puede ser null");
+        Path path = Paths.get(ruta);
+        FileChannel canal = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new LectorBloques<>(ruta, codec, canal);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public Compresion getCompresion() {
+        return compresion;
+    }
+
+    public int getCantidadBloques() {
+        return posiciones.length;
+    }
+
+    public long getCantidadRegistros() {
+        return primerRegistro[posiciones.length];
+    }
+
+    /**
+     * Bloque que contiene el registro indicado (contando desde 0 en el orden de guardado).
+     *
+     * @throws IndexOutOfBoundsException si el número de registro está fuera del archivo
+     */
+    public int bloqueDe(long numeroRegistro) {
+        Objects.checkIndex(numeroRegistro, getCantidadRegistros());
+        int indice = Arrays.binarySearch(primerRegistro, 0, posiciones.length, numeroRegistro);
+        // Los bloques nunca están vacíos, así que los primeros registros son estrictamente crecientes
+        return indice >= 0 ? indice : -indice - 2;
+    }
+
+    /**
+     * Descomprime y decodifica todos los registros de un bloque. Como el bloque se lee completo,
+     * su suma de verificación se comprueba antes de descomprimirlo.
+     *
+     * @throws IndexOutOfBoundsException si el bloque no existe
+     * @throws IOException               si el bloque está dañado
+     */
+    public synchronized List<T> leerBloque(int bloque) throws IOException {
+        Objects.checkIndex(bloque, posiciones.length);
+        int tamanioCabecera = BloquesRegistros.cabeceraBloque(formato);
+        ByteBuffer cabecera = leer(posiciones[bloque], tamanioCabecera);
+        int largoComprimido = cabecera.getInt();
+        int largoOriginal = cabecera.getInt();
+        int cantidad = cabecera.getInt();
+        if (cantidad < 0) throw new IOException("Cabecera de bloque inválida en " + ruta + ", bloque " + bloque);
+        BloquesRegistros.validarLargos(largoComprimido, largoOriginal, canal.size());
+
+        ByteBuffer datos = leer(posiciones[bloque] + tamanioCabecera, largoComprimido);
+        if (formato == BloquesRegistros.FORMATO_BLOQUES_VERIFICADO
+                && cabecera.getInt() != BloquesRegistros.sumaVerificacion(datos.array(), 0, largoComprimido)) {
+            throw new IOException("Suma de verificación incorrecta en " + ruta + ", bloque " + bloque);
+        }
+        byte[] original = new byte[largoOriginal];
+        BloquesRegistros.descomprimir(inflater, datos.array(), largoComprimido, original, largoOriginal);
+
+        List<T> registros = new ArrayList<>(cantidad);
+        ByteBuffer contenido = ByteBuffer.wrap(original);
+        for (int i = 0; i < cantidad; i++) {
+            int largo = contenido.getInt();
+            if (largo < 0 || largo > contenido.remaining()) {
+                throw new IOException("Largo de registro inválido en " + ruta + ": " + largo);
+            }
+            byte[] bytes = new byte[largo];
+            contenido.get(bytes);
+            registros.add(ArchivoUtil.decodificar(codec, bytes, largo, version));
+        }
+        return registros;
+    }
+
+    /**
+     * Lee un rango de registros descomprimiendo solo los bloques que lo contienen.
+     *
+     * @param desde    número del primer registro
+     * @param cantidad cantidad máxima de registros a devolver
+     */
+    public List<T> leerRegistros(long desde, int cantidad) throws IOException {
+        List<T> resultado = new ArrayList<>(Math.max(cantidad, 0));
+        if (cantidad <= 0 || desde >= getCantidadRegistros()) return resultado;
+        int bloque = bloqueDe(desde);
+        int saltar = (int) (desde - primerRegistro[bloque]);
+        while (resultado.size() < cantidad && bloque < posiciones.length) {
+            List<T> registros = leerBloque(bloque++);
+            for (int i = saltar; i < registros.size() && resultado.size() < cantidad; i++) {
+                resultado.add(registros.get(i));
+            }
+            saltar = 0;
+        }
+        return resultado;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        inflater.end();
+        canal.close();
+    }
+
+    private ByteBuffer leer(long posicion, int largo) throws IOException {
+        if (posicion < 0 || posicion + largo > canal.size()) {
+            throw new IOException("Archivo comprimido truncado: " + ruta);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(largo);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new EOFException("Fin de archivo inesperado en " + ruta);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
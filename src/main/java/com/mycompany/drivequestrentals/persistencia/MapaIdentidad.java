@@ -0,0 +1,222 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.Arriendo;
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.modelo.EstadoVehiculo;
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Mapa de identidad usado al cargar datos persistidos.
+ * Los archivos de arriendos, pagos y mantenimientos guardan solo claves foráneas
+ * (RUT, patente, id de arriendo); al leerlos, cada clave se resuelve contra este mapa
+ * para que todas las referencias apunten a una única instancia canónica en memoria.
+ *
+ * <p>Cuando las entidades viven en un {@link Repositorio} que no las mantiene en el heap, se
+ * puede asignar una fuente de respaldo que se consulta si la clave no está registrada.</p>
+ *
+ * <p>El historial conserva las claves de clientes, vehículos y arriendos que después se eliminaron.
+ * Una clave que ya no se resuelve no interrumpe la lectura ni descarta el registro: se resuelve a una
+ * referencia no resuelta, una instancia que solo conoce su clave (ver {@link #esNoResuelto}). Así el
+ * registro se sigue pudiendo leer, y al volver a escribirlo conserva la misma clave.</p>
+ */
+public class MapaIdentidad {
+
+    /** Texto con que se rellenan los campos de una referencia no resuelta. */
+    public static final String NO_RESUELTO = "No registrado";
+
+    private final Map<String, Cliente> clientes = new ConcurrentHashMap<>();
+    private final Map<String, Vehiculo> vehiculos = new ConcurrentHashMap<>();
+    private final Map<String, Arriendo> arriendos = new ConcurrentHashMap<>();
+
+    // Referencias no resueltas, una por clave para que los registros que la comparten usen la misma
+    private final Map<String, Cliente> clientesNoResueltos = new ConcurrentHashMap<>();
+    private final Map<String, Vehiculo> vehiculosNoResueltos = new ConcurrentHashMap<>();
+    private final Map<String, Arriendo> arriendosNoResueltos = new ConcurrentHashMap<>();
+
+    private volatile Function<String, Cliente> fuenteClientes = clave -> null;
+    private volatile Function<String, Vehiculo> fuenteVehiculos = clave -> null;
+    private volatile Function<String, Arriendo> fuenteArriendos = clave -> null;
+
+    // ---------- REGISTRO DE INSTANCIAS CANÓNICAS ----------
+
+    public void registrarClientes(Collection<Cliente> lista) {
+        for (Cliente cliente : lista) {
+            clientes.put(cliente.getRutOPasaporte(), cliente);
+        }
+    }
+
+    public void registrarVehiculos(Collection<Vehiculo> lista) {
+        for (Vehiculo vehiculo : lista) {
+            vehiculos.put(vehiculo.getPatente(), vehiculo);
+        }
+    }
+
+    public void registrarArriendos(Collection<Arriendo> lista) {
+        for (Arriendo arriendo : lista) {
+            arriendos.put(arriendo.getId(), arriendo);
+        }
+    }
+
+    // ---------- FUENTES DE RESPALDO ----------
+
+    /**
+     * Asigna la función que busca un cliente no registrado, por ejemplo en un repositorio.
+     * Debe retornar null si el cliente no existe.
+     */
+    public void setFuenteClientes(Function<String, Cliente> fuente) {
+        this.fuenteClientes = Objects.requireNonNull(fuente, "La fuente no puede ser null");
+    }
+
+    /**
+     * Asigna la función que busca un vehículo no registrado. Debe retornar null si no existe.
+     */
+    public void setFuenteVehiculos(Function<String, Vehiculo> fuente) {
+        this.fuenteVehiculos = Objects.requireNonNull(fuente, "La fuente no puede ser null");
+    }
+
+    /**
+     * Asigna la función que busca un arriendo no registrado. Debe retornar null si no existe.
+     */
+    public void setFuenteArriendos(Function<String, Arriendo> fuente) {
+        this.fuenteArriendos = Objects.requireNonNull(fuente, "La fuente no puede ser null");
+    }
+
+    // ---------- RESOLUCIÓN DE CLAVES FORÁNEAS ----------
+
+    /**
+     * Resuelve un cliente por su RUT o pasaporte.
+     *
+     * @return el cliente, o una referencia no resuelta si ya no está registrado
+     */
+    public Cliente resolverCliente(String rutOPasaporte) {
+        Cliente cliente = buscar(clientes, fuenteClientes, rutOPasaporte);
+        if (cliente != null || rutOPasaporte == null) return cliente;
+        return clientesNoResueltos.computeIfAbsent(rutOPasaporte, clave -> {
+            avisarNoResuelto("cliente", clave);
+            Cliente sustituto = new Cliente();
+            sustituto.setRutOPasaporte(clave);
+            sustituto.setNombreCompleto(NO_RESUELTO);
+            return sustituto;
+        });
+    }
+
+    /**
+     * Resuelve un vehículo por su patente.
+     *
+     * @return el vehículo, o una referencia no resuelta si ya no está registrado
+     */
+    public Vehiculo resolverVehiculo(String patente) {
+        Vehiculo vehiculo = buscar(vehiculos, fuenteVehiculos, patente);
+        if (vehiculo != null || patente == null) return vehiculo;
+        return vehiculosNoResueltos.computeIfAbsent(patente, clave -> {
+            avisarNoResuelto("vehículo", clave);
+            return new VehiculoNoResuelto(clave);
+        });
+    }
+
+    /**
+     * Resuelve un arriendo por su id.
+     *
+     * @return el arriendo, o una referencia no resuelta si ya no está registrado
+     */
+    public Arriendo resolverArriendo(String id) {
+        Arriendo arriendo = buscar(arriendos, fuenteArriendos, id);
+        if (arriendo != null || id == null) return arriendo;
+        return arriendosNoResueltos.computeIfAbsent(id, clave -> {
+            avisarNoResuelto("arriendo", clave);
+            Arriendo sustituto = new Arriendo();
+            sustituto.setId(clave);
+            sustituto.setContratoTipo(NO_RESUELTO);
+            return sustituto;
+        });
+    }
+
+    /**
+     * Indica si la entidad es una referencia no resuelta creada por este mapa, es decir, si el
+     * registro que la contiene apunta a un cliente, vehículo o arriendo que ya no existe.
+     */
+    public boolean esNoResuelto(Object entidad) {
+        if (entidad instanceof Cliente cliente) {
+            return cliente.getRutOPasaporte() != null && clientesNoResueltos.get(cliente.getRutOPasaporte()) == cliente;
+        }
+        if (entidad instanceof Arriendo arriendo) {
+            return arriendo.getId() != null && arriendosNoResueltos.get(arriendo.getId()) == arriendo;
+        }
+        return entidad instanceof VehiculoNoResuelto;
+    }
+
+    /**
+     * Devuelve la instancia canónica de un cliente si existe, o el mismo cliente en caso contrario.
+     * Se usa al leer formatos antiguos que incluían copias completas.
+     */
+    public Cliente canonizar(Cliente cliente) {
+        if (cliente == null) return null;
+        return clientes.getOrDefault(cliente.getRutOPasaporte(), cliente);
+    }
+
+    /**
+     * Devuelve la instancia canónica de un vehículo si existe, o el mismo vehículo en caso contrario.
+     */
+    public Vehiculo canonizar(Vehiculo vehiculo) {
+        if (vehiculo == null) return null;
+        return vehiculos.getOrDefault(vehiculo.getPatente(), vehiculo);
+    }
+
+    /**
+     * Devuelve la instancia canónica de un arriendo si existe, o el mismo arriendo en caso contrario.
+     */
+    public Arriendo canonizar(Arriendo arriendo) {
+        if (arriendo == null) return null;
+        return arriendos.getOrDefault(arriendo.getId(), arriendo);
+    }
+
+    /**
+     * Busca un cliente sin exigir que exista. Útil para referencias opcionales.
+     */
+    public Cliente buscarCliente(String rutOPasaporte) {
+        return buscar(clientes, fuenteClientes, rutOPasaporte);
+    }
+
+    /**
+     * Busca un vehículo sin exigir que exista. Útil para referencias opcionales.
+     */
+    public Vehiculo buscarVehiculo(String patente) {
+        return buscar(vehiculos, fuenteVehiculos, patente);
+    }
+
+    private static <T> T buscar(Map<String, T> mapa, Function<String, T> fuente, String clave) {
+        if (clave == null) return null;
+        T valor = mapa.get(clave);
+        return valor != null ? valor : fuente.apply(clave);
+    }
+
+    private static void avisarNoResuelto(String entidad, String clave) {
+        System.err.println("⚠️ El historial referencia un " + entidad + " que ya no existe (" + clave
+                + "); se conserva solo su clave.");
+    }
+
+    /**
+     * Vehículo del que solo se conoce la patente, porque se eliminó después de ser referenciado.
+     */
+    private static final class VehiculoNoResuelto extends Vehiculo {
+        private static final long serialVersionUID = 1L;
+
+        VehiculoNoResuelto(String patente) {
+            setPatente(patente);
+            setMarca(NO_RESUELTO);
+            setModelo(NO_RESUELTO);
+            setEstadoVehiculo(EstadoVehiculo.EN_MANTENCION);
+        }
+
+        @Override
+        public String mostrarDatos() {
+            return "Patente: " + getPatente() + " (" + NO_RESUELTO + ")";
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+/**
+ * Tipos de operación que se registran en el diario de cambios de una entidad.
+ */
+public enum OperacionDiario {
+
+    INSERTAR((byte) 1),
+    ACTUALIZAR((byte) 2),
+    ELIMINAR((byte) 3);
+
+    private final byte codigo;
+
+    OperacionDiario(byte codigo) {
+        this.codigo = codigo;
+    }
+
+    /**
+     * Código binario con el que la operación se escribe en el archivo de diario.
+     */
+    public byte getCodigo() {
+        return codigo;
+    }
+
+    /**
+     * Obtiene la operación correspondiente a un código leído desde el diario.
+     *
+     * @param codigo código binario de la operación
+     * @return operación asociada
+     * @throws IllegalArgumentException si el código no corresponde a ninguna operación
+     */
+    public static OperacionDiario desdeCodigo(byte codigo) {
+        for (OperacionDiario operacion : values()) {
+            if (operacion.codigo == codigo) {
+                return operacion;
+            }
+        }
+        throw new IllegalArgumentException("Código de operación de diario desconocido: " + codigo);
+    }
+}
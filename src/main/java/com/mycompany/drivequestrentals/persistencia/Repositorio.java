@@ -0,0 +1,166 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio genérico de entidades identificadas por una clave única.
+ * Los servicios trabajan contra esta interfaz y el respaldo concreto (memoria, archivo
+ * o archivo mapeado en memoria) se elige al crear el repositorio, ver {@link FabricaRepositorios}.
+ *
+ * <p>Las operaciones no declaran excepciones comprobadas: los respaldos en disco informan
+ * los errores de lectura o escritura con {@link java.io.UncheckedIOException}.</p>
+ *
+ * @param <T>  tipo de entidad
+ * @param <ID> tipo de la clave de la entidad
+ */
+public interface Repositorio<T, ID> extends Closeable {
+
+    /**
+     * Busca una entidad por su clave.
+     *
+     * @param id clave de la entidad
+     * @return Optional con la entidad encontrada o vacío
+     */
+    Optional<T> buscarPorId(ID id);
+
+    /**
+     * Devuelve una copia de todas las entidades almacenadas.
+     */
+    List<T> buscarTodos();
+
+    /**
+     * Inserta la entidad o reemplaza la que tenga la misma clave.
+     *
+     * @param entidad entidad a guardar
+     */
+    void guardar(T entidad);
+
+    /**
+     * Vista inmutable de las entidades en un instante, para recorrerlas (por ejemplo al guardarlas)
+     * sin detener a quienes escriben. Por defecto es una copia; los repositorios que mantienen las
+     * entidades en el heap la entregan en O(1), sin copiar.
+     */
+    default Collection<T> instantanea() {
+        return buscarTodos();
+    }
+
+    /**
+     * Guarda la entidad solo si no hay otra con la misma clave, de forma atómica respecto de las
+     * demás escrituras del repositorio. La implementación por defecto sincroniza sobre el repositorio,
+     * que es el candado de escritura de los respaldos en memoria y en archivo.
+     *
+     * @param id      clave de la entidad
+     * @param entidad entidad a guardar
+     * @return true si se guardó, false si la clave ya existía
+     */
+    default boolean guardarSiAusente(ID id, T entidad) {
+        synchronized (this) {
+            if (existe(id)) return false;
+            guardar(entidad);
+            return true;
+        }
+    }
+
+    /**
+     * Reemplaza la entidad de una clave solo si existe, de forma atómica respecto de las demás
+     * escrituras del repositorio (ver {@link #guardarSiAusente}).
+     *
+     * @param id      clave de la entidad
+     * @param entidad nuevo estado de la entidad
+     * @return la entidad reemplazada, o vacío si la clave no existía y no se guardó nada
+     */
+    default Optional<T> reemplazar(ID id, T entidad) {
+        synchronized (this) {
+            Optional<T> anterior = buscarPorId(id);
+            if (anterior.isPresent()) guardar(entidad);
+            return anterior;
+        }
+    }
+
+    /**
+     * Reemplaza la entidad de una clave solo si existe y cumple la condición, de forma atómica respecto
+     * de las demás escrituras del repositorio (ver {@link #guardarSiAusente}). Es la operación de
+     * comparar e intercambiar sobre la que se construyen las actualizaciones por versión.
+     *
+     * @param id        clave de la entidad
+     * @param condicion condición que debe cumplir la entidad almacenada
+     * @param entidad   nuevo estado de la entidad
+     * @return true si se reemplazó; false si la clave no existía o la entidad no cumplía la condición
+     */
+    default boolean reemplazarSi(ID id, Predicate<? super T> condicion, T entidad) {
+        synchronized (this) {
+            Optional<T> actual = buscarPorId(id);
+            if (actual.isEmpty() || !condicion.test(actual.get())) return false;
+            guardar(entidad);
+            return true;
+        }
+    }
+
+    /**
+     * Guarda en una sola operación las entidades cuya clave no exista, de forma atómica respecto
+     * de las demás escrituras del repositorio (ver {@link #guardarSiAusente}).
+     *
+     * @param entidades   entidades a guardar
+     * @param extractorId función que obtiene la clave de cada entidad
+     * @return entidades omitidas porque su clave ya existía
+     */
+    default List<T> guardarTodosSiAusentes(Collection<T> entidades, Function<T, ID> extractorId) {
+        synchronized (this) {
+            List<T> nuevas = new ArrayList<>(entidades.size());
+            List<T> omitidas = new ArrayList<>();
+            for (T entidad : entidades) {
+                (existe(extractorId.apply(entidad)) ? omitidas : nuevas).add(entidad);
+            }
+            if (!nuevas.isEmpty()) guardarTodos(nuevas);
+            return omitidas;
+        }
+    }
+
+    /**
+     * Guarda varias entidades. Los respaldos en disco las escriben en una sola operación.
+     *
+     * @param entidades entidades a guardar
+     */
+    void guardarTodos(Collection<T> entidades);
+
+    /**
+     * Elimina la entidad asociada a una clave.
+     *
+     * @param id clave de la entidad
+     * @return true si existía y se eliminó
+     */
+    boolean eliminar(ID id);
+
+    /**
+     * Stream secuencial sobre las entidades almacenadas. Debe cerrarse si el respaldo
+     * lo requiere, por lo que se recomienda usarlo en un try-with-resources.
+     */
+    Stream<T> stream();
+
+    /**
+     * Cantidad de entidades almacenadas.
+     */
+    int contar();
+
+    /**
+     * Indica si existe una entidad con la clave dada.
+     */
+    default boolean existe(ID id) {
+        return buscarPorId(id).isPresent();
+    }
+
+    /**
+     * Libera los recursos del respaldo. Los repositorios en memoria no requieren cerrarse.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
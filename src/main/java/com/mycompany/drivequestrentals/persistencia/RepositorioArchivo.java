@@ -0,0 +1,204 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.persistencia.codec.CodecBinario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio respaldado por el formato de archivo actual: una instantánea escrita con
+ * {@link ArchivoUtil#guardarRegistros} más un {@link DiarioCambios} con las operaciones posteriores.
+ * Todas las entidades se mantienen en memoria; cada escritura se agrega al diario antes de
+ * retornar y, cuando el diario supera un umbral, se compacta en una nueva instantánea.
+ *
+ * <p>El diario es lo que hace que solo se persista lo que cambió: cada operación de un servicio que
+ * modifica una entidad (registrar, confirmar, cambiar de estado, actualizar) escribe un único registro
+ * con esa entidad, sin reescribir las demás. Por eso los servicios no llevan la cuenta de entidades
+ * modificadas ni tienen un paso de guardado: al retornar la escritura ya está en el disco.</p>
+ *
+ * <p>Las entidades en memoria viven en una {@link TablaPersistente}, de modo que la compactación
+ * escribe una versión inmutable sin copiarlas y las búsquedas y listados no toman el candado de las
+ * escrituras.</p>
+ *
+ * @param <T>  tipo de entidad
+ * @param <ID> tipo de la clave de la entidad
+ */
+public class RepositorioArchivo<T, ID> implements Repositorio<T, ID> {
+
+    /** Tamaño del diario a partir del cual se reescribe la instantánea. */
+    public static final long UMBRAL_COMPACTACION = 4L * 1024 * 1024;
+
+    private final String ruta;
+    private final CodecBinario<T> codec;
+    private final Function<T, ID> extractorId;
+    private final DiarioCambios<T> diario;
+    private final long umbralCompactacion;
+    private final TablaPersistente<ID, T> entidades = new TablaPersistente<>();
+    private volatile Compresion compresion = Compresion.NINGUNA;
+
+    private RepositorioArchivo(Path archivo, CodecBinario<T> codec, Function<T, ID> extractorId,
+                               long umbralCompactacion) {
+        this.ruta = archivo.toString();
+        this.codec = codec;
+        this.extractorId = extractorId;
+        this.umbralCompactacion = umbralCompactacion;
+        this.diario = new DiarioCambios<>(ruta + ".diario", entidad -> String.valueOf(extractorId.apply(entidad)), codec);
+    }
+
+    /**
+     * Abre el repositorio cargando la instantánea y reproduciendo el diario. Si la instantánea está
+     * dañada se recuperan sus registros sanos (ver {@link IntegridadRegistros#cargarTolerante}).
+     *
+     * @param archivo     archivo de instantánea (el diario usa el mismo nombre con extensión {@code .diario})
+     * @param codec       codec de la entidad
+     * @param extractorId función que obtiene la clave de cada entidad
+     * @throws IOException            si los archivos no se pueden leer
+     * @throws ClassNotFoundException si la instantánea está en el formato anterior y contiene clases desconocidas
+     */
+    public static <T, ID> RepositorioArchivo<T, ID> abrir(Path archivo, CodecBinario<T> codec,
+                                                          Function<T, ID> extractorId)
+            throws IOException, ClassNotFoundException {
+        return abrir(archivo, codec, extractorId, UMBRAL_COMPACTACION);
+    }
+
+    /**
+     * Abre el repositorio indicando el tamaño de diario que dispara la compactación.
+     */
+    public static <T, ID> RepositorioArchivo<T, ID> abrir(Path archivo, CodecBinario<T> codec,
+                                                          Function<T, ID> extractorId, long umbralCompactacion)
+            throws IOException, ClassNotFoundException {
+        Objects.requireNonNull(archivo, "El archivo no puede ser null");
+        Objects.requireNonNull(codec, "El codec no puede ser null");
+        Objects.requireNonNull(extractorId, "El extractor de clave no puede ser null");
+
+        RepositorioArchivo<T, ID> repositorio = new RepositorioArchivo<>(archivo, codec, extractorId, umbralCompactacion);
+        List<T> instantanea = IntegridadRegistros.cargarTolerante(repositorio.ruta, codec);
+        for (T entidad : repositorio.diario.reproducir(instantanea)) {
+            repositorio.entidades.put(extractorId.apply(entidad), entidad);
+        }
+        return repositorio;
+    }
+
+    @Override
+    public Optional<T> buscarPorId(ID id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(entidades.get(id));
+    }
+
+    @Override
+    public List<T> buscarTodos() {
+        return new ArrayList<>(entidades.instantanea());
+    }
+
+    @Override
+    public Collection<T> instantanea() {
+        return entidades.instantanea();
+    }
+
+    @Override
+    public synchronized void guardar(T entidad) {
+        Objects.requireNonNull(entidad, "La entidad no puede ser null");
+        ID id = extractorId.apply(entidad);
+        OperacionDiario operacion = entidades.get(id) != null ? OperacionDiario.ACTUALIZAR : OperacionDiario.INSERTAR;
+        try {
+            diario.registrar(operacion, entidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        entidades.put(id, entidad);
+        compactarSiCorresponde();
+    }
+
+    /**
+     * Guarda todas las entidades con una sola escritura (y un solo fsync) en el diario.
+     */
+    @Override
+    public synchronized void guardarTodos(Collection<T> lista) {
+        try {
+            diario.registrarTodos(OperacionDiario.ACTUALIZAR, lista);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (T entidad : lista) {
+            entidades.put(extractorId.apply(entidad), entidad);
+        }
+        compactarSiCorresponde();
+    }
+
+    @Override
+    public synchronized boolean eliminar(ID id) {
+        T entidad = id == null ? null : entidades.get(id);
+        if (entidad == null) return false;
+        try {
+            diario.registrar(OperacionDiario.ELIMINAR, entidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        entidades.remove(id);
+        compactarSiCorresponde();
+        return true;
+    }
+
+    /**
+     * Stream sobre una instantánea de las entidades, por lo que no se ve afectado por cambios posteriores.
+     */
+    @Override
+    public Stream<T> stream() {
+        return entidades.instantanea().stream();
+    }
+
+    @Override
+    public int contar() {
+        return entidades.tamanio();
+    }
+
+    /**
+     * Compresión de las próximas instantáneas. La instantánea actual se sigue leyendo en su
+     * formato hasta la siguiente compactación.
+     */
+    public void setCompresion(Compresion compresion) {
+        this.compresion = Objects.requireNonNull(compresion, "La compresión no puede ser null");
+    }
+
+    /**
+     * Escribe una instantánea con el estado actual y vacía el diario.
+     *
+     * @throws IOException si la instantánea no se puede escribir
+     */
+    public synchronized void compactar() throws IOException {
+        Collection<T> instantanea = entidades.instantanea();
+        try {
+            diario.ejecutarExclusivo(() -> {
+                ArchivoUtil.guardarRegistros(ruta, instantanea, codec, compresion);
+                diario.vaciar();
+            });
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e); // La acción no lee objetos serializados
+        }
+    }
+
+    /**
+     * Compacta antes de cerrar, para que la próxima apertura no tenga que reproducir el diario.
+     */
+    @Override
+    public void close() throws IOException {
+        compactar();
+    }
+
+    private void compactarSiCorresponde() {
+        if (diario.tamanio() <= umbralCompactacion) return;
+        try {
+            compactar();
+        } catch (IOException e) {
+            // El cambio ya está en el diario; la compactación se reintentará en la próxima escritura
+            System.err.println("⚠️ No se pudo compactar " + ruta + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio cuyas escrituras se aplican en segundo plano mediante un {@link EscritorPersistencia}.
+ * {@link #guardar} y {@link #eliminar} retornan apenas la escritura está encolada; las variantes
+ * {@code Asincrono} devuelven el futuro que se completa cuando el repositorio de destino la confirmó.
+ *
+ * <p>Las escrituras aún no aplicadas se mantienen en un mapa de pendientes que las lecturas consultan
+ * antes que el destino, de modo que quien escribe siempre lee lo que escribió.</p>
+ *
+ * @param <T>  tipo de entidad
+ * @param <ID> tipo de la clave de la entidad
+ */
+public class RepositorioAsincrono<T, ID> implements Repositorio<T, ID> {
+
+    private final EscritorPersistencia escritor;
+    private final Repositorio<T, ID> destino;
+    private final Function<T, ID> extractorId;
+    private final Map<ID, EscritorPersistencia.Solicitud> pendientes = new ConcurrentHashMap<>();
+
+    RepositorioAsincrono(EscritorPersistencia escritor, Repositorio<T, ID> destino, Function<T, ID> extractorId) {
+        this.escritor = Objects.requireNonNull(escritor, "El escritor no puede ser null");
+        this.destino = Objects.requireNonNull(destino, "El repositorio de destino no puede ser null");
+        this.extractorId = Objects.requireNonNull(extractorId, "El extractor de clave no puede ser null");
+    }
+
+    public Repositorio<T, ID> getDestino() {
+        return destino;
+    }
+
+    // ---------- ESCRITURA ----------
+
+    /**
+     * Encola la entidad para guardarla.
+     *
+     * @return futuro que se completa cuando el destino confirmó la escritura
+     */
+    public CompletableFuture<Void> guardarAsincrono(T entidad) {
+        Objects.requireNonNull(entidad, "La entidad no puede ser null");
+        ID id = extractorId.apply(entidad);
+        return encolar(new EscritorPersistencia.Solicitud(this, id, entidad, false));
+    }
+
+    /**
+     * Encola la eliminación de una entidad.
+     *
+     * @return futuro que se completa cuando el destino confirmó la eliminación
+     */
+    public CompletableFuture<Void> eliminarAsincrono(ID id) {
+        return encolar(new EscritorPersistencia.Solicitud(this, id, null, true));
+    }
+
+    @Override
+    public void guardar(T entidad) {
+        guardarAsincrono(entidad);
+    }
+
+    @Override
+    public void guardarTodos(Collection<T> entidades) {
+        for (T entidad : entidades) {
+            guardarAsincrono(entidad);
+        }
+    }
+
+    @Override
+    public synchronized boolean eliminar(ID id) {
+        if (!existe(id)) return false;
+        eliminarAsincrono(id);
+        return true;
+    }
+
+    /**
+     * El registro en pendientes y el encolado se hacen juntos para que el orden de la cola
+     * coincida con el de los pendientes de una misma clave.
+     */
+    private synchronized CompletableFuture<Void> encolar(EscritorPersistencia.Solicitud solicitud) {
+        @SuppressWarnings("unchecked")
+        ID id = (ID) solicitud.id;
+        pendientes.put(id, solicitud);
+        return escritor.encolar(solicitud);
+    }
+
+    /**
+     * Aplica sobre el destino las escrituras combinadas de un lote. Lo invoca el hilo escritor.
+     *
+     * @return el error producido, o null si todas se aplicaron
+     */
+    @SuppressWarnings("unchecked")
+    Throwable aplicar(Collection<EscritorPersistencia.Solicitud> cambios) {
+        Throwable error = null;
+        List<T> guardadas = new ArrayList<>();
+        for (EscritorPersistencia.Solicitud cambio : cambios) {
+            if (!cambio.eliminar) guardadas.add((T) cambio.entidad);
+        }
+        try {
+            if (!guardadas.isEmpty()) destino.guardarTodos(guardadas);
+            for (EscritorPersistencia.Solicitud cambio : cambios) {
+                if (cambio.eliminar) destino.eliminar((ID) cambio.id);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error al aplicar escrituras en segundo plano: " + e.getMessage());
+            error = e;
+        }
+        // Solo se retira la solicitud aplicada: una escritura posterior de la misma clave sigue pendiente
+        for (EscritorPersistencia.Solicitud cambio : cambios) {
+            pendientes.remove((ID) cambio.id, cambio);
+        }
+        return error;
+    }
+
+    // ---------- LECTURA ----------
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<T> buscarPorId(ID id) {
+        EscritorPersistencia.Solicitud pendiente = pendientes.get(id);
+        if (pendiente != null) {
+            return pendiente.eliminar ? Optional.empty() : Optional.of((T) pendiente.entidad);
+        }
+        return destino.buscarPorId(id);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> buscarTodos() {
+        if (pendientes.isEmpty()) return destino.buscarTodos();
+        Map<ID, EscritorPersistencia.Solicitud> copia = new LinkedHashMap<>(pendientes);
+        List<T> resultado = new ArrayList<>();
+        for (T entidad : destino.buscarTodos()) {
+            EscritorPersistencia.Solicitud pendiente = copia.remove(extractorId.apply(entidad));
+            if (pendiente == null) {
+                resultado.add(entidad);
+            } else if (!pendiente.eliminar) {
+                resultado.add((T) pendiente.entidad);
+            }
+        }
+        for (EscritorPersistencia.Solicitud pendiente : copia.values()) {
+            if (!pendiente.eliminar) resultado.add((T) pendiente.entidad);
+        }
+        return resultado;
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return pendientes.isEmpty() ? destino.stream() : buscarTodos().stream();
+    }
+
+    @Override
+    public int contar() {
+        return pendientes.isEmpty() ? destino.contar() : buscarTodos().size();
+    }
+
+    /**
+     * Espera a que se apliquen las escrituras pendientes y cierra el destino.
+     */
+    @Override
+    public void close() throws IOException {
+        escritor.vaciar().join();
+        destino.close();
+    }
+}
@@ -0,0 +1,510 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.persistencia.codec.CodecBinario;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio respaldado por un archivo mapeado en memoria con ranuras de tamaño fijo.
+ * Las entidades no se mantienen en el heap: solo un índice clave → ranura. Cada lectura
+ * decodifica la ranura y cada escritura reemplaza su contenido en el lugar, sin reescribir
+ * el archivo. Las ranuras liberadas se reutilizan y el archivo se duplica al llenarse.
+ *
+ * <p>Formato: encabezado de {@value #TAMANIO_ENCABEZADO} bytes
+ * {@code [int magia][int formato][int tamaño ranura][int capacidad][int formato de ranura]} seguido de
+ * las ranuras {@code [byte ocupada][contenido]}. El contenido lo define un {@link FormatoRanura}; por
+ * defecto es {@code [int versión codec][int largo][bytes entidad]} escrito con un {@link CodecBinario}.</p>
+ *
+ * <p>Como cada lectura construye una instancia nueva, las referencias entre entidades no son
+ * canónicas: quien modifica una entidad debe volver a guardarla. Las escrituras llegan al disco
+ * cuando el sistema operativo vacía las páginas, o al llamar a {@link #sincronizar()} o {@link #close()}.</p>
+ *
+ * @param <T>  tipo de entidad
+ * @param <ID> tipo de la clave de la entidad
+ */
+public class RepositorioMapeado<T, ID> implements Repositorio<T, ID> {
+
+    /** Firma del archivo: "DQMR". */
+    private static final int MAGIA = 0x44514D52;
+    private static final int FORMATO = 1;
+    static final int TAMANIO_ENCABEZADO = 64;
+    private static final int CABECERA_CODEC = Integer.BYTES + Integer.BYTES;
+
+    /** Tamaño de ranura por defecto, suficiente para cualquier entidad del modelo. */
+    public static final int RANURA_POR_DEFECTO = 512;
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private final Path archivo;
+    private final FormatoRanura<T, ID> formato;
+    private final int tamanioRanura;
+
+    private final FileChannel canal;
+    private MappedByteBuffer buffer;
+    private int capacidad;
+
+    private final Map<ID, Integer> indice = new LinkedHashMap<>();
+    private final Deque<Integer> libres = new ArrayDeque<>();
+    private int siguienteNueva;
+
+    private final ReadWriteLock candado = new ReentrantReadWriteLock();
+
+    /**
+     * Abre (o crea) el archivo con un formato de ranura, lo mapea en memoria y reconstruye
+     * el índice leyendo la clave de cada ranura ocupada.
+     *
+     * @param archivo archivo de datos
+     * @param formato formato del contenido de las ranuras; debe coincidir con el de un archivo existente
+     * @throws IOException si el archivo no se puede abrir o su encabezado es inválido
+     */
+    protected RepositorioMapeado(Path archivo, FormatoRanura<T, ID> formato) throws IOException {
+        this.archivo = Objects.requireNonNull(archivo, "El archivo no puede ser null");
+        this.formato = Objects.requireNonNull(formato, "El formato no puede ser null");
+        this.tamanioRanura = 1 + formato.getTamanioContenido();
+        this.canal = FileChannel.open(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (canal.size() == 0) {
+                inicializar();
+            } else {
+                cargarIndice();
+            }
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Abre (o crea) el archivo con el tamaño de ranura por defecto.
+     *
+     * @see #abrir(Path, CodecBinario, Function, int)
+     */
+    public static <T, ID> RepositorioMapeado<T, ID> abrir(Path archivo, CodecBinario<T> codec,
+                                                          Function<T, ID> extractorId) throws IOException {
+        return abrir(archivo, codec, extractorId, RANURA_POR_DEFECTO);
+    }
+
+    /**
+     * Abre (o crea) un archivo cuyas ranuras guardan cada entidad escrita con un codec.
+     *
+     * @param archivo       archivo de datos
+     * @param codec         codec de la entidad
+     * @param extractorId   función que obtiene la clave de cada entidad
+     * @param tamanioRanura bytes por ranura; debe coincidir con el de un archivo existente
+     * @throws IOException si el archivo no se puede abrir o su encabezado es inválido
+     */
+    public static <T, ID> RepositorioMapeado<T, ID> abrir(Path archivo, CodecBinario<T> codec,
+                                                          Function<T, ID> extractorId, int tamanioRanura)
+            throws IOException {
+        return new RepositorioMapeado<>(archivo, new FormatoCodec<>(codec, extractorId, tamanioRanura - 1));
+    }
+
+    @Override
+    public Optional<T> buscarPorId(ID id) {
+        if (id == null) return Optional.empty();
+        candado.readLock().lock();
+        try {
+            Integer ranura = indice.get(id);
+            return ranura == null ? Optional.empty() : Optional.of(formato.leer(buffer, contenido(ranura)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<T> buscarTodos() {
+        candado.readLock().lock();
+        try {
+            List<T> resultado = new ArrayList<>(indice.size());
+            for (int ranura : indice.values()) {
+                resultado.add(formato.leer(buffer, contenido(ranura)));
+            }
+            return resultado;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void guardar(T entidad) {
+        Objects.requireNonNull(entidad, "La entidad no puede ser null");
+        candado.writeLock().lock();
+        try {
+            escribirEntidad(entidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void guardarTodos(Collection<T> lista) {
+        candado.writeLock().lock();
+        try {
+            for (T entidad : lista) {
+                escribirEntidad(Objects.requireNonNull(entidad, "La entidad no puede ser null"));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean eliminar(ID id) {
+        if (id == null) return false;
+        candado.writeLock().lock();
+        try {
+            Integer ranura = indice.remove(id);
+            if (ranura == null) return false;
+            buffer.put(posicion(ranura), (byte) 0);
+            libres.push(ranura);
+            return true;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // Las variantes condicionales toman el candado de escritura, que admite las lecturas y escrituras anidadas
+
+    @Override
+    public boolean guardarSiAusente(ID id, T entidad) {
+        candado.writeLock().lock();
+        try {
+            return Repositorio.super.guardarSiAusente(id, entidad);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<T> reemplazar(ID id, T entidad) {
+        candado.writeLock().lock();
+        try {
+            return Repositorio.super.reemplazar(id, entidad);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean reemplazarSi(ID id, Predicate<? super T> condicion, T entidad) {
+        candado.writeLock().lock();
+        try {
+            return Repositorio.super.reemplazarSi(id, condicion, entidad);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<T> guardarTodosSiAusentes(Collection<T> entidades, Function<T, ID> extractorId) {
+        candado.writeLock().lock();
+        try {
+            return Repositorio.super.guardarTodosSiAusentes(entidades, extractorId);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stream sobre las entidades almacenadas al momento de la llamada. Las claves se copian
+     * al inicio y cada entidad se decodifica a medida que se consume.
+     */
+    @Override
+    public Stream<T> stream() {
+        List<ID> claves;
+        candado.readLock().lock();
+        try {
+            claves = new ArrayList<>(indice.keySet());
+        } finally {
+            candado.readLock().unlock();
+        }
+        return claves.stream().map(this::buscarPorId).flatMap(Optional::stream);
+    }
+
+    @Override
+    public int contar() {
+        candado.readLock().lock();
+        try {
+            return indice.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Modificación parcial del contenido de una ranura, escrita directamente en el buffer.
+     */
+    @FunctionalInterface
+    protected interface ModificacionRanura {
+        void aplicar(ByteBuffer buffer, int posicion) throws IOException;
+    }
+
+    /**
+     * Modifica en el lugar la ranura de una entidad, sin decodificarla ni reescribirla completa.
+     *
+     * @param id           clave de la entidad
+     * @param modificacion cambio a aplicar sobre el contenido de la ranura
+     * @return true si la entidad existe y se modificó
+     */
+    protected boolean modificarEnLugar(ID id, ModificacionRanura modificacion) {
+        if (id == null) return false;
+        candado.writeLock().lock();
+        try {
+            Integer ranura = indice.get(id);
+            if (ranura == null) return false;
+            modificacion.aplicar(buffer, contenido(ranura));
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lectura parcial del contenido de una ranura, directamente desde el buffer.
+     */
+    @FunctionalInterface
+    protected interface LecturaRanura<R> {
+        R leer(ByteBuffer buffer, int posicion) throws IOException;
+    }
+
+    /**
+     * Lee parte del contenido de la ranura de una entidad sin decodificarla completa.
+     *
+     * @param id      clave de la entidad
+     * @param lectura lectura a aplicar sobre el contenido de la ranura
+     * @return el valor leído, o null si la entidad no existe
+     */
+    protected <R> R leerEnLugar(ID id, LecturaRanura<R> lectura) {
+        if (id == null) return null;
+        candado.readLock().lock();
+        try {
+            Integer ranura = indice.get(id);
+            return ranura == null ? null : lectura.leer(buffer, contenido(ranura));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fuerza la escritura en disco de las páginas modificadas.
+     */
+    public void sincronizar() {
+        candado.writeLock().lock();
+        try {
+            buffer.force();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public int getCapacidad() {
+        candado.readLock().lock();
+        try {
+            return capacidad;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public Path getArchivo() {
+        return archivo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        candado.writeLock().lock();
+        try {
+            if (!canal.isOpen()) return;
+            buffer.force();
+            canal.close();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // ---------- MÉTODOS AUXILIARES ----------
+
+    private void inicializar() throws IOException {
+        mapear(CAPACIDAD_INICIAL);
+        buffer.putInt(0, MAGIA);
+        buffer.putInt(4, FORMATO);
+        buffer.putInt(8, tamanioRanura);
+        buffer.putInt(12, capacidad);
+        buffer.putInt(16, formato.getIdentificador());
+    }
+
+    private void cargarIndice() throws IOException {
+        buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAMANIO_ENCABEZADO);
+        if (buffer.getInt(0) != MAGIA) {
+            throw new IOException("El archivo " + archivo + " no es un repositorio mapeado");
+        }
+        if (buffer.getInt(4) != FORMATO) {
+            throw new IOException("Formato de repositorio no soportado en " + archivo + ": " + buffer.getInt(4));
+        }
+        int ranuraArchivo = buffer.getInt(8);
+        if (ranuraArchivo != tamanioRanura) {
+            throw new IOException("El archivo " + archivo + " usa ranuras de " + ranuraArchivo
+                    + " bytes, no de " + tamanioRanura);
+        }
+        int identificador = buffer.getInt(16);
+        boolean migrar = identificador != formato.getIdentificador();
+        if (migrar && !formato.puedeMigrar(identificador)) {
+            throw new IOException("El archivo " + archivo + " usa otro formato de ranura: " + identificador);
+        }
+        mapear(buffer.getInt(12));
+
+        for (int ranura = 0; ranura < capacidad; ranura++) {
+            if (buffer.get(posicion(ranura)) == 0) {
+                libres.add(ranura);
+            } else {
+                if (migrar) formato.migrar(buffer, contenido(ranura), identificador);
+                indice.put(formato.leerClave(buffer, contenido(ranura)), ranura);
+                siguienteNueva = ranura + 1;
+            }
+        }
+        // La migración es idempotente: si se interrumpe, el encabezado sigue con el formato anterior
+        if (migrar) buffer.putInt(16, formato.getIdentificador());
+        // Las ranuras libres al final se asignan en orden con siguienteNueva
+        libres.removeIf(ranura -> ranura >= siguienteNueva);
+    }
+
+    private void mapear(int nuevaCapacidad) throws IOException {
+        long tamanio = TAMANIO_ENCABEZADO + (long) nuevaCapacidad * tamanioRanura;
+        if (tamanio > Integer.MAX_VALUE) {
+            throw new IOException("El repositorio " + archivo + " superó el tamaño máximo mapeable");
+        }
+        buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanio);
+        capacidad = nuevaCapacidad;
+    }
+
+    private void escribirEntidad(T entidad) throws IOException {
+        ID id = formato.claveDe(entidad);
+        Integer ranura = indice.get(id);
+        boolean nueva = ranura == null;
+        if (nueva) {
+            ranura = asignarRanura();
+        }
+        formato.escribir(buffer, contenido(ranura), entidad);
+        buffer.put(posicion(ranura), (byte) 1);
+        if (nueva) {
+            indice.put(id, ranura);
+        }
+    }
+
+    private int asignarRanura() throws IOException {
+        if (!libres.isEmpty()) return libres.pop();
+        if (siguienteNueva == capacidad) {
+            buffer.force();
+            mapear(capacidad * 2);
+            buffer.putInt(12, capacidad);
+        }
+        return siguienteNueva++;
+    }
+
+    private int posicion(int ranura) {
+        return TAMANIO_ENCABEZADO + ranura * tamanioRanura;
+    }
+
+    private int contenido(int ranura) {
+        return posicion(ranura) + 1;
+    }
+
+    /**
+     * Formato por defecto: cada ranura guarda la entidad escrita con un codec, precedida por
+     * la versión del codec y el largo en bytes.
+     */
+    private static final class FormatoCodec<T, ID> implements FormatoRanura<T, ID> {
+
+        private final CodecBinario<T> codec;
+        private final Function<T, ID> extractorId;
+        private final int tamanioContenido;
+
+        private FormatoCodec(CodecBinario<T> codec, Function<T, ID> extractorId, int tamanioContenido) {
+            this.codec = Objects.requireNonNull(codec, "El codec no puede ser null");
+            this.extractorId = Objects.requireNonNull(extractorId, "El extractor de clave no puede ser null");
+            if (tamanioContenido <= CABECERA_CODEC) {
+                throw new IllegalArgumentException("Tamaño de ranura inválido: " + (tamanioContenido + 1));
+            }
+            this.tamanioContenido = tamanioContenido;
+        }
+
+        @Override
+        public int getIdentificador() {
+            return 0;
+        }
+
+        @Override
+        public int getTamanioContenido() {
+            return tamanioContenido;
+        }
+
+        @Override
+        public ID claveDe(T entidad) {
+            return extractorId.apply(entidad);
+        }
+
+        @Override
+        public void escribir(ByteBuffer destino, int posicion, T entidad) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(tamanioContenido);
+            codec.escribir(new DataOutputStream(bytes), entidad);
+            if (bytes.size() > tamanioContenido - CABECERA_CODEC) {
+                throw new IllegalArgumentException("La entidad ocupa " + bytes.size()
+                        + " bytes y la ranura admite " + (tamanioContenido - CABECERA_CODEC));
+            }
+            destino.putInt(posicion, codec.getVersion());
+            destino.putInt(posicion + Integer.BYTES, bytes.size());
+            destino.put(posicion + CABECERA_CODEC, bytes.toByteArray());
+        }
+
+        @Override
+        public T leer(ByteBuffer origen, int posicion) throws IOException {
+            int version = origen.getInt(posicion);
+            int largo = origen.getInt(posicion + Integer.BYTES);
+            if (largo < 0 || largo > tamanioContenido - CABECERA_CODEC) {
+                throw new IOException("Largo de registro inválido en la posición " + posicion + ": " + largo);
+            }
+            byte[] bytes = new byte[largo];
+            origen.get(posicion + CABECERA_CODEC, bytes);
+            return ArchivoUtil.decodificar(codec, bytes, largo, version);
+        }
+
+        @Override
+        public ID leerClave(ByteBuffer origen, int posicion) throws IOException {
+            return extractorId.apply(leer(origen, posicion));
+        }
+    }
+}
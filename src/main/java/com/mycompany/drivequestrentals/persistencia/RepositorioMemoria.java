@@ -0,0 +1,78 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio respaldado solo por un mapa en memoria. Conserva el orden de inserción
+ * y no persiste nada; es el respaldo por defecto de los servicios.
+ *
+ * <p>Las entidades viven en una {@link TablaPersistente}: las búsquedas por clave, los listados,
+ * streams y {@link #instantanea()} no toman el candado de las escrituras.</p>
+ *
+ * @param <T>  tipo de entidad
+ * @param <ID> tipo de la clave de la entidad
+ */
+public class RepositorioMemoria<T, ID> implements Repositorio<T, ID> {
+
+    private final Function<T, ID> extractorId;
+    private final TablaPersistente<ID, T> entidades = new TablaPersistente<>();
+
+    /**
+     * @param extractorId función que obtiene la clave de cada entidad
+     */
+    public RepositorioMemoria(Function<T, ID> extractorId) {
+        this.extractorId = Objects.requireNonNull(extractorId, "El extractor de clave no puede ser null");
+    }
+
+    @Override
+    public Optional<T> buscarPorId(ID id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(entidades.get(id));
+    }
+
+    @Override
+    public List<T> buscarTodos() {
+        return new ArrayList<>(entidades.instantanea());
+    }
+
+    @Override
+    public Collection<T> instantanea() {
+        return entidades.instantanea();
+    }
+
+    @Override
+    public synchronized void guardar(T entidad) {
+        Objects.requireNonNull(entidad, "La entidad no puede ser null");
+        entidades.put(extractorId.apply(entidad), entidad);
+    }
+
+    @Override
+    public synchronized void guardarTodos(Collection<T> lista) {
+        for (T entidad : lista) {
+            guardar(entidad);
+        }
+    }
+
+    @Override
+    public synchronized boolean eliminar(ID id) {
+        return id != null && entidades.remove(id);
+    }
+
+    /**
+     * Stream sobre una instantánea de las entidades, por lo que no se ve afectado por cambios posteriores.
+     */
+    @Override
+    public Stream<T> stream() {
+        return entidades.instantanea().stream();
+    }
+
+    @Override
+    public int contar() {
+        return entidades.tamanio();
+    }
+}
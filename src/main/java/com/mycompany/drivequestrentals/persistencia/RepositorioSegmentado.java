@@ -0,0 +1,359 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.persistencia.codec.ArriendoCodec;
+import com.mycompany.drivequestrentals.persistencia.codec.CodecBinario;
+import com.mycompany.drivequestrentals.persistencia.codec.FiltroRegistro;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio de registros históricos (arriendos, pagos) respaldado por un {@link AlmacenSegmentado}
+ * con un segmento por mes, más un {@link DiarioCambios} con las operaciones aún no aplicadas a los
+ * segmentos. A diferencia de {@link RepositorioArchivo}, las entidades no se mantienen en el heap:
+ * en memoria quedan solo las claves (con el mes de su segmento), los cambios pendientes del diario y
+ * los últimos meses leídos.
+ *
+ * <p>Cada escritura se agrega al diario antes de retornar. Cuando el diario supera el umbral, sus
+ * cambios se aplican reescribiendo solo los meses afectados. Los registros de meses cerrados
+ * ({@link #cerrarMesesAnterioresA}) no se pueden modificar ni eliminar.</p>
+ *
+ * <p>Si en el directorio queda el archivo único de versiones anteriores ({@code <nombre>.dat}),
+ * se migra a segmentos al abrir y se renombra con la extensión {@code .migrado}.</p>
+ *
+ * @param <T> tipo de registro
+ */
+public class RepositorioSegmentado<T> implements Repositorio<T, String> {
+
+    private static final String EXTENSION_MIGRADO = ".migrado";
+    /** Meses decodificados que se conservan para las búsquedas por clave. */
+    private static final int MESES_EN_MEMORIA = 3;
+
+    private final String nombre;
+    private final AlmacenSegmentado<T> almacen;
+    private final DiarioCambios<T> diario;
+    private final Function<T, String> extractorId;
+    private final Function<T, LocalDate> extractorFecha;
+    private final Function<T, LocalDate> extractorFin;
+    private final BiFunction<LocalDate, LocalDate, FiltroRegistro> filtroPorRango;
+    private final long umbralCompactacion;
+
+    // Último estado de cada clave escrita desde la última compactación; null indica eliminación
+    private final Map<String, T> pendientes = new LinkedHashMap<>();
+    private final Map<String, YearMonth> indice = new HashMap<>();
+    private final Map<YearMonth, Map<String, T>> meses = new LinkedHashMap<YearMonth, Map<String, T>>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<YearMonth, Map<String, T>> mayor) {
+            return size() > MESES_EN_MEMORIA;
+        }
+    };
+
+    private RepositorioSegmentado(Path directorio, String nombre, CodecBinario<T> codec,
+                                  Function<T, String> extractorId,
+                                  Function<T, LocalDate> extractorFecha,
+                                  Function<T, LocalDate> extractorFin,
+                                  BiFunction<LocalDate, LocalDate, FiltroRegistro> filtroPorRango,
+                                  long umbralCompactacion) {
+        this.nombre = nombre;
+        this.extractorId = extractorId;
+        this.extractorFecha = extractorFecha;
+        this.extractorFin = extractorFin;
+        this.filtroPorRango = filtroPorRango;
+        this.umbralCompactacion = umbralCompactacion;
+        this.almacen = new AlmacenSegmentado<>(directorio.resolve(nombre), nombre, codec,
+                extractorId, extractorFecha, extractorFin);
+        this.diario = new DiarioCambios<>(directorio.resolve(nombre + ".dat.diario").toString(), extractorId, codec);
+    }
+
+    /**
+     * Abre el repositorio de un historial. Los segmentos se guardan en la carpeta {@code <nombre>}
+     * del directorio y el diario en {@code <nombre>.dat.diario}.
+     *
+     * @param directorio     directorio de datos
+     * @param nombre         nombre del historial, por ejemplo {@code arriendos}
+     * @param codec          codec de los registros; debe escribir la clave como primer campo
+     * @param extractorId    clave única de cada registro
+     * @param extractorFecha fecha que determina el mes del registro
+     * @param extractorFin   fecha de término del registro (igual a la de partición si no aplica)
+     * @param filtroPorRango filtro sobre los bytes de los registros que se cruzan con un rango
+     *                       (por ejemplo {@link ArriendoCodec#filtroPorFechas}); puede aceptar de más
+     * @throws IOException            si los archivos no se pueden leer
+     * @throws ClassNotFoundException si el archivo a migrar contiene clases desconocidas
+     */
+    public static <T> RepositorioSegmentado<T> abrir(Path directorio, String nombre, CodecBinario<T> codec,
+                                                     Function<T, String> extractorId,
+                                                     Function<T, LocalDate> extractorFecha,
+                                                     Function<T, LocalDate> extractorFin,
+                                                     BiFunction<LocalDate, LocalDate, FiltroRegistro> filtroPorRango)
+            throws IOException, ClassNotFoundException {
+        return abrir(directorio, nombre, codec, extractorId, extractorFecha, extractorFin, filtroPorRango,
+                RepositorioArchivo.UMBRAL_COMPACTACION);
+    }
+
+    /**
+     * Abre el repositorio indicando el tamaño de diario que dispara la aplicación de los cambios.
+     */
+    public static <T> RepositorioSegmentado<T> abrir(Path directorio, String nombre, CodecBinario<T> codec,
+                                                     Function<T, String> extractorId,
+                                                     Function<T, LocalDate> extractorFecha,
+                                                     Function<T, LocalDate> extractorFin,
+                                                     BiFunction<LocalDate, LocalDate, FiltroRegistro> filtroPorRango,
+                                                     long umbralCompactacion)
+            throws IOException, ClassNotFoundException {
+        Objects.requireNonNull(directorio, "El directorio no puede ser null");
+        Objects.requireNonNull(codec, "El codec no puede ser null");
+        RepositorioSegmentado<T> repositorio = new RepositorioSegmentado<>(directorio, Objects.requireNonNull(nombre),
+                codec, Objects.requireNonNull(extractorId), Objects.requireNonNull(extractorFecha),
+                Objects.requireNonNull(extractorFin), Objects.requireNonNull(filtroPorRango), umbralCompactacion);
+
+        Path anterior = directorio.resolve(nombre + ".dat");
+        if (!repositorio.almacen.existe() && Files.exists(anterior)) {
+            repositorio.almacen.reemplazarTodo(IntegridadRegistros.cargarTolerante(anterior.toString(), codec));
+            Files.move(anterior, directorio.resolve(nombre + ".dat" + EXTENSION_MIGRADO));
+        }
+        repositorio.almacen.recorrerClaves(repositorio.indice::put);
+        repositorio.diario.leerCambios().forEach(repositorio::marcarPendiente);
+        return repositorio;
+    }
+
+    @Override
+    public synchronized Optional<T> buscarPorId(String id) {
+        if (id == null) return Optional.empty();
+        if (pendientes.containsKey(id)) return Optional.ofNullable(pendientes.get(id));
+        YearMonth mes = indice.get(id);
+        return mes == null ? Optional.empty() : Optional.ofNullable(mes(mes).get(id));
+    }
+
+    @Override
+    public synchronized boolean existe(String id) {
+        return id != null && indice.containsKey(id);
+    }
+
+    /**
+     * Lee todos los registros desde los segmentos; la lista no queda retenida por el repositorio.
+     */
+    @Override
+    public List<T> buscarTodos() {
+        try (Stream<T> registros = stream()) {
+            return registros.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public synchronized void guardar(T entidad) {
+        Objects.requireNonNull(entidad, "La entidad no puede ser null");
+        String id = extractorId.apply(entidad);
+        try {
+            verificarEscribible(id, entidad);
+            diario.registrar(existe(id) ? OperacionDiario.ACTUALIZAR : OperacionDiario.INSERTAR, entidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        marcarPendiente(id, entidad);
+        compactarSiCorresponde();
+    }
+
+    /**
+     * Guarda todas las entidades con una sola escritura (y un solo fsync) en el diario.
+     */
+    @Override
+    public synchronized void guardarTodos(Collection<T> lista) {
+        try {
+            for (T entidad : lista) {
+                verificarEscribible(extractorId.apply(entidad), entidad);
+            }
+            diario.registrarTodos(OperacionDiario.ACTUALIZAR, lista);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (T entidad : lista) {
+            marcarPendiente(extractorId.apply(entidad), entidad);
+        }
+        compactarSiCorresponde();
+    }
+
+    /**
+     * @throws IllegalStateException si el registro pertenece a un mes cerrado
+     */
+    @Override
+    public synchronized boolean eliminar(String id) {
+        T entidad = buscarPorId(id).orElse(null);
+        if (entidad == null) return false;
+        try {
+            almacen.verificarEscribible(entidad);
+            diario.registrar(OperacionDiario.ELIMINAR, entidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        marcarPendiente(id, null);
+        compactarSiCorresponde();
+        return true;
+    }
+
+    /**
+     * Recorre todos los registros, mes a mes. Debe cerrarse para liberar el segmento en curso.
+     */
+    @Override
+    public Stream<T> stream() {
+        return stream(null, null);
+    }
+
+    /**
+     * Recorre los registros cuyo período [fecha de partición, fecha de término] se cruza con el
+     * rango, abriendo solo los meses que pueden contenerlos. Los cambios pendientes del diario se
+     * superponen: los modificados se reemplazan, los eliminados se omiten y los nuevos van al final.
+     * Debe cerrarse para liberar el segmento en curso.
+     *
+     * @param desde inicio del rango (inclusive), o null para no acotar
+     * @param hasta fin del rango (inclusive), o null para no acotar
+     */
+    public Stream<T> stream(LocalDate desde, LocalDate hasta) {
+        Map<String, T> cambios;
+        synchronized (this) {
+            cambios = new LinkedHashMap<>(pendientes);
+        }
+        Stream<T> persistidos;
+        try {
+            persistidos = almacen.stream(desde, hasta, filtroPorRango.apply(desde, hasta));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Set<String> emitidos = new HashSet<>();
+        Stream<T> actualizados = persistidos
+                .map(registro -> {
+                    String id = extractorId.apply(registro);
+                    if (!cambios.containsKey(id)) return registro;
+                    emitidos.add(id);
+                    return cambios.get(id); // null si fue eliminado
+                })
+                .filter(Objects::nonNull);
+        // Diferido con flatMap para que se evalúe después de recorrer los persistidos
+        Stream<T> nuevos = Stream.of(0).flatMap(inicio -> cambios.values().stream()
+                .filter(registro -> registro != null && !emitidos.contains(extractorId.apply(registro))));
+
+        return Stream.concat(actualizados, nuevos)
+                .filter(r -> ArriendoCodec.seCruza(extractorFecha.apply(r), extractorFin.apply(r), desde, hasta));
+    }
+
+    @Override
+    public synchronized int contar() {
+        return indice.size();
+    }
+
+    /**
+     * Cierra los meses anteriores al indicado: sus registros ya no se pueden modificar y sus
+     * segmentos se pueden archivar. Aplica antes los cambios pendientes.
+     */
+    public synchronized void cerrarMesesAnterioresA(YearMonth mes) throws IOException {
+        compactar();
+        almacen.cerrarAnterioresA(mes);
+    }
+
+    /**
+     * Segmentos del historial, en orden de mes.
+     */
+    public List<AlmacenSegmentado.Segmento> getSegmentos() throws IOException {
+        return almacen.getSegmentos();
+    }
+
+    /**
+     * Mueve el segmento de un mes cerrado a otro directorio (ver {@link AlmacenSegmentado#archivar}).
+     *
+     * @throws IllegalStateException si el mes no tiene segmento o no está cerrado
+     */
+    public void archivar(YearMonth mes, Path destino) throws IOException {
+        almacen.archivar(mes, destino);
+    }
+
+    /**
+     * Compresión de los segmentos escritos desde ahora (ver {@link AlmacenSegmentado#setCompresion}).
+     */
+    public void setCompresion(Compresion compresion) {
+        almacen.setCompresion(compresion);
+    }
+
+    /**
+     * Aplica los cambios pendientes a los meses afectados y vacía el diario.
+     *
+     * @throws IOException si algún segmento no se puede escribir
+     */
+    public synchronized void compactar() throws IOException {
+        if (pendientes.isEmpty()) return;
+        try {
+            diario.ejecutarExclusivo(() -> {
+                almacen.aplicarCambios(new LinkedHashMap<>(pendientes));
+                diario.vaciar();
+            });
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Clase desconocida en un segmento de " + nombre, e);
+        }
+        pendientes.clear();
+        meses.clear();
+    }
+
+    /**
+     * Aplica los cambios pendientes antes de cerrar, para que la próxima apertura no tenga que leer el diario.
+     */
+    @Override
+    public void close() throws IOException {
+        compactar();
+    }
+
+    // ---------- MÉTODOS AUXILIARES ----------
+
+    private void marcarPendiente(String id, T entidad) {
+        pendientes.put(id, entidad);
+        if (entidad == null) {
+            indice.remove(id);
+        } else {
+            indice.put(id, YearMonth.from(extractorFecha.apply(entidad)));
+        }
+    }
+
+    /**
+     * Lanza {@link IllegalStateException} si el registro guardado o su nueva versión pertenecen a un mes cerrado.
+     */
+    private void verificarEscribible(String id, T entidad) throws IOException {
+        almacen.verificarEscribible(entidad);
+        Optional<T> actual = buscarPorId(id);
+        if (actual.isPresent()) almacen.verificarEscribible(actual.get());
+    }
+
+    private Map<String, T> mes(YearMonth mes) {
+        Map<String, T> registros = meses.get(mes);
+        if (registros == null) {
+            registros = new HashMap<>();
+            try {
+                for (T registro : almacen.cargarMes(mes)) {
+                    registros.put(extractorId.apply(registro), registro);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Clase desconocida en un segmento de " + nombre, e);
+            }
+            meses.put(mes, registros);
+        }
+        return registros;
+    }
+
+    private void compactarSiCorresponde() {
+        if (diario.tamanio() <= umbralCompactacion) return;
+        try {
+            compactar();
+        } catch (IOException e) {
+            // Los cambios ya están en el diario; se reintentará en la próxima escritura
+            System.err.println("⚠️ No se pudo compactar " + nombre + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabla de entidades por clave, en orden de inserción, que entrega instantáneas inmutables en O(1).
+ *
+ * <p>Los valores viven en un vector persistente (un árbol de nodos de 32 posiciones): cada escritura
+ * copia solo el camino de la raíz a la hoja que cambia y publica una nueva versión, mientras las
+ * versiones anteriores siguen intactas. Una instantánea es simplemente la versión publicada en ese
+ * momento, por lo que tomarla no copia nada ni bloquea a quien escribe, y recorrerla no ve las
+ * escrituras posteriores.</p>
+ *
+ * <p>Las eliminaciones dejan la posición vacía; cuando las vacías superan a las ocupadas el vector
+ * se reconstruye. Las escrituras deben serializarse externamente (los repositorios las hacen bajo
+ * su propio candado); {@link #get}, {@link #instantanea()} y {@link #tamanio()} se pueden llamar
+ * desde cualquier hilo sin candado: el índice por clave es concurrente y guarda el valor junto a
+ * su posición, así que una búsqueda nunca depende de posiciones que una reconstrucción esté moviendo.</p>
+ *
+ * @param <K> tipo de la clave
+ * @param <V> tipo del valor
+ */
+final class TablaPersistente<K, V> {
+
+    private static final int BITS = 5;
+    private static final int ANCHO = 1 << BITS;
+    private static final int MASCARA = ANCHO - 1;
+    private static final Object[] VACIO = new Object[0];
+
+    // Valor y posición en el vector de cada clave
+    private final Map<K, Ranura<V>> indice = new ConcurrentHashMap<>();
+    private volatile Version<V> actual = new Version<>(VACIO, BITS, 0, 0);
+
+    V get(K clave) {
+        Ranura<V> ranura = indice.get(clave);
+        return ranura == null ? null : ranura.valor;
+    }
+
+    /**
+     * Inserta o reemplaza el valor de una clave. Un reemplazo conserva la posición original.
+     */
+    void put(K clave, V valor) {
+        Version<V> version = actual;
+        Ranura<V> ranura = indice.get(clave);
+        if (ranura != null) {
+            actual = version.con(ranura.posicion, valor, 0);
+            indice.put(clave, new Ranura<>(ranura.posicion, valor));
+        } else {
+            actual = version.agregar(valor);
+            indice.put(clave, new Ranura<>(version.largo, valor));
+        }
+    }
+
+    /**
+     * @return true si la clave existía
+     */
+    boolean remove(K clave) {
+        Ranura<V> ranura = indice.remove(clave);
+        if (ranura == null) return false;
+        Version<V> version = actual.con(ranura.posicion, null, -1);
+        int vacias = version.largo - version.vivos;
+        actual = vacias > ANCHO && vacias > version.vivos ? reconstruir(version) : version;
+        return true;
+    }
+
+    int tamanio() {
+        return actual.vivos;
+    }
+
+    /**
+     * Vista inmutable de los valores en el instante de la llamada, en orden de inserción.
+     */
+    Instantanea<V> instantanea() {
+        return new Instantanea<>(actual);
+    }
+
+    /** Copia los valores vivos a un vector nuevo, sin huecos, y reasigna las posiciones. */
+    @SuppressWarnings("unchecked")
+    private Version<V> reconstruir(Version<V> version) {
+        Object[] claves = new Object[version.largo];
+        for (Map.Entry<K, Ranura<V>> entrada : indice.entrySet()) {
+            claves[entrada.getValue().posicion] = entrada.getKey();
+        }
+        Version<V> nueva = new Version<>(VACIO, BITS, 0, 0);
+        for (Object clave : claves) {
+            if (clave == null) continue;
+            K k = (K) clave;
+            V valor = indice.get(k).valor;
+            indice.put(k, new Ranura<>(nueva.largo, valor));
+            nueva = nueva.agregar(valor);
+        }
+        return nueva;
+    }
+
+    /** Entrada inmutable del índice. */
+    private static final class Ranura<V> {
+        final int posicion;
+        final V valor;
+
+        Ranura(int posicion, V valor) {
+            this.posicion = posicion;
+            this.valor = valor;
+        }
+    }
+
+    /**
+     * Estado inmutable del vector: raíz, altura ({@code nivel} es el desplazamiento de la raíz),
+     * posiciones usadas y posiciones con valor.
+     */
+    private static final class Version<V> {
+        final Object[] raiz;
+        final int nivel;
+        final int largo;
+        final int vivos;
+
+        Version(Object[] raiz, int nivel, int largo, int vivos) {
+            this.raiz = raiz;
+            this.nivel = nivel;
+            this.largo = largo;
+            this.vivos = vivos;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(int posicion) {
+            return (V) hoja(posicion)[posicion & MASCARA];
+        }
+
+        Object[] hoja(int posicion) {
+            Object[] nodo = raiz;
+            for (int n = nivel; n > 0; n -= BITS) {
+                nodo = (Object[]) nodo[(posicion >>> n) & MASCARA];
+            }
+            return nodo;
+        }
+
+        /** Nueva versión con el valor reemplazado; {@code deltaVivos} ajusta la cuenta de vivos. */
+        Version<V> con(int posicion, V valor, int deltaVivos) {
+            return new Version<>(reemplazar(raiz, nivel, posicion, valor), nivel, largo, vivos + deltaVivos);
+        }
+
+        Version<V> agregar(V valor) {
+            if (largo == ANCHO << nivel) {
+                // Raíz llena: el árbol crece un nivel
+                Object[] raizNueva = new Object[]{raiz, camino(nivel, valor)};
+                return new Version<>(raizNueva, nivel + BITS, largo + 1, vivos + 1);
+            }
+            return new Version<>(insertar(raiz, nivel, largo, valor), nivel, largo + 1, vivos + 1);
+        }
+
+        private static Object[] reemplazar(Object[] nodo, int nivel, int posicion, Object valor) {
+            Object[] copia = nodo.clone();
+            int i = (posicion >>> nivel) & MASCARA;
+            copia[i] = nivel == 0 ? valor : reemplazar((Object[]) nodo[i], nivel - BITS, posicion, valor);
+            return copia;
+        }
+
+        private static Object[] insertar(Object[] nodo, int nivel, int posicion, Object valor) {
+            int i = (posicion >>> nivel) & MASCARA;
+            Object[] copia = Arrays.copyOf(nodo, Math.max(nodo.length, i + 1));
+            if (nivel == 0) {
+                copia[i] = valor;
+            } else {
+                copia[i] = i < nodo.length && nodo[i] != null
+                        ? insertar((Object[]) nodo[i], nivel - BITS, posicion, valor)
+                        : camino(nivel - BITS, valor);
+            }
+            return copia;
+        }
+
+        /** Rama nueva de la altura indicada cuya primera hoja contiene solo el valor. */
+        private static Object[] camino(int nivel, Object valor) {
+            Object[] nodo = new Object[]{valor};
+            for (int n = 0; n < nivel; n += BITS) {
+                nodo = new Object[]{nodo};
+            }
+            return nodo;
+        }
+    }
+
+    /**
+     * Vista inmutable de una versión de la tabla. Recorrerla no requiere candados.
+     *
+     * @param <V> tipo del valor
+     */
+    static final class Instantanea<V> extends AbstractCollection<V> {
+        private final Version<V> version;
+
+        private Instantanea(Version<V> version) {
+            this.version = version;
+        }
+
+        @Override
+        public int size() {
+            return version.vivos;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+                private int posicion = -1;
+                private Object[] hoja;
+                private int siguiente = avanzar(0);
+
+                @Override
+                public boolean hasNext() {
+                    return siguiente < version.largo;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    V valor = (V) hoja[siguiente & MASCARA];
+                    siguiente = avanzar(siguiente + 1);
+                    return valor;
+                }
+
+                /** Primera posición con valor desde {@code desde}; la hoja se obtiene una vez cada 32. */
+                private int avanzar(int desde) {
+                    for (int i = desde; i < version.largo; i++) {
+                        if (hoja == null || (i >>> BITS) != (posicion >>> BITS)) {
+                            hoja = version.hoja(i);
+                            posicion = i;
+                        }
+                        if (hoja[i & MASCARA] != null) return i;
+                    }
+                    return version.largo;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.mycompany.drivequestrentals.persistencia.codec;
+
+import com.mycompany.drivequestrentals.modelo.Arriendo;
+import com.mycompany.drivequestrentals.persistencia.MapaIdentidad;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import static com.mycompany.drivequestrentals.persistencia.codec.CodecUtil.*;
+
+/**
+ * Codec binario para {@link Arriendo}.
+ *
+ * <p>Versión 2 (actual): id, fechaInicio, fechaFin, RUT del cliente, patente del vehículo,
+ * kilometrajeActual, montoTotal, contratoTipo. Cliente y vehículo se guardan como claves
+ * foráneas y se resuelven contra el {@link MapaIdentidad} al leer.</p>
+ *
+ * <p>Versión 1: id, cliente (anidado), vehiculo (anidado), fechaInicio, fechaFin,
+ * kilometrajeActual, montoTotal, contratoTipo. Las copias anidadas se reemplazan por
+ * la instancia canónica del mapa cuando existe.</p>
+ */
+public class ArriendoCodec implements CodecBinario<Arriendo> {
+
+    private static final int VERSION = 2;
+
+    private final MapaIdentidad mapa;
+    private final ClienteCodec clienteCodec = new ClienteCodec();
+    private final VehiculoCodec vehiculoCodec = new VehiculoCodec();
+
+    /**
+     * @param mapa mapa de identidad contra el que se resuelven cliente y vehículo al leer
+     */
+    public ArriendoCodec(MapaIdentidad mapa) {
+        this.mapa = Objects.requireNonNull(mapa, "El mapa de identidad no puede ser null");
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void escribir(DataOutput salida, Arriendo arriendo) throws IOException {
+        escribirTexto(salida, arriendo.getId());
+        escribirFecha(salida, arriendo.getFechaInicio());
+        escribirFecha(salida, arriendo.getFechaFin());
+        escribirTexto(salida, arriendo.getCliente() != null ? arriendo.getCliente().getRutOPasaporte() : null);
+        escribirTexto(salida, arriendo.getVehiculo() != null ? arriendo.getVehiculo().getPatente() : null);
+        salida.writeDouble(arriendo.getKilometrajeActual());
+        salida.writeDouble(arriendo.getMontoTotal());
+        escribirTexto(salida, arriendo.getContratoTipo());
+    }
+
+    @Override
+    public Arriendo leer(DataInput entrada, int version) throws IOException {
+        switch (version) {
+            case 1:
+                return leerVersion1(entrada);
+            case 2:
+                return leerVersion2(entrada);
+            default:
+                throw versionNoSoportada("Arriendo", version);
+        }
+    }
+
+    /**
+     * Filtro que acepta los arriendos cuyo período se cruza con el rango indicado, leyendo
+     * solo el id y las fechas del registro. Los registros de la versión 1 no se pueden filtrar
+     * sin decodificar los objetos anidados, por lo que se aceptan y deben filtrarse después.
+     *
+     * @param desde inicio del rango (inclusive), o null para no acotar
+     * @param hasta fin del rango (inclusive), o null para no acotar
+     */
+    public static FiltroRegistro filtroPorFechas(LocalDate desde, LocalDate hasta) {
+        return (entrada, version) -> {
+            if (version < 2) return true;
+            omitirTexto(entrada);
+            LocalDate inicio = leerFecha(entrada);
+            LocalDate fin = leerFecha(entrada);
+            return seCruza(inicio, fin, desde, hasta);
+        };
+    }
+
+    /**
+     * Indica si el período [inicio, fin] se cruza con el rango [desde, hasta].
+     * Los extremos nulos se consideran abiertos.
+     */
+    public static boolean seCruza(LocalDate inicio, LocalDate fin, LocalDate desde, LocalDate hasta) {
+        boolean terminaAntes = desde != null && fin != null && fin.isBefore(desde);
+        boolean empiezaDespues = hasta != null && inicio != null && inicio.isAfter(hasta);
+        return !terminaAntes && !empiezaDespues;
+    }
+
+    private Arriendo leerVersion2(DataInput entrada) throws IOException {
+        Arriendo arriendo = new Arriendo();
+        arriendo.setId(leerTexto(entrada));
+        arriendo.setFechaInicio(leerFecha(entrada));
+        arriendo.setFechaFin(leerFecha(entrada));
+        String rut = leerTexto(entrada);
+        if (rut != null) {
+            arriendo.setCliente(mapa.resolverCliente(rut));
+        }
+        String patente = leerTexto(entrada);
+        if (patente != null) {
+            arriendo.setVehiculo(mapa.resolverVehiculo(patente));
+        }
+        arriendo.setKilometrajeActual(entrada.readDouble());
+        arriendo.setMontoTotal(entrada.readDouble());
+        arriendo.setContratoTipo(leerTexto(entrada));
+        return arriendo;
+    }
+
+    private Arriendo leerVersion1(DataInput entrada) throws IOException {
+        Arriendo arriendo = new Arriendo();
+        arriendo.setId(leerTexto(entrada));
+        if (entrada.readBoolean()) {
+            arriendo.setCliente(mapa.canonizar(clienteCodec.leer(entrada, 1)));
+        }
+        if (entrada.readBoolean()) {
+            arriendo.setVehiculo(mapa.canonizar(vehiculoCodec.leer(entrada, 1)));
+        }
+        arriendo.setFechaInicio(leerFecha(entrada));
+        arriendo.setFechaFin(leerFecha(entrada));
+        arriendo.setKilometrajeActual(entrada.readDouble());
+        arriendo.setMontoTotal(entrada.readDouble());
+        arriendo.setContratoTipo(leerTexto(entrada));
+        return arriendo;
+    }
+}
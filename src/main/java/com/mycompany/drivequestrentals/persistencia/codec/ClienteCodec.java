@@ -0,0 +1,54 @@
+package com.mycompany.drivequestrentals.persistencia.codec;
+
+import com.mycompany.drivequestrentals.modelo.Cliente;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.mycompany.drivequestrentals.persistencia.codec.CodecUtil.*;
+
+/**
+ * Codec binario para {@link Cliente}.
+ *
+ * <p>Versión 2 (actual): los campos de la versión 1 seguidos de la versión de la entidad.</p>
+ *
+ * <p>Versión 1: id, nombreCompleto, rutOPasaporte, telefono, correo, domicilio, numeroTarjetaCredito.
+ * Al leerla la entidad queda en la versión 0.</p>
+ */
+public class ClienteCodec implements CodecBinario<Cliente> {
+
+    private static final int VERSION = 2;
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void escribir(DataOutput salida, Cliente cliente) throws IOException {
+        escribirTexto(salida, cliente.getId());
+        escribirTexto(salida, cliente.getNombreCompleto());
+        escribirTexto(salida, cliente.getRutOPasaporte());
+        escribirTexto(salida, cliente.getTelefono());
+        escribirTexto(salida, cliente.getCorreo());
+        escribirTexto(salida, cliente.getDomicilio());
+        escribirTexto(salida, cliente.getNumeroTarjetaCredito());
+        salida.writeLong(cliente.getVersion());
+    }
+
+    @Override
+    public Cliente leer(DataInput entrada, int version) throws IOException {
+        if (version != 1 && version != 2) throw versionNoSoportada("Cliente", version);
+        Cliente cliente = new Cliente(
+                leerTexto(entrada),
+                leerTexto(entrada),
+                leerTexto(entrada),
+                leerTexto(entrada),
+                leerTexto(entrada),
+                leerTexto(entrada),
+                leerTexto(entrada));
+        if (version == 2) cliente.setVersion(entrada.readLong());
+        return cliente;
+    }
+}
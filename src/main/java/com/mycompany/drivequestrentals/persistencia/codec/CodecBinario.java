@@ -0,0 +1,40 @@
+package com.mycompany.drivequestrentals.persistencia.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codificador binario campo a campo para una clase del modelo.
+ * Reemplaza la serialización por defecto de Java con un formato compacto y versionado:
+ * cada archivo guarda la versión del codec con que fue escrito, y {@link #leer} recibe
+ * esa versión para poder interpretar datos antiguos aunque la clase haya cambiado.
+ *
+ * @param <T> tipo de entidad que se codifica
+ */
+public interface CodecBinario<T> {
+
+    /**
+     * Versión actual del formato que produce {@link #escribir}.
+     */
+    int getVersion();
+
+    /**
+     * Escribe la entidad campo a campo.
+     *
+     * @param salida  destino de los bytes
+     * @param entidad entidad a escribir
+     * @throws IOException si ocurre un error de escritura
+     */
+    void escribir(DataOutput salida, T entidad) throws IOException;
+
+    /**
+     * Lee una entidad escrita con la versión indicada del formato.
+     *
+     * @param entrada origen de los bytes
+     * @param version versión con la que se escribió el registro
+     * @return entidad reconstruida
+     * @throws IOException si los datos son inválidos o la versión no es soportada
+     */
+    T leer(DataInput entrada, int version) throws IOException;
+}
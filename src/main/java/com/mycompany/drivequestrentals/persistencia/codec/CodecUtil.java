@@ -0,0 +1,129 @@
+package com.mycompany.drivequestrentals.persistencia.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Métodos auxiliares compartidos por los codecs binarios.
+ * Los textos se escriben con prefijo de largo variable y las fechas como día de época.
+ */
+public final class CodecUtil {
+
+    private static final long FECHA_NULA = Long.MIN_VALUE;
+
+    private CodecUtil() {
+    }
+
+    /**
+     * Escribe un texto como {@code [largo variable][bytes UTF-8]}. El largo se guarda
+     * incrementado en uno para reservar el valor 0 a los textos null.
+     */
+    public static void escribirTexto(DataOutput salida, String texto) throws IOException {
+        if (texto == null) {
+            escribirEnteroVariable(salida, 0);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        escribirEnteroVariable(salida, bytes.length + 1);
+        salida.write(bytes);
+    }
+
+    /**
+     * Lee un texto escrito con {@link #escribirTexto}.
+     */
+    public static String leerTexto(DataInput entrada) throws IOException {
+        int largo = leerEnteroVariable(entrada);
+        if (largo == 0) return null;
+        byte[] bytes = new byte[largo - 1];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Salta un texto escrito con {@link #escribirTexto} sin decodificarlo.
+     */
+    public static void omitirTexto(DataInput entrada) throws IOException {
+        int largo = leerEnteroVariable(entrada);
+        if (largo > 1) {
+            entrada.skipBytes(largo - 1);
+        }
+    }
+
+    /**
+     * Escribe un entero no negativo en 1 a 5 bytes (7 bits por byte, el bit alto indica continuación).
+     */
+    public static void escribirEnteroVariable(DataOutput salida, int valor) throws IOException {
+        if (valor < 0) {
+            throw new IOException("No se puede codificar un entero variable negativo: " + valor);
+        }
+        while ((valor & ~0x7F) != 0) {
+            salida.writeByte((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        salida.writeByte(valor);
+    }
+
+    /**
+     * Lee un entero escrito con {@link #escribirEnteroVariable}.
+     */
+    public static int leerEnteroVariable(DataInput entrada) throws IOException {
+        int valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 7) {
+            int b = entrada.readUnsignedByte();
+            valor |= (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                if (valor < 0) break;
+                return valor;
+            }
+        }
+        throw new IOException("Entero variable mal formado");
+    }
+
+    /**
+     * Escribe una fecha como día de época ({@link LocalDate#toEpochDay()}).
+     */
+    public static void escribirFecha(DataOutput salida, LocalDate fecha) throws IOException {
+        salida.writeLong(fecha == null ? FECHA_NULA : fecha.toEpochDay());
+    }
+
+    /**
+     * Lee una fecha escrita con {@link #escribirFecha}.
+     */
+    public static LocalDate leerFecha(DataInput entrada) throws IOException {
+        long dia = entrada.readLong();
+        return dia == FECHA_NULA ? null : LocalDate.ofEpochDay(dia);
+    }
+
+    /**
+     * Escribe una fecha y hora como día de época seguido del nanosegundo del día.
+     */
+    public static void escribirFechaHora(DataOutput salida, LocalDateTime fechaHora) throws IOException {
+        if (fechaHora == null) {
+            salida.writeLong(FECHA_NULA);
+            return;
+        }
+        salida.writeLong(fechaHora.toLocalDate().toEpochDay());
+        salida.writeLong(fechaHora.toLocalTime().toNanoOfDay());
+    }
+
+    /**
+     * Lee una fecha y hora escrita con {@link #escribirFechaHora}.
+     */
+    public static LocalDateTime leerFechaHora(DataInput entrada) throws IOException {
+        long dia = entrada.readLong();
+        if (dia == FECHA_NULA) return null;
+        return LocalDateTime.of(LocalDate.ofEpochDay(dia), LocalTime.ofNanoOfDay(entrada.readLong()));
+    }
+
+    /**
+     * Lanza una excepción estándar para versiones de formato no soportadas.
+     */
+    public static IOException versionNoSoportada(String entidad, int version) {
+        return new IOException("Versión de formato no soportada para " + entidad + ": " + version);
+    }
+}
@@ -0,0 +1,24 @@
+package com.mycompany.drivequestrentals.persistencia.codec;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * Filtro que decide si un registro codificado debe decodificarse, leyendo solo los campos
+ * iniciales que necesita. Permite descartar registros sin construir el objeto completo
+ * ni resolver sus referencias.
+ */
+@FunctionalInterface
+public interface FiltroRegistro {
+
+    /** Filtro que acepta todos los registros. */
+    FiltroRegistro TODOS = (entrada, version) -> true;
+
+    /**
+     * @param entrada bytes del registro, posicionados al inicio
+     * @param version versión del codec con la que se escribió el registro
+     * @return true si el registro debe decodificarse
+     * @throws IOException si los bytes del registro son inválidos
+     */
+    boolean acepta(DataInput entrada, int version) throws IOException;
+}
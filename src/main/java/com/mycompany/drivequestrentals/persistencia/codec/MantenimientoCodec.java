@@ -0,0 +1,73 @@
+package com.mycompany.drivequestrentals.persistencia.codec;
+
+import com.mycompany.drivequestrentals.modelo.Mantenimiento;
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.persistencia.MapaIdentidad;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Objects;
+
+import static com.mycompany.drivequestrentals.persistencia.codec.CodecUtil.*;
+
+/**
+ * Codec binario para {@link Mantenimiento}.
+ *
+ * <p>Versión 2 (actual): id, patente del vehículo, descripcion, fecha, costo, kilometraje.
+ * El vehículo se resuelve contra el {@link MapaIdentidad} al leer.</p>
+ *
+ * <p>Versión 1: id, vehiculo (anidado), descripcion, fecha, costo, kilometraje.</p>
+ */
+public class MantenimientoCodec implements CodecBinario<Mantenimiento> {
+
+    private static final int VERSION = 2;
+
+    private final MapaIdentidad mapa;
+    private final VehiculoCodec vehiculoCodec = new VehiculoCodec();
+
+    /**
+     * @param mapa mapa de identidad contra el que se resuelve el vehículo al leer
+     */
+    public MantenimientoCodec(MapaIdentidad mapa) {
+        this.mapa = Objects.requireNonNull(mapa, "El mapa de identidad no puede ser null");
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void escribir(DataOutput salida, Mantenimiento mantenimiento) throws IOException {
+        escribirTexto(salida, mantenimiento.getId());
+        escribirTexto(salida, mantenimiento.getVehiculo().getPatente());
+        escribirTexto(salida, mantenimiento.getDescripcion());
+        escribirFecha(salida, mantenimiento.getFecha());
+        salida.writeDouble(mantenimiento.getCosto());
+        salida.writeDouble(mantenimiento.getKilometraje());
+    }
+
+    @Override
+    public Mantenimiento leer(DataInput entrada, int version) throws IOException {
+        String id = leerTexto(entrada);
+        Vehiculo vehiculo;
+        switch (version) {
+            case 1:
+                vehiculo = mapa.canonizar(vehiculoCodec.leer(entrada, 1));
+                break;
+            case 2:
+                vehiculo = mapa.resolverVehiculo(leerTexto(entrada));
+                break;
+            default:
+                throw versionNoSoportada("Mantenimiento", version);
+        }
+        return new Mantenimiento(
+                id,
+                vehiculo,
+                leerTexto(entrada),
+                leerFecha(entrada),
+                entrada.readDouble(),
+                entrada.readDouble());
+    }
+}
@@ -0,0 +1,76 @@
+package com.mycompany.drivequestrentals.persistencia.codec;
+
+import com.mycompany.drivequestrentals.modelo.Arriendo;
+import com.mycompany.drivequestrentals.modelo.Pago;
+import com.mycompany.drivequestrentals.persistencia.MapaIdentidad;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Objects;
+
+import static com.mycompany.drivequestrentals.persistencia.codec.CodecUtil.*;
+
+/**
+ * Codec binario para {@link Pago}.
+ *
+ * <p>Versión 2 (actual): id, id del arriendo, montoNeto, montoIVA, totalPago, fechaPago, metodoPago.
+ * El arriendo se resuelve contra el {@link MapaIdentidad} al leer.</p>
+ *
+ * <p>Versión 1: id, arriendo (anidado), montoNeto, montoIVA, totalPago, fechaPago, metodoPago.</p>
+ */
+public class PagoCodec implements CodecBinario<Pago> {
+
+    private static final int VERSION = 2;
+
+    private final MapaIdentidad mapa;
+    private final ArriendoCodec arriendoCodec;
+
+    /**
+     * @param mapa mapa de identidad contra el que se resuelve el arriendo al leer
+     */
+    public PagoCodec(MapaIdentidad mapa) {
+        this.mapa = Objects.requireNonNull(mapa, "El mapa de identidad no puede ser null");
+        this.arriendoCodec = new ArriendoCodec(mapa);
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void escribir(DataOutput salida, Pago pago) throws IOException {
+        escribirTexto(salida, pago.getId());
+        escribirTexto(salida, pago.getArriendo().getId());
+        salida.writeDouble(pago.getMontoNeto());
+        salida.writeDouble(pago.getMontoIVA());
+        salida.writeDouble(pago.getTotalPago());
+        escribirFecha(salida, pago.getFechaPago());
+        escribirTexto(salida, pago.getMetodoPago());
+    }
+
+    @Override
+    public Pago leer(DataInput entrada, int version) throws IOException {
+        String id = leerTexto(entrada);
+        Arriendo arriendo;
+        switch (version) {
+            case 1:
+                arriendo = mapa.canonizar(arriendoCodec.leer(entrada, 1));
+                break;
+            case 2:
+                arriendo = mapa.resolverArriendo(leerTexto(entrada));
+                break;
+            default:
+                throw versionNoSoportada("Pago", version);
+        }
+        return new Pago(
+                id,
+                arriendo,
+                entrada.readDouble(),
+                entrada.readDouble(),
+                entrada.readDouble(),
+                leerFecha(entrada),
+                leerTexto(entrada));
+    }
+}
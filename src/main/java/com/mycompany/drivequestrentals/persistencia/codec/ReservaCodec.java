@@ -0,0 +1,78 @@
+package com.mycompany.drivequestrentals.persistencia.codec;
+
+import com.mycompany.drivequestrentals.modelo.Reserva;
+import com.mycompany.drivequestrentals.persistencia.MapaIdentidad;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Objects;
+
+import static com.mycompany.drivequestrentals.persistencia.codec.CodecUtil.*;
+
+/**
+ * Codec binario para {@link Reserva}.
+ *
+ * <p>Versión 2 (actual): codigoReserva, rutCliente, patenteVehiculo, fechaInicio, fechaFin, confirmada.
+ * Cliente y vehículo no se copian: al leer se asocian las instancias del {@link MapaIdentidad}
+ * si están registradas.</p>
+ *
+ * <p>Versión 1: los mismos campos, seguidos de cliente y vehículo anidados, cada uno
+ * precedido de un byte de presencia.</p>
+ */
+public class ReservaCodec implements CodecBinario<Reserva> {
+
+    private static final int VERSION = 2;
+
+    private final MapaIdentidad mapa;
+    private final ClienteCodec clienteCodec = new ClienteCodec();
+    private final VehiculoCodec vehiculoCodec = new VehiculoCodec();
+
+    /**
+     * @param mapa mapa de identidad contra el que se asocian cliente y vehículo al leer
+     */
+    public ReservaCodec(MapaIdentidad mapa) {
+        this.mapa = Objects.requireNonNull(mapa, "El mapa de identidad no puede ser null");
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void escribir(DataOutput salida, Reserva reserva) throws IOException {
+        escribirTexto(salida, reserva.getCodigoReserva());
+        escribirTexto(salida, reserva.getRutCliente());
+        escribirTexto(salida, reserva.getPatenteVehiculo());
+        escribirFechaHora(salida, reserva.getFechaInicio());
+        escribirFechaHora(salida, reserva.getFechaFin());
+        salida.writeBoolean(reserva.isConfirmada());
+    }
+
+    @Override
+    public Reserva leer(DataInput entrada, int version) throws IOException {
+        if (version != 1 && version != 2) throw versionNoSoportada("Reserva", version);
+
+        Reserva reserva = new Reserva(
+                leerTexto(entrada),
+                leerTexto(entrada),
+                leerTexto(entrada),
+                leerFechaHora(entrada),
+                leerFechaHora(entrada),
+                entrada.readBoolean());
+
+        if (version == 1) {
+            if (entrada.readBoolean()) {
+                reserva.setCliente(mapa.canonizar(clienteCodec.leer(entrada, 1)));
+            }
+            if (entrada.readBoolean()) {
+                reserva.setVehiculo(mapa.canonizar(vehiculoCodec.leer(entrada, 1)));
+            }
+        } else {
+            reserva.setCliente(mapa.buscarCliente(reserva.getRutCliente()));
+            reserva.setVehiculo(mapa.buscarVehiculo(reserva.getPatenteVehiculo()));
+        }
+        return reserva;
+    }
+}
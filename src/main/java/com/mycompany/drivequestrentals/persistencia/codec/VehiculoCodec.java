@@ -0,0 +1,92 @@
+package com.mycompany.drivequestrentals.persistencia.codec;
+
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.mycompany.drivequestrentals.persistencia.codec.CodecUtil.*;
+
+/**
+ * Codec binario para {@link Vehiculo} y sus subclases.
+ * Un byte inicial indica el tipo concreto ({@link VehiculoCarga} o {@link VehiculoPasajeros}).
+ *
+ * <p>Versión 2 (actual): los campos de la versión 1 seguidos de la versión de la entidad.</p>
+ *
+ * <p>Versión 1: tipo, id, patente, marca, modelo, anio, estado, fotoRuta, precioDiario,
+ * y luego capacidadCarga (carga) o numeroPasajeros (pasajeros). Al leerla la entidad queda en la versión 0.</p>
+ */
+public class VehiculoCodec implements CodecBinario<Vehiculo> {
+
+    private static final int VERSION = 2;
+
+    private static final byte TIPO_CARGA = 1;
+    private static final byte TIPO_PASAJEROS = 2;
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void escribir(DataOutput salida, Vehiculo vehiculo) throws IOException {
+        if (vehiculo instanceof VehiculoCarga) {
+            salida.writeByte(TIPO_CARGA);
+        } else if (vehiculo instanceof VehiculoPasajeros) {
+            salida.writeByte(TIPO_PASAJEROS);
+        } else {
+            throw new IOException("Tipo de vehículo no soportado: " + vehiculo.getClass().getName());
+        }
+
+        escribirTexto(salida, vehiculo.getId());
+        escribirTexto(salida, vehiculo.getPatente());
+        escribirTexto(salida, vehiculo.getMarca());
+        escribirTexto(salida, vehiculo.getModelo());
+        salida.writeInt(vehiculo.getAnio());
+        escribirTexto(salida, vehiculo.getEstado());
+        escribirTexto(salida, vehiculo.getFotoRuta());
+        salida.writeDouble(vehiculo.getPrecioDiario());
+
+        if (vehiculo instanceof VehiculoCarga carga) {
+            salida.writeDouble(carga.getCapacidadCarga());
+        } else {
+            salida.writeInt(((VehiculoPasajeros) vehiculo).getNumeroPasajeros());
+        }
+        salida.writeLong(vehiculo.getVersion());
+    }
+
+    @Override
+    public Vehiculo leer(DataInput entrada, int version) throws IOException {
+        if (version != 1 && version != 2) throw versionNoSoportada("Vehiculo", version);
+
+        byte tipo = entrada.readByte();
+        String id = leerTexto(entrada);
+        String patente = leerTexto(entrada);
+        String marca = leerTexto(entrada);
+        String modelo = leerTexto(entrada);
+        int anio = entrada.readInt();
+        String estado = leerTexto(entrada);
+        String fotoRuta = leerTexto(entrada);
+        double precioDiario = entrada.readDouble();
+
+        Vehiculo vehiculo;
+        switch (tipo) {
+            case TIPO_CARGA:
+                vehiculo = new VehiculoCarga(id, patente, marca, modelo, anio, estado, fotoRuta,
+                        entrada.readDouble());
+                break;
+            case TIPO_PASAJEROS:
+                vehiculo = new VehiculoPasajeros(id, patente, marca, modelo, anio, estado, fotoRuta,
+                        entrada.readInt());
+                break;
+            default:
+                throw new IOException("Tipo de vehículo desconocido: " + tipo);
+        }
+        vehiculo.setPrecioDiario(precioDiario);
+        if (version == 2) vehiculo.setVersion(entrada.readLong());
+        return vehiculo;
+    }
+}
@@ -0,0 +1,69 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.Reserva;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Reservas de un solo vehículo ordenadas por fecha de inicio, para detectar solapamientos
+ * en O(log k) con k las reservas del vehículo.
+ *
+ * <p>Como las reservas guardadas nunca se solapan entre sí, al ordenarlas por inicio también quedan
+ * ordenadas por término. Entonces un intervalo [inicio, fin) choca con alguna si y solo si choca con
+ * la última que empieza antes de {@code fin}, y basta una búsqueda en la lista ordenada.</p>
+ *
+ * <p>Las lecturas no toman candados. Las escrituras deben hacerse con el monitor de la agenda tomado,
+ * para que la verificación de solapamiento y el alta sean atómicas. Las fechas de una reserva no
+ * deben modificarse mientras esté en la agenda.</p>
+ */
+final class AgendaVehiculo {
+
+    // A igual inicio (solo posible si una dura cero) va primero la más corta, para que los términos
+    // sigan ordenados; el código desempata las de duración cero
+    private static final Comparator<Reserva> POR_INICIO = Comparator
+            .comparing(Reserva::getFechaInicio)
+            .thenComparing(Reserva::getFechaFin)
+            .thenComparing(Reserva::getCodigoReserva);
+
+    private final ConcurrentSkipListSet<Reserva> reservas = new ConcurrentSkipListSet<>(POR_INICIO);
+
+    /**
+     * Busca una reserva que se solape con el intervalo, con el mismo criterio que
+     * {@link Reserva#seSolapaCon}.
+     *
+     * @return la reserva que choca, o null si el intervalo está libre
+     */
+    Reserva buscarSolapada(LocalDateTime inicio, LocalDateTime fin) {
+        // La sonda ordena antes que cualquier reserva que empiece en fin, así que esas quedan fuera
+        Reserva anterior = reservas.lower(sonda(fin));
+        if (anterior != null && anterior.getFechaFin().isAfter(inicio)) return anterior;
+        return null;
+    }
+
+    void agregar(Reserva reserva) {
+        reservas.add(reserva);
+    }
+
+    /**
+     * Quita la reserva con las mismas fechas y código; sirve también con una copia decodificada.
+     */
+    void quitar(Reserva reserva) {
+        if (reserva.getFechaInicio() == null || reserva.getFechaFin() == null) return;
+        reservas.remove(reserva);
+    }
+
+    /**
+     * Vista de las reservas del vehículo ordenadas por inicio.
+     */
+    Collection<Reserva> reservas() {
+        return Collections.unmodifiableCollection(reservas);
+    }
+
+    private static Reserva sonda(LocalDateTime inicio) {
+        return new Reserva("", (String) null, null, inicio, inicio, false);
+    }
+}
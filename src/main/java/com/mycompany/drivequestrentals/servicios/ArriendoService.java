@@ -1,20 +1,73 @@
 package com.mycompany.drivequestrentals.servicios;
 
 import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
+import com.mycompany.drivequestrentals.persistencia.RepositorioSegmentado;
 
 import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio encargado de registrar arriendos, generar contratos y boletas,
  * y mantener un historial consultable de arriendos por cliente.
+ *
+ * <p>Además mantiene un calendario de arriendos por vehículo ordenado por fecha de término, para saber
+ * si un vehículo está libre en un rango de fechas mirando solo sus arriendos vigentes y futuros.
+ * Un arriendo ocupa el vehículo desde su fecha de inicio hasta el día anterior a su término, igual que
+ * los días que se cobran. Al iniciar solo se agendan los arriendos que no habían terminado, de modo que
+ * el historial antiguo no se mantiene en memoria.</p>
  */
 public class ArriendoService {
 
-    private final List<Arriendo> historialArriendos = new ArrayList<>();
+    private final Repositorio<Arriendo, String> historialArriendos;
+
+    private static final Comparator<Arriendo> POR_TERMINO = Comparator
+            .comparing(Arriendo::getFechaFin)
+            .thenComparing(Arriendo::getId);
+    // Arriendos por patente normalizada
+    private final Map<String, NavigableSet<Arriendo>> calendario = new ConcurrentHashMap<>();
+    // Ocupación por día de toda la flota, compartida con las reservas; null si no se usa
+    private final CalendarioOcupacion ocupacion;
+
+    /**
+     * Constructor que mantiene el historial solo en memoria.
+     */
+    public ArriendoService() {
+        this(new RepositorioMemoria<>(Arriendo::getId));
+    }
+
+    /**
+     * Constructor que usa el repositorio indicado, indexado por id de arriendo.
+     *
+     * @param historialArriendos almacenamiento del historial
+     */
+    public ArriendoService(Repositorio<Arriendo, String> historialArriendos) {
+        this(historialArriendos, null);
+    }
+
+    /**
+     * Constructor que además mantiene al día el calendario de ocupación indicado con los días que
+     * ocupa cada arriendo, desde los arriendos del historial que aún no terminan.
+     *
+     * @param historialArriendos almacenamiento del historial
+     * @param ocupacion          calendario de ocupación compartido, o null para no mantener ninguno
+     */
+    public ArriendoService(Repositorio<Arriendo, String> historialArriendos, CalendarioOcupacion ocupacion) {
+        this.historialArriendos = Objects.requireNonNull(historialArriendos, "El repositorio no puede ser null");
+        this.ocupacion = ocupacion;
+        try (Stream<Arriendo> arriendos = arriendosEntre(LocalDate.now(), null)) {
+            arriendos.forEach(this::agendar);
+        }
+    }
 
     /**
      * Registra un nuevo arriendo con los datos entregados y genera contrato y boleta.
@@ -42,7 +95,8 @@ public class ArriendoService {
                 kilometraje, total, contratoTipo
         );
 
-        historialArriendos.add(nuevo);
+        historialArriendos.guardar(nuevo);
+        agendar(nuevo);
         guardarContratoTexto(nuevo, boletaTexto);
         return nuevo;
     }
@@ -59,7 +113,8 @@ public class ArriendoService {
 
         String boletaTexto = ((IFacturable) arriendo.getVehiculo()).generarBoleta(dias, tarifaEstimada, false);
 
-        historialArriendos.add(arriendo);
+        historialArriendos.guardar(arriendo);
+        agendar(arriendo);
         guardarContratoTexto(arriendo, boletaTexto);
         return arriendo;
     }
@@ -86,35 +141,81 @@ public class ArriendoService {
      * Devuelve el historial completo de arriendos registrados.
      */
     public List<Arriendo> getHistorialArriendos() {
-        return new ArrayList<>(historialArriendos);
+        return historialArriendos.buscarTodos();
     }
 
     /**
      * Filtra los arriendos asociados a un cliente específico.
      */
     public List<Arriendo> obtenerArriendosPorCliente(Cliente cliente) {
-        List<Arriendo> resultado = new ArrayList<>();
-        for (Arriendo a : historialArriendos) {
-            if (a.getCliente().equals(cliente)) {
-                resultado.add(a);
-            }
+        try (Stream<Arriendo> arriendos = historialArriendos.stream()) {
+            return arriendos.filter(a -> a.getCliente().equals(cliente)).collect(Collectors.toList());
         }
-        return resultado;
     }
 
     /**
-     * Busca un arriendo vigente asociado a un cliente por su RUT.
+     * Busca un arriendo vigente asociado a un cliente por su RUT: uno que ocupa el vehículo hoy, es
+     * decir, que ya comenzó y cuyo día de término aún no llega.
      */
     public Arriendo buscarArriendoActivoPorCliente(String rutCliente) {
         LocalDate hoy = LocalDate.now();
-        for (Arriendo a : historialArriendos) {
-            if (a.getCliente().getRutOPasaporte().equalsIgnoreCase(rutCliente)
-                    && !hoy.isBefore(a.getFechaInicio())
-                    && !hoy.isAfter(a.getFechaFin())) {
-                return a;
-            }
+        try (Stream<Arriendo> arriendos = arriendosEntre(hoy, hoy.plusDays(1))) {
+            return arriendos
+                    .filter(a -> a.getCliente().getRutOPasaporte().equalsIgnoreCase(rutCliente))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * Indica si el vehículo no tiene arriendos en el rango de días [desde, hasta). Recorre solo los
+     * arriendos del vehículo que terminan después de {@code desde}, no el historial completo.
+     *
+     * @param patente patente del vehículo
+     * @param desde   primer día del rango
+     * @param hasta   día siguiente al último del rango
+     * @return true si ningún arriendo del vehículo ocupa alguno de esos días
+     */
+    public boolean estaLibre(String patente, LocalDate desde, LocalDate hasta) {
+        if (patente == null) return true;
+        NavigableSet<Arriendo> arriendos = calendario.get(FabricaRepositorios.normalizarPatente(patente));
+        if (arriendos == null) return true;
+        Arriendo sonda = new Arriendo();
+        sonda.setFechaFin(desde.plusDays(1));
+        sonda.setId("");
+        for (Arriendo arriendo : arriendos.tailSet(sonda, true)) {
+            if (arriendo.getFechaInicio().isBefore(hasta)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Arriendos del historial que ocupan algún día de [desde, hasta) (extremos null abiertos), con el
+     * mismo criterio que {@link #estaLibre}: un arriendo ocupa [inicio, fin). Sobre un historial
+     * segmentado se leen solo los meses que pueden contenerlos.
+     */
+    @SuppressWarnings("unchecked")
+    private Stream<Arriendo> arriendosEntre(LocalDate desde, LocalDate hasta) {
+        Stream<Arriendo> candidatos = historialArriendos instanceof RepositorioSegmentado
+                ? ((RepositorioSegmentado<Arriendo>) historialArriendos).stream(desde, hasta)
+                : historialArriendos.stream();
+        // El rango del historial segmentado incluye sus extremos, así que también se filtra
+        return candidatos.filter(a -> a.getFechaInicio() != null && a.getFechaFin() != null
+                && (desde == null || a.getFechaFin().isAfter(desde))
+                && (hasta == null || a.getFechaInicio().isBefore(hasta)));
+    }
+
+    private void agendar(Arriendo arriendo) {
+        if (arriendo.getId() == null || arriendo.getVehiculo() == null
+                || arriendo.getFechaInicio() == null || arriendo.getFechaFin() == null) {
+            return;
+        }
+        String clave = FabricaRepositorios.claveVehiculo(arriendo.getVehiculo());
+        calendario.computeIfAbsent(clave, p -> new ConcurrentSkipListSet<>(POR_TERMINO)).add(arriendo);
+        if (ocupacion != null) {
+            ocupacion.registrar(CalendarioOcupacion.Origen.ARRIENDO, arriendo.getId(), clave,
+                    arriendo.getFechaInicio(), arriendo.getFechaFin());
         }
-        return null;
     }
 
     // ========== MÉTODOS DE VALIDACIÓN Y UTILIDAD ==========
@@ -0,0 +1,421 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calendario de ocupación de la flota con granularidad de un día, guardado en bits sobre un horizonte
+ * móvil (por defecto unos dos años). Cada vehículo ocupado alguna vez recibe un número correlativo y
+ * tiene una fila de bits, uno por día; además cada día tiene una columna de bits, uno por vehículo.
+ *
+ * <p>Con las filas, saber si un vehículo está libre en un rango es un AND de su fila con una máscara,
+ * palabra por palabra. Con las columnas, la ocupación de la flota en un día es la suma de los
+ * {@link Long#bitCount} de su columna, y los vehículos ocupados en algún día de un rango salen del OR
+ * de las columnas de esos días.</p>
+ *
+ * <p>Lo mantienen {@link ReservaService} y {@link ArriendoService} al registrar y eliminar. Un día
+ * queda ocupado si alguna reserva o arriendo del vehículo lo toca, aunque sea unas horas, y el
+ * calendario recuerda cada registro para recalcular los días que comparte con otro cuando se quita
+ * uno, y para marcar los días que entran al horizonte cuando este avanza. Los registros que quedan
+ * completos antes del horizonte se olvidan.</p>
+ *
+ * <p>Las escrituras se serializan con el monitor del calendario. Las consultas no toman candados:
+ * leen el estado publicado en un campo volátil y los bits con semántica de adquisición.</p>
+ */
+public class CalendarioOcupacion {
+
+    /**
+     * Tipo de registro que ocupa el vehículo; los identificadores de cada tipo no se mezclan.
+     */
+    public enum Origen {
+        RESERVA,
+        ARRIENDO
+    }
+
+    public static final int DIAS_HORIZONTE = 731;
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Palabras de cada fila y días que cubren; el origen siempre es múltiplo de 64 días
+    private final int palabras;
+    private final int dias;
+    private volatile Estado estado;
+    // Número correlativo de cada patente normalizada; se asigna después de hacer espacio en las tablas
+    private final Map<String, Integer> numeros = new ConcurrentHashMap<>();
+    // Solo con el monitor del calendario tomado
+    private final Map<String, Registro> registros = new HashMap<>();
+    private final List<List<Registro>> porVehiculo = new ArrayList<>();
+
+    /**
+     * Tablas de bits publicadas juntas con su origen. Los bits se modifican en el lugar; crecer o
+     * avanzar el horizonte publica un estado nuevo.
+     */
+    private static final class Estado {
+        final long origen;
+        final int capacidad;
+        // filas[vehiculo][palabra], bit = día - origen
+        final long[][] filas;
+        // columnas[día - origen][palabra], bit = vehículo
+        final long[][] columnas;
+
+        Estado(long origen, int capacidad, long[][] filas, long[][] columnas) {
+            this.origen = origen;
+            this.capacidad = capacidad;
+            this.filas = filas;
+            this.columnas = columnas;
+        }
+    }
+
+    /**
+     * Días [desde, hasta) como días epoch, que un registro ocupa.
+     */
+    private static final class Registro {
+        final int vehiculo;
+        final long desde;
+        final long hasta;
+
+        Registro(int vehiculo, long desde, long hasta) {
+            this.vehiculo = vehiculo;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+    }
+
+    /**
+     * Calendario con el horizonte por defecto a partir de la fecha indicada.
+     */
+    public CalendarioOcupacion(LocalDate inicio) {
+        this(inicio, DIAS_HORIZONTE);
+    }
+
+    /**
+     * @param inicio        primer día que debe cubrir el calendario
+     * @param diasHorizonte días a partir de {@code inicio} que debe cubrir como mínimo
+     */
+    public CalendarioOcupacion(LocalDate inicio, int diasHorizonte) {
+        if (diasHorizonte <= 0) throw new IllegalArgumentException("El horizonte debe ser positivo");
+        // Una palabra extra porque el origen se alinea hacia atrás hasta 63 días
+        this.palabras = (diasHorizonte + Long.SIZE - 1) / Long.SIZE + 1;
+        this.dias = palabras * Long.SIZE;
+        long[][] columnas = new long[dias][];
+        Arrays.fill(columnas, new long[0]);
+        this.estado = new Estado(alinear(inicio.toEpochDay()), 0, new long[0][], columnas);
+    }
+
+    // ---------- ESCRITURA ----------
+
+    /**
+     * Marca como ocupados los días [desde, hasta) del vehículo. Si ya había un registro con el mismo
+     * origen e identificador, lo reemplaza. Los días fuera del horizonte se recuerdan y se marcan
+     * cuando el horizonte los alcance.
+     */
+    public synchronized void registrar(Origen origen, String id, String patente, LocalDate desde, LocalDate hasta) {
+        String clave = clave(origen, id);
+        if (registros.containsKey(clave)) quitar(origen, id);
+        if (patente == null || !hasta.isAfter(desde)) return;
+        int vehiculo = numeroDe(FabricaRepositorios.normalizarPatente(patente));
+        Registro registro = new Registro(vehiculo, desde.toEpochDay(), hasta.toEpochDay());
+        registros.put(clave, registro);
+        porVehiculo.get(vehiculo).add(registro);
+        marcar(estado, vehiculo, registro.desde, registro.hasta);
+    }
+
+    /**
+     * Marca los días que toca el intervalo [inicio, fin): el día de término cuenta si el intervalo
+     * termina después de su medianoche.
+     */
+    public void registrar(Origen origen, String id, String patente, LocalDateTime inicio, LocalDateTime fin) {
+        LocalDate hasta = fin.toLocalDate();
+        if (!fin.toLocalTime().equals(LocalTime.MIDNIGHT)) hasta = hasta.plusDays(1);
+        registrar(origen, id, patente, inicio.toLocalDate(), hasta);
+    }
+
+    /**
+     * Quita un registro y libera sus días, salvo los que sigue ocupando otro registro del vehículo.
+     *
+     * @return true si el registro existía
+     */
+    public synchronized boolean quitar(Origen origen, String id) {
+        Registro registro = registros.remove(clave(origen, id));
+        if (registro == null) return false;
+        List<Registro> delVehiculo = porVehiculo.get(registro.vehiculo);
+        delVehiculo.remove(registro);
+        Estado actual = estado;
+        // Días que otro registro del vehículo sigue ocupando; esos no se tocan, para que una consulta
+        // concurrente nunca los vea libres
+        long[] conservar = new long[palabras];
+        for (Registro otro : delVehiculo) {
+            int[] posiciones = posiciones(actual, otro.desde, otro.hasta);
+            for (int palabra = posiciones[0] >>> 6; posiciones[0] < posiciones[1] && palabra <= (posiciones[1] - 1) >>> 6; palabra++) {
+                conservar[palabra] |= mascara(palabra, posiciones[0], posiciones[1]);
+            }
+        }
+        int[] posiciones = posiciones(actual, registro.desde, registro.hasta);
+        if (posiciones[0] >= posiciones[1]) return true;
+        long[] fila = actual.filas[registro.vehiculo];
+        for (int palabra = posiciones[0] >>> 6; palabra <= (posiciones[1] - 1) >>> 6; palabra++) {
+            long liberar = mascara(palabra, posiciones[0], posiciones[1]) & ~conservar[palabra];
+            if (liberar != 0) BITS.getAndBitwiseAnd(fila, palabra, ~liberar);
+        }
+        int palabraVehiculo = registro.vehiculo >>> 6;
+        long bitVehiculo = 1L << registro.vehiculo;
+        for (int d = posiciones[0]; d < posiciones[1]; d++) {
+            if ((conservar[d >>> 6] & (1L << d)) == 0) {
+                BITS.getAndBitwiseAnd(actual.columnas[d], palabraVehiculo, ~bitVehiculo);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Quita todos los registros de un vehículo y libera su fila, para que un vehículo dado de baja no
+     * siga contando como ocupado. Su número se conserva por si la patente vuelve a registrarse.
+     *
+     * @return true si el vehículo tenía registros
+     */
+    public synchronized boolean quitarVehiculo(String patente) {
+        if (patente == null) return false;
+        Integer vehiculo = numeros.get(FabricaRepositorios.normalizarPatente(patente));
+        if (vehiculo == null) return false;
+        List<Registro> delVehiculo = porVehiculo.get(vehiculo);
+        if (delVehiculo.isEmpty()) return false;
+        registros.values().removeAll(delVehiculo);
+        delVehiculo.clear();
+        Estado actual = estado;
+        long[] fila = actual.filas[vehiculo];
+        int palabraVehiculo = vehiculo >>> 6;
+        long bitVehiculo = 1L << vehiculo;
+        for (int palabra = 0; palabra < fila.length; palabra++) {
+            long ocupados = (long) BITS.getAndSet(fila, palabra, 0L);
+            while (ocupados != 0) {
+                int d = (palabra << 6) + Long.numberOfTrailingZeros(ocupados);
+                BITS.getAndBitwiseAnd(actual.columnas[d], palabraVehiculo, ~bitVehiculo);
+                ocupados &= ocupados - 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Avanza el horizonte para que empiece en la semana de 64 días que contiene {@code dia}. Los días
+     * que salen se olvidan y los que entran se marcan con los registros recordados.
+     *
+     * @return true si el horizonte avanzó
+     */
+    public boolean avanzarHasta(LocalDate dia) {
+        long nuevoOrigen = alinear(dia.toEpochDay());
+        if (nuevoOrigen <= estado.origen) return false;
+        synchronized (this) {
+            Estado anterior = estado;
+            if (nuevoOrigen <= anterior.origen) return false;
+            int corridas = (int) Math.min(palabras, (nuevoOrigen - anterior.origen) / Long.SIZE);
+            int diasCorridos = corridas * Long.SIZE;
+            long[][] filas = new long[anterior.capacidad][];
+            for (int v = 0; v < filas.length; v++) {
+                filas[v] = new long[palabras];
+                System.arraycopy(anterior.filas[v], corridas, filas[v], 0, palabras - corridas);
+            }
+            long[][] columnas = new long[dias][];
+            System.arraycopy(anterior.columnas, diasCorridos, columnas, 0, dias - diasCorridos);
+            for (int d = dias - diasCorridos; d < dias; d++) columnas[d] = new long[anterior.capacidad / Long.SIZE];
+            Estado nuevo = new Estado(nuevoOrigen, anterior.capacidad, filas, columnas);
+            // Se marcan antes de publicar, para que ninguna consulta vea libres los días que entran
+            long entranDesde = Math.max(anterior.origen + dias, nuevoOrigen);
+            long entranHasta = nuevoOrigen + dias;
+            Iterator<Registro> recordados = registros.values().iterator();
+            while (recordados.hasNext()) {
+                Registro registro = recordados.next();
+                // Los que terminaron antes del nuevo origen ya no se volverán a marcar
+                if (registro.hasta <= nuevoOrigen) {
+                    recordados.remove();
+                    porVehiculo.get(registro.vehiculo).remove(registro);
+                    continue;
+                }
+                long desde = Math.max(registro.desde, entranDesde);
+                long hasta = Math.min(registro.hasta, entranHasta);
+                if (desde < hasta) marcar(nuevo, registro.vehiculo, desde, hasta);
+            }
+            estado = nuevo;
+            return true;
+        }
+    }
+
+    // ---------- CONSULTAS ----------
+
+    /**
+     * @return true si el rango de días [desde, hasta) está dentro del horizonte actual
+     */
+    public boolean cubre(LocalDate desde, LocalDate hasta) {
+        Estado actual = estado;
+        return desde.toEpochDay() >= actual.origen && hasta.toEpochDay() <= actual.origen + dias;
+    }
+
+    /**
+     * Primer día del horizonte actual.
+     */
+    public LocalDate getInicio() {
+        return LocalDate.ofEpochDay(estado.origen);
+    }
+
+    /**
+     * Último día del horizonte actual.
+     */
+    public LocalDate getFin() {
+        return LocalDate.ofEpochDay(estado.origen + dias - 1);
+    }
+
+    /**
+     * Indica si el vehículo no tiene ningún día ocupado en [desde, hasta), revisando su fila de a
+     * 64 días por palabra.
+     *
+     * @throws IllegalArgumentException si el rango no está dentro del horizonte (ver {@link #cubre})
+     */
+    public boolean estaLibre(String patente, LocalDate desde, LocalDate hasta) {
+        Estado actual = estado;
+        int[] rango = rango(actual, desde, hasta);
+        Integer vehiculo = patente == null ? null : numeros.get(FabricaRepositorios.normalizarPatente(patente));
+        if (vehiculo == null || rango[0] >= rango[1]) return true;
+        long[] fila = actual.filas[vehiculo];
+        for (int palabra = rango[0] >>> 6; palabra <= (rango[1] - 1) >>> 6; palabra++) {
+            if (((long) BITS.getAcquire(fila, palabra) & mascara(palabra, rango[0], rango[1])) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Vehículos ocupados en cada día de [desde, hasta), contando los bits de la columna de cada día.
+     *
+     * @throws IllegalArgumentException si el rango no está dentro del horizonte
+     */
+    public int[] ocupadosPorDia(LocalDate desde, LocalDate hasta) {
+        Estado actual = estado;
+        int[] rango = rango(actual, desde, hasta);
+        int[] ocupados = new int[Math.max(0, rango[1] - rango[0])];
+        for (int d = rango[0]; d < rango[1]; d++) {
+            long[] columna = actual.columnas[d];
+            int total = 0;
+            for (int palabra = 0; palabra < columna.length; palabra++) {
+                total += Long.bitCount((long) BITS.getAcquire(columna, palabra));
+            }
+            ocupados[d - rango[0]] = total;
+        }
+        return ocupados;
+    }
+
+    /**
+     * Vehículos con al menos un día ocupado en [desde, hasta): OR de las columnas de esos días y
+     * conteo de bits del resultado.
+     *
+     * @throws IllegalArgumentException si el rango no está dentro del horizonte
+     */
+    public int contarOcupados(LocalDate desde, LocalDate hasta) {
+        Estado actual = estado;
+        int[] rango = rango(actual, desde, hasta);
+        long[] union = new long[actual.capacidad / Long.SIZE];
+        for (int d = rango[0]; d < rango[1]; d++) {
+            long[] columna = actual.columnas[d];
+            for (int palabra = 0; palabra < columna.length; palabra++) {
+                union[palabra] |= (long) BITS.getAcquire(columna, palabra);
+            }
+        }
+        int total = 0;
+        for (long bits : union) total += Long.bitCount(bits);
+        return total;
+    }
+
+    // ---------- INTERNOS ----------
+
+    /**
+     * Número del vehículo, asignándole uno y haciendo espacio en las tablas si es nuevo.
+     * Se llama con el monitor tomado.
+     */
+    private int numeroDe(String clave) {
+        Integer numero = numeros.get(clave);
+        if (numero != null) return numero;
+        int nuevo = porVehiculo.size();
+        Estado actual = estado;
+        if (nuevo >= actual.capacidad) {
+            int capacidad = Math.max(Long.SIZE, actual.capacidad * 2);
+            long[][] filas = Arrays.copyOf(actual.filas, capacidad);
+            for (int v = actual.capacidad; v < capacidad; v++) filas[v] = new long[palabras];
+            long[][] columnas = new long[dias][];
+            for (int d = 0; d < dias; d++) columnas[d] = Arrays.copyOf(actual.columnas[d], capacidad / Long.SIZE);
+            estado = new Estado(actual.origen, capacidad, filas, columnas);
+        }
+        porVehiculo.add(new ArrayList<>());
+        // Se publica después del estado con espacio, para que una consulta nunca vea un número sin fila
+        numeros.put(clave, nuevo);
+        return nuevo;
+    }
+
+    /**
+     * Marca como ocupados los días [desde, hasta) del vehículo en su fila y en las columnas de esos
+     * días, recortando al horizonte del estado indicado.
+     */
+    private void marcar(Estado destino, int vehiculo, long desde, long hasta) {
+        int[] posiciones = posiciones(destino, desde, hasta);
+        if (posiciones[0] >= posiciones[1]) return;
+        long[] fila = destino.filas[vehiculo];
+        for (int palabra = posiciones[0] >>> 6; palabra <= (posiciones[1] - 1) >>> 6; palabra++) {
+            BITS.getAndBitwiseOr(fila, palabra, mascara(palabra, posiciones[0], posiciones[1]));
+        }
+        int palabraVehiculo = vehiculo >>> 6;
+        long bitVehiculo = 1L << vehiculo;
+        for (int d = posiciones[0]; d < posiciones[1]; d++) {
+            BITS.getAndBitwiseOr(destino.columnas[d], palabraVehiculo, bitVehiculo);
+        }
+    }
+
+    /**
+     * Posiciones [inicio, fin) dentro del horizonte del estado de los días epoch [desde, hasta),
+     * recortadas al horizonte; vacías si no lo tocan.
+     */
+    private int[] posiciones(Estado actual, long desde, long hasta) {
+        int inicio = (int) (Math.max(desde, actual.origen) - actual.origen);
+        int fin = (int) (Math.min(hasta, actual.origen + dias) - actual.origen);
+        return new int[]{inicio, Math.max(inicio, fin)};
+    }
+
+    /**
+     * Posiciones [inicio, fin) del rango de días dentro del horizonte del estado.
+     */
+    private int[] rango(Estado actual, LocalDate desde, LocalDate hasta) {
+        long inicio = desde.toEpochDay() - actual.origen;
+        long fin = hasta.toEpochDay() - actual.origen;
+        if (inicio < 0 || fin > dias) {
+            throw new IllegalArgumentException("El rango " + desde + " a " + hasta + " está fuera del horizonte del calendario ("
+                    + LocalDate.ofEpochDay(actual.origen) + " a " + LocalDate.ofEpochDay(actual.origen + dias - 1) + ").");
+        }
+        return new int[]{(int) inicio, (int) Math.max(inicio, fin)};
+    }
+
+    /**
+     * Bits de la palabra que caen dentro de las posiciones [inicio, fin).
+     */
+    private static long mascara(int palabra, int inicio, int fin) {
+        int primero = Math.max(inicio - palabra * Long.SIZE, 0);
+        int ultimo = Math.min(fin - palabra * Long.SIZE, Long.SIZE);
+        long hastaUltimo = ultimo == Long.SIZE ? -1L : (1L << ultimo) - 1;
+        return hastaUltimo & (-1L << primero);
+    }
+
+    private static long alinear(long diaEpoch) {
+        return Math.floorDiv(diaEpoch, Long.SIZE) * Long.SIZE;
+    }
+
+    private static String clave(Origen origen, String id) {
+        return origen.name() + ':' + id;
+    }
+}
@@ -1,27 +1,103 @@
 package com.mycompany.drivequestrentals.servicios;
 
+import com.mycompany.drivequestrentals.excepciones.ConflictoDeVersionException;
 import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+import com.mycompany.drivequestrentals.persistencia.FiltroBloom;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
+import com.mycompany.drivequestrentals.utilidades.Validador;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio que gestiona la creación, búsqueda, validación y actualización de clientes
  * en la aplicación DriveQuest Rentals.
+ *
+ * <p>Las búsquedas por RUT/Pasaporte usan la clave del repositorio y las búsquedas por correo un
+ * índice en memoria (correo normalizado → claves de clientes), ambas en O(1). Al registrar, un
+ * {@link FiltroBloom} descarta sin consultar el repositorio los RUT que seguro son nuevos, que en una
+ * importación son casi todos. Las búsquedas por
+ * nombre y domicilio usan un {@link IndiceTexto} por campo: sin distinguir mayúsculas ni tildes, por
+ * prefijo de cada palabra y tolerando errores de tipeo, con los k mejores resultados primero.</p>
+ *
+ * <p>El servicio es seguro para múltiples hilos (interfaz, consola e hilos de fondo lo comparten
+ * mediante {@code ServiceManager}). Las lecturas no toman candados. La regla de RUT único se aplica
+ * con {@link Repositorio#guardarSiAusente} y las actualizaciones con {@link Repositorio#reemplazar},
+ * que son atómicas, de modo que una lectura concurrente nunca ve un cliente ausente a mitad de una
+ * actualización. Además, las escrituras de un mismo cliente se serializan con un candado por franja
+ * de claves para que el índice de correos siga el orden del repositorio;
+ * las escrituras de clientes distintos no se esperan entre sí en el servicio.</p>
+ *
+ * <p>Cada actualización incrementa la versión del cliente. Dos operadores que editan el mismo cliente
+ * usan {@link #actualizarCliente(Cliente, long)} con la versión que leyeron: el segundo en confirmar
+ * recibe {@link ConflictoDeVersionException} en vez de pisar los cambios del primero.</p>
  */
 public class ClienteService {
 
-    private final List<Cliente> listaClientes;
+    private final Repositorio<Cliente, String> repositorio;
+    // Listas inmutables que se reemplazan completas, para que las lecturas no necesiten candado
+    private final Map<String, List<String>> indiceCorreo = new ConcurrentHashMap<>();
+    // Correo con el que está indexada cada clave; el cliente pudo cambiarlo en el lugar desde entonces
+    private final Map<String, String> correoIndexado = new ConcurrentHashMap<>();
+    private final IndiceTexto indiceNombres = new IndiceTexto();
+    private final IndiceTexto indiceDomicilios = new IndiceTexto();
+    // Descarta sin consultar el repositorio los RUT que seguro no están registrados
+    private final FiltroBloom filtro;
 
-    private static final String REGEX_CORREO = "^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$";
-    private static final String REGEX_TELEFONO = "^\\+?\\d{8,15}$";
+    private static final int FRANJAS = 64;
+    private final ReentrantLock[] candados = new ReentrantLock[FRANJAS];
 
     /**
-     * Constructor que inicializa la lista de clientes.
+     * Constructor que mantiene los clientes solo en memoria.
      */
     public ClienteService() {
-        this.listaClientes = new ArrayList<>();
+        this(new RepositorioMemoria<>(FabricaRepositorios::claveCliente));
+    }
+
+    /**
+     * Constructor que usa el repositorio indicado, que debe estar indexado por
+     * {@link FabricaRepositorios#claveCliente}.
+     *
+     * @param repositorio almacenamiento de los clientes
+     */
+    public ClienteService(Repositorio<Cliente, String> repositorio) {
+        this(repositorio, null);
+    }
+
+    /**
+     * Constructor que usa el repositorio indicado y un filtro de claves que ya contiene las de
+     * todos sus clientes, como el que entrega {@link FabricaRepositorios#filtroClientes()}. Todas las
+     * altas del repositorio deben pasar por este servicio para que el filtro siga al día.
+     *
+     * @param repositorio almacenamiento de los clientes
+     * @param filtro      filtro de claves, o null para construirlo desde el repositorio
+     */
+    public ClienteService(Repositorio<Cliente, String> repositorio, FiltroBloom filtro) {
+        this.repositorio = Objects.requireNonNull(repositorio, "El repositorio no puede ser null");
+        this.filtro = filtro != null ? filtro : new FiltroBloom();
+        for (int i = 0; i < FRANJAS; i++) {
+            candados[i] = new ReentrantLock();
+        }
+        boolean llenarFiltro = filtro == null;
+        try (Stream<Cliente> clientes = repositorio.stream()) {
+            clientes.forEach(cliente -> {
+                indexar(cliente);
+                if (llenarFiltro) this.filtro.agregar(FabricaRepositorios.claveCliente(cliente));
+            });
+        }
     }
 
     /**
@@ -36,13 +112,23 @@ public class ClienteService {
             return false;
         }
 
-        if (buscarClientePorIdentificador(cliente.getRutOPasaporte()).isPresent()) {
-            System.err.println("⚠️ Cliente con RUT/Pasaporte ya registrado.");
-            return false;
+        String clave = FabricaRepositorios.claveCliente(cliente);
+        ReentrantLock candado = candadoDe(clave);
+        candado.lock();
+        try {
+            // Con el candado del RUT tomado, un RUT que el filtro no conoce no puede registrarse en paralelo
+            if (!filtro.puedeContener(clave)) {
+                repositorio.guardar(cliente);
+            } else if (!repositorio.guardarSiAusente(clave, cliente)) {
+                System.err.println("⚠️ Cliente con RUT/Pasaporte ya registrado.");
+                return false;
+            }
+            filtro.agregar(clave);
+            indexar(cliente);
+            return true;
+        } finally {
+            candado.unlock();
         }
-
-        listaClientes.add(cliente);
-        return true;
     }
 
     /**
@@ -54,8 +140,45 @@ public class ClienteService {
     private boolean validarDatos(Cliente cliente) {
         return cliente.getNombreCompleto() != null && !cliente.getNombreCompleto().isBlank()
                 && cliente.getRutOPasaporte() != null && !cliente.getRutOPasaporte().isBlank()
-                && cliente.getCorreo() != null && cliente.getCorreo().matches(REGEX_CORREO)
-                && cliente.getTelefono() != null && cliente.getTelefono().matches(REGEX_TELEFONO);
+                && Validador.validarEmail(cliente.getCorreo())
+                && Validador.validarTelefono(cliente.getTelefono());
+    }
+
+    /**
+     * Registra en una sola escritura los clientes cuyo RUT/Pasaporte no esté registrado.
+     * Los datos deben venir validados, como hace {@link ImportadorMasivo}.
+     *
+     * @param clientes clientes a registrar
+     * @return clientes omitidos porque su RUT/Pasaporte ya estaba registrado
+     */
+    public List<Cliente> registrarClientes(Collection<Cliente> clientes) {
+        // Se toman las franjas de todos los clientes, siempre en orden ascendente para no bloquearse
+        Set<Integer> franjas = new TreeSet<>();
+        for (Cliente cliente : clientes) {
+            franjas.add(franjaDe(FabricaRepositorios.claveCliente(cliente)));
+        }
+        List<ReentrantLock> tomados = new ArrayList<>(franjas.size());
+        try {
+            for (int franja : franjas) {
+                candados[franja].lock();
+                tomados.add(candados[franja]);
+            }
+            // Solo se consulta el repositorio por los RUT que el filtro no descarta
+            List<Cliente> nuevos = new ArrayList<>(clientes.size());
+            List<Cliente> omitidos = new ArrayList<>();
+            for (Cliente cliente : clientes) {
+                String clave = FabricaRepositorios.claveCliente(cliente);
+                (filtro.puedeContener(clave) && repositorio.existe(clave) ? omitidos : nuevos).add(cliente);
+            }
+            if (!nuevos.isEmpty()) repositorio.guardarTodos(nuevos);
+            for (Cliente cliente : nuevos) {
+                filtro.agregar(FabricaRepositorios.claveCliente(cliente));
+                indexar(cliente);
+            }
+            return omitidos;
+        } finally {
+            tomados.forEach(ReentrantLock::unlock);
+        }
     }
 
     /**
@@ -65,21 +188,59 @@ public class ClienteService {
      * @return Optional con el cliente encontrado o vacío
      */
     public Optional<Cliente> buscarClientePorIdentificador(String rutOPasaporte) {
-        return listaClientes.stream()
-                .filter(c -> c.getRutOPasaporte().equalsIgnoreCase(rutOPasaporte))
-                .findFirst();
+        return repositorio.buscarPorId(FabricaRepositorios.normalizarRut(rutOPasaporte));
     }
 
     /**
-     * Busca cliente por correo electrónico.
+     * Busca cliente por correo electrónico, sin distinguir mayúsculas. Si varios clientes comparten
+     * el correo, retorna el registrado primero.
      *
      * @param correo dirección de correo
      * @return Optional con el cliente encontrado o vacío
      */
     public Optional<Cliente> buscarClientePorCorreo(String correo) {
-        return listaClientes.stream()
-                .filter(c -> c.getCorreo().equalsIgnoreCase(correo))
-                .findFirst();
+        String normalizado = normalizarCorreo(correo);
+        if (normalizado == null) return Optional.empty();
+        for (String clave : indiceCorreo.getOrDefault(normalizado, List.of())) {
+            Optional<Cliente> cliente = repositorio.buscarPorId(clave);
+            // Un cliente modificado en el lugar pudo cambiar de correo sin pasar por actualizarCliente
+            if (cliente.isPresent() && normalizado.equals(normalizarCorreo(cliente.get().getCorreo()))) {
+                return cliente;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Busca clientes por nombre. Cada palabra de la consulta debe coincidir con una palabra del
+     * nombre completa, como prefijo o con un error de tipeo; mayúsculas y tildes no importan
+     * ("jose gonz" encuentra a "José González").
+     *
+     * @param consulta palabras a buscar
+     * @param maximo cantidad máxima de resultados
+     * @return clientes encontrados, los que mejor coinciden primero
+     */
+    public List<Cliente> buscarPorNombre(String consulta, int maximo) {
+        return resolver(indiceNombres.buscar(consulta, maximo));
+    }
+
+    /**
+     * Busca clientes por domicilio, con las mismas reglas que {@link #buscarPorNombre}.
+     *
+     * @param consulta palabras a buscar
+     * @param maximo cantidad máxima de resultados
+     * @return clientes encontrados, los que mejor coinciden primero
+     */
+    public List<Cliente> buscarPorDomicilio(String consulta, int maximo) {
+        return resolver(indiceDomicilios.buscar(consulta, maximo));
+    }
+
+    private List<Cliente> resolver(List<IndiceTexto.Resultado> resultados) {
+        List<Cliente> clientes = new ArrayList<>(resultados.size());
+        for (IndiceTexto.Resultado resultado : resultados) {
+            repositorio.buscarPorId(resultado.clave).ifPresent(clientes::add);
+        }
+        return clientes;
     }
 
     /**
@@ -88,7 +249,7 @@ public class ClienteService {
      * @return lista de clientes
      */
     public List<Cliente> obtenerTodosLosClientes() {
-        return new ArrayList<>(listaClientes); // Previene modificación externa
+        return repositorio.buscarTodos(); // Copia que previene modificación externa
     }
 
     /**
@@ -98,22 +259,77 @@ public class ClienteService {
      * @return true si se eliminó, false si no se encontró
      */
     public boolean eliminarCliente(String rutOPasaporte) {
-        return listaClientes.removeIf(c -> c.getRutOPasaporte().equalsIgnoreCase(rutOPasaporte));
+        String clave = FabricaRepositorios.normalizarRut(rutOPasaporte);
+        if (clave == null) return false;
+        ReentrantLock candado = candadoDe(clave);
+        candado.lock();
+        try {
+            Optional<Cliente> encontrado = repositorio.buscarPorId(clave);
+            if (encontrado.isEmpty() || !repositorio.eliminar(clave)) return false;
+            desindexar(clave);
+            indiceNombres.quitar(clave);
+            indiceDomicilios.quitar(clave);
+            return true;
+        } finally {
+            candado.unlock();
+        }
     }
 
     /**
-     * Actualiza los datos de un cliente existente.
+     * Actualiza los datos de un cliente existente, sin importar quién lo haya modificado desde que
+     * se leyó. Incrementa la versión del cliente.
      *
      * @param clienteActualizado cliente con nuevos datos
      * @return true si se actualizó correctamente
      */
     public boolean actualizarCliente(Cliente clienteActualizado) {
-        return buscarClientePorIdentificador(clienteActualizado.getRutOPasaporte())
-                .map(encontrado -> {
-                    listaClientes.remove(encontrado);
-                    listaClientes.add(clienteActualizado);
-                    return true;
-                }).orElse(false);
+        String clave = FabricaRepositorios.claveCliente(clienteActualizado);
+        if (clave == null) return false;
+        ReentrantLock candado = candadoDe(clave);
+        candado.lock();
+        try {
+            Optional<Cliente> actual = repositorio.buscarPorId(clave);
+            if (actual.isEmpty()) return false;
+            reemplazar(clave, actual.get(), clienteActualizado);
+            return true;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Actualiza un cliente solo si nadie lo modificó desde que se leyó en la versión indicada.
+     * El cliente actualizado debe ser una copia (ver {@link Cliente#Cliente(Cliente)}) y no la
+     * instancia registrada, que otros pueden estar leyendo.
+     *
+     * @param clienteActualizado cliente con nuevos datos
+     * @param versionEsperada    versión del cliente cuando se leyó
+     * @return true si se actualizó, false si el cliente no existe
+     * @throws ConflictoDeVersionException si el cliente está en otra versión
+     */
+    public boolean actualizarCliente(Cliente clienteActualizado, long versionEsperada) throws ConflictoDeVersionException {
+        String clave = FabricaRepositorios.claveCliente(clienteActualizado);
+        if (clave == null) return false;
+        ReentrantLock candado = candadoDe(clave);
+        candado.lock();
+        try {
+            // Bajo el candado del cliente, la versión leída no puede cambiar antes de reemplazarlo
+            Optional<Cliente> actual = repositorio.buscarPorId(clave);
+            if (actual.isEmpty()) return false;
+            if (actual.get().getVersion() != versionEsperada) {
+                throw new ConflictoDeVersionException(clave, versionEsperada, actual.get().getVersion());
+            }
+            reemplazar(clave, actual.get(), clienteActualizado);
+            return true;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    private void reemplazar(String clave, Cliente actual, Cliente actualizado) {
+        actualizado.setVersion(actual.getVersion() + 1);
+        repositorio.reemplazar(clave, actualizado);
+        indexar(actualizado);
     }
 
     /**
@@ -125,4 +341,53 @@ public class ClienteService {
     public Cliente buscarPorRutOPasaporte(String rut) {
         return buscarClientePorIdentificador(rut).orElse(null);
     }
+
+    // ---------- CANDADOS E ÍNDICES ----------
+
+    /**
+     * Cantidad de correos distintos en el índice de correos.
+     */
+    int correosIndexados() {
+        return indiceCorreo.size();
+    }
+
+    private static int franjaDe(String clave) {
+        return Math.floorMod(clave.hashCode(), FRANJAS);
+    }
+
+    private ReentrantLock candadoDe(String clave) {
+        return candados[franjaDe(clave)];
+    }
+
+    private static String normalizarCorreo(String correo) {
+        return correo == null ? null : correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void indexar(Cliente cliente) {
+        String clave = FabricaRepositorios.claveCliente(cliente);
+        // Reemplaza las palabras y el correo que tuviera la clave, así sirve también para actualizar
+        indiceNombres.agregar(clave, cliente.getNombreCompleto());
+        indiceDomicilios.agregar(clave, cliente.getDomicilio());
+        String correo = normalizarCorreo(cliente.getCorreo());
+        if (correo != null && correo.equals(correoIndexado.get(clave))) return;
+        desindexar(clave);
+        if (correo == null) return;
+        correoIndexado.put(clave, correo);
+        indiceCorreo.compute(correo, (c, claves) -> {
+            if (claves == null) return List.of(clave);
+            if (claves.contains(clave)) return claves;
+            List<String> nuevas = new ArrayList<>(claves);
+            nuevas.add(clave);
+            return List.copyOf(nuevas);
+        });
+    }
+
+    private void desindexar(String clave) {
+        String correo = correoIndexado.remove(clave);
+        if (correo == null) return;
+        indiceCorreo.computeIfPresent(correo, (c, claves) -> {
+            List<String> restantes = claves.stream().filter(k -> !k.equals(clave)).collect(Collectors.toList());
+            return restantes.isEmpty() ? null : List.copyOf(restantes);
+        });
+    }
 }
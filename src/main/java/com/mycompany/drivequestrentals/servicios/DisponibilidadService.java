@@ -0,0 +1,282 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.EstadoVehiculo;
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Búsqueda de vehículos libres en un rango de fechas que cumplan requisitos de tipo, capacidad de
+ * carga, pasajeros y precio, ordenados del más conveniente al menos conveniente: primero el de menor
+ * precio diario, y a igual precio el que excede menos la capacidad o los pasajeros pedidos.
+ *
+ * <p>Los candidatos salen de los índices ordenados de atributos de {@link FlotaVehiculosService}, y
+ * cada uno se confirma contra la agenda de reservas de su vehículo y su calendario de arriendos, ambos
+ * en O(log k). Si la consulta pide un mínimo de capacidad o pasajeros y ese rango del índice es
+ * acotado, se revisa el rango completo; si no, se recorre el índice de precios de menor a mayor y se
+ * detiene al completar el límite de resultados. Ninguno de los dos caminos recorre la flota completa
+ * por cada reserva.</p>
+ *
+ * <p>Si se entrega un {@link CalendarioOcupacion} y el rango está dentro de su horizonte, cada candidato
+ * se confirma con un AND sobre su fila de bits en lugar de consultar las dos agendas.</p>
+ *
+ * <p>Los vehículos en mantención se excluyen. Los arrendados hoy pueden aparecer si su calendario
+ * está libre en el rango consultado.</p>
+ */
+public class DisponibilidadService {
+
+    // Candidatos que se cuentan en el rango de un atributo antes de preferir el índice de precios,
+    // por cada resultado pedido
+    private static final int PRESUPUESTO_POR_RESULTADO = 50;
+
+    private final FlotaVehiculosService flota;
+    private final ReservaService reservas;
+    private final ArriendoService arriendos;
+    // Mantenido por los servicios de reservas y arriendos; null si no se usa
+    private final CalendarioOcupacion calendario;
+
+    /**
+     * @param flota     flota con sus índices de atributos
+     * @param reservas  reservas con su agenda por vehículo
+     * @param arriendos arriendos con su calendario por vehículo
+     */
+    public DisponibilidadService(FlotaVehiculosService flota, ReservaService reservas, ArriendoService arriendos) {
+        this(flota, reservas, arriendos, null);
+    }
+
+    /**
+     * @param flota      flota con sus índices de atributos
+     * @param reservas   reservas con su agenda por vehículo
+     * @param arriendos  arriendos con su calendario por vehículo
+     * @param calendario calendario de ocupación que mantienen {@code reservas} y {@code arriendos}, o null
+     */
+    public DisponibilidadService(FlotaVehiculosService flota, ReservaService reservas, ArriendoService arriendos,
+                                 CalendarioOcupacion calendario) {
+        this.flota = Objects.requireNonNull(flota, "La flota no puede ser null");
+        this.reservas = Objects.requireNonNull(reservas, "El servicio de reservas no puede ser null");
+        this.arriendos = Objects.requireNonNull(arriendos, "El servicio de arriendos no puede ser null");
+        this.calendario = calendario;
+    }
+
+    /**
+     * Criterios de una búsqueda. Solo el rango de fechas es obligatorio; el resto se agrega con los
+     * métodos encadenables, por ejemplo
+     * {@code new Consulta(desde, hasta).tipo(VehiculoCarga.class).capacidadMinima(1000)}.
+     */
+    public static final class Consulta {
+        private final LocalDate desde;
+        private final LocalDate hasta;
+        private Class<? extends Vehiculo> tipo = Vehiculo.class;
+        private double capacidadMinima;
+        private int pasajerosMinimos;
+        private double precioMaximo = Double.MAX_VALUE;
+        private int limite = 20;
+
+        /**
+         * @param desde primer día del arriendo
+         * @param hasta día de devolución; el vehículo debe estar libre hasta el día anterior
+         * @throws IllegalArgumentException si falta una fecha o la devolución no es posterior al inicio
+         */
+        public Consulta(LocalDate desde, LocalDate hasta) {
+            if (desde == null || hasta == null || !hasta.isAfter(desde)) {
+                throw new IllegalArgumentException("Fechas inválidas: la duración debe ser mayor a 0.");
+            }
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        /** Solo vehículos de esta clase o sus subclases. */
+        public Consulta tipo(Class<? extends Vehiculo> tipo) {
+            this.tipo = Objects.requireNonNull(tipo, "El tipo no puede ser null");
+            return this;
+        }
+
+        /** Solo vehículos de carga con al menos esta capacidad. */
+        public Consulta capacidadMinima(double capacidadMinima) {
+            this.capacidadMinima = capacidadMinima;
+            return this;
+        }
+
+        /** Solo vehículos de pasajeros con al menos estos asientos. */
+        public Consulta pasajerosMinimos(int pasajerosMinimos) {
+            this.pasajerosMinimos = pasajerosMinimos;
+            return this;
+        }
+
+        /** Solo vehículos con precio diario hasta este valor. */
+        public Consulta precioMaximo(double precioMaximo) {
+            this.precioMaximo = precioMaximo;
+            return this;
+        }
+
+        /** Cantidad máxima de resultados. */
+        public Consulta limite(int limite) {
+            if (limite <= 0) throw new IllegalArgumentException("El límite debe ser positivo");
+            this.limite = limite;
+            return this;
+        }
+    }
+
+    /**
+     * Busca los vehículos libres que cumplen la consulta.
+     *
+     * @param consulta criterios de búsqueda
+     * @return hasta {@code limite} vehículos, del más conveniente al menos conveniente
+     */
+    public List<Vehiculo> buscar(Consulta consulta) {
+        Objects.requireNonNull(consulta, "La consulta no puede ser null");
+        IndiceAtributos indice = flota.getIndiceAtributos();
+        Collection<Set<String>> rango = rangoAcotado(consulta, indice);
+        List<Candidato> candidatos = rango != null
+                ? mejoresDelRango(consulta, indice, rango)
+                : recorrerPorPrecio(consulta, indice);
+        List<Vehiculo> resultado = new ArrayList<>(candidatos.size());
+        for (Candidato candidato : candidatos) {
+            Vehiculo vehiculo = flota.buscarPorPatente(candidato.clave);
+            if (vehiculo != null) resultado.add(vehiculo);
+        }
+        return resultado;
+    }
+
+    /**
+     * Fracción de la flota ocupada por reservas o arriendos en cada día de [desde, hasta), a partir
+     * de los conteos de bits del calendario de ocupación. Para que los conteos no incluyan vehículos
+     * dados de baja, la flota debe crearse con el mismo calendario (ver
+     * {@link FlotaVehiculosService#FlotaVehiculosService(com.mycompany.drivequestrentals.persistencia.Repositorio, CalendarioOcupacion)}).
+     *
+     * @throws IllegalStateException    si el servicio no tiene calendario de ocupación
+     * @throws IllegalArgumentException si el rango está fuera del horizonte del calendario
+     */
+    public double[] utilizacionPorDia(LocalDate desde, LocalDate hasta) {
+        if (calendario == null) throw new IllegalStateException("No hay un calendario de ocupación configurado");
+        int[] ocupados = calendario.ocupadosPorDia(desde, hasta);
+        int total = 0;
+        for (EstadoVehiculo estado : EstadoVehiculo.values()) total += flota.contarPorEstado(estado);
+        double[] utilizacion = new double[ocupados.length];
+        for (int i = 0; i < ocupados.length; i++) {
+            utilizacion[i] = total == 0 ? 0 : Math.min(1.0, (double) ocupados[i] / total);
+        }
+        return utilizacion;
+    }
+
+    /**
+     * Grupos de patentes del rango de capacidad o pasajeros pedido, si la consulta fija un mínimo y el
+     * rango tiene pocos vehículos en relación al límite.
+     *
+     * @return los grupos del rango, o null si conviene recorrer por precio
+     */
+    private static Collection<Set<String>> rangoAcotado(Consulta consulta, IndiceAtributos indice) {
+        NavigableMap<?, Set<String>> rango;
+        if (consulta.capacidadMinima > 0) {
+            rango = indice.porCapacidad().tailMap(consulta.capacidadMinima, true);
+        } else if (consulta.pasajerosMinimos > 0) {
+            rango = indice.porPasajeros().tailMap(consulta.pasajerosMinimos, true);
+        } else {
+            return null;
+        }
+        long presupuesto = (long) consulta.limite * PRESUPUESTO_POR_RESULTADO;
+        long contados = 0;
+        for (Map.Entry<?, Set<String>> grupo : rango.entrySet()) {
+            // Cada valor cuenta al menos uno, para acotar también el recorrido de conjuntos vacíos
+            contados += Math.max(1, grupo.getValue().size());
+            if (contados > presupuesto) return null;
+        }
+        return rango.values();
+    }
+
+    private List<Candidato> mejoresDelRango(Consulta consulta, IndiceAtributos indice, Collection<Set<String>> rango) {
+        // Montículo de los peores primero, para descartar en O(log límite)
+        PriorityQueue<Candidato> mejores = new PriorityQueue<>(Candidato.ORDEN.reversed());
+        for (Set<String> grupo : rango) {
+            for (String clave : grupo) {
+                Candidato candidato = evaluar(consulta, indice, clave);
+                if (candidato == null) continue;
+                mejores.add(candidato);
+                if (mejores.size() > consulta.limite) mejores.poll();
+            }
+        }
+        List<Candidato> candidatos = new ArrayList<>(mejores);
+        candidatos.sort(Candidato.ORDEN);
+        return candidatos;
+    }
+
+    private List<Candidato> recorrerPorPrecio(Consulta consulta, IndiceAtributos indice) {
+        List<Candidato> candidatos = new ArrayList<>();
+        for (Set<String> grupo : indice.porPrecio().headMap(consulta.precioMaximo, true).values()) {
+            // Todo el grupo tiene el mismo precio; se ordena por holgura y patente antes de agregarlo
+            List<Candidato> delPrecio = new ArrayList<>();
+            for (String clave : grupo) {
+                Candidato candidato = evaluar(consulta, indice, clave);
+                if (candidato != null) delPrecio.add(candidato);
+            }
+            delPrecio.sort(Candidato.ORDEN);
+            candidatos.addAll(delPrecio);
+            if (candidatos.size() >= consulta.limite) return candidatos.subList(0, consulta.limite);
+        }
+        return candidatos;
+    }
+
+    /**
+     * @return el candidato con los atributos que tenía al evaluarlo, o null si no cumple la consulta
+     */
+    private Candidato evaluar(Consulta consulta, IndiceAtributos indice, String clave) {
+        IndiceAtributos.Atributos atributos = indice.de(clave);
+        if (!cumple(consulta, atributos, clave)) return null;
+        double holgura = 0;
+        if (consulta.capacidadMinima > 0) holgura = atributos.capacidad - consulta.capacidadMinima;
+        else if (consulta.pasajerosMinimos > 0) holgura = atributos.pasajeros - consulta.pasajerosMinimos;
+        return new Candidato(clave, atributos.precio, holgura);
+    }
+
+    private boolean cumple(Consulta consulta, IndiceAtributos.Atributos atributos, String clave) {
+        if (atributos == null || atributos.estado == EstadoVehiculo.EN_MANTENCION) return false;
+        if (!consulta.tipo.isAssignableFrom(atributos.tipo) || atributos.precio > consulta.precioMaximo) return false;
+        if (consulta.capacidadMinima > 0
+                && (!VehiculoCarga.class.isAssignableFrom(atributos.tipo) || atributos.capacidad < consulta.capacidadMinima)) {
+            return false;
+        }
+        if (consulta.pasajerosMinimos > 0
+                && (!VehiculoPasajeros.class.isAssignableFrom(atributos.tipo) || atributos.pasajeros < consulta.pasajerosMinimos)) {
+            return false;
+        }
+        // Los atributos se filtran primero porque las agendas son la parte cara. Calendario, arriendos
+        // y reservas toman el rango como [desde, hasta): el día de devolución queda libre
+        if (calendario != null && calendario.cubre(consulta.desde, consulta.hasta)) {
+            return calendario.estaLibre(clave, consulta.desde, consulta.hasta);
+        }
+        return arriendos.estaLibre(clave, consulta.desde, consulta.hasta)
+                && reservas.estaLibre(clave, consulta.desde.atStartOfDay(), consulta.hasta.atStartOfDay());
+    }
+
+    /**
+     * Vehículo que cumple la consulta, con los valores con que se ordena copiados al evaluarlo para
+     * que el orden no cambie si el índice se actualiza durante la búsqueda.
+     */
+    private static final class Candidato {
+        static final Comparator<Candidato> ORDEN = Comparator.<Candidato>comparingDouble(c -> c.precio)
+                .thenComparingDouble(c -> c.holgura)
+                .thenComparing(c -> c.clave);
+
+        final String clave;
+        final double precio;
+        // Cuánto excede la capacidad o los pasajeros pedidos; 0 si la consulta no pide ninguno
+        final double holgura;
+
+        Candidato(String clave, double precio, double holgura) {
+            this.clave = clave;
+            this.precio = precio;
+            this.holgura = holgura;
+        }
+    }
+}
@@ -1,21 +1,105 @@
 package com.mycompany.drivequestrentals.servicios;
 
+import com.mycompany.drivequestrentals.excepciones.ConflictoDeVersionException;
+import com.mycompany.drivequestrentals.modelo.EstadoVehiculo;
 import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
 import com.mycompany.drivequestrentals.modelo.Arriendo;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+import com.mycompany.drivequestrentals.persistencia.FlotaMapeada;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Servicio encargado de gestionar la flota de vehículos.
  * Maneja operaciones como agregar, buscar, listar, filtrar y eliminar vehículos.
+ *
+ * <p>La flota se indexa por patente normalizada en el repositorio. El servicio no tiene un candado
+ * propio: las búsquedas no toman candados en los respaldos en memoria y en archivo, el rechazo de
+ * patentes duplicadas usa {@link Repositorio#guardarSiAusente} y los cambios de estado se confirman
+ * con {@link Repositorio#reemplazarSi}, todas atómicas en el repositorio. Así las consultas de
+ * disponibilidad de cada mesón no se serializan con las de los demás.</p>
+ *
+ * <p>Los cambios de estado se validan con {@link EstadoVehiculo#puedeCambiarA}. Además se mantiene un
+ * índice de patentes por estado y tipo de vehículo, de modo que listar, por ejemplo, los vehículos de
+ * carga disponibles cuesta en proporción al resultado y no al tamaño de la flota. Todas las escrituras
+ * de la flota deben pasar por este servicio para que los índices sigan al día; en particular, el precio,
+ * la capacidad y los pasajeros de un vehículo registrado se cambian con {@link #setPrecioDiario},
+ * {@link #setCapacidadCarga} y {@link #setNumeroPasajeros}, no con los setters del modelo.</p>
  */
 public class FlotaVehiculosService {
 
-    // Lista sincronizada para acceso seguro desde múltiples hilos
-    private final List<Vehiculo> vehiculos = Collections.synchronizedList(new ArrayList<>());
+    private final Repositorio<Vehiculo, String> vehiculos;
+    // Con una flota mapeada, los cambios de estado se escriben en el lugar
+    private final FlotaMapeada flotaMapeada;
+    // Patentes por estado y tipo; el EnumMap no cambia tras el constructor y los conjuntos son concurrentes
+    private final Map<EstadoVehiculo, Map<Class<? extends Vehiculo>, Set<String>>> porEstado = new EnumMap<>(EstadoVehiculo.class);
+    // Precio, capacidad y pasajeros, para las búsquedas de disponibilidad
+    private final IndiceAtributos atributos = new IndiceAtributos();
+    // Ocupación por día de toda la flota, compartida con arriendos y reservas; null si no se usa
+    private final CalendarioOcupacion ocupacion;
+
+    private static final int FRANJAS = 64;
+    private final ReentrantLock[] candados = new ReentrantLock[FRANJAS];
+
+    /**
+     * Constructor que mantiene la flota solo en memoria.
+     */
+    public FlotaVehiculosService() {
+        this(new RepositorioMemoria<>(FabricaRepositorios::claveVehiculo));
+    }
+
+    /**
+     * Constructor que usa el repositorio indicado, que debe estar indexado por
+     * {@link FabricaRepositorios#claveVehiculo}.
+     *
+     * @param vehiculos almacenamiento de la flota
+     */
+    public FlotaVehiculosService(Repositorio<Vehiculo, String> vehiculos) {
+        this(vehiculos, null);
+    }
+
+    /**
+     * Constructor que además libera en el calendario de ocupación indicado la fila de cada vehículo
+     * que se elimina, para que la utilización de la flota no cuente vehículos dados de baja.
+     *
+     * @param vehiculos almacenamiento de la flota
+     * @param ocupacion calendario de ocupación compartido, o null para no mantener ninguno
+     */
+    public FlotaVehiculosService(Repositorio<Vehiculo, String> vehiculos, CalendarioOcupacion ocupacion) {
+        this.vehiculos = Objects.requireNonNull(vehiculos, "El repositorio no puede ser null");
+        this.ocupacion = ocupacion;
+        this.flotaMapeada = vehiculos instanceof FlotaMapeada ? (FlotaMapeada) vehiculos : null;
+        for (int i = 0; i < FRANJAS; i++) {
+            candados[i] = new ReentrantLock();
+        }
+        for (EstadoVehiculo estado : EstadoVehiculo.values()) {
+            porEstado.put(estado, new ConcurrentHashMap<>());
+        }
+        try (Stream<Vehiculo> flota = vehiculos.stream()) {
+            flota.forEach(vehiculo -> {
+                String clave = FabricaRepositorios.claveVehiculo(vehiculo);
+                patentesDe(vehiculo.getEstadoVehiculo(), vehiculo.getClass()).add(clave);
+                atributos.actualizar(clave, vehiculo);
+            });
+        }
+    }
 
     /**
      * Agrega un nuevo vehículo si no existe otro con la misma patente.
@@ -25,11 +109,27 @@ public class FlotaVehiculosService {
      */
     public boolean agregarVehiculo(Vehiculo vehiculo) {
         Objects.requireNonNull(vehiculo, "El vehículo no puede ser null");
-        synchronized (vehiculos) {
-            return vehiculos.stream()
-                    .noneMatch(v -> v.getPatente().equalsIgnoreCase(vehiculo.getPatente())) 
-                    && vehiculos.add(vehiculo);
+        String clave = FabricaRepositorios.claveVehiculo(vehiculo);
+        if (!vehiculos.guardarSiAusente(clave, vehiculo)) return false;
+        reindexar(clave);
+        return true;
+    }
+
+    /**
+     * Agrega en una sola escritura los vehículos cuya patente no esté registrada.
+     *
+     * @param nuevos vehículos a registrar
+     * @return vehículos omitidos porque su patente ya estaba registrada
+     */
+    public List<Vehiculo> agregarVehiculos(Collection<Vehiculo> nuevos) {
+        List<Vehiculo> omitidos = vehiculos.guardarTodosSiAusentes(nuevos, FabricaRepositorios::claveVehiculo);
+        Set<Vehiculo> noGuardados = Collections.newSetFromMap(new IdentityHashMap<>());
+        noGuardados.addAll(omitidos);
+        for (Vehiculo vehiculo : nuevos) {
+            if (noGuardados.contains(vehiculo)) continue;
+            reindexar(FabricaRepositorios.claveVehiculo(vehiculo));
         }
+        return omitidos;
     }
 
     /**
@@ -38,9 +138,17 @@ public class FlotaVehiculosService {
      * @return lista de vehículos
      */
     public List<Vehiculo> listarVehiculos() {
-        synchronized (vehiculos) {
-            return new ArrayList<>(vehiculos);
-        }
+        return vehiculos.buscarTodos();
+    }
+
+    /**
+     * Vista inmutable de la flota en este instante, para recorrerla sin copiarla. En los respaldos
+     * en memoria y en archivo se obtiene en O(1) y sin candados (ver {@link Repositorio#instantanea()}).
+     *
+     * @return vehículos registrados al momento de la llamada
+     */
+    public Collection<Vehiculo> vistaVehiculos() {
+        return vehiculos.instantanea();
     }
 
     /**
@@ -51,28 +159,310 @@ public class FlotaVehiculosService {
      */
     public Vehiculo buscarPorPatente(String patente) {
         if (patente == null || patente.isBlank()) return null;
-        synchronized (vehiculos) {
-            return vehiculos.stream()
-                    .filter(v -> v.getPatente().equalsIgnoreCase(patente))
-                    .findFirst()
-                    .orElse(null);
-        }
+        return vehiculos.buscarPorId(FabricaRepositorios.normalizarPatente(patente)).orElse(null);
     }
 
     /**
-     * Cambia el estado de un vehículo.
+     * Cambia el estado de un vehículo a partir de su texto (ver {@link EstadoVehiculo#desde}).
      *
      * @param patente     patente del vehículo
-     * @param nuevoEstado nuevo estado a asignar
+     * @param nuevoEstado texto del nuevo estado
      * @return true si se actualizó, false si no se encontró el vehículo
+     * @throws IllegalArgumentException si el texto no corresponde a ningún estado
+     * @throws IllegalStateException    si el vehículo no puede pasar a ese estado
      */
     public boolean cambiarEstado(String patente, String nuevoEstado) {
+        if (nuevoEstado == null) return false;
+        return cambiarEstado(patente, EstadoVehiculo.desde(nuevoEstado));
+    }
+
+    /**
+     * Cambia el estado de un vehículo e incrementa su versión. Si la flota está en un archivo mapeado,
+     * solo se escriben el estado y la versión en su ranura.
+     *
+     * <p>No toma el candado del servicio: el cambio se confirma con {@link Repositorio#reemplazarSi}
+     * (o comparando la versión en la ranura mapeada), y si otro hilo modificó el vehículo entre la
+     * lectura y la escritura se reintenta, volviendo a validar la transición.</p>
+     *
+     * @param patente     patente del vehículo
+     * @param nuevoEstado nuevo estado a asignar
+     * @return true si se actualizó, false si no se encontró el vehículo
+     * @throws IllegalStateException si el vehículo no puede pasar a ese estado
+     */
+    public boolean cambiarEstado(String patente, EstadoVehiculo nuevoEstado) {
+        if (nuevoEstado == null) return false;
+        while (true) {
+            Vehiculo vehiculo = buscarPorPatente(patente);
+            if (vehiculo == null) return false;
+            if (flotaMapeada != null) {
+                validarTransicion(vehiculo, nuevoEstado);
+                long encontrada = flotaMapeada.actualizarEstadoSiVersion(patente, nuevoEstado.getTexto(), vehiculo.getVersion());
+                if (encontrada == -1) return false;
+                if (encontrada != vehiculo.getVersion()) continue;
+                confirmarEnLugar(patente);
+                return true;
+            }
+            synchronized (vehiculo) {
+                validarTransicion(vehiculo, nuevoEstado);
+                if (aplicarEstado(vehiculo, nuevoEstado)) return true;
+            }
+        }
+    }
+
+    /**
+     * Marca un vehículo como disponible o arrendado, manteniendo el índice por estado.
+     *
+     * @param patente    patente del vehículo
+     * @param disponible true para {@link EstadoVehiculo#DISPONIBLE}, false para {@link EstadoVehiculo#ARRENDADO}
+     * @return true si se actualizó, false si no se encontró el vehículo
+     * @throws IllegalStateException si el vehículo no puede pasar a ese estado
+     */
+    public boolean setDisponible(String patente, boolean disponible) {
+        return cambiarEstado(patente, disponible ? EstadoVehiculo.DISPONIBLE : EstadoVehiculo.ARRENDADO);
+    }
+
+    /**
+     * Cambia el estado de un vehículo solo si nadie lo modificó desde que se leyó en la versión
+     * indicada, de modo que dos operadores no puedan, por ejemplo, arrendar el mismo vehículo.
+     *
+     * @param patente         patente del vehículo
+     * @param nuevoEstado     texto del nuevo estado
+     * @param versionEsperada versión del vehículo cuando se leyó
+     * @return true si se actualizó, false si no se encontró el vehículo
+     * @throws ConflictoDeVersionException si el vehículo está en otra versión
+     * @throws IllegalArgumentException    si el texto no corresponde a ningún estado
+     * @throws IllegalStateException       si el vehículo no puede pasar a ese estado
+     */
+    public boolean cambiarEstado(String patente, String nuevoEstado, long versionEsperada) throws ConflictoDeVersionException {
+        if (nuevoEstado == null) return false;
+        return cambiarEstado(patente, EstadoVehiculo.desde(nuevoEstado), versionEsperada);
+    }
+
+    /**
+     * Cambia el estado de un vehículo solo si está en la versión indicada.
+     *
+     * @see #cambiarEstado(String, String, long)
+     */
+    public boolean cambiarEstado(String patente, EstadoVehiculo nuevoEstado, long versionEsperada) throws ConflictoDeVersionException {
+        if (nuevoEstado == null) return false;
         Vehiculo vehiculo = buscarPorPatente(patente);
-        if (vehiculo != null && nuevoEstado != null) {
-            vehiculo.setEstado(nuevoEstado);
+        if (vehiculo == null) return false;
+        if (flotaMapeada != null) {
+            long encontrada = vehiculo.getVersion();
+            if (encontrada == versionEsperada) {
+                validarTransicion(vehiculo, nuevoEstado);
+                encontrada = flotaMapeada.actualizarEstadoSiVersion(patente, nuevoEstado.getTexto(), versionEsperada);
+                if (encontrada == -1) return false;
+            }
+            if (encontrada != versionEsperada) {
+                throw new ConflictoDeVersionException(vehiculo.getPatente(), versionEsperada, encontrada);
+            }
+            confirmarEnLugar(patente);
             return true;
         }
-        return false;
+        synchronized (vehiculo) {
+            if (vehiculo.getVersion() == versionEsperada) {
+                validarTransicion(vehiculo, nuevoEstado);
+                if (aplicarEstado(vehiculo, nuevoEstado)) return true;
+            }
+        }
+        Vehiculo actual = buscarPorPatente(patente);
+        if (actual == null) return false;
+        throw new ConflictoDeVersionException(actual.getPatente(), versionEsperada, actual.getVersion());
+    }
+
+    /**
+     * Con el candado del vehículo tomado, cambia su estado y versión y lo guarda si el almacenado
+     * no cambió desde que se leyó (ver {@link #aplicar}).
+     *
+     * @return true si se guardó; si no, el vehículo queda como estaba
+     */
+    private boolean aplicarEstado(Vehiculo vehiculo, EstadoVehiculo nuevoEstado) {
+        return aplicar(vehiculo, Vehiculo::getEstadoVehiculo, Vehiculo::setEstadoVehiculo, nuevoEstado);
+    }
+
+    /**
+     * Con el candado del vehículo tomado, asigna un atributo, incrementa la versión y guarda el vehículo
+     * si el almacenado no cambió desde que se leyó. Los repositorios en memoria guardan esta misma
+     * instancia; los que decodifican una copia por lectura se comparan por versión.
+     *
+     * <p>Se modifica la instancia en el lugar porque arriendos y reservas la referencian. Si el
+     * repositorio no la guarda, ya sea porque la condición falla o porque lanza una excepción (por
+     * ejemplo {@link java.io.UncheckedIOException} al escribir el diario), se restauran el atributo y
+     * la versión anteriores.</p>
+     *
+     * @return true si se guardó; si no, el vehículo queda como estaba
+     */
+    private <V extends Vehiculo, A> boolean aplicar(V vehiculo, Function<V, A> lector, BiConsumer<V, A> asignador, A valor) {
+        long leida = vehiculo.getVersion();
+        A anterior = lector.apply(vehiculo);
+        String clave = FabricaRepositorios.claveVehiculo(vehiculo);
+        boolean guardado = false;
+        asignador.accept(vehiculo, valor);
+        vehiculo.setVersion(leida + 1);
+        try {
+            guardado = vehiculos.reemplazarSi(clave, actual -> actual == vehiculo || actual.getVersion() == leida, vehiculo);
+        } finally {
+            if (!guardado) {
+                asignador.accept(vehiculo, anterior);
+                vehiculo.setVersion(leida);
+            }
+        }
+        if (guardado) reindexar(clave);
+        return guardado;
+    }
+
+    // ---------- ATRIBUTOS ----------
+
+    /**
+     * Cambia el precio diario de un vehículo de la flota e incrementa su versión, manteniendo el
+     * índice de precios de las búsquedas de disponibilidad.
+     *
+     * @return true si se actualizó, false si no se encontró el vehículo
+     * @throws IllegalArgumentException si el precio es negativo
+     */
+    public boolean setPrecioDiario(String patente, double precioDiario) {
+        return actualizarAtributo(patente, Vehiculo.class, Vehiculo::getPrecioDiario, Vehiculo::setPrecioDiario, precioDiario);
+    }
+
+    /**
+     * Cambia la capacidad de un vehículo de carga, manteniendo el índice de capacidades.
+     *
+     * @return true si se actualizó, false si no se encontró el vehículo
+     * @throws IllegalArgumentException si el vehículo no es de carga
+     */
+    public boolean setCapacidadCarga(String patente, double capacidadCarga) {
+        return actualizarAtributo(patente, VehiculoCarga.class, VehiculoCarga::getCapacidadCarga,
+                VehiculoCarga::setCapacidadCarga, capacidadCarga);
+    }
+
+    /**
+     * Cambia el número de pasajeros de un vehículo de pasajeros, manteniendo el índice de pasajeros.
+     *
+     * @return true si se actualizó, false si no se encontró el vehículo
+     * @throws IllegalArgumentException si el vehículo no es de pasajeros
+     */
+    public boolean setNumeroPasajeros(String patente, int numeroPasajeros) {
+        return actualizarAtributo(patente, VehiculoPasajeros.class, VehiculoPasajeros::getNumeroPasajeros,
+                VehiculoPasajeros::setNumeroPasajeros, numeroPasajeros);
+    }
+
+    /**
+     * Asigna un atributo indexado reintentando si otro hilo modificó el vehículo entre la lectura y
+     * la escritura, igual que {@link #cambiarEstado(String, EstadoVehiculo)}.
+     */
+    private <V extends Vehiculo, A> boolean actualizarAtributo(String patente, Class<V> tipo, Function<V, A> lector,
+                                                               BiConsumer<V, A> asignador, A valor) {
+        while (true) {
+            Vehiculo encontrado = buscarPorPatente(patente);
+            if (encontrado == null) return false;
+            if (!tipo.isInstance(encontrado)) {
+                throw new IllegalArgumentException("El vehículo " + encontrado.getPatente() + " no es "
+                        + tipo.getSimpleName() + ".");
+            }
+            V vehiculo = tipo.cast(encontrado);
+            synchronized (vehiculo) {
+                if (aplicar(vehiculo, lector, asignador, valor)) return true;
+            }
+        }
+    }
+
+    /**
+     * Actualiza los índices tras un cambio ya escrito en la ranura mapeada.
+     */
+    private void confirmarEnLugar(String patente) {
+        String clave = FabricaRepositorios.normalizarPatente(patente);
+        reindexar(clave);
+    }
+
+    private static void validarTransicion(Vehiculo vehiculo, EstadoVehiculo nuevoEstado) {
+        EstadoVehiculo actual = vehiculo.getEstadoVehiculo();
+        if (!actual.puedeCambiarA(nuevoEstado)) {
+            throw new IllegalStateException("El vehículo " + vehiculo.getPatente() + " no puede pasar de "
+                    + actual + " a " + nuevoEstado + ".");
+        }
+    }
+
+    // ---------- ÍNDICE POR ESTADO ----------
+
+    /**
+     * Vehículos que están en el estado indicado.
+     *
+     * @param estado estado buscado
+     * @return vehículos en ese estado, sin un orden definido
+     */
+    public List<Vehiculo> listarPorEstado(EstadoVehiculo estado) {
+        return listarPorEstado(estado, Vehiculo.class);
+    }
+
+    /**
+     * Vehículos del tipo indicado que están en el estado indicado, por ejemplo
+     * {@code listarPorEstado(EstadoVehiculo.DISPONIBLE, VehiculoCarga.class)}. Solo se recorren las
+     * patentes indexadas bajo ese estado y tipo.
+     *
+     * @param estado estado buscado
+     * @param tipo   clase de los vehículos buscados ({@code Vehiculo.class} para todos)
+     * @return vehículos en ese estado, sin un orden definido
+     */
+    public <T extends Vehiculo> List<T> listarPorEstado(EstadoVehiculo estado, Class<T> tipo) {
+        Objects.requireNonNull(estado, "El estado no puede ser null");
+        Objects.requireNonNull(tipo, "El tipo no puede ser null");
+        List<T> resultado = new ArrayList<>();
+        for (Map.Entry<Class<? extends Vehiculo>, Set<String>> entrada : porEstado.get(estado).entrySet()) {
+            if (!tipo.isAssignableFrom(entrada.getKey())) continue;
+            for (String clave : entrada.getValue()) {
+                // Durante un cambio concurrente la patente puede figurar un instante en dos estados
+                Vehiculo vehiculo = vehiculos.buscarPorId(clave).orElse(null);
+                if (vehiculo != null && vehiculo.getEstadoVehiculo() == estado && tipo.isInstance(vehiculo)) {
+                    resultado.add(tipo.cast(vehiculo));
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad de vehículos en el estado indicado, sin recorrerlos.
+     */
+    public int contarPorEstado(EstadoVehiculo estado) {
+        int total = 0;
+        for (Set<String> patentes : porEstado.get(estado).values()) total += patentes.size();
+        return total;
+    }
+
+    /**
+     * Índices de atributos de la flota, que usa {@link DisponibilidadService}.
+     */
+    IndiceAtributos getIndiceAtributos() {
+        return atributos;
+    }
+
+    private Set<String> patentesDe(EstadoVehiculo estado, Class<? extends Vehiculo> tipo) {
+        return porEstado.get(estado).computeIfAbsent(tipo, t -> ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Deja la patente indexada solo bajo el estado y tipo que tiene ahora en el repositorio, y
+     * actualiza sus atributos. Se agrega
+     * al conjunto nuevo antes de quitarla de los demás, para que una consulta concurrente no la pierda.
+     * Bajo el candado de su franja, la última reindexación siempre lee el estado más reciente.
+     */
+    private void reindexar(String clave) {
+        ReentrantLock candado = candados[Math.floorMod(clave.hashCode(), FRANJAS)];
+        candado.lock();
+        try {
+            Vehiculo vehiculo = vehiculos.buscarPorId(clave).orElse(null);
+            Set<String> vigente = vehiculo == null ? null : patentesDe(vehiculo.getEstadoVehiculo(), vehiculo.getClass());
+            if (vigente != null) vigente.add(clave);
+            for (Map<Class<? extends Vehiculo>, Set<String>> porTipo : porEstado.values()) {
+                for (Set<String> patentes : porTipo.values()) {
+                    if (patentes != vigente) patentes.remove(clave);
+                }
+            }
+            atributos.actualizar(clave, vehiculo);
+        } finally {
+            candado.unlock();
+        }
     }
 
     /**
@@ -101,8 +491,13 @@ public class FlotaVehiculosService {
      */
     public boolean eliminarVehiculo(String patente) {
         if (patente == null || patente.isBlank()) return false;
-        synchronized (vehiculos) {
-            return vehiculos.removeIf(v -> v.getPatente().equalsIgnoreCase(patente));
-        }
+        Vehiculo vehiculo = buscarPorPatente(patente);
+        if (vehiculo == null) return false;
+        String clave = FabricaRepositorios.claveVehiculo(vehiculo);
+        // Entre dos eliminaciones concurrentes, solo a una le responde true el repositorio
+        if (!vehiculos.eliminar(clave)) return false;
+        reindexar(clave);
+        if (ocupacion != null) ocupacion.quitarVehiculo(clave);
+        return true;
     }
 }
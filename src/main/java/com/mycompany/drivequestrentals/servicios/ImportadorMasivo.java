@@ -0,0 +1,390 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.excepciones.ValidacionException;
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.modelo.EstadoVehiculo;
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+import com.mycompany.drivequestrentals.persistencia.ArchivoUtil;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+import com.mycompany.drivequestrentals.utilidades.Validador;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Importación masiva de clientes y vehículos desde archivos CSV.
+ *
+ * <p>El archivo se lee por bloques con {@link ArchivoUtil#leerLineasPorBloques}; cada bloque se
+ * interpreta y valida en un pool de hilos (RUT con dígito verificador, correo y teléfono) mientras
+ * se leen los siguientes. Los bloques validados se confirman en el hilo que importa y en el orden
+ * del archivo: los duplicados dentro del archivo se detectan con un conjunto de claves y los ya
+ * registrados con la búsqueda por clave del repositorio, y cada bloque se guarda con una sola
+ * escritura ({@link ClienteService#registrarClientes}, {@link FlotaVehiculosService#agregarVehiculos}).
+ * Como mucho hay dos bloques por hilo en validación, así que las filas en memoria no dependen del
+ * tamaño del archivo; lo único que crece con él es el conjunto de claves ya vistas, una por entidad
+ * distinta, que permite informar los duplicados del archivo aparte de los ya registrados.</p>
+ *
+ * <p>Formatos (la primera línea es el encabezado y debe coincidir):</p>
+ * <ul>
+ *   <li>Clientes: {@value #ENCABEZADO_CLIENTES}</li>
+ *   <li>Vehículos: {@value #ENCABEZADO_VEHICULOS}, con tipo {@code PASAJEROS} (capacidad en
+ *       pasajeros) o {@code CARGA} (capacidad en kilogramos)</li>
+ * </ul>
+ */
+public class ImportadorMasivo implements AutoCloseable {
+
+    public static final String ENCABEZADO_CLIENTES = "rut,nombre,telefono,correo,domicilio";
+    public static final String ENCABEZADO_VEHICULOS = "tipo,patente,marca,modelo,anio,estado,capacidad";
+    /** Filas por bloque de validación y de escritura. */
+    public static final int FILAS_POR_BLOQUE = 5_000;
+
+    // Un identificador formado solo por dígitos, puntos, guion y dígito verificador se valida como RUT
+    private static final Pattern FORMATO_RUT = Pattern.compile("[0-9.]+-?[0-9kK]");
+    private static final Pattern FORMATO_PASAPORTE = Pattern.compile("[A-Za-z0-9]{6,15}");
+
+    private final ClienteService clienteService;
+    private final FlotaVehiculosService flotaService;
+    private final ExecutorService executor;
+    private final int hilos;
+    private final int filasPorBloque;
+
+    public ImportadorMasivo(ClienteService clienteService, FlotaVehiculosService flotaService) {
+        this(clienteService, flotaService, Runtime.getRuntime().availableProcessors(), FILAS_POR_BLOQUE);
+    }
+
+    /**
+     * @param hilos          hilos de validación
+     * @param filasPorBloque filas leídas, validadas y guardadas juntas
+     */
+    public ImportadorMasivo(ClienteService clienteService, FlotaVehiculosService flotaService,
+                            int hilos, int filasPorBloque) {
+        if (hilos < 1) throw new IllegalArgumentException("Se requiere al menos un hilo de validación");
+        if (filasPorBloque < 1) throw new IllegalArgumentException("El tamaño de bloque debe ser positivo");
+        this.clienteService = clienteService;
+        this.flotaService = flotaService;
+        this.hilos = hilos;
+        this.filasPorBloque = filasPorBloque;
+        this.executor = Executors.newFixedThreadPool(hilos, new FabricaHilos());
+    }
+
+    /**
+     * Importa clientes desde un CSV con el encabezado {@value #ENCABEZADO_CLIENTES}.
+     *
+     * @throws IOException si el archivo no se puede leer o el encabezado no coincide
+     */
+    public InformeImportacion importarClientes(String ruta) throws IOException {
+        return importar(ruta, ENCABEZADO_CLIENTES, ImportadorMasivo::interpretarCliente,
+                FabricaRepositorios::claveCliente, clienteService::registrarClientes);
+    }
+
+    /**
+     * Importa vehículos desde un CSV con el encabezado {@value #ENCABEZADO_VEHICULOS}.
+     *
+     * @throws IOException si el archivo no se puede leer o el encabezado no coincide
+     */
+    public InformeImportacion importarVehiculos(String ruta) throws IOException {
+        return importar(ruta, ENCABEZADO_VEHICULOS, ImportadorMasivo::interpretarVehiculo,
+                FabricaRepositorios::claveVehiculo, flotaService::agregarVehiculos);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // ---------- TUBERÍA ----------
+
+    @FunctionalInterface
+    private interface Interprete<T> {
+        T interpretar(String[] campos) throws ValidacionException;
+    }
+
+    private <T> InformeImportacion importar(String ruta, String encabezado, Interprete<T> interprete,
+                                            Function<T, String> clave, Function<List<T>, List<T>> guardar)
+            throws IOException {
+        long inicio = System.nanoTime();
+        InformeImportacion informe = new InformeImportacion(ruta);
+        // Claves aceptadas hasta ahora; crece con las entidades distintas del archivo
+        Set<String> claves = new HashSet<>();
+        Deque<CompletableFuture<Bloque<T>>> enValidacion = new ArrayDeque<>();
+
+        try {
+            ArchivoUtil.leerLineasPorBloques(ruta, filasPorBloque, (lineas, primeraLinea) -> {
+                int desde = 0;
+                if (primeraLinea == 1) {
+                    if (lineas.isEmpty() || !lineas.get(0).trim().equalsIgnoreCase(encabezado)) {
+                        throw new IOException("Encabezado inesperado en " + ruta + ", se esperaba: " + encabezado);
+                    }
+                    desde = 1;
+                }
+                List<String> filas = lineas.subList(desde, lineas.size());
+                long numero = primeraLinea + desde;
+                enValidacion.add(CompletableFuture.supplyAsync(() -> validar(filas, numero, interprete), executor));
+                // Contrapresión: la lectura no se adelanta más de dos bloques por hilo a la escritura
+                while (enValidacion.size() > 2 * hilos) {
+                    confirmar(enValidacion.poll().join(), clave, guardar, claves, informe);
+                }
+            });
+            while (!enValidacion.isEmpty()) {
+                confirmar(enValidacion.poll().join(), clave, guardar, claves, informe);
+            }
+        } finally {
+            enValidacion.forEach(pendiente -> pendiente.cancel(false));
+        }
+        informe.terminar(System.nanoTime() - inicio);
+        return informe;
+    }
+
+    /** Etapa paralela: interpreta y valida las filas de un bloque. */
+    private static <T> Bloque<T> validar(List<String> filas, long primeraLinea, Interprete<T> interprete) {
+        Bloque<T> bloque = new Bloque<>();
+        for (int i = 0; i < filas.size(); i++) {
+            String fila = filas.get(i);
+            if (fila.isBlank()) continue;
+            long linea = primeraLinea + i;
+            try {
+                bloque.agregar(interprete.interpretar(dividir(fila)), linea, fila);
+            } catch (ValidacionException | IllegalArgumentException e) {
+                bloque.rechazos.add(new Rechazo(linea, e.getMessage(), fila));
+            }
+        }
+        return bloque;
+    }
+
+    /** Etapa secuencial: descarta duplicados y guarda el bloque con una sola escritura. */
+    private static <T> void confirmar(Bloque<T> bloque, Function<T, String> clave, Function<List<T>, List<T>> guardar,
+                                      Set<String> claves, InformeImportacion informe) {
+        informe.filas += bloque.validos.size() + bloque.rechazos.size();
+        informe.rechazos.addAll(bloque.rechazos);
+        List<T> nuevos = new ArrayList<>(bloque.validos.size());
+        for (T entidad : bloque.validos) {
+            if (claves.add(clave.apply(entidad))) {
+                nuevos.add(entidad);
+            } else {
+                informe.rechazos.add(bloque.rechazo(entidad, "Duplicado dentro del archivo"));
+            }
+        }
+        if (nuevos.isEmpty()) return;
+        List<T> omitidos = guardar.apply(nuevos);
+        for (T entidad : omitidos) {
+            informe.rechazos.add(bloque.rechazo(entidad, "Ya registrado"));
+        }
+        informe.importadas += nuevos.size() - omitidos.size();
+    }
+
+    // ---------- INTERPRETACIÓN DE FILAS ----------
+
+    private static Cliente interpretarCliente(String[] campos) throws ValidacionException {
+        exigirCampos(campos, 5);
+        String rut = campos[0];
+        if (FORMATO_RUT.matcher(rut).matches()) {
+            if (!Validador.validarRut(rut)) throw new ValidacionException("RUT inválido: " + rut);
+        } else if (!FORMATO_PASAPORTE.matcher(rut).matches()) {
+            throw new ValidacionException("RUT o pasaporte inválido: " + rut);
+        }
+        if (!Validador.textoNoVacio(campos[1])) throw new ValidacionException("Nombre vacío");
+        if (!Validador.validarTelefono(campos[2])) throw new ValidacionException("Teléfono inválido: " + campos[2]);
+        if (!Validador.validarEmail(campos[3])) throw new ValidacionException("Correo inválido: " + campos[3]);
+        if (!Validador.textoNoVacio(campos[4])) throw new ValidacionException("Domicilio vacío");
+        return new Cliente(campos[1], rut, campos[2], campos[3], campos[4]);
+    }
+
+    private static Vehiculo interpretarVehiculo(String[] campos) throws ValidacionException {
+        exigirCampos(campos, 7);
+        String patente = campos[1];
+        int anio;
+        double capacidad;
+        try {
+            anio = Integer.parseInt(campos[4]);
+            capacidad = Double.parseDouble(campos[6]);
+        } catch (NumberFormatException e) {
+            throw new ValidacionException("Año o capacidad no numéricos: " + campos[4] + ", " + campos[6]);
+        }
+        if (capacidad <= 0) throw new ValidacionException("La capacidad debe ser positiva");
+        // El modelo acepta estados desconocidos de datos antiguos; en una importación se rechazan
+        try {
+            EstadoVehiculo.desde(campos[5]);
+        } catch (IllegalArgumentException e) {
+            throw new ValidacionException("Estado de vehículo desconocido: " + campos[5]
+                    + " (se espera Disponible, Arrendado o En Mantención)");
+        }
+        // Los setters de Vehiculo validan el resto de los campos con IllegalArgumentException
+        switch (campos[0].toUpperCase()) {
+            case "PASAJEROS":
+                if (capacidad != Math.rint(capacidad)) {
+                    throw new ValidacionException("La cantidad de pasajeros debe ser entera: " + campos[6]);
+                }
+                return new VehiculoPasajeros("V-" + patente, patente, campos[2], campos[3], anio, campos[5],
+                        null, (int) capacidad);
+            case "CARGA":
+                return new VehiculoCarga("V-" + patente, patente, campos[2], campos[3], anio, campos[5],
+                        null, capacidad);
+            default:
+                throw new ValidacionException("Tipo de vehículo desconocido: " + campos[0]);
+        }
+    }
+
+    private static void exigirCampos(String[] campos, int cantidad) throws ValidacionException {
+        if (campos.length != cantidad) {
+            throw new ValidacionException("Se esperaban " + cantidad + " campos y hay " + campos.length);
+        }
+    }
+
+    /**
+     * Divide una línea CSV separada por comas. Admite campos entre comillas con comas y comillas
+     * duplicadas en su interior, como los que escribe el exportador de reservas. Recorta espacios.
+     */
+    static String[] dividir(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c != '"') {
+                    campo.append(c);
+                } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString().trim());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString().trim());
+        return campos.toArray(new String[0]);
+    }
+
+    // ---------- RESULTADOS ----------
+
+    /**
+     * Filas válidas de un bloque, con su número de línea para informar rechazos posteriores.
+     */
+    private static final class Bloque<T> {
+        final List<T> validos = new ArrayList<>();
+        final List<Rechazo> rechazos = new ArrayList<>();
+        private final Map<T, Rechazo> origen = new IdentityHashMap<>();
+
+        void agregar(T entidad, long linea, String fila) {
+            validos.add(entidad);
+            origen.put(entidad, new Rechazo(linea, null, fila));
+        }
+
+        Rechazo rechazo(T entidad, String motivo) {
+            Rechazo fila = origen.get(entidad);
+            return new Rechazo(fila.getLinea(), motivo, fila.getContenido());
+        }
+    }
+
+    /**
+     * Fila no importada y el motivo.
+     */
+    public static final class Rechazo {
+        private final long linea;
+        private final String motivo;
+        private final String contenido;
+
+        Rechazo(long linea, String motivo, String contenido) {
+            this.linea = linea;
+            this.motivo = motivo;
+            this.contenido = contenido;
+        }
+
+        public long getLinea() { return linea; }
+        public String getMotivo() { return motivo; }
+        public String getContenido() { return contenido; }
+
+        @Override
+        public String toString() {
+            return "línea " + linea + ": " + motivo;
+        }
+    }
+
+    /**
+     * Resultado de una importación: filas procesadas, importadas, rechazadas y rendimiento.
+     */
+    public static final class InformeImportacion {
+        private final String ruta;
+        private long filas;
+        private long importadas;
+        private final List<Rechazo> rechazos = new ArrayList<>();
+        private long nanos;
+
+        private InformeImportacion(String ruta) {
+            this.ruta = ruta;
+        }
+
+        private void terminar(long nanos) {
+            this.nanos = nanos;
+            rechazos.sort((a, b) -> Long.compare(a.getLinea(), b.getLinea()));
+        }
+
+        /** Filas de datos no vacías, sin contar el encabezado. */
+        public long getFilas() { return filas; }
+        public long getImportadas() { return importadas; }
+        /** Filas rechazadas, ordenadas por número de línea. */
+        public List<Rechazo> getRechazos() { return Collections.unmodifiableList(rechazos); }
+        public long getNanos() { return nanos; }
+
+        public double getFilasPorSegundo() {
+            return nanos == 0 ? 0 : filas * 1e9 / nanos;
+        }
+
+        /**
+         * Resumen legible con los primeros rechazos.
+         */
+        public String resumen(int maximoRechazos) {
+            StringBuilder sb = new StringBuilder(String.format(
+                    "📥 %s: %d filas, %d importadas, %d rechazadas en %.1f ms (%.0f filas/s)",
+                    ruta, filas, importadas, rechazos.size(), nanos / 1e6, getFilasPorSegundo()));
+            rechazos.stream().limit(maximoRechazos).forEach(r -> sb.append(System.lineSeparator()).append("  ⚠️ ").append(r));
+            if (rechazos.size() > maximoRechazos) {
+                sb.append(System.lineSeparator()).append("  … y ").append(rechazos.size() - maximoRechazos).append(" más");
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return resumen(0);
+        }
+    }
+
+    /**
+     * Hilos demonio con nombre, para que una importación no impida cerrar la aplicación.
+     */
+    private static final class FabricaHilos implements ThreadFactory {
+        private final AtomicInteger contador = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable tarea) {
+            Thread hilo = new Thread(tarea, "importacion-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.EstadoVehiculo;
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índices ordenados de los atributos de la flota con que se buscan vehículos disponibles: precio
+ * diario, capacidad de carga y número de pasajeros. Cada índice va del valor a las patentes que lo
+ * tienen, así que un rango se recorre con {@code tailMap}/{@code headMap} sin mirar el resto de la flota.
+ * También guarda los atributos de cada patente, para filtrar candidatos sin ir al repositorio.
+ *
+ * <p>Lo mantiene {@link FlotaVehiculosService}, que llama a {@link #actualizar} con el candado de la
+ * patente tomado; las lecturas no toman candados. Los conjuntos que quedan vacíos se quitan, para que
+ * los valores que ya nadie tiene no se sigan recorriendo. Como un mismo valor lo comparten patentes de
+ * distintas franjas, las altas y bajas en los índices de valores se hacen con el candado del índice,
+ * de modo que quitar un conjunto vacío no pierda el alta concurrente de otra patente.</p>
+ */
+final class IndiceAtributos {
+
+    /**
+     * Atributos indexados de un vehículo. Se reemplaza completo en cada actualización.
+     */
+    static final class Atributos {
+        final Class<? extends Vehiculo> tipo;
+        final EstadoVehiculo estado;
+        final double precio;
+        // Solo vehículos de carga; 0 en los demás
+        final double capacidad;
+        // Solo vehículos de pasajeros; 0 en los demás
+        final int pasajeros;
+
+        Atributos(Vehiculo vehiculo) {
+            this.tipo = vehiculo.getClass();
+            this.estado = vehiculo.getEstadoVehiculo();
+            this.precio = vehiculo.getPrecioDiario();
+            this.capacidad = vehiculo instanceof VehiculoCarga ? ((VehiculoCarga) vehiculo).getCapacidadCarga() : 0;
+            this.pasajeros = vehiculo instanceof VehiculoPasajeros ? ((VehiculoPasajeros) vehiculo).getNumeroPasajeros() : 0;
+        }
+    }
+
+    private final Map<String, Atributos> porPatente = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Double, Set<String>> porPrecio = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Double, Set<String>> porCapacidad = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Set<String>> porPasajeros = new ConcurrentSkipListMap<>();
+
+    /**
+     * Reemplaza los atributos indexados de la patente por los del vehículo, o los quita si es null.
+     */
+    void actualizar(String clave, Vehiculo vehiculo) {
+        Atributos nuevos = vehiculo == null ? null : new Atributos(vehiculo);
+        Atributos anteriores = nuevos == null ? porPatente.remove(clave) : porPatente.put(clave, nuevos);
+        // Un cambio de estado no mueve la patente en los índices de valores
+        if (anteriores != null && nuevos != null && anteriores.tipo == nuevos.tipo && anteriores.precio == nuevos.precio
+                && anteriores.capacidad == nuevos.capacidad && anteriores.pasajeros == nuevos.pasajeros) {
+            return;
+        }
+        moverValores(clave, anteriores, nuevos);
+    }
+
+    private synchronized void moverValores(String clave, Atributos anteriores, Atributos nuevos) {
+        if (anteriores != null) {
+            quitar(porPrecio, anteriores.precio, clave);
+            if (VehiculoCarga.class.isAssignableFrom(anteriores.tipo)) quitar(porCapacidad, anteriores.capacidad, clave);
+            if (VehiculoPasajeros.class.isAssignableFrom(anteriores.tipo)) quitar(porPasajeros, anteriores.pasajeros, clave);
+        }
+        if (nuevos != null) {
+            agregar(porPrecio, nuevos.precio, clave);
+            if (VehiculoCarga.class.isAssignableFrom(nuevos.tipo)) agregar(porCapacidad, nuevos.capacidad, clave);
+            if (VehiculoPasajeros.class.isAssignableFrom(nuevos.tipo)) agregar(porPasajeros, nuevos.pasajeros, clave);
+        }
+    }
+
+    /**
+     * @return los atributos indexados de la patente normalizada, o null si no está en la flota
+     */
+    Atributos de(String clave) {
+        return porPatente.get(clave);
+    }
+
+    NavigableMap<Double, Set<String>> porPrecio() {
+        return porPrecio;
+    }
+
+    NavigableMap<Double, Set<String>> porCapacidad() {
+        return porCapacidad;
+    }
+
+    NavigableMap<Integer, Set<String>> porPasajeros() {
+        return porPasajeros;
+    }
+
+    private static <K> void agregar(ConcurrentSkipListMap<K, Set<String>> indice, K valor, String clave) {
+        indice.computeIfAbsent(valor, v -> ConcurrentHashMap.newKeySet()).add(clave);
+    }
+
+    private static <K> void quitar(ConcurrentSkipListMap<K, Set<String>> indice, K valor, String clave) {
+        indice.computeIfPresent(valor, (v, patentes) -> {
+            patentes.remove(clave);
+            return patentes.isEmpty() ? null : patentes;
+        });
+    }
+}
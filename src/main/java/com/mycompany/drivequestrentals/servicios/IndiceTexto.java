@@ -0,0 +1,491 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para buscar entidades por palabras de un texto (por ejemplo el nombre
+ * de un cliente) por prefijo y con tolerancia a errores de tipeo.
+ *
+ * <p>Los textos se normalizan quitando tildes y diéresis y pasando a minúsculas ("Muñoz" y "munoz"
+ * son la misma palabra) y se dividen en palabras. Cada entidad recibe un número interno correlativo
+ * y se mantiene:</p>
+ * <ul>
+ *   <li>un vocabulario ordenado de palabras, para encontrar por rango las que empiezan con un prefijo;</li>
+ *   <li>por palabra, el arreglo de números de las entidades que la contienen;</li>
+ *   <li>los trigramas de cada palabra del vocabulario, para encontrar las parecidas a una mal escrita.</li>
+ * </ul>
+ *
+ * <p>Cada palabra de la consulta debe coincidir con alguna palabra del texto: exacta (3 puntos), como
+ * prefijo (2) o, si no hay ninguna exacta ni por prefijo, a distancia de edición 1 o 2 según su largo (1).
+ * Con una sola palabra se recorren los niveles en orden y se corta al juntar k resultados. Con varias
+ * se arma un mapa de bits por palabra de la consulta y se intersectan, de modo que el costo depende de
+ * la cantidad de entidades coincidentes y no de recorrer sus textos. A igual puntaje gana la entidad
+ * indexada primero.</p>
+ *
+ * <p>Las bajas dejan su número sin uso. Cuando los números sin uso superan a los de entidades vigentes,
+ * las entidades se renumeran en el mismo orden, de modo que el arreglo de claves y los mapas de bits
+ * dependen de las entidades vigentes y no de todas las que alguna vez se indexaron.</p>
+ *
+ * <p>Las búsquedas no toman candados: la renumeración arma una {@link Numeracion} nueva y la publica de
+ * una vez, y una búsqueda en curso termina con la que leyó al empezar. Las altas y bajas de una misma
+ * clave deben serializarse externamente (el servicio lo hace con su candado por cliente).</p>
+ */
+final class IndiceTexto {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+    private static final int EXACTA = 3;
+    private static final int PREFIJO = 2;
+    private static final int PARECIDA = 1;
+    private static final int CAPACIDAD_INICIAL = 1024;
+    // Números sin uso a partir de los cuales se considera renumerar
+    private static final int MINIMO_RENUMERAR = 64;
+
+    private final NavigableSet<String> vocabulario = new ConcurrentSkipListSet<>();
+    private final Map<String, Set<String>> palabrasPorTrigrama = new ConcurrentHashMap<>();
+    private volatile Numeracion numeracion = new Numeracion(CAPACIDAD_INICIAL);
+
+    // Las altas y bajas lo toman compartido y la renumeración exclusivo
+    private final ReadWriteLock candadoRenumeracion = new ReentrantReadWriteLock();
+    private final Object candadoNumeros = new Object();
+
+    /**
+     * Resultado de una búsqueda: clave de la entidad y su puntaje.
+     */
+    static final class Resultado {
+        final String clave;
+        final int puntaje;
+        private final int numero;
+
+        Resultado(String clave, int puntaje, int numero) {
+            this.clave = clave;
+            this.puntaje = puntaje;
+            this.numero = numero;
+        }
+    }
+
+    private static final Comparator<Resultado> PEOR_PRIMERO = Comparator
+            .comparingInt((Resultado r) -> r.puntaje)
+            .thenComparing(r -> r.numero, Comparator.reverseOrder());
+
+    /**
+     * Números internos de las entidades y lo que depende de ellos.
+     */
+    private static final class Numeracion {
+        final Map<String, Posteo> posteos = new ConcurrentHashMap<>();
+        final Map<String, Registro> registros = new ConcurrentHashMap<>();
+        volatile String[] clavePorNumero;
+        volatile int siguienteNumero;
+
+        Numeracion(int capacidad) {
+            this.clavePorNumero = new String[capacidad];
+        }
+
+        boolean debeRenumerar() {
+            int sinUso = siguienteNumero - registros.size();
+            return sinUso > MINIMO_RENUMERAR && sinUso > registros.size();
+        }
+    }
+
+    private static final class Registro {
+        final int numero;
+        final String[] palabras;
+
+        Registro(int numero, String[] palabras) {
+            this.numero = numero;
+            this.palabras = palabras;
+        }
+    }
+
+    /**
+     * Entidades de una palabra. El arreglo se comparte entre versiones: un alta escribe después del
+     * último elemento y publica una versión con un largo mayor, así que quien leyó una versión anterior
+     * sigue viendo exactamente sus elementos. Una baja copia el arreglo.
+     */
+    private static final class Posteo {
+        final int[] numeros;
+        final int largo;
+
+        Posteo(int[] numeros, int largo) {
+            this.numeros = numeros;
+            this.largo = largo;
+        }
+
+        Posteo con(int numero) {
+            int[] destino = largo < numeros.length ? numeros : Arrays.copyOf(numeros, numeros.length * 2);
+            destino[largo] = numero;
+            return new Posteo(destino, largo + 1);
+        }
+
+        Posteo sin(int numero) {
+            int[] destino = new int[Math.max(4, largo)];
+            int n = 0;
+            for (int i = 0; i < largo; i++) {
+                if (numeros[i] != numero) destino[n++] = numeros[i];
+            }
+            return n == 0 ? null : new Posteo(destino, n);
+        }
+    }
+
+    // ---------- ACTUALIZACIÓN ----------
+
+    /**
+     * Indexa el texto de una clave, reemplazando el que tuviera.
+     */
+    void agregar(String clave, String texto) {
+        String[] palabras = new LinkedHashSet<>(List.of(palabras(texto))).toArray(new String[0]);
+        candadoRenumeracion.readLock().lock();
+        try {
+            Numeracion actual = numeracion;
+            Registro anterior = actual.registros.get(clave);
+            int numero = anterior != null ? anterior.numero : asignarNumero(actual, clave);
+            actual.registros.put(clave, new Registro(numero, palabras));
+
+            Set<String> viejas = anterior == null ? Collections.emptySet() : new HashSet<>(List.of(anterior.palabras));
+            Set<String> nuevas = new HashSet<>(List.of(palabras));
+            for (String palabra : viejas) {
+                if (!nuevas.contains(palabra)) quitarPosteo(actual, palabra, numero);
+            }
+            for (String palabra : palabras) {
+                if (!viejas.contains(palabra)) agregarPosteo(actual, palabra, numero);
+            }
+        } finally {
+            candadoRenumeracion.readLock().unlock();
+        }
+    }
+
+    void quitar(String clave) {
+        candadoRenumeracion.readLock().lock();
+        try {
+            Numeracion actual = numeracion;
+            Registro registro = actual.registros.remove(clave);
+            if (registro == null) return;
+            for (String palabra : registro.palabras) {
+                quitarPosteo(actual, palabra, registro.numero);
+            }
+            synchronized (candadoNumeros) {
+                String[] claves = actual.clavePorNumero;
+                claves[registro.numero] = null;
+                actual.clavePorNumero = claves; // escritura volátil que publica el cambio
+            }
+        } finally {
+            candadoRenumeracion.readLock().unlock();
+        }
+        if (numeracion.debeRenumerar()) renumerar();
+    }
+
+    int tamanio() {
+        return numeracion.registros.size();
+    }
+
+    /**
+     * Cantidad de números internos en uso o sin uso, que es el largo de los mapas de bits de una búsqueda.
+     */
+    int numerosAsignados() {
+        return numeracion.siguienteNumero;
+    }
+
+    private int asignarNumero(Numeracion actual, String clave) {
+        synchronized (candadoNumeros) {
+            String[] claves = actual.clavePorNumero;
+            int numero = actual.siguienteNumero;
+            if (numero == claves.length) claves = Arrays.copyOf(claves, claves.length * 2);
+            claves[numero] = clave;
+            actual.clavePorNumero = claves;
+            actual.siguienteNumero = numero + 1;
+            return numero;
+        }
+    }
+
+    /**
+     * Numera de nuevo las entidades vigentes, en el mismo orden, y traduce los posteos a los números nuevos.
+     */
+    private void renumerar() {
+        candadoRenumeracion.writeLock().lock();
+        try {
+            Numeracion anterior = numeracion;
+            if (!anterior.debeRenumerar()) return;
+
+            String[] claves = anterior.clavePorNumero;
+            int[] numeroNuevo = new int[anterior.siguienteNumero];
+            Numeracion nueva = new Numeracion(Math.max(CAPACIDAD_INICIAL, anterior.registros.size() * 2));
+            int siguiente = 0;
+            for (int numero = 0; numero < anterior.siguienteNumero; numero++) {
+                String clave = claves[numero];
+                if (clave == null) continue;
+                numeroNuevo[numero] = siguiente;
+                nueva.clavePorNumero[siguiente] = clave;
+                nueva.registros.put(clave, new Registro(siguiente, anterior.registros.get(clave).palabras));
+                siguiente++;
+            }
+            nueva.siguienteNumero = siguiente;
+            anterior.posteos.forEach((palabra, posteo) -> {
+                int[] numeros = new int[Math.max(4, posteo.largo)];
+                for (int i = 0; i < posteo.largo; i++) {
+                    numeros[i] = numeroNuevo[posteo.numeros[i]];
+                }
+                nueva.posteos.put(palabra, new Posteo(numeros, posteo.largo));
+            });
+            numeracion = nueva;
+        } finally {
+            candadoRenumeracion.writeLock().unlock();
+        }
+    }
+
+    private void agregarPosteo(Numeracion actual, String palabra, int numero) {
+        actual.posteos.compute(palabra, (p, posteo) -> {
+            if (posteo != null) return posteo.con(numero);
+            vocabulario.add(p);
+            for (String trigrama : trigramas(p)) {
+                palabrasPorTrigrama.computeIfAbsent(trigrama, t -> ConcurrentHashMap.newKeySet()).add(p);
+            }
+            return new Posteo(new int[4], 0).con(numero);
+        });
+    }
+
+    private void quitarPosteo(Numeracion actual, String palabra, int numero) {
+        actual.posteos.computeIfPresent(palabra, (p, posteo) -> {
+            Posteo restante = posteo.sin(numero);
+            if (restante != null) return restante;
+            // Sin entidades, la palabra sale del vocabulario y de sus trigramas
+            vocabulario.remove(p);
+            for (String trigrama : trigramas(p)) {
+                palabrasPorTrigrama.computeIfPresent(trigrama, (t, palabras) -> {
+                    palabras.remove(p);
+                    return palabras.isEmpty() ? null : palabras;
+                });
+            }
+            return null;
+        });
+    }
+
+    // ---------- BÚSQUEDA ----------
+
+    /**
+     * Busca las k entidades cuyo texto mejor coincide con la consulta, de mayor a menor puntaje.
+     */
+    List<Resultado> buscar(String consulta, int k) {
+        String[] terminos = new LinkedHashSet<>(List.of(palabras(consulta))).toArray(new String[0]);
+        if (terminos.length == 0 || k <= 0) return Collections.emptyList();
+
+        // Palabras parecidas solo para los términos sin coincidencia exacta ni por prefijo
+        List<Set<String>> parecidas = new ArrayList<>(terminos.length);
+        for (String termino : terminos) {
+            Set<String> encontradas = tienePrefijo(termino) ? Collections.emptySet() : parecidas(termino);
+            if (encontradas == null) return Collections.emptyList();
+            parecidas.add(encontradas);
+        }
+        Numeracion actual = numeracion;
+        return terminos.length == 1
+                ? buscarTermino(actual, terminos[0], parecidas.get(0), k)
+                : buscarVarios(actual, terminos, parecidas, k);
+    }
+
+    /**
+     * Una palabra: los niveles ya vienen de mejor a peor, basta con los k primeros.
+     */
+    private List<Resultado> buscarTermino(Numeracion actual, String termino, Set<String> parecidas, int k) {
+        String[] claves = actual.clavePorNumero;
+        List<Resultado> resultado = new ArrayList<>(k);
+        Set<Integer> vistos = new HashSet<>();
+        int nivel = parecidas.isEmpty() ? EXACTA : PARECIDA;
+        for (Iterable<String> palabras : List.of(List.of(termino), prefijos(termino), parecidas)) {
+            for (String palabra : palabras) {
+                Posteo posteo = actual.posteos.get(palabra);
+                if (posteo == null) continue;
+                for (int i = 0; i < posteo.largo; i++) {
+                    int numero = posteo.numeros[i];
+                    String clave = numero < claves.length ? claves[numero] : null;
+                    if (clave == null || !vistos.add(numero)) continue;
+                    resultado.add(new Resultado(clave, nivel, numero));
+                    if (resultado.size() == k) return resultado;
+                }
+            }
+            nivel = nivel == EXACTA ? PREFIJO : PARECIDA;
+        }
+        return resultado;
+    }
+
+    /**
+     * Varias palabras: un mapa de bits con las entidades de cada término (y otro con las de
+     * coincidencia exacta), intersectados antes de puntuar.
+     */
+    private List<Resultado> buscarVarios(Numeracion actual, String[] terminos, List<Set<String>> parecidas, int k) {
+        String[] claves = actual.clavePorNumero;
+        int limite = Math.min(actual.siguienteNumero, claves.length);
+        int palabrasMapa = (limite + 63) >>> 6;
+        long[] comunes = null;
+        long[][] exactas = new long[terminos.length][];
+        for (int t = 0; t < terminos.length; t++) {
+            long[] cualquiera = new long[palabrasMapa];
+            if (parecidas.get(t).isEmpty()) {
+                exactas[t] = new long[palabrasMapa];
+                marcar(actual, List.of(terminos[t]), exactas[t], limite);
+                marcar(actual, List.of(terminos[t]), cualquiera, limite);
+                marcar(actual, prefijos(terminos[t]), cualquiera, limite);
+            } else {
+                marcar(actual, parecidas.get(t), cualquiera, limite);
+            }
+            if (comunes == null) {
+                comunes = cualquiera;
+            } else {
+                boolean alguna = false;
+                for (int i = 0; i < palabrasMapa; i++) {
+                    comunes[i] &= cualquiera[i];
+                    alguna |= comunes[i] != 0;
+                }
+                if (!alguna) return Collections.emptyList();
+            }
+        }
+
+        PriorityQueue<Resultado> mejores = new PriorityQueue<>(k + 1, PEOR_PRIMERO);
+        for (int i = 0; i < palabrasMapa; i++) {
+            for (long bits = comunes[i]; bits != 0; bits &= bits - 1) {
+                int numero = (i << 6) + Long.numberOfTrailingZeros(bits);
+                String clave = claves[numero];
+                if (clave == null) continue;
+                int puntaje = 0;
+                for (long[] exacta : exactas) {
+                    if (exacta == null) puntaje += PARECIDA;
+                    else puntaje += (exacta[i] & (1L << numero)) != 0 ? EXACTA : PREFIJO;
+                }
+                // A igual puntaje los números llegan en orden, así que solo entra uno mejor
+                if (mejores.size() == k && puntaje <= mejores.peek().puntaje) continue;
+                mejores.add(new Resultado(clave, puntaje, numero));
+                if (mejores.size() > k) mejores.poll();
+            }
+        }
+        List<Resultado> resultado = new ArrayList<>(mejores);
+        resultado.sort(PEOR_PRIMERO.reversed());
+        return resultado;
+    }
+
+    private void marcar(Numeracion actual, Iterable<String> palabras, long[] mapa, int limite) {
+        for (String palabra : palabras) {
+            Posteo posteo = actual.posteos.get(palabra);
+            if (posteo == null) continue;
+            int[] numeros = posteo.numeros;
+            for (int i = 0; i < posteo.largo; i++) {
+                int numero = numeros[i];
+                // Las entidades agregadas después de empezar la búsqueda se ignoran
+                if (numero < limite) mapa[numero >>> 6] |= 1L << numero;
+            }
+        }
+    }
+
+    private Iterable<String> prefijos(String termino) {
+        return vocabulario.subSet(termino, false, termino + Character.MAX_VALUE, false);
+    }
+
+    private boolean tienePrefijo(String termino) {
+        String siguiente = vocabulario.ceiling(termino);
+        return siguiente != null && siguiente.startsWith(termino);
+    }
+
+    /**
+     * Palabras del vocabulario a distancia de edición acotada del término, o null si no hay ninguna.
+     * Se comparan solo las que comparten suficientes trigramas.
+     */
+    private Set<String> parecidas(String termino) {
+        int distancia = termino.length() <= 3 ? 0 : termino.length() <= 6 ? 1 : 2;
+        if (distancia == 0) return null;
+        List<String> trigramas = trigramas(termino);
+        // Cada edición altera a lo sumo tres trigramas
+        int minimo = Math.max(1, trigramas.size() - 3 * distancia);
+        Map<String, Integer> compartidos = new HashMap<>();
+        for (String trigrama : trigramas) {
+            Set<String> palabras = palabrasPorTrigrama.get(trigrama);
+            if (palabras == null) continue;
+            for (String palabra : palabras) {
+                compartidos.merge(palabra, 1, Integer::sum);
+            }
+        }
+        Set<String> resultado = new HashSet<>();
+        compartidos.forEach((palabra, cantidad) -> {
+            if (cantidad >= minimo && Math.abs(palabra.length() - termino.length()) <= distancia
+                    && distanciaEdicion(termino, palabra, distancia) <= distancia) {
+                resultado.add(palabra);
+            }
+        });
+        return resultado.isEmpty() ? null : resultado;
+    }
+
+    // ---------- NORMALIZACIÓN ----------
+
+    /**
+     * Minúsculas sin tildes ni diéresis; la eñe queda como n.
+     */
+    static String normalizar(String texto) {
+        if (texto == null) return "";
+        String minusculas = texto.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < minusculas.length(); i++) {
+            if (minusculas.charAt(i) > 0x7F) {
+                return MARCAS.matcher(Normalizer.normalize(minusculas, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return minusculas;
+    }
+
+    static String[] palabras(String texto) {
+        String normalizado = normalizar(texto).trim();
+        if (normalizado.isEmpty()) return new String[0];
+        return Arrays.stream(SEPARADORES.split(normalizado)).filter(p -> !p.isEmpty()).toArray(String[]::new);
+    }
+
+    /**
+     * Trigramas para buscar palabras parecidas. Las que tienen dígitos (números de calle,
+     * departamentos) no se buscan con errores de tipeo y no tienen.
+     */
+    private static List<String> trigramas(String palabra) {
+        for (int i = 0; i < palabra.length(); i++) {
+            if (Character.isDigit(palabra.charAt(i))) return Collections.emptyList();
+        }
+        String marcada = "$" + palabra + "$";
+        List<String> trigramas = new ArrayList<>(marcada.length());
+        for (int i = 0; i + 3 <= marcada.length(); i++) {
+            trigramas.add(marcada.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    /**
+     * Distancia de Levenshtein, cortando en cuanto supera el máximo (retorna máximo + 1).
+     */
+    static int distanciaEdicion(String a, String b, int maximo) {
+        int[] previa = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previa[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                actual[j] = Math.min(Math.min(actual[j - 1] + 1, previa[j] + 1), previa[j - 1] + costo);
+                minimoFila = Math.min(minimoFila, actual[j]);
+            }
+            if (minimoFila > maximo) return maximo + 1;
+            int[] intercambio = previa;
+            previa = actual;
+            actual = intercambio;
+        }
+        return previa[b.length()];
+    }
+}
@@ -2,19 +2,38 @@ package com.mycompany.drivequestrentals.servicios;
 
 import com.mycompany.drivequestrentals.modelo.Mantenimiento;
 import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio para registrar y gestionar mantenimientos de vehículos.
  */
 public class MantenimientoService {
 
-    private final List<Mantenimiento> mantenimientos = new ArrayList<>();
+    private final Repositorio<Mantenimiento, String> mantenimientos;
+
+    /**
+     * Constructor que mantiene los mantenimientos solo en memoria.
+     */
+    public MantenimientoService() {
+        this(new RepositorioMemoria<>(Mantenimiento::getId));
+    }
+
+    /**
+     * Constructor que usa el repositorio indicado, indexado por id de mantenimiento.
+     *
+     * @param mantenimientos almacenamiento de los mantenimientos
+     */
+    public MantenimientoService(Repositorio<Mantenimiento, String> mantenimientos) {
+        this.mantenimientos = Objects.requireNonNull(mantenimientos, "El repositorio no puede ser null");
+    }
 
     /**
      * Registra un mantenimiento a partir de sus datos individuales.
@@ -33,7 +52,7 @@ public class MantenimientoService {
         validarParametros(vehiculo, descripcion, fecha, costo, kilometraje);
 
         Mantenimiento nuevo = new Mantenimiento(generarIdUnico(), vehiculo, descripcion, fecha, costo, kilometraje);
-        mantenimientos.add(nuevo);
+        mantenimientos.guardar(nuevo);
         return nuevo;
     }
 
@@ -48,7 +67,7 @@ public class MantenimientoService {
         if (mantenimiento == null) {
             throw new IllegalArgumentException("El mantenimiento no puede ser nulo.");
         }
-        mantenimientos.add(mantenimiento);
+        mantenimientos.guardar(mantenimiento);
         return mantenimiento;
     }
 
@@ -85,7 +104,7 @@ public class MantenimientoService {
      * Retorna la lista completa de mantenimientos registrados.
      */
     public List<Mantenimiento> obtenerMantenimientos() {
-        return new ArrayList<>(mantenimientos); // protección de la lista interna
+        return mantenimientos.buscarTodos(); // copia que protege el almacenamiento interno
     }
 
     /**
@@ -95,9 +114,9 @@ public class MantenimientoService {
      * @return Lista de mantenimientos encontrados
      */
     public List<Mantenimiento> buscarPorVehiculo(Vehiculo vehiculo) {
-        return mantenimientos.stream()
-                .filter(m -> m.getVehiculo().equals(vehiculo))
-                .collect(Collectors.toList());
+        try (Stream<Mantenimiento> lista = mantenimientos.stream()) {
+            return lista.filter(m -> m.getVehiculo().equals(vehiculo)).collect(Collectors.toList());
+        }
     }
 
     /**
@@ -106,8 +125,8 @@ public class MantenimientoService {
      * @return Suma total de costos
      */
     public double calcularCostoTotal() {
-        return mantenimientos.stream()
-                .mapToDouble(Mantenimiento::getCosto)
-                .sum();
+        try (Stream<Mantenimiento> lista = mantenimientos.stream()) {
+            return lista.mapToDouble(Mantenimiento::getCosto).sum();
+        }
     }
 }
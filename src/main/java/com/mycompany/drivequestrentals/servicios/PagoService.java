@@ -2,13 +2,16 @@ package com.mycompany.drivequestrentals.servicios;
 
 import com.mycompany.drivequestrentals.modelo.Arriendo;
 import com.mycompany.drivequestrentals.modelo.Pago;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio encargado de registrar y gestionar los pagos de arriendos.
@@ -16,7 +19,23 @@ import java.util.stream.Collectors;
 public class PagoService {
 
     private static final double IVA = 0.19;
-    private final List<Pago> pagosRegistrados = new ArrayList<>();
+    private final Repositorio<Pago, String> pagosRegistrados;
+
+    /**
+     * Constructor que mantiene los pagos solo en memoria.
+     */
+    public PagoService() {
+        this(new RepositorioMemoria<>(Pago::getId));
+    }
+
+    /**
+     * Constructor que usa el repositorio indicado, indexado por id de pago.
+     *
+     * @param pagosRegistrados almacenamiento de los pagos
+     */
+    public PagoService(Repositorio<Pago, String> pagosRegistrados) {
+        this.pagosRegistrados = Objects.requireNonNull(pagosRegistrados, "El repositorio no puede ser null");
+    }
 
     /**
      * Registra un nuevo pago asociado a un arriendo.
@@ -37,7 +56,7 @@ public class PagoService {
         LocalDate fecha = LocalDate.now();
 
         Pago nuevoPago = new Pago(id, arriendo, montoNeto, montoIVA, total, fecha, metodoPago.trim());
-        pagosRegistrados.add(nuevoPago);
+        pagosRegistrados.guardar(nuevoPago);
         return nuevoPago;
     }
 
@@ -76,7 +95,7 @@ public class PagoService {
      * @return Lista inmutable de pagos.
      */
     public List<Pago> obtenerPagos() {
-        return Collections.unmodifiableList(new ArrayList<>(pagosRegistrados));
+        return Collections.unmodifiableList(pagosRegistrados.buscarTodos());
     }
 
     /**
@@ -85,9 +104,9 @@ public class PagoService {
      * @return Total acumulado de todos los pagos.
      */
     public double calcularTotalPagado() {
-        return pagosRegistrados.stream()
-                .mapToDouble(Pago::getTotalPago)
-                .sum();
+        try (Stream<Pago> pagos = pagosRegistrados.stream()) {
+            return pagos.mapToDouble(Pago::getTotalPago).sum();
+        }
     }
 
     /**
@@ -98,8 +117,9 @@ public class PagoService {
      */
     public List<Pago> buscarPorMetodo(String metodo) {
         if (metodo == null || metodo.isBlank()) return Collections.emptyList();
-        return pagosRegistrados.stream()
-                .filter(p -> p.getMetodoPago().equalsIgnoreCase(metodo.trim()))
-                .collect(Collectors.toList());
+        try (Stream<Pago> pagos = pagosRegistrados.stream()) {
+            return pagos.filter(p -> p.getMetodoPago().equalsIgnoreCase(metodo.trim()))
+                    .collect(Collectors.toList());
+        }
     }
 }
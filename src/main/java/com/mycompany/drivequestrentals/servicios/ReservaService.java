@@ -3,22 +3,88 @@ package com.mycompany.drivequestrentals.servicios;
 import com.mycompany.drivequestrentals.modelo.Reserva;
 import com.mycompany.drivequestrentals.excepciones.ReservaDuplicadaException;
 import com.mycompany.drivequestrentals.excepciones.ReservaSolapadaException;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+import com.mycompany.drivequestrentals.persistencia.FiltroBloom;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * Servicio que gestiona las reservas de vehículos.
  * Permite crear, eliminar, buscar y listar reservas activas, validando conflictos.
+ *
+ * <p>Cada vehículo tiene su propia {@link AgendaVehiculo}, de modo que verificar un solapamiento cuesta
+ * O(log k) con k las reservas de ese vehículo, y no recorre todas las del sistema. Las escrituras toman
+ * solo el monitor de la agenda del vehículo afectado: las reservas de vehículos distintos se registran
+ * en paralelo, y la unicidad del código la garantiza {@link Repositorio#guardarSiAusente}.</p>
  */
 public class ReservaService {
 
-    private final List<Reserva> reservas;
+    private final Repositorio<Reserva, String> reservas;
+    // Agenda por patente normalizada; se crean a demanda y no se eliminan
+    private final Map<String, AgendaVehiculo> agendas = new ConcurrentHashMap<>();
+    // Descarta sin consultar el repositorio los códigos que seguro no están registrados
+    private final FiltroBloom filtro;
+    // Ocupación por día de toda la flota, compartida con los arriendos; null si no se usa
+    private final CalendarioOcupacion calendario;
 
+    /**
+     * Constructor que mantiene las reservas solo en memoria.
+     */
     public ReservaService() {
-        // Lista sincronizada para evitar errores en entornos concurrentes
-        this.reservas = Collections.synchronizedList(new ArrayList<>());
+        this(new RepositorioMemoria<>(Reserva::getCodigoReserva));
+    }
+
+    /**
+     * Constructor que usa el repositorio indicado, indexado por código de reserva.
+     *
+     * @param reservas almacenamiento de las reservas
+     */
+    public ReservaService(Repositorio<Reserva, String> reservas) {
+        this(reservas, null);
+    }
+
+    /**
+     * Constructor que usa el repositorio indicado y un filtro que ya contiene los códigos de todas
+     * sus reservas, como el que entrega {@link FabricaRepositorios#filtroReservas()}. Todas las altas
+     * del repositorio deben pasar por este servicio para que el filtro siga al día.
+     *
+     * @param reservas almacenamiento de las reservas
+     * @param filtro   filtro de códigos, o null para construirlo desde el repositorio
+     */
+    public ReservaService(Repositorio<Reserva, String> reservas, FiltroBloom filtro) {
+        this(reservas, filtro, null);
+    }
+
+    /**
+     * Constructor que además mantiene al día el calendario de ocupación indicado con los días que
+     * ocupa cada reserva, desde las que ya están en el repositorio. Confirmar una reserva no cambia
+     * sus días, porque una pendiente también bloquea el vehículo.
+     *
+     * @param reservas   almacenamiento de las reservas
+     * @param filtro     filtro de códigos, o null para construirlo desde el repositorio
+     * @param calendario calendario de ocupación compartido, o null para no mantener ninguno
+     */
+    public ReservaService(Repositorio<Reserva, String> reservas, FiltroBloom filtro, CalendarioOcupacion calendario) {
+        this.reservas = Objects.requireNonNull(reservas, "El repositorio no puede ser null");
+        this.calendario = calendario;
+        boolean llenarFiltro = filtro == null;
+        this.filtro = llenarFiltro ? new FiltroBloom() : filtro;
+        try (Stream<Reserva> existentes = reservas.stream()) {
+            existentes.forEach(reserva -> {
+                if (reserva.getFechaInicio() != null && reserva.getFechaFin() != null) {
+                    agendaDe(reserva.getPatenteVehiculo()).agregar(reserva);
+                    ocupar(reserva);
+                }
+                if (llenarFiltro) this.filtro.agregar(reserva.getCodigoReserva());
+            });
+        }
     }
 
     /**
@@ -27,21 +93,28 @@ public class ReservaService {
      * @param nuevaReserva reserva a registrar.
      * @throws ReservaDuplicadaException si el código ya existe.
      * @throws ReservaSolapadaException si hay otra reserva activa que se solapa.
+     * @throws IllegalArgumentException si faltan la patente o las fechas, o el término es anterior al inicio.
      */
     public void registrarReserva(Reserva nuevaReserva)
             throws ReservaDuplicadaException, ReservaSolapadaException {
-
-        synchronized (reservas) {
-            for (Reserva reserva : reservas) {
-                if (reserva.getCodigoReserva().equals(nuevaReserva.getCodigoReserva())) {
-                    throw new ReservaDuplicadaException("Ya existe una reserva con ese código: " + nuevaReserva.getCodigoReserva());
-                }
-                if (reserva.seSolapaCon(nuevaReserva)) {
-                    throw new ReservaSolapadaException("La reserva se solapa con otra existente para el mismo vehículo.");
-                }
+        validar(nuevaReserva);
+        String codigo = nuevaReserva.getCodigoReserva();
+        if (filtro.puedeContener(codigo) && reservas.existe(codigo)) {
+            throw new ReservaDuplicadaException("Ya existe una reserva con ese código: " + codigo);
+        }
+        AgendaVehiculo agenda = agendaDe(nuevaReserva.getPatenteVehiculo());
+        synchronized (agenda) {
+            if (agenda.buscarSolapada(nuevaReserva.getFechaInicio(), nuevaReserva.getFechaFin()) != null) {
+                throw new ReservaSolapadaException("La reserva se solapa con otra existente para el mismo vehículo.");
+            }
+            // El código puede haberse registrado en paralelo para otro vehículo
+            if (!reservas.guardarSiAusente(codigo, nuevaReserva)) {
+                throw new ReservaDuplicadaException("Ya existe una reserva con ese código: " + codigo);
             }
-            reservas.add(nuevaReserva);
+            agenda.agregar(nuevaReserva);
+            ocupar(nuevaReserva);
         }
+        filtro.agregar(codigo);
     }
 
     /**
@@ -51,9 +124,30 @@ public class ReservaService {
      * @return true si fue eliminada, false si no se encontró.
      */
     public boolean eliminarReserva(String codigoReserva) {
-        synchronized (reservas) {
-            return reservas.removeIf(r -> r.getCodigoReserva().equals(codigoReserva));
+        Reserva reserva = buscarReservaPorCodigo(codigoReserva);
+        if (reserva == null) return false;
+        AgendaVehiculo agenda = agendaDe(reserva.getPatenteVehiculo());
+        synchronized (agenda) {
+            if (!reservas.eliminar(codigoReserva)) return false;
+            agenda.quitar(reserva);
+            if (calendario != null) calendario.quitar(CalendarioOcupacion.Origen.RESERVA, codigoReserva);
         }
+        return true;
+    }
+
+    /**
+     * Indica si el vehículo no tiene reservas que se solapen con el intervalo. Consulta solo la agenda
+     * del vehículo, en O(log k), y sin candados.
+     *
+     * @param patente patente del vehículo
+     * @param inicio  inicio del intervalo
+     * @param fin     término del intervalo
+     * @return true si ninguna reserva del vehículo se solapa con el intervalo
+     */
+    public boolean estaLibre(String patente, LocalDateTime inicio, LocalDateTime fin) {
+        if (patente == null) return true;
+        AgendaVehiculo agenda = agendas.get(FabricaRepositorios.normalizarPatente(patente));
+        return agenda == null || agenda.buscarSolapada(inicio, fin) == null;
     }
 
     /**
@@ -63,12 +157,7 @@ public class ReservaService {
      * @return Reserva encontrada o null si no existe.
      */
     public Reserva buscarReservaPorCodigo(String codigoReserva) {
-        synchronized (reservas) {
-            return reservas.stream()
-                    .filter(r -> r.getCodigoReserva().equals(codigoReserva))
-                    .findFirst()
-                    .orElse(null);
-        }
+        return reservas.buscarPorId(codigoReserva).orElse(null);
     }
 
     /**
@@ -77,9 +166,7 @@ public class ReservaService {
      * @return lista de reservas activas.
      */
     public List<Reserva> listarReservas() {
-        synchronized (reservas) {
-            return new ArrayList<>(reservas);
-        }
+        return reservas.buscarTodos();
     }
 
     /**
@@ -89,13 +176,40 @@ public class ReservaService {
      * @return true si fue confirmada, false si no se encontró.
      */
     public boolean confirmarReserva(String codigoReserva) {
-        synchronized (reservas) {
+        Reserva leida = buscarReservaPorCodigo(codigoReserva);
+        if (leida == null) return false;
+        synchronized (agendaDe(leida.getPatenteVehiculo())) {
+            // Con la agenda tomada no puede eliminarse en paralelo y volver a guardarse al confirmar
             Reserva reserva = buscarReservaPorCodigo(codigoReserva);
-            if (reserva != null) {
-                reserva.setConfirmada(true);
-                return true;
-            }
-            return false;
+            if (reserva == null) return false;
+            reserva.setConfirmada(true);
+            reservas.guardar(reserva);
+            return true;
+        }
+    }
+
+    private void ocupar(Reserva reserva) {
+        if (calendario == null) return;
+        calendario.registrar(CalendarioOcupacion.Origen.RESERVA, reserva.getCodigoReserva(),
+                reserva.getPatenteVehiculo(), reserva.getFechaInicio(), reserva.getFechaFin());
+    }
+
+    private AgendaVehiculo agendaDe(String patente) {
+        // Las reservas antiguas sin patente comparten una agenda propia
+        String clave = patente == null ? "" : FabricaRepositorios.normalizarPatente(patente);
+        return agendas.computeIfAbsent(clave, p -> new AgendaVehiculo());
+    }
+
+    private static void validar(Reserva reserva) {
+        Objects.requireNonNull(reserva, "La reserva no puede ser null");
+        if (reserva.getPatenteVehiculo() == null || reserva.getPatenteVehiculo().isBlank()) {
+            throw new IllegalArgumentException("La reserva debe indicar la patente del vehículo.");
+        }
+        if (reserva.getFechaInicio() == null || reserva.getFechaFin() == null) {
+            throw new IllegalArgumentException("La reserva debe indicar sus fechas de inicio y término.");
+        }
+        if (reserva.getFechaFin().isBefore(reserva.getFechaInicio())) {
+            throw new IllegalArgumentException("La fecha de término no puede ser anterior a la de inicio.");
         }
     }
 }
@@ -10,6 +10,10 @@ import java.util.regex.Pattern;
  */
 public class Validador {
 
+    private static final Pattern PATRON_RUT = Pattern.compile("\\d{7,8}[0-9K]");
+    private static final Pattern PATRON_EMAIL = Pattern.compile("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$");
+    private static final Pattern PATRON_TELEFONO = Pattern.compile("^\\+?\\d{8,15}$");
+
     /**
      * Valida si un RUT chileno tiene un formato correcto y dígito verificador válido.
      *
@@ -21,7 +25,7 @@ public class Validador {
 
         rut = rut.replace(".", "").replace("-", "").toUpperCase();
 
-        if (!rut.matches("\\d{7,8}[0-9K]")) return false;
+        if (!PATRON_RUT.matcher(rut).matches()) return false;
 
         String cuerpo = rut.substring(0, rut.length() - 1);
         char dv = rut.charAt(rut.length() - 1);
@@ -92,9 +96,17 @@ public class Validador {
      * @return true si el formato es válido, false en caso contrario.
      */
     public static boolean validarEmail(String email) {
-        if (email == null) return false;
-        String regex = "^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$";
-        return Pattern.matches(regex, email);
+        return email != null && PATRON_EMAIL.matcher(email).matches();
+    }
+
+    /**
+     * Valida un teléfono: entre 8 y 15 dígitos, opcionalmente precedidos de '+'.
+     *
+     * @param telefono Cadena que representa un teléfono.
+     * @return true si el formato es válido, false en caso contrario.
+     */
+    public static boolean validarTelefono(String telefono) {
+        return telefono != null && PATRON_TELEFONO.matcher(telefono).matches();
     }
 
     /**
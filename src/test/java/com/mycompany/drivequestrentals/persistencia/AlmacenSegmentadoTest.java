@@ -0,0 +1,106 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.codec.ArriendoCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlmacenSegmentadoTest {
+
+    @TempDir
+    Path directorio;
+
+    private final Cliente cliente = new Cliente("Ana Pérez", "12.345.678-5", "+56911111111", "ana@correo.cl", "Santiago");
+    private final VehiculoPasajeros auto =
+            new VehiculoPasajeros("V1", "AB-CD-12", "Toyota", "Yaris", 2020, "Disponible", null, 5);
+
+    private Arriendo arriendo(String id, LocalDate inicio) {
+        return new Arriendo(id, cliente, auto, inicio, inicio.plusDays(2), 1000, 50000, "Básico");
+    }
+
+    private RepositorioSegmentado<Arriendo> abrir() throws Exception {
+        MapaIdentidad mapa = new MapaIdentidad();
+        mapa.registrarClientes(List.of(cliente));
+        mapa.registrarVehiculos(List.of(auto));
+        return RepositorioSegmentado.abrir(directorio, "arriendos", new ArriendoCodec(mapa), Arriendo::getId,
+                Arriendo::getFechaInicio, Arriendo::getFechaFin, ArriendoCodec::filtroPorFechas);
+    }
+
+    private RepositorioSegmentado<Arriendo> repositorioConTresMeses() throws Exception {
+        RepositorioSegmentado<Arriendo> repositorio = abrir();
+        repositorio.guardarTodos(List.of(
+                arriendo("E1", LocalDate.of(2024, 1, 5)),
+                arriendo("F1", LocalDate.of(2024, 2, 5)),
+                arriendo("M1", LocalDate.of(2024, 3, 5))));
+        repositorio.compactar();
+        return repositorio;
+    }
+
+    private Object identidad(Path archivo) throws Exception {
+        return Files.readAttributes(archivo, BasicFileAttributes.class).fileKey();
+    }
+
+    @Test
+    void compactarReescribeSoloElMesAfectadoYLasConsultasAbrenSoloLosMesesDelRango() throws Exception {
+        RepositorioSegmentado<Arriendo> repositorio = repositorioConTresMeses();
+        List<AlmacenSegmentado.Segmento> segmentos = repositorio.getSegmentos();
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2), YearMonth.of(2024, 3)),
+                segmentos.stream().map(AlmacenSegmentado.Segmento::getMes).collect(Collectors.toList()));
+        Object enero = identidad(segmentos.get(0).getArchivo());
+
+        repositorio.guardar(arriendo("M2", LocalDate.of(2024, 3, 20)));
+        repositorio.compactar();
+        assertEquals(enero, identidad(segmentos.get(0).getArchivo()), "enero no debe reescribirse");
+        assertEquals(2, repositorio.getSegmentos().get(2).getRegistros());
+
+        Files.delete(segmentos.get(0).getArchivo()); // una consulta de marzo no debe abrir enero
+        try (Stream<Arriendo> marzo = repositorio.stream(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31))) {
+            assertEquals(List.of("M1", "M2"), marzo.map(Arriendo::getId).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void losMesesCerradosNoAdmitenCambiosYPuedenArchivarse() throws Exception {
+        RepositorioSegmentado<Arriendo> repositorio = repositorioConTresMeses();
+        repositorio.cerrarMesesAnterioresA(YearMonth.of(2024, 3));
+
+        assertThrows(IllegalStateException.class, () -> repositorio.guardar(arriendo("E2", LocalDate.of(2024, 1, 20))));
+        assertThrows(IllegalStateException.class, () -> repositorio.eliminar("F1"));
+
+        Path frio = directorio.resolve("archivo-frio");
+        repositorio.archivar(YearMonth.of(2024, 1), frio);
+        repositorio.close();
+
+        assertTrue(Files.exists(frio.resolve("arriendos-2024-01.dat")));
+        try (RepositorioSegmentado<Arriendo> reabierto = abrir()) {
+            assertEquals(List.of("E1", "F1", "M1"),
+                    reabierto.buscarTodos().stream().map(Arriendo::getId).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void migraElArchivoUnicoAnterior() throws Exception {
+        MapaIdentidad mapa = new MapaIdentidad();
+        ArchivoUtil.guardarRegistros(directorio.resolve("arriendos.dat").toString(),
+                List.of(arriendo("E1", LocalDate.of(2024, 1, 5)), arriendo("F1", LocalDate.of(2024, 2, 5))),
+                new ArriendoCodec(mapa));
+
+        try (RepositorioSegmentado<Arriendo> repositorio = abrir()) {
+            assertEquals(2, repositorio.contar());
+            assertEquals(2, repositorio.getSegmentos().size());
+        }
+        assertFalse(Files.exists(directorio.resolve("arriendos.dat")));
+        assertTrue(Files.exists(directorio.resolve("arriendos.dat.migrado")));
+    }
+}
@@ -0,0 +1,140 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.codec.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchivoUtilTest {
+
+    @TempDir
+    Path directorio;
+
+    private final Cliente cliente = new Cliente("C1", "Ana Pérez", "12.345.678-5", "+56911111111",
+            "ana@correo.cl", "Av. Siempre Viva 123, Ñuñoa", null);
+
+    private VehiculoCarga camion() {
+        VehiculoCarga camion = new VehiculoCarga("V1", "ab-cd-12", "Volvo", "FH", 2020, "Disponible", null, 1500.5);
+        camion.setPrecioDiario(90000);
+        return camion;
+    }
+
+    @Test
+    void guardaYCargaArriendosResolviendoReferencias() throws Exception {
+        String ruta = directorio.resolve("arriendos.dat").toString();
+        VehiculoCarga camion = camion();
+        Arriendo primero = new Arriendo("A1", cliente, camion, LocalDate.of(2024, 3, 1),
+                LocalDate.of(2024, 3, 5), 12000, 428400, "Premium");
+        Arriendo segundo = new Arriendo("A2", cliente, camion, LocalDate.of(2024, 4, 1),
+                LocalDate.of(2024, 4, 2), 13000, 107100, "Básico");
+
+        ArchivoUtil.guardarRegistros(ruta, List.of(primero, segundo), new ArriendoCodec(new MapaIdentidad()));
+
+        MapaIdentidad mapa = new MapaIdentidad();
+        mapa.registrarClientes(List.of(cliente));
+        mapa.registrarVehiculos(List.of(camion));
+        List<Arriendo> cargados = ArchivoUtil.cargarRegistros(ruta, new ArriendoCodec(mapa));
+
+        assertEquals(2, cargados.size());
+        Arriendo leido = cargados.get(0);
+        assertEquals("A1", leido.getId());
+        assertSame(cliente, leido.getCliente());
+        assertSame(camion, leido.getVehiculo());
+        assertSame(leido.getCliente(), cargados.get(1).getCliente());
+        assertEquals(LocalDate.of(2024, 3, 5), leido.getFechaFin());
+        assertEquals("Premium", leido.getContratoTipo());
+    }
+
+    @Test
+    void conservaElArriendoSiSuClienteYaNoExiste() throws Exception {
+        String ruta = directorio.resolve("arriendos.dat").toString();
+        Arriendo arriendo = new Arriendo("A1", cliente, camion(), LocalDate.of(2024, 3, 1),
+                LocalDate.of(2024, 3, 5), 12000, 428400, "Premium");
+        ArchivoUtil.guardarRegistros(ruta, List.of(arriendo), new ArriendoCodec(new MapaIdentidad()));
+
+        MapaIdentidad mapa = new MapaIdentidad();
+        Arriendo leido = ArchivoUtil.cargarRegistros(ruta, new ArriendoCodec(mapa)).get(0);
+        assertEquals("A1", leido.getId());
+        assertTrue(mapa.esNoResuelto(leido.getCliente()));
+        assertTrue(mapa.esNoResuelto(leido.getVehiculo()));
+        assertEquals("12.345.678-5", leido.getCliente().getRutOPasaporte());
+        assertEquals("AB-CD-12", leido.getVehiculo().getPatente());
+        assertFalse(mapa.esNoResuelto(cliente));
+    }
+
+    @Test
+    void guardaYCargaReservasConFechaHora() throws Exception {
+        String ruta = directorio.resolve("reservas.dat").toString();
+        Reserva reserva = new Reserva("R1", "12.345.678-5", "AB-CD-12",
+                LocalDateTime.of(2024, 1, 1, 10, 30), LocalDateTime.of(2024, 1, 3, 12, 0), true);
+
+        MapaIdentidad mapa = new MapaIdentidad();
+        ArchivoUtil.guardarRegistros(ruta, List.of(reserva), new ReservaCodec(mapa));
+        Reserva leida = ArchivoUtil.cargarRegistros(ruta, new ReservaCodec(mapa)).get(0);
+
+        assertEquals(reserva.getFechaInicio(), leida.getFechaInicio());
+        assertEquals(reserva.getFechaFin(), leida.getFechaFin());
+        assertTrue(leida.isConfirmada());
+        assertNull(leida.getCliente());
+    }
+
+    @Test
+    void cargaArchivosEnFormatoDeSerializacionAnterior() throws Exception {
+        String ruta = directorio.resolve("clientes.dat").toString();
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(ruta))) {
+            oos.writeObject(new ArrayList<>(List.of(cliente)));
+        }
+
+        List<Cliente> cargados = ArchivoUtil.cargarRegistros(ruta, new ClienteCodec());
+        assertEquals(List.of(cliente), cargados);
+    }
+
+    @Test
+    void unGuardadoFallidoConservaElArchivoAnterior() throws Exception {
+        String ruta = directorio.resolve("lineas.txt").toString();
+        ArchivoUtil.guardarLineas(ruta, List.of("primera", "segunda"));
+
+        assertThrows(java.io.IOException.class, () -> ArchivoUtil.escribirAtomico(ruta, salida -> {
+            salida.write("parcial".getBytes());
+            throw new java.io.IOException("caída simulada");
+        }));
+
+        assertEquals(List.of("primera", "segunda"), ArchivoUtil.leerLineas(ruta));
+        try (var archivos = java.nio.file.Files.list(directorio)) {
+            assertEquals(1, archivos.count(), "no deben quedar archivos temporales");
+        }
+    }
+
+    @Test
+    void guardaComprimidoEnBloquesYPermiteSaltarAUnBloque() throws Exception {
+        String ruta = directorio.resolve("clientes.dat").toString();
+        List<Cliente> clientes = CodecBenchmark.generarClientes(5_000);
+        ArchivoUtil.guardarRegistros(ruta, clientes, new ClienteCodec(), Compresion.DEFLATE, 4 * 1024);
+
+        assertEquals(clientes, ArchivoUtil.cargarRegistros(ruta, new ClienteCodec()));
+        try (CursorRegistros<Cliente> cursor = CursorRegistros.abrir(ruta, new ClienteCodec(), FiltroRegistro.TODOS)) {
+            assertEquals(clientes.size(), cursor.stream().count());
+        }
+
+        try (LectorBloques<Cliente> lector = LectorBloques.abrir(ruta, new ClienteCodec())) {
+            assertEquals(Compresion.DEFLATE, lector.getCompresion());
+            assertEquals(clientes.size(), lector.getCantidadRegistros());
+            assertTrue(lector.getCantidadBloques() > 1);
+
+            int bloque = lector.bloqueDe(4_321);
+            assertTrue(lector.leerBloque(bloque).contains(clientes.get(4_321)));
+            assertEquals(clientes.subList(4_321, 4_421), lector.leerRegistros(4_321, 100));
+            assertEquals(clientes.subList(4_990, 5_000), lector.leerRegistros(4_990, 100));
+        }
+    }
+}
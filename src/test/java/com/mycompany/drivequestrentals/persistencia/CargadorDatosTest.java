@@ -0,0 +1,51 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CargadorDatosTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void abreLosRepositoriosDeLaFabricaEnParaleloSinLosHistoriales() throws Exception {
+        Cliente cliente = new Cliente("Ana Pérez", "12.345.678-5", "+56911111111", "ana@correo.cl", "Santiago");
+        VehiculoPasajeros auto = new VehiculoPasajeros("V1", "AB-CD-12", "Toyota", "Yaris", 2020, "Disponible", null, 5);
+        Arriendo arriendo = new Arriendo("A1", cliente, auto, LocalDate.of(2024, 3, 1),
+                LocalDate.of(2024, 3, 5), 12000, 119000, "Básico");
+
+        try (FabricaRepositorios escritura = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            escritura.clientes().guardar(cliente);
+            escritura.vehiculos().guardar(auto);
+            escritura.arriendos().guardar(arriendo);
+            escritura.pagos().guardar(new Pago("P1", arriendo, 100000, 19000, 119000,
+                    LocalDate.of(2024, 3, 5), "Débito"));
+            escritura.mantenimientos().guardar(new Mantenimiento("M1", auto, "Cambio de aceite",
+                    LocalDate.of(2024, 2, 1), 45000, 11000));
+        }
+
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio);
+             CargadorDatos cargador = new CargadorDatos(fabrica, 2)) {
+            cargador.esperar();
+            assertEquals(Set.of("clientes", "vehiculos", "mantenimientos", "reservas", "clientes (filtro)",
+                    "reservas (filtro)"), cargador.getTiemposCarga().keySet());
+            // Los historiales se abren recién en su primer acceso
+            assertFalse(fabrica.historialAbierto());
+
+            Vehiculo vehiculo = fabrica.vehiculos().buscarPorId("AB-CD-12").orElseThrow();
+            assertSame(vehiculo, fabrica.mantenimientos().buscarPorId("M1").orElseThrow().getVehiculo());
+            Arriendo cargado = fabrica.arriendos().buscarPorId("A1").orElseThrow();
+            assertSame(cargado, fabrica.pagos().buscarPorId("P1").orElseThrow().getArriendo());
+            assertSame(fabrica.clientes().buscarPorId("12.345.678-5").orElseThrow(), cargado.getCliente());
+            assertTrue(fabrica.filtroClientes().puedeContener("12.345.678-5"));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.codec.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark manual que compara la serialización por defecto de Java con los codecs binarios
+ * al guardar y cargar clientes y arriendos.
+ *
+ * <p>Uso: {@code java ... CodecBenchmark [cantidad...]} (por defecto 10000, 100000 y 1000000).
+ * Para 1M de registros conviene ejecutar con {@code -Xmx2g} o más.</p>
+ */
+public class CodecBenchmark {
+
+    private static final int REPETICIONES = 3;
+
+    public static void main(String[] args) throws Exception {
+        int[] cantidades = args.length == 0
+                ? new int[]{10_000, 100_000, 1_000_000}
+                : java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        Path directorio = Files.createTempDirectory("codec-benchmark");
+        System.out.printf("%-10s %-9s %-13s %12s %12s %14s%n",
+                "Entidad", "Registros", "Formato", "Guardar (ms)", "Cargar (ms)", "Tamaño (KB)");
+
+        for (int cantidad : cantidades) {
+            List<Cliente> clientes = generarClientes(Math.max(1, cantidad));
+            medir("Cliente", clientes, new ClienteCodec(), directorio);
+
+            List<Vehiculo> flota = generarFlota(Math.max(1, cantidad / 100));
+            List<Arriendo> arriendos = generarArriendos(cantidad, clientes, flota);
+
+            MapaIdentidad mapa = new MapaIdentidad();
+            mapa.registrarClientes(clientes);
+            mapa.registrarVehiculos(flota);
+            medir("Arriendo", arriendos, new ArriendoCodec(mapa), directorio);
+        }
+    }
+
+    private static <T> void medir(String entidad, List<T> datos, CodecBinario<T> codec, Path directorio)
+            throws Exception {
+        File serializado = directorio.resolve(entidad + ".ser").toFile();
+        File codificado = directorio.resolve(entidad + ".dat").toFile();
+
+        long guardarJava = Long.MAX_VALUE, cargarJava = Long.MAX_VALUE;
+        long guardarCodec = Long.MAX_VALUE, cargarCodec = Long.MAX_VALUE;
+
+        for (int i = 0; i < REPETICIONES; i++) {
+            long inicio = System.nanoTime();
+            try (ObjectOutputStream oos = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(serializado), 64 * 1024))) {
+                oos.writeObject(datos);
+            }
+            guardarJava = Math.min(guardarJava, System.nanoTime() - inicio);
+
+            inicio = System.nanoTime();
+            try (ObjectInputStream ois = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(serializado), 64 * 1024))) {
+                ois.readObject();
+            }
+            cargarJava = Math.min(cargarJava, System.nanoTime() - inicio);
+
+            inicio = System.nanoTime();
+            ArchivoUtil.guardarRegistros(codificado.getPath(), datos, codec);
+            guardarCodec = Math.min(guardarCodec, System.nanoTime() - inicio);
+
+            inicio = System.nanoTime();
+            ArchivoUtil.cargarRegistros(codificado.getPath(), codec);
+            cargarCodec = Math.min(cargarCodec, System.nanoTime() - inicio);
+        }
+
+        imprimir(entidad, datos.size(), "Java", guardarJava, cargarJava, serializado.length());
+        imprimir(entidad, datos.size(), "Codec v" + codec.getVersion(), guardarCodec, cargarCodec, codificado.length());
+        serializado.delete();
+        codificado.delete();
+    }
+
+    private static void imprimir(String entidad, int registros, String formato,
+                                 long guardarNanos, long cargarNanos, long bytes) {
+        System.out.printf("%-10s %-9d %-13s %12.1f %12.1f %14d%n",
+                entidad, registros, formato, guardarNanos / 1e6, cargarNanos / 1e6, bytes / 1024);
+    }
+
+    static List<Cliente> generarClientes(int cantidad) {
+        List<Cliente> clientes = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            clientes.add(new Cliente("C" + i, "Cliente Número " + i, "RUT-" + i, "+5691234" + (i % 10000),
+                    "cliente" + i + "@correo.cl", "Av. Providencia " + (i % 5000) + ", Santiago", null));
+        }
+        return clientes;
+    }
+
+    static List<Vehiculo> generarFlota(int cantidad) {
+        List<Vehiculo> flota = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            VehiculoPasajeros vehiculo = new VehiculoPasajeros("V" + i, "PAT" + i, "Toyota", "Yaris",
+                    2020, "Disponible", null, 5);
+            vehiculo.setPrecioDiario(30000);
+            flota.add(vehiculo);
+        }
+        return flota;
+    }
+
+    static List<Arriendo> generarArriendos(int cantidad, List<Cliente> clientes, List<Vehiculo> flota) {
+        List<Arriendo> arriendos = new ArrayList<>(cantidad);
+        LocalDate base = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < cantidad; i++) {
+            LocalDate inicio = base.plusDays(i % 1500);
+            arriendos.add(new Arriendo("A" + i, clientes.get(i % clientes.size()), flota.get(i % flota.size()),
+                    inicio, inicio.plusDays(1 + i % 14), 1000 + i, 35700 * (1 + i % 14), "Básico"));
+        }
+        return arriendos;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommitGrupalTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void agrupaEscriturasConcurrentesEnMenosSincronizaciones() throws Exception {
+        Path archivo = directorio.resolve("datos.log");
+        int hilos = 8;
+        int porHilo = 50;
+
+        try (CommitGrupal commit = new CommitGrupal(archivo, 1_000)) {
+            CountDownLatch inicio = new CountDownLatch(1);
+            List<Thread> trabajadores = new ArrayList<>();
+            List<Throwable> errores = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int hilo = h;
+                Thread t = new Thread(() -> {
+                    try {
+                        inicio.await();
+                        for (int i = 0; i < porHilo; i++) {
+                            commit.anexar(("h" + hilo + "-" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errores) {
+                            errores.add(e);
+                        }
+                    }
+                });
+                trabajadores.add(t);
+                t.start();
+            }
+            inicio.countDown();
+            for (Thread t : trabajadores) t.join();
+
+            assertTrue(errores.isEmpty(), () -> "Errores: " + errores);
+            assertEquals(hilos * porHilo, commit.getSolicitudesConfirmadas());
+            assertTrue(commit.getSincronizaciones() < hilos * porHilo,
+                    "Se esperaba al menos un lote con más de una solicitud");
+        }
+
+        List<String> lineas = Files.readAllLines(archivo);
+        Set<String> unicas = new HashSet<>(lineas);
+        assertEquals(hilos * porHilo, lineas.size());
+        assertEquals(hilos * porHilo, unicas.size());
+    }
+}
@@ -0,0 +1,76 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.codec.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Benchmark manual que compara tamaño y tiempos de guardado, carga y salto a un bloque
+ * de los archivos de registros con y sin compresión.
+ *
+ * <p>Uso: {@code java ... CompresionBenchmark [cantidad...]} (por defecto 100000).</p>
+ */
+public class CompresionBenchmark {
+
+    private static final int REPETICIONES = 3;
+
+    public static void main(String[] args) throws Exception {
+        int[] cantidades = args.length == 0
+                ? new int[]{100_000}
+                : java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        Path directorio = Files.createTempDirectory("compresion-benchmark");
+        System.out.printf("%-10s %-9s %-15s %12s %12s %12s %14s%n",
+                "Entidad", "Registros", "Compresión", "Guardar (ms)", "Cargar (ms)", "Bloque (ms)", "Tamaño (KB)");
+
+        for (int cantidad : cantidades) {
+            List<Cliente> clientes = CodecBenchmark.generarClientes(Math.max(1, cantidad));
+            List<Vehiculo> flota = CodecBenchmark.generarFlota(Math.max(1, cantidad / 100));
+            List<Arriendo> arriendos = CodecBenchmark.generarArriendos(cantidad, clientes, flota);
+            MapaIdentidad mapa = new MapaIdentidad();
+            mapa.registrarClientes(clientes);
+            mapa.registrarVehiculos(flota);
+
+            for (Compresion compresion : Compresion.values()) {
+                medir("Cliente", clientes, new ClienteCodec(), compresion, directorio);
+            }
+            for (Compresion compresion : Compresion.values()) {
+                medir("Arriendo", arriendos, new ArriendoCodec(mapa), compresion, directorio);
+            }
+        }
+    }
+
+    private static <T> void medir(String entidad, List<T> datos, CodecBinario<T> codec, Compresion compresion,
+                                  Path directorio) throws Exception {
+        File archivo = directorio.resolve(entidad + ".dat").toFile();
+        long guardar = Long.MAX_VALUE, cargar = Long.MAX_VALUE, bloque = Long.MAX_VALUE;
+
+        for (int i = 0; i < REPETICIONES; i++) {
+            long inicio = System.nanoTime();
+            ArchivoUtil.guardarRegistros(archivo.getPath(), datos, codec, compresion);
+            guardar = Math.min(guardar, System.nanoTime() - inicio);
+
+            inicio = System.nanoTime();
+            ArchivoUtil.cargarRegistros(archivo.getPath(), codec);
+            cargar = Math.min(cargar, System.nanoTime() - inicio);
+
+            if (compresion != Compresion.NINGUNA) {
+                // Lectura de 100 registros a mitad del archivo: abre el índice y descomprime un bloque
+                inicio = System.nanoTime();
+                try (LectorBloques<T> lector = LectorBloques.abrir(archivo.getPath(), codec)) {
+                    lector.leerRegistros(datos.size() / 2, 100);
+                }
+                bloque = Math.min(bloque, System.nanoTime() - inicio);
+            }
+        }
+
+        System.out.printf("%-10s %-9d %-15s %12.1f %12.1f %12s %14d%n",
+                entidad, datos.size(), compresion, guardar / 1e6, cargar / 1e6,
+                bloque == Long.MAX_VALUE ? "-" : String.format("%.2f", bloque / 1e6), archivo.length() / 1024);
+        archivo.delete();
+    }
+}
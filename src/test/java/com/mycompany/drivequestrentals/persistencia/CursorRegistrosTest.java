@@ -0,0 +1,72 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.codec.ArriendoCodec;
+import com.mycompany.drivequestrentals.persistencia.codec.FiltroRegistro;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorRegistrosTest {
+
+    @TempDir
+    Path directorio;
+
+    private final Cliente cliente = new Cliente("Ana Pérez", "12.345.678-5", "+56911111111", "ana@correo.cl", "Santiago");
+    private final VehiculoPasajeros auto =
+            new VehiculoPasajeros("V1", "AB-CD-12", "Toyota", "Yaris", 2020, "Disponible", null, 5);
+
+    private List<Arriendo> unoPorMes2023() {
+        List<Arriendo> arriendos = new ArrayList<>();
+        for (int mes = 1; mes <= 12; mes++) {
+            LocalDate inicio = LocalDate.of(2023, mes, 10);
+            arriendos.add(new Arriendo("A" + mes, cliente, auto, inicio, inicio.plusDays(3), 1000, 50000, "Básico"));
+        }
+        return arriendos;
+    }
+
+    private MapaIdentidad mapa() {
+        MapaIdentidad mapa = new MapaIdentidad();
+        mapa.registrarClientes(List.of(cliente));
+        mapa.registrarVehiculos(List.of(auto));
+        return mapa;
+    }
+
+    @Test
+    void filtraPorRangoDeFechasYPermiteTerminarAntes() throws Exception {
+        String ruta = directorio.resolve("arriendos.dat").toString();
+        ArchivoUtil.guardarRegistros(ruta, unoPorMes2023(), new ArriendoCodec(mapa()));
+
+        try (Stream<Arriendo> segundoTrimestre = CursorRegistros.abrir(ruta, new ArriendoCodec(mapa()),
+                ArriendoCodec.filtroPorFechas(LocalDate.of(2023, 4, 1), LocalDate.of(2023, 6, 30))).stream()) {
+            assertEquals(List.of("A4", "A5", "A6"),
+                    segundoTrimestre.map(Arriendo::getId).collect(Collectors.toList()));
+        }
+
+        CursorRegistros<Arriendo> cursor = CursorRegistros.abrir(ruta, new ArriendoCodec(mapa()), FiltroRegistro.TODOS);
+        try (Stream<Arriendo> todos = cursor.stream()) {
+            assertEquals("A1", todos.findFirst().orElseThrow().getId());
+        }
+        assertFalse(cursor.hasNext(), "el cursor cerrado no debe seguir leyendo");
+    }
+
+    @Test
+    void tambienFiltraLosArchivosEnFormatoAnterior() throws Exception {
+        String ruta = directorio.resolve("arriendos.dat").toString();
+        ArchivoUtil.guardarObjeto(ruta, new ArrayList<>(unoPorMes2023()));
+
+        try (Stream<Arriendo> segundoTrimestre = CursorRegistros.abrir(ruta, new ArriendoCodec(mapa()),
+                ArriendoCodec.filtroPorFechas(LocalDate.of(2023, 4, 1), LocalDate.of(2023, 6, 30))).stream()) {
+            assertEquals(List.of("A4", "A5", "A6"),
+                    segundoTrimestre.map(Arriendo::getId).collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.persistencia.codec.ClienteCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiarioCambiosTest {
+
+    @TempDir
+    Path directorio;
+
+    private Cliente cliente(String rut, String nombre) {
+        return new Cliente(nombre, rut, "+56911111111", "correo@dominio.cl", "Santiago");
+    }
+
+    @Test
+    void reproduceInsercionesActualizacionesYEliminaciones() throws Exception {
+        DiarioCambios<Cliente> diario = new DiarioCambios<>(
+                directorio.resolve("clientes.diario").toString(), Cliente::getRutOPasaporte, new ClienteCodec());
+
+        diario.registrar(OperacionDiario.INSERTAR, cliente("1-9", "Ana"));
+        diario.registrar(OperacionDiario.INSERTAR, cliente("2-7", "Beto"));
+        diario.registrar(OperacionDiario.ACTUALIZAR, cliente("1-9", "Ana María"));
+        diario.registrar(OperacionDiario.ELIMINAR, cliente("2-7", "Beto"));
+
+        List<Cliente> resultado = diario.reproducir(List.of(cliente("3-5", "Carla")));
+
+        assertEquals(2, resultado.size());
+        assertEquals("Carla", resultado.get(0).getNombreCompleto());
+        assertEquals("Ana María", resultado.get(1).getNombreCompleto());
+    }
+
+    @Test
+    void ignoraRegistroFinalIncompleto() throws Exception {
+        Path archivo = directorio.resolve("clientes.diario");
+        DiarioCambios<Cliente> diario = new DiarioCambios<>(
+                archivo.toString(), Cliente::getRutOPasaporte, new ClienteCodec());
+
+        diario.registrar(OperacionDiario.INSERTAR, cliente("1-9", "Ana"));
+        long largoValido = diario.tamanio();
+        diario.registrar(OperacionDiario.INSERTAR, cliente("2-7", "Beto"));
+
+        try (RandomAccessFile raf = new RandomAccessFile(archivo.toFile(), "rw")) {
+            raf.setLength(largoValido + 10); // simula una caída a mitad de escritura
+        }
+
+        List<Cliente> resultado = diario.reproducir(List.of());
+        assertEquals(1, resultado.size());
+        assertEquals("1-9", resultado.get(0).getRutOPasaporte());
+    }
+
+    @Test
+    void descartaRegistroIncompletoAntesDeAnexar() throws Exception {
+        Path archivo = directorio.resolve("clientes.diario");
+        DiarioCambios<Cliente> anterior = new DiarioCambios<>(
+                archivo.toString(), Cliente::getRutOPasaporte, new ClienteCodec());
+        anterior.registrar(OperacionDiario.INSERTAR, cliente("1-9", "Ana"));
+        long largoValido = anterior.tamanio();
+        anterior.registrar(OperacionDiario.INSERTAR, cliente("2-7", "Beto"));
+
+        try (RandomAccessFile raf = new RandomAccessFile(archivo.toFile(), "rw")) {
+            raf.setLength(largoValido + 10); // caída a mitad del segundo registro
+        }
+
+        DiarioCambios<Cliente> reiniciado = new DiarioCambios<>(
+                archivo.toString(), Cliente::getRutOPasaporte, new ClienteCodec());
+        reiniciado.registrar(OperacionDiario.INSERTAR, cliente("3-5", "Carla"));
+
+        List<Cliente> resultado = reiniciado.reproducir(List.of());
+        assertEquals(2, resultado.size());
+        assertEquals("1-9", resultado.get(0).getRutOPasaporte());
+        assertEquals("3-5", resultado.get(1).getRutOPasaporte());
+    }
+
+    @Test
+    void unFinalEnCeroOConLargoBasuraNoImpideAbrirNiAnexar() throws Exception {
+        Path archivo = directorio.resolve("clientes.diario");
+        DiarioCambios<Cliente> anterior = new DiarioCambios<>(
+                archivo.toString(), Cliente::getRutOPasaporte, new ClienteCodec());
+        anterior.registrar(OperacionDiario.INSERTAR, cliente("1-9", "Ana"));
+        long largoValido = anterior.tamanio();
+        anterior.registrar(OperacionDiario.INSERTAR, cliente("2-7", "Beto"));
+        long largoTotal = anterior.tamanio();
+
+        try (RandomAccessFile raf = new RandomAccessFile(archivo.toFile(), "rw")) {
+            // El sistema de archivos alargó el archivo pero el segundo registro nunca llegó al disco
+            raf.seek(largoValido);
+            raf.write(new byte[(int) (largoTotal - largoValido) + 4096]);
+        }
+        DiarioCambios<Cliente> reiniciado = new DiarioCambios<>(
+                archivo.toString(), Cliente::getRutOPasaporte, new ClienteCodec());
+        assertEquals(List.of("1-9"), ruts(reiniciado.reproducir(List.of())));
+
+        try (RandomAccessFile raf = new RandomAccessFile(archivo.toFile(), "rw")) {
+            // Operación y clave válidas seguidas de un largo de contenido absurdo
+            raf.seek(largoValido);
+            raf.writeByte(OperacionDiario.INSERTAR.getCodigo());
+            raf.writeUTF("2-7");
+            raf.writeInt(1);
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+        assertEquals(List.of("1-9"), ruts(reiniciado.reproducir(List.of())));
+
+        try (RandomAccessFile raf = new RandomAccessFile(archivo.toFile(), "rw")) {
+            // Registro enmarcado cuyo contenido quedó en cero
+            raf.seek(largoValido + 1 + 2 + 3 + 4);
+            raf.writeInt(16);
+            raf.write(new byte[16]);
+            raf.setLength(raf.getFilePointer());
+        }
+        assertEquals(List.of("1-9"), ruts(reiniciado.reproducir(List.of())));
+
+        reiniciado.registrar(OperacionDiario.INSERTAR, cliente("3-5", "Carla"));
+        assertEquals(List.of("1-9", "3-5"), ruts(reiniciado.reproducir(List.of())));
+    }
+
+    @Test
+    void omiteEInformaUnRegistroIntermedioDaniadoYSigueConLosDemas() throws Exception {
+        Path archivo = directorio.resolve("clientes.diario");
+        DiarioCambios<Cliente> diario = new DiarioCambios<>(
+                archivo.toString(), Cliente::getRutOPasaporte, new ClienteCodec());
+        diario.registrar(OperacionDiario.INSERTAR, cliente("1-9", "Ana"));
+        long inicioDaniado = diario.tamanio();
+        diario.registrar(OperacionDiario.INSERTAR, cliente("2-7", "Beto"));
+        long finDaniado = diario.tamanio();
+        diario.registrar(OperacionDiario.INSERTAR, cliente("3-5", "Carla"));
+
+        try (RandomAccessFile raf = new RandomAccessFile(archivo.toFile(), "rw")) {
+            // Un sector dañado cambia un byte del nombre del segundo registro
+            raf.seek(finDaniado - 30);
+            int original = raf.read();
+            raf.seek(finDaniado - 30);
+            raf.write(original ^ 0x5A);
+        }
+
+        DiarioCambios<Cliente> reiniciado = new DiarioCambios<>(
+                archivo.toString(), Cliente::getRutOPasaporte, new ClienteCodec());
+        assertEquals(List.of("1-9", "3-5"), ruts(reiniciado.reproducir(List.of())));
+        assertEquals(1, reiniciado.getRegistrosCorruptos().size());
+        IntegridadRegistros.RegistroCorrupto corrupto = reiniciado.getRegistrosCorruptos().get(0);
+        assertEquals(inicioDaniado, corrupto.getPosicion());
+        assertEquals(finDaniado - inicioDaniado, corrupto.getBytes());
+
+        // El registro dañado no se trunca: los siguientes se anexan después del último
+        reiniciado.registrar(OperacionDiario.INSERTAR, cliente("4-3", "Dora"));
+        assertEquals(List.of("1-9", "3-5", "4-3"), ruts(reiniciado.reproducir(List.of())));
+    }
+
+    @Test
+    void leeLosRegistrosEscritosSinSumaDeVerificacion() throws Exception {
+        Path archivo = directorio.resolve("clientes.diario");
+        ClienteCodec codec = new ClienteCodec();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(archivo.toFile()))) {
+            ByteArrayOutputStream contenido = new ByteArrayOutputStream();
+            codec.escribir(new DataOutputStream(contenido), cliente("1-9", "Ana"));
+            out.writeByte(OperacionDiario.INSERTAR.getCodigo());
+            out.writeUTF("1-9");
+            out.writeInt(codec.getVersion());
+            out.writeInt(contenido.size());
+            contenido.writeTo(out);
+        }
+
+        DiarioCambios<Cliente> diario = new DiarioCambios<>(archivo.toString(), Cliente::getRutOPasaporte, codec);
+        diario.registrar(OperacionDiario.INSERTAR, cliente("2-7", "Beto"));
+
+        assertEquals(List.of("1-9", "2-7"), ruts(diario.reproducir(List.of())));
+        assertTrue(diario.getRegistrosCorruptos().isEmpty());
+    }
+
+    private static List<String> ruts(List<Cliente> clientes) {
+        return clientes.stream().map(Cliente::getRutOPasaporte).toList();
+    }
+}
@@ -0,0 +1,139 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.codec.VehiculoCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EscritorPersistenciaTest {
+
+    @TempDir
+    Path directorio;
+
+    private static VehiculoPasajeros auto(String patente, String estado) {
+        return new VehiculoPasajeros("V-" + patente, patente, "Toyota", "Yaris", 2020, estado, null, 5);
+    }
+
+    /** Repositorio en memoria que cuenta las entidades escritas y puede demorar cada lote. */
+    private static class RepositorioLento extends RepositorioMemoria<Vehiculo, String> {
+        final AtomicInteger escritas = new AtomicInteger();
+        private final long demoraMillis;
+
+        RepositorioLento(long demoraMillis) {
+            super(Vehiculo::getPatente);
+            this.demoraMillis = demoraMillis;
+        }
+
+        @Override
+        public void guardarTodos(Collection<Vehiculo> lista) {
+            try {
+                Thread.sleep(demoraMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            escritas.addAndGet(lista.size());
+            super.guardarTodos(lista);
+        }
+    }
+
+    @Test
+    void combinaLasEscriturasRepetidasDeUnaEntidad() throws Exception {
+        RepositorioLento destino = new RepositorioLento(0);
+        try (EscritorPersistencia escritor = new EscritorPersistencia(1_000, 50)) {
+            RepositorioAsincrono<Vehiculo, String> repositorio = escritor.envolver(destino, Vehiculo::getPatente);
+            List<CompletableFuture<Void>> futuros = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futuros.add(repositorio.guardarAsincrono(auto("AA-BB-11", i % 2 == 0 ? "Disponible" : "Arrendado")));
+                // Quien escribe lee lo que escribió aunque aún no esté aplicado
+                assertEquals(i % 2 == 0 ? "Disponible" : "Arrendado",
+                        repositorio.buscarPorId("AA-BB-11").orElseThrow().getEstado());
+            }
+            CompletableFuture.allOf(futuros.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, destino.escritas.get());
+            assertEquals("Arrendado", destino.buscarPorId("AA-BB-11").orElseThrow().getEstado());
+            assertEquals(1, escritor.getMetricas().getAplicadas());
+        }
+    }
+
+    @Test
+    void laColaLlenaHaceEsperarAQuienEscribe() throws Exception {
+        RepositorioLento destino = new RepositorioLento(20);
+        try (EscritorPersistencia escritor = new EscritorPersistencia(1, 0)) {
+            RepositorioAsincrono<Vehiculo, String> repositorio = escritor.envolver(destino, Vehiculo::getPatente);
+            for (int i = 0; i < 10; i++) {
+                repositorio.guardar(auto("AA-BB-" + (10 + i), "Disponible"));
+            }
+            escritor.vaciar().get(5, TimeUnit.SECONDS);
+
+            EscritorPersistencia.MetricasEscritura metricas = escritor.getMetricas();
+            assertTrue(metricas.getEsperas() > 0, metricas.toString());
+            assertEquals(10, destino.contar());
+        }
+    }
+
+    @Test
+    void cerrarCompletaLasEscriturasQueSeEncolanMientrasCierra() throws Exception {
+        for (int intento = 0; intento < 200; intento++) {
+            RepositorioLento destino = new RepositorioLento(0);
+            EscritorPersistencia escritor = new EscritorPersistencia(2, 0);
+            RepositorioAsincrono<Vehiculo, String> repositorio = escritor.envolver(destino, Vehiculo::getPatente);
+            List<CompletableFuture<Void>> futuros = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch listos = new CountDownLatch(4);
+            List<Thread> productores = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                int productor = p;
+                Thread hilo = new Thread(() -> {
+                    listos.countDown();
+                    try {
+                        // Escribe hasta que el escritor lo rechaza por estar cerrado
+                        for (int i = 0; ; i++) {
+                            futuros.add(repositorio.guardarAsincrono(auto("P" + productor + "-" + i, "Disponible")));
+                        }
+                    } catch (IllegalStateException e) {
+                        // Llegó después del cierre y no se encoló
+                    }
+                });
+                hilo.start();
+                productores.add(hilo);
+            }
+            listos.await();
+
+            escritor.close();
+            for (Thread hilo : productores) hilo.join(5_000);
+
+            // Toda escritura aceptada termina aplicada, aunque se haya encolado durante el cierre
+            synchronized (futuros) {
+                CompletableFuture.allOf(futuros.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+                assertEquals(futuros.size(), destino.escritas.get());
+            }
+        }
+    }
+
+    @Test
+    void alCerrarLaFabricaLasEscriturasQuedanEnDisco() throws Exception {
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            fabrica.usarEscritor(new EscritorPersistencia());
+            Repositorio<Vehiculo, String> vehiculos = fabrica.vehiculos();
+            assertInstanceOf(RepositorioAsincrono.class, vehiculos);
+            vehiculos.guardar(auto("AA-BB-11", "Disponible"));
+            vehiculos.guardar(auto("CC-DD-22", "Disponible"));
+            assertTrue(vehiculos.eliminar("CC-DD-22"));
+        }
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            assertEquals(List.of("AA-BB-11"), fabrica.vehiculos().stream().map(Vehiculo::getPatente).toList());
+        }
+    }
+}
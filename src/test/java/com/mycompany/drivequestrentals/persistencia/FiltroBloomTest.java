@@ -0,0 +1,55 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.servicios.ClienteService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FiltroBloomTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void creceSinFalsosNegativosYRespetaLaProbabilidadDeFalsoPositivo() {
+        FiltroBloom filtro = new FiltroBloom(1_000, 0.01);
+        int claves = 50_000;
+        for (int i = 0; i < claves; i++) filtro.agregar("P" + i);
+
+        assertTrue(filtro.getCapas() > 1);
+        for (int i = 0; i < claves; i++) assertTrue(filtro.puedeContener("P" + i));
+        int falsosPositivos = 0;
+        for (int i = 0; i < claves; i++) {
+            if (filtro.puedeContener("Q" + i)) falsosPositivos++;
+        }
+        assertTrue(falsosPositivos < claves * 0.01, "falsos positivos: " + falsosPositivos);
+    }
+
+    @Test
+    void seGuardaConLosDatosYSeDescartaSiNoSeCerroBien() throws Exception {
+        Path archivo = directorio.resolve("clientes.bloom");
+        FiltroBloom filtro = new FiltroBloom();
+        filtro.agregar("11111111-1");
+        filtro.guardar(archivo);
+
+        FiltroBloom abierto = FiltroBloom.abrir(archivo);
+        assertNotNull(abierto);
+        assertTrue(abierto.puedeContener("11111111-1"));
+        // Abierto y sin guardar, como tras una caída: no sirve porque pudo quedar atrasado
+        assertNull(FiltroBloom.abrir(archivo));
+
+        // La fábrica lo reconstruye desde el repositorio y lo vuelve a guardar al cerrar
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            ClienteService servicio = new ClienteService(fabrica.clientes(), fabrica.filtroClientes());
+            assertTrue(servicio.registrarCliente(new Cliente("Ana", "22222222-2", "+56911111111", "ana@correo.cl", "Calle 1")));
+            assertFalse(servicio.registrarCliente(new Cliente("Ana", "22222222-2", "+56911111111", "ana@correo.cl", "Calle 1")));
+        }
+        FiltroBloom reabierto = FiltroBloom.abrir(archivo);
+        assertNotNull(reabierto);
+        assertTrue(reabierto.puedeContener("22222222-2"));
+    }
+}
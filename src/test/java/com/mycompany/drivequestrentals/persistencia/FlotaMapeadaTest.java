@@ -0,0 +1,100 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.excepciones.ConflictoDeVersionException;
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+import com.mycompany.drivequestrentals.servicios.FlotaVehiculosService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlotaMapeadaTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void cambiarEstadoEscribeEnElLugarYSobreviveAlReinicio() throws Exception {
+        Path archivo = directorio.resolve("flota.mapa");
+        VehiculoCarga camion = new VehiculoCarga("V1", "ab-cd-12", "Volvo", "FH", 2019, "Disponible", "img/camion.png", 18000.5);
+        camion.setPrecioDiario(95000);
+
+        try (FlotaMapeada flota = new FlotaMapeada(archivo)) {
+            FlotaVehiculosService servicio = new FlotaVehiculosService(flota);
+            assertTrue(servicio.agregarVehiculo(camion));
+            assertTrue(servicio.agregarVehiculo(
+                    new VehiculoPasajeros("V2", "EF-GH-34", "Kia", "Rio", 2022, "Disponible", null, 5)));
+
+            assertTrue(servicio.cambiarEstado("AB-CD-12", "En Mantención"));
+            assertEquals("En Mantención", flota.leerEstado("ab-cd-12"));
+            assertFalse(servicio.cambiarEstado("ZZ-ZZ-99", "Arrendado"));
+        }
+
+        try (FlotaMapeada reabierta = new FlotaMapeada(archivo)) {
+            assertEquals(2, reabierta.contar());
+            VehiculoCarga leido = (VehiculoCarga) reabierta.buscarPorId("AB-CD-12").orElseThrow();
+            assertEquals("En Mantención", leido.getEstado());
+            assertEquals("Volvo", leido.getMarca());
+            assertEquals("img/camion.png", leido.getFotoRuta());
+            assertEquals(18000.5, leido.getCapacidadCarga());
+            assertEquals(95000, leido.getPrecioDiario());
+
+            VehiculoPasajeros auto = (VehiculoPasajeros) reabierta.buscarPorId("EF-GH-34").orElseThrow();
+            assertEquals(5, auto.getNumeroPasajeros());
+            assertNull(auto.getFotoRuta());
+        }
+    }
+
+    @Test
+    void unCampoDemasiadoLargoSeRechazaSinModificarLaRanura() throws Exception {
+        try (FlotaMapeada flota = new FlotaMapeada(directorio.resolve("flota.mapa"))) {
+            flota.guardar(new VehiculoPasajeros("V1", "AB-CD-12", "Kia", "Rio", 2022, "Disponible", null, 5));
+
+            assertThrows(IllegalArgumentException.class, () -> flota.actualizarEstado("AB-CD-12", "x".repeat(100)));
+            Vehiculo modeloLargo = new VehiculoPasajeros("V1", "AB-CD-12", "Kia", "R".repeat(100), 2022, "Arrendado", null, 5);
+            assertThrows(IllegalArgumentException.class, () -> flota.guardar(modeloLargo));
+
+            Vehiculo guardado = flota.buscarPorId("AB-CD-12").orElseThrow();
+            assertEquals("Rio", guardado.getModelo());
+            assertEquals("Disponible", guardado.getEstado());
+        }
+    }
+
+    @Test
+    void elCambioDeEstadoPorVersionDetectaConflictosYUnArchivoAnteriorSeMigra() throws Exception {
+        Path archivo = directorio.resolve("flota.mapa");
+        try (FlotaMapeada flota = new FlotaMapeada(archivo)) {
+            FlotaVehiculosService servicio = new FlotaVehiculosService(flota);
+            servicio.agregarVehiculo(new VehiculoPasajeros("V1", "AB-CD-12", "Kia", "Rio", 2022, "Disponible", null, 5));
+
+            assertTrue(servicio.cambiarEstado("AB-CD-12", "Arrendado", 0));
+            ConflictoDeVersionException conflicto = assertThrows(ConflictoDeVersionException.class,
+                    () -> servicio.cambiarEstado("AB-CD-12", "En Mantención", 0));
+            assertEquals(1, conflicto.getVersionActual());
+            assertEquals("Arrendado", flota.leerEstado("AB-CD-12"));
+            assertTrue(servicio.cambiarEstado("AB-CD-12", "Disponible"));
+            assertEquals(2, flota.buscarPorId("AB-CD-12").orElseThrow().getVersion());
+            assertFalse(servicio.cambiarEstado("ZZ-ZZ-99", "Arrendado", 0));
+        }
+
+        // Un archivo del formato sin versión: identificador 1 y bytes viejos de la foto donde va la versión
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.allocate(4).putInt(0, 1), 16);
+            // Primera ranura: encabezado, byte de ocupación y 369 bytes de campos antes de la versión
+            canal.write(ByteBuffer.allocate(8).putLong(0, 0x4142434445464748L),
+                    RepositorioMapeado.TAMANIO_ENCABEZADO + 1 + 369);
+        }
+        try (FlotaMapeada migrada = new FlotaMapeada(archivo)) {
+            Vehiculo leido = migrada.buscarPorId("AB-CD-12").orElseThrow();
+            assertEquals(0, leido.getVersion());
+            assertEquals("Disponible", leido.getEstado());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.persistencia.codec.ClienteCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntegridadRegistrosTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void unByteDanadoCuestaSoloUnRegistro() throws Exception {
+        String ruta = directorio.resolve("clientes.dat").toString();
+        List<Cliente> clientes = CodecBenchmark.generarClientes(1_000);
+        ArchivoUtil.guardarRegistros(ruta, clientes, new ClienteCodec());
+        assertTrue(IntegridadRegistros.verificarEnSegundoPlano(ruta).get(5, TimeUnit.SECONDS).esIntegro());
+
+        // Se dañan el largo del registro 500 (la carga normal falla) y un byte de datos del 700
+        long registro500 = posicionDeRegistro(ruta, 500);
+        long registro700 = posicionDeRegistro(ruta, 700);
+        escribirByte(ruta, registro500, 0x7F);
+        escribirByte(ruta, registro700 + 12, 0x00);
+        assertThrows(java.io.IOException.class, () -> ArchivoUtil.cargarRegistros(ruta, new ClienteCodec()));
+
+        IntegridadRegistros.Informe informe = IntegridadRegistros.verificar(ruta);
+        assertEquals(998, informe.getRegistrosSanos());
+        assertEquals(List.of(registro500, registro700),
+                informe.getCorruptos().stream().map(IntegridadRegistros.RegistroCorrupto::getPosicion).toList());
+
+        List<Cliente> esperados = new ArrayList<>(clientes);
+        esperados.remove(700);
+        esperados.remove(500);
+        assertEquals(esperados, IntegridadRegistros.cargarTolerante(ruta, new ClienteCodec()));
+    }
+
+    @Test
+    void unBloqueComprimidoDanadoNoImpideLeerLosDemas() throws Exception {
+        String ruta = directorio.resolve("clientes.dat").toString();
+        List<Cliente> clientes = CodecBenchmark.generarClientes(2_000);
+        ArchivoUtil.guardarRegistros(ruta, clientes, new ClienteCodec(), Compresion.DEFLATE, 4 * 1024);
+
+        int bloque;
+        List<Cliente> perdidos;
+        try (LectorBloques<Cliente> lector = LectorBloques.abrir(ruta, new ClienteCodec())) {
+            bloque = lector.bloqueDe(1_000);
+            perdidos = lector.leerBloque(bloque);
+        }
+        // Un byte dentro de los datos comprimidos del bloque (tras su cabecera de 16 bytes)
+        escribirByte(ruta, posicionDeBloque(ruta, bloque) + 40, 0x55);
+
+        IntegridadRegistros.Recuperacion<Cliente> recuperacion = IntegridadRegistros.recuperar(ruta, new ClienteCodec());
+        assertEquals(1, recuperacion.getInforme().getCorruptos().size());
+        List<Cliente> esperados = new ArrayList<>(clientes);
+        esperados.removeAll(perdidos);
+        assertEquals(esperados, recuperacion.getRegistros());
+        assertTrue(perdidos.size() < clientes.size() / 4);
+    }
+
+    /** Posición de un bloque leída del índice al final del archivo. */
+    private static long posicionDeBloque(String ruta, int bloque) throws Exception {
+        try (RandomAccessFile archivo = new RandomAccessFile(ruta, "r")) {
+            archivo.seek(archivo.length() - Long.BYTES);
+            long indice = archivo.readLong();
+            archivo.seek(indice + Integer.BYTES + (long) bloque * (Long.BYTES + Integer.BYTES));
+            return archivo.readLong();
+        }
+    }
+
+    /** Posición del enmarcado de un registro en un archivo sin compresión. */
+    private static long posicionDeRegistro(String ruta, int numero) throws Exception {
+        try (RandomAccessFile archivo = new RandomAccessFile(ruta, "r")) {
+            long posicion = Integer.BYTES + Short.BYTES + Integer.BYTES;
+            for (int i = 0; i < numero; i++) {
+                posicion += 2 * Integer.BYTES + leerIntEn(archivo, posicion);
+            }
+            return posicion;
+        }
+    }
+
+    private static int leerIntEn(RandomAccessFile archivo, long posicion) throws Exception {
+        archivo.seek(posicion);
+        return archivo.readInt();
+    }
+
+    private static void escribirByte(String ruta, long posicion, int valor) throws Exception {
+        try (RandomAccessFile archivo = new RandomAccessFile(ruta, "rw")) {
+            archivo.seek(posicion);
+            archivo.write(valor);
+        }
+    }
+}
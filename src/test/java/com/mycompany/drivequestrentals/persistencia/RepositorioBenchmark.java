@@ -0,0 +1,94 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.persistencia.codec.ClienteCodec;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark manual que ejecuta la misma carga de trabajo sobre los tres respaldos de
+ * {@link Repositorio}: carga masiva, lecturas por clave al azar, actualizaciones y eliminaciones
+ * individuales, un recorrido completo y, en los respaldos en disco, la reapertura.
+ *
+ * <p>Uso: {@code java ... RepositorioBenchmark [cantidad]} (por defecto 100000 clientes).</p>
+ */
+public class RepositorioBenchmark {
+
+    private static final int LECTURAS = 200_000;
+    private static final int ESCRITURAS = 500;
+
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length == 0 ? 100_000 : Integer.parseInt(args[0]);
+        List<Cliente> clientes = CodecBenchmark.generarClientes(cantidad);
+        Path directorio = Files.createTempDirectory("repositorio-benchmark");
+
+        System.out.printf("%-9s %12s %12s %12s %12s %12s %12s%n", "Respaldo",
+                "Carga (ms)", "Lectura (ms)", "Actualiz (ms)", "Recorrido", "Elimin (ms)", "Reabrir (ms)");
+
+        for (FabricaRepositorios.Respaldo respaldo : FabricaRepositorios.Respaldo.values()) {
+            Path subdirectorio = Files.createDirectories(directorio.resolve(respaldo.name().toLowerCase()));
+            FabricaRepositorios fabrica = new FabricaRepositorios(respaldo, subdirectorio);
+            Repositorio<Cliente, String> repositorio = fabrica.clientes();
+            Random azar = new Random(42);
+
+            long carga = medir(() -> repositorio.guardarTodos(clientes));
+
+            long lectura = medir(() -> {
+                for (int i = 0; i < LECTURAS; i++) {
+                    Cliente cliente = clientes.get(azar.nextInt(cantidad));
+                    if (repositorio.buscarPorId(FabricaRepositorios.claveCliente(cliente)).isEmpty()) {
+                        throw new IllegalStateException("Cliente no encontrado: " + cliente.getRutOPasaporte());
+                    }
+                }
+            });
+
+            long actualizacion = medir(() -> {
+                for (int i = 0; i < ESCRITURAS; i++) {
+                    Cliente cliente = clientes.get(azar.nextInt(cantidad));
+                    cliente.setDomicilio("Nuevo domicilio " + i);
+                    repositorio.guardar(cliente);
+                }
+            });
+
+            long recorrido = medir(() -> {
+                try (Stream<Cliente> todos = repositorio.stream()) {
+                    if (todos.filter(c -> c.getDomicilio().startsWith("Nuevo")).count() == 0) {
+                        throw new IllegalStateException("No se encontraron las actualizaciones");
+                    }
+                }
+            });
+
+            long eliminacion = medir(() -> {
+                for (int i = 0; i < ESCRITURAS; i++) {
+                    repositorio.eliminar(FabricaRepositorios.claveCliente(clientes.get(i)));
+                }
+            });
+
+            String reapertura = "-";
+            if (respaldo != FabricaRepositorios.Respaldo.MEMORIA) {
+                fabrica.close();
+                FabricaRepositorios nueva = new FabricaRepositorios(respaldo, subdirectorio);
+                long inicio = System.nanoTime();
+                int reabiertos = nueva.clientes().contar();
+                reapertura = String.format("%.1f", (System.nanoTime() - inicio) / 1e6);
+                if (reabiertos != cantidad - ESCRITURAS) {
+                    throw new IllegalStateException("Se reabrieron " + reabiertos + " clientes");
+                }
+                nueva.close();
+            }
+
+            System.out.printf("%-9s %12.1f %12.1f %12.1f %12.1f %12.1f %12s%n", respaldo,
+                    carga / 1e6, lectura / 1e6, actualizacion / 1e6, recorrido / 1e6, eliminacion / 1e6, reapertura);
+        }
+    }
+
+    private static long medir(Runnable tarea) {
+        long inicio = System.nanoTime();
+        tarea.run();
+        return System.nanoTime() - inicio;
+    }
+}
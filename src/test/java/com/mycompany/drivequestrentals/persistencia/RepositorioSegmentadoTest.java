@@ -0,0 +1,65 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.codec.ArriendoCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositorioSegmentadoTest {
+
+    @TempDir
+    Path directorio;
+
+    private final Cliente cliente = new Cliente("Ana Pérez", "12.345.678-5", "+56911111111", "ana@correo.cl", "Santiago");
+    private final VehiculoPasajeros auto =
+            new VehiculoPasajeros("V1", "AB-CD-12", "Toyota", "Yaris", 2020, "Disponible", null, 5);
+
+    private List<Arriendo> unoPorMes2023() {
+        List<Arriendo> arriendos = new ArrayList<>();
+        for (int mes = 1; mes <= 12; mes++) {
+            LocalDate inicio = LocalDate.of(2023, mes, 10);
+            arriendos.add(new Arriendo("A" + mes, cliente, auto, inicio, inicio.plusDays(3), 1000, 50000, "Básico"));
+        }
+        return arriendos;
+    }
+
+    private RepositorioSegmentado<Arriendo> abrir() throws Exception {
+        MapaIdentidad mapa = new MapaIdentidad();
+        mapa.registrarClientes(List.of(cliente));
+        mapa.registrarVehiculos(List.of(auto));
+        return RepositorioSegmentado.abrir(directorio, "arriendos", new ArriendoCodec(mapa), Arriendo::getId,
+                Arriendo::getFechaInicio, Arriendo::getFechaFin, ArriendoCodec::filtroPorFechas);
+    }
+
+    @Test
+    void superponeLosCambiosDelDiarioAlRecorrerYAlReabrir() throws Exception {
+        RepositorioSegmentado<Arriendo> repositorio = abrir();
+        repositorio.guardarTodos(unoPorMes2023());
+        repositorio.compactar();
+
+        assertTrue(repositorio.eliminar("A5"));
+        repositorio.guardar(new Arriendo("B1", cliente, auto,
+                LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 2), 1000, 50000, "Premium"));
+
+        try (Stream<Arriendo> resultado = repositorio.stream(LocalDate.of(2023, 4, 1), LocalDate.of(2023, 6, 30))) {
+            assertEquals(List.of("A4", "A6", "B1"), resultado.map(Arriendo::getId).collect(Collectors.toList()));
+        }
+
+        // Sin cerrar: la nueva apertura debe recuperar los cambios desde el diario
+        RepositorioSegmentado<Arriendo> reabierto = abrir();
+        assertEquals(12, reabierto.contar());
+        assertFalse(reabierto.existe("A5"));
+        assertEquals("Premium", reabierto.buscarPorId("B1").orElseThrow().getContratoTipo());
+        assertEquals(LocalDate.of(2023, 9, 10), reabierto.buscarPorId("A9").orElseThrow().getFechaInicio());
+        reabierto.close();
+    }
+}
@@ -0,0 +1,89 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import com.mycompany.drivequestrentals.modelo.*;
+import com.mycompany.drivequestrentals.persistencia.codec.VehiculoCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositorioTest {
+
+    @TempDir
+    Path directorio;
+
+    private static VehiculoPasajeros auto(String patente, String estado) {
+        return new VehiculoPasajeros("V-" + patente, patente, "Toyota", "Yaris", 2020, estado, null, 5);
+    }
+
+    /**
+     * Contrato común: todos los respaldos deben comportarse igual ante la misma secuencia de operaciones.
+     */
+    private void verificarContrato(Repositorio<Vehiculo, String> repositorio) {
+        repositorio.guardar(auto("AA-BB-11", "Disponible"));
+        repositorio.guardarTodos(List.of(auto("CC-DD-22", "Disponible"), auto("EE-FF-33", "Disponible")));
+        repositorio.guardar(auto("AA-BB-11", "Arrendado"));
+
+        assertEquals(3, repositorio.contar());
+        assertEquals("Arrendado", repositorio.buscarPorId("AA-BB-11").orElseThrow().getEstado());
+        assertTrue(repositorio.eliminar("CC-DD-22"));
+        assertFalse(repositorio.eliminar("CC-DD-22"));
+        assertTrue(repositorio.buscarPorId("CC-DD-22").isEmpty());
+        assertEquals(List.of("AA-BB-11", "EE-FF-33"),
+                repositorio.stream().map(Vehiculo::getPatente).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void losTresRespaldosCumplenElMismoContrato() throws Exception {
+        verificarContrato(new RepositorioMemoria<>(Vehiculo::getPatente));
+        try (RepositorioArchivo<Vehiculo, String> archivo =
+                     RepositorioArchivo.abrir(directorio.resolve("vehiculos.dat"), new VehiculoCodec(), Vehiculo::getPatente)) {
+            verificarContrato(archivo);
+        }
+        try (RepositorioMapeado<Vehiculo, String> mapeado =
+                     RepositorioMapeado.abrir(directorio.resolve("vehiculos.mapa"), new VehiculoCodec(), Vehiculo::getPatente)) {
+            verificarContrato(mapeado);
+        }
+    }
+
+    @Test
+    void repositorioArchivoRecuperaElDiarioSinCompactar() throws Exception {
+        Path archivo = directorio.resolve("vehiculos.dat");
+        RepositorioArchivo<Vehiculo, String> repositorio = RepositorioArchivo.abrir(archivo, new VehiculoCodec(), Vehiculo::getPatente);
+        repositorio.guardar(auto("AA-BB-11", "Disponible"));
+        repositorio.guardar(auto("AA-BB-11", "En Mantención"));
+        // Sin cerrar: simula una caída antes de compactar
+
+        RepositorioArchivo<Vehiculo, String> reabierto = RepositorioArchivo.abrir(archivo, new VehiculoCodec(), Vehiculo::getPatente);
+        assertEquals("En Mantención", reabierto.buscarPorId("AA-BB-11").orElseThrow().getEstado());
+        assertEquals(1, reabierto.contar());
+    }
+
+    @Test
+    void repositorioMapeadoCreceReutilizaRanurasYPersiste() throws Exception {
+        Path archivo = directorio.resolve("vehiculos.mapa");
+        try (RepositorioMapeado<Vehiculo, String> repositorio =
+                     RepositorioMapeado.abrir(archivo, new VehiculoCodec(), Vehiculo::getPatente, 256)) {
+            int capacidadInicial = repositorio.getCapacidad();
+            for (int i = 0; i <= capacidadInicial; i++) {
+                repositorio.guardar(auto(String.format("ZZ-%04d", i), "Disponible"));
+            }
+            assertTrue(repositorio.getCapacidad() > capacidadInicial);
+
+            repositorio.eliminar("ZZ-0000");
+            repositorio.guardar(auto("NUEVO-1", "Disponible"));
+            assertEquals(capacidadInicial * 2, repositorio.getCapacidad(), "la ranura liberada se reutiliza");
+        }
+
+        try (RepositorioMapeado<Vehiculo, String> reabierto =
+                     RepositorioMapeado.abrir(archivo, new VehiculoCodec(), Vehiculo::getPatente, 256)) {
+            assertTrue(reabierto.buscarPorId("ZZ-0000").isEmpty());
+            assertTrue(reabierto.existe("NUEVO-1"));
+            assertEquals(reabierto.getCapacidad() / 2 + 1, reabierto.contar());
+        }
+    }
+}
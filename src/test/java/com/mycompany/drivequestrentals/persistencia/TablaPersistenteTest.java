@@ -0,0 +1,55 @@
+package com.mycompany.drivequestrentals.persistencia;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablaPersistenteTest {
+
+    @Test
+    void laInstantaneaNoVeLasEscriturasPosteriores() {
+        TablaPersistente<Integer, String> tabla = new TablaPersistente<>();
+        for (int i = 0; i < 2_000; i++) tabla.put(i, "v" + i);
+
+        Collection<String> antes = tabla.instantanea();
+        tabla.put(5, "cambiado");
+        tabla.remove(6);
+        tabla.put(2_000, "nuevo");
+
+        assertEquals(2_000, antes.size());
+        assertEquals(IntStream.range(0, 2_000).mapToObj(i -> "v" + i).collect(Collectors.toList()), new ArrayList<>(antes));
+        assertEquals("cambiado", tabla.get(5));
+        assertNull(tabla.get(6));
+        assertEquals(2_000, tabla.tamanio());
+    }
+
+    @Test
+    void conservaElOrdenDeInsercionComoUnLinkedHashMap() {
+        TablaPersistente<Integer, Integer> tabla = new TablaPersistente<>();
+        Map<Integer, Integer> esperado = new LinkedHashMap<>();
+        Random azar = new Random(42);
+        // Suficientes operaciones para que el árbol crezca dos niveles y se reconstruya varias veces
+        for (int i = 0; i < 200_000; i++) {
+            int clave = azar.nextInt(50_000);
+            if (azar.nextInt(3) == 0) {
+                assertEquals(esperado.remove(clave) != null, tabla.remove(clave));
+            } else {
+                esperado.put(clave, i);
+                tabla.put(clave, i);
+            }
+        }
+        assertEquals(esperado.size(), tabla.tamanio());
+        assertEquals(new ArrayList<>(esperado.values()), new ArrayList<>(tabla.instantanea()));
+        List<Integer> muestra = new ArrayList<>(esperado.keySet()).subList(0, 100);
+        for (Integer clave : muestra) assertEquals(esperado.get(clave), tabla.get(clave));
+    }
+}
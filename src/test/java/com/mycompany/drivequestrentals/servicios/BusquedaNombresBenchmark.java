@@ -0,0 +1,51 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark manual del índice de búsqueda por nombre.
+ *
+ * <p>Uso: {@code java ... BusquedaNombresBenchmark [clientes]} (por defecto 1000000). Indexa nombres
+ * generados con nombres y apellidos comunes y mide la latencia de consultas por palabra completa,
+ * por prefijo, con varias palabras y con errores de tipeo, pidiendo los 10 mejores.</p>
+ */
+public class BusquedaNombresBenchmark {
+
+    private static final String[] NOMBRES = {"José", "María", "Juan", "Ana", "Luis", "Carmen", "Pedro", "Josefa",
+            "Francisco", "Camila", "Sebastián", "Valentina", "Matías", "Constanza", "Tomás", "Ignacio", "Sofía",
+            "Benjamín", "Martina", "Cristóbal", "Agustín", "Florencia", "Vicente", "Antonia", "Joaquín"};
+    private static final String[] APELLIDOS = {"González", "Muñoz", "Rojas", "Díaz", "Pérez", "Soto", "Contreras",
+            "Silva", "Martínez", "Sepúlveda", "Morales", "Rodríguez", "López", "Fuentes", "Hernández", "Torres",
+            "Araya", "Flores", "Espinoza", "Valenzuela", "Castillo", "Tapia", "Reyes", "Gutiérrez", "Castro",
+            "Pizarro", "Álvarez", "Vásquez", "Sánchez", "Fernández", "Ramírez", "Carrasco", "Gómez", "Cortés"};
+    private static final List<String> CONSULTAS = List.of("gonzalez", "gon", "ma", "jose gonzalez munoz",
+            "maria pe", "Sepulbeda", "valentina castiyo", "ignacio zzz");
+
+    public static void main(String[] args) {
+        int clientes = args.length == 0 ? 1_000_000 : Integer.parseInt(args[0]);
+        Random azar = new Random(42);
+        IndiceTexto indice = new IndiceTexto();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < clientes; i++) {
+            // Un sufijo numérico en el segundo apellido agranda el vocabulario como en datos reales
+            String nombre = NOMBRES[azar.nextInt(NOMBRES.length)] + " " + APELLIDOS[azar.nextInt(APELLIDOS.length)]
+                    + " " + APELLIDOS[azar.nextInt(APELLIDOS.length)] + (i % 50);
+            indice.agregar("C" + i, nombre);
+        }
+        System.out.printf("Indexados %d nombres en %.0f ms%n", indice.tamanio(), (System.nanoTime() - inicio) / 1e6);
+
+        int repeticiones = 2_000;
+        for (int vuelta = 0; vuelta < 2; vuelta++) { // la primera vuelta calienta el JIT
+            for (String consulta : CONSULTAS) {
+                int encontrados = 0;
+                inicio = System.nanoTime();
+                for (int r = 0; r < repeticiones; r++) {
+                    encontrados = indice.buscar(consulta, 10).size();
+                }
+                double micros = (System.nanoTime() - inicio) / 1e3 / repeticiones;
+                if (vuelta == 1) System.out.printf("%-22s %2d resultados  %8.1f us%n", consulta, encontrados, micros);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.Reserva;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Benchmark manual del calendario de ocupación contra las revisiones de solapamiento en las agendas
+ * de reservas.
+ *
+ * <p>Uso: {@code java ... CalendarioBenchmark [vehiculos] [reservasPorVehiculo]} (por defecto
+ * 50000 y 4).</p>
+ */
+public class CalendarioBenchmark {
+
+    private static final LocalDate INICIO = LocalDate.of(2025, 1, 1);
+    private static final int DIAS = 180;
+
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int reservasPorVehiculo = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Random azar = new Random(42);
+
+        String[] patentes = new String[cantidad];
+        for (int i = 0; i < cantidad; i++) patentes[i] = "PT-" + (100_000 + i);
+        CalendarioOcupacion calendario = new CalendarioOcupacion(INICIO);
+        ReservaService reservas = new ReservaService(new RepositorioMemoria<>(Reserva::getCodigoReserva), null, calendario);
+        List<Reserva> todas = new ArrayList<>();
+        long t0 = System.nanoTime();
+        int codigo = 0;
+        for (String patente : patentes) {
+            LocalDateTime dia = INICIO.atStartOfDay();
+            for (int r = 0; r < reservasPorVehiculo; r++) {
+                dia = dia.plusDays(1 + azar.nextInt(DIAS / reservasPorVehiculo / 2));
+                LocalDateTime fin = dia.plusDays(1 + azar.nextInt(DIAS / reservasPorVehiculo / 2));
+                Reserva reserva = new Reserva("R" + codigo++, "11111111-1", patente, dia, fin, true);
+                reservas.registrarReserva(reserva);
+                todas.add(reserva);
+                dia = fin;
+            }
+        }
+        System.out.printf("%d reservas de %d vehículos cargadas en %d ms%n",
+                codigo, cantidad, (System.nanoTime() - t0) / 1_000_000);
+
+        LocalDate desde = INICIO.plusDays(60);
+        LocalDate hasta = desde.plusDays(14);
+        LocalDateTime inicio = desde.atStartOfDay();
+        LocalDateTime fin = hasta.atStartOfDay();
+
+        medir("libres, agendas", () -> {
+            int libres = 0;
+            for (String patente : patentes) if (reservas.estaLibre(patente, inicio, fin)) libres++;
+            return libres;
+        });
+        medir("libres, filas del calendario", () -> {
+            int libres = 0;
+            for (String patente : patentes) if (calendario.estaLibre(patente, desde, hasta)) libres++;
+            return libres;
+        });
+        medir("ocupados, OR de columnas", () -> calendario.contarOcupados(desde, hasta));
+
+        medir("ocupación diaria, recorrido", () -> {
+            int[] ocupados = new int[DIAS];
+            for (String patente : patentes) {
+                for (int d = 0; d < DIAS; d++) {
+                    LocalDateTime dia = INICIO.plusDays(d).atStartOfDay();
+                    if (!reservas.estaLibre(patente, dia, dia.plusDays(1))) ocupados[d]++;
+                }
+            }
+            return ocupados[90];
+        });
+        medir("ocupación diaria, scan reservas", () -> {
+            int[] ocupados = new int[DIAS];
+            for (int d = 0; d < DIAS; d++) {
+                LocalDateTime dia = INICIO.plusDays(d).atStartOfDay();
+                LocalDateTime siguiente = dia.plusDays(1);
+                // Un vehículo no tiene reservas solapadas, así que cada una cuenta un vehículo
+                ocupados[d] = (int) todas.stream()
+                        .filter(r -> r.getFechaInicio().isBefore(siguiente) && r.getFechaFin().isAfter(dia))
+                        .count();
+            }
+            return ocupados[90];
+        });
+        medir("ocupación diaria, popcount", () -> calendario.ocupadosPorDia(INICIO, INICIO.plusDays(DIAS))[90]);
+    }
+
+    private static void medir(String nombre, IntSupplier consulta) {
+        int resultado = consulta.getAsInt();
+        // Se repite hasta juntar al menos un segundo
+        int repeticiones = 0;
+        long inicio = System.nanoTime();
+        long transcurrido;
+        do {
+            resultado = consulta.getAsInt();
+            repeticiones++;
+            transcurrido = System.nanoTime() - inicio;
+        } while (transcurrido < 1_000_000_000L);
+        System.out.printf("%-32s resultado %6d %12.1f us%n", nombre, resultado, transcurrido / 1_000.0 / repeticiones);
+    }
+}
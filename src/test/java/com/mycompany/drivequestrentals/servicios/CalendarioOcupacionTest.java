@@ -0,0 +1,68 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.Reserva;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
+import com.mycompany.drivequestrentals.servicios.CalendarioOcupacion.Origen;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CalendarioOcupacionTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 3);
+
+    @Test
+    void quitarConservaLosDiasDeOtrosRegistrosYCuentaPorDia() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion(DIA);
+        calendario.registrar(Origen.RESERVA, "R1", "ab-12-34", DIA, DIA.plusDays(5));
+        calendario.registrar(Origen.ARRIENDO, "A1", "AB-12-34", DIA.plusDays(4), DIA.plusDays(8));
+        calendario.registrar(Origen.RESERVA, "R2", "CD-56-78", DIA.plusDays(2), DIA.plusDays(3));
+
+        assertFalse(calendario.estaLibre("AB-12-34", DIA.plusDays(1), DIA.plusDays(2)));
+        assertTrue(calendario.estaLibre("CD-56-78", DIA, DIA.plusDays(2)));
+        assertTrue(calendario.estaLibre("ZZ-00-00", DIA, DIA.plusDays(30)));
+        assertArrayEquals(new int[]{1, 1, 2, 1, 1, 1}, calendario.ocupadosPorDia(DIA, DIA.plusDays(6)));
+        assertEquals(2, calendario.contarOcupados(DIA, DIA.plusDays(8)));
+
+        // El día 4 lo ocupan los dos registros del vehículo; al quitar la reserva queda ocupado
+        assertTrue(calendario.quitar(Origen.RESERVA, "R1"));
+        assertFalse(calendario.quitar(Origen.RESERVA, "R1"));
+        assertTrue(calendario.estaLibre("AB-12-34", DIA, DIA.plusDays(4)));
+        assertFalse(calendario.estaLibre("AB-12-34", DIA.plusDays(4), DIA.plusDays(5)));
+        assertArrayEquals(new int[]{0, 0, 1, 0, 1, 1}, calendario.ocupadosPorDia(DIA, DIA.plusDays(6)));
+    }
+
+    @Test
+    void avanzarMarcaLosDiasQueEntranAlHorizonte() {
+        CalendarioOcupacion calendario = new CalendarioOcupacion(DIA, 100);
+        LocalDate lejos = calendario.getFin().plusDays(10);
+        calendario.registrar(Origen.RESERVA, "R1", "AB-12-34", DIA.plusDays(1), DIA.plusDays(2));
+        calendario.registrar(Origen.ARRIENDO, "A1", "AB-12-34", lejos, lejos.plusDays(3));
+        assertFalse(calendario.cubre(lejos, lejos.plusDays(3)));
+        assertThrows(IllegalArgumentException.class, () -> calendario.estaLibre("AB-12-34", lejos, lejos.plusDays(3)));
+
+        assertTrue(calendario.avanzarHasta(DIA.plusDays(70)));
+        assertFalse(calendario.avanzarHasta(DIA.plusDays(70)));
+        assertFalse(calendario.cubre(DIA, DIA.plusDays(1)));
+        assertTrue(calendario.cubre(lejos, lejos.plusDays(3)));
+        assertFalse(calendario.estaLibre("AB-12-34", lejos.plusDays(2), lejos.plusDays(3)));
+        assertTrue(calendario.estaLibre("AB-12-34", lejos.plusDays(3), lejos.plusDays(5)));
+        assertArrayEquals(new int[]{0, 1, 1, 1, 0}, calendario.ocupadosPorDia(lejos.minusDays(1), lejos.plusDays(4)));
+    }
+
+    @Test
+    void losServiciosMantienenElCalendario() throws Exception {
+        CalendarioOcupacion calendario = new CalendarioOcupacion(DIA);
+        ReservaService reservas = new ReservaService(new RepositorioMemoria<>(Reserva::getCodigoReserva), null, calendario);
+        // Termina a mediodía, así que ocupa también el día 2
+        reservas.registrarReserva(new Reserva("R1", "11111111-1", "AB-12-34",
+                DIA.plusDays(1).atTime(10, 0), DIA.plusDays(2).atTime(12, 0), false));
+        assertFalse(calendario.estaLibre("AB-12-34", DIA.plusDays(2), DIA.plusDays(3)));
+        assertTrue(calendario.estaLibre("AB-12-34", DIA.plusDays(3), DIA.plusDays(9)));
+
+        assertTrue(reservas.eliminarReserva("R1"));
+        assertTrue(calendario.estaLibre("AB-12-34", DIA, DIA.plusDays(9)));
+    }
+}
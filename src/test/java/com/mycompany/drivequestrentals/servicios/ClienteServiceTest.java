@@ -0,0 +1,277 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.excepciones.ConflictoDeVersionException;
+import com.mycompany.drivequestrentals.modelo.Arriendo;
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.modelo.Pago;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+import com.mycompany.drivequestrentals.persistencia.DiarioCambios;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+import com.mycompany.drivequestrentals.persistencia.MapaIdentidad;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
+import com.mycompany.drivequestrentals.persistencia.codec.ClienteCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClienteServiceTest {
+
+    private static Cliente cliente(String rut, String correo) {
+        return new Cliente("Cliente " + rut, rut, "+56912345678", correo, "Calle 1");
+    }
+
+    @Test
+    void eliminarClientesVehiculosYArriendosNoRompeElHistorial(@TempDir Path directorio) throws Exception {
+        LocalDate hoy = LocalDate.now();
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            ClienteService clientes = new ClienteService(fabrica.clientes());
+            FlotaVehiculosService flota = new FlotaVehiculosService(fabrica.vehiculos());
+            ArriendoService arriendos = new ArriendoService(fabrica.arriendos());
+            Cliente ana = cliente("12.345.678-5", "ana@correo.cl");
+            assertTrue(clientes.registrarCliente(ana));
+            flota.agregarVehiculo(new VehiculoPasajeros("V1", "AA-BB-11", "Kia", "Rio", 2022, "Disponible", null, 5));
+            Arriendo arriendo = arriendos.registrarArriendo(new Arriendo("A1", ana, flota.buscarPorPatente("AA-BB-11"),
+                    hoy.minusDays(1), hoy.plusDays(2), 0, 1000, "Básico"));
+            new PagoService(fabrica.pagos()).registrarPago(arriendo, 1000, "Efectivo");
+
+            assertTrue(clientes.eliminarCliente("12.345.678-5"));
+            assertTrue(flota.eliminarVehiculo("AA-BB-11"));
+        }
+
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            // El constructor recorre los arriendos vigentes, que referencian claves eliminadas
+            ArriendoService arriendos = new ArriendoService(fabrica.arriendos());
+            Arriendo conservado = arriendos.buscarArriendoActivoPorCliente("12.345.678-5");
+            assertEquals("A1", conservado.getId());
+            assertEquals(MapaIdentidad.NO_RESUELTO, conservado.getCliente().getNombreCompleto());
+            assertEquals("AA-BB-11", conservado.getVehiculo().getPatente());
+            assertEquals(1, arriendos.getHistorialArriendos().size());
+            assertEquals(1, new PagoService(fabrica.pagos()).obtenerPagos().size());
+            assertTrue(fabrica.arriendos().eliminar("A1"));
+        }
+
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            List<Pago> pagos = new PagoService(fabrica.pagos()).obtenerPagos();
+            assertEquals(1, pagos.size());
+            assertEquals("A1", pagos.get(0).getArriendo().getId());
+        }
+    }
+
+    @Test
+    void actualizarUnClientePersisteSoloEseCliente(@TempDir Path directorio) throws Exception {
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            ClienteService servicio = new ClienteService(fabrica.clientes());
+            for (int i = 1; i <= 5; i++) servicio.registrarCliente(cliente(i + "-" + i, "c" + i + "@correo.cl"));
+            DiarioCambios<Cliente> diario = new DiarioCambios<>(directorio.resolve("clientes.dat.diario").toString(),
+                    FabricaRepositorios::claveCliente, new ClienteCodec());
+            int antes = diario.contarRegistros();
+
+            Cliente editado = new Cliente(servicio.buscarPorRutOPasaporte("3-3"));
+            editado.setDomicilio("Calle 2");
+            assertTrue(servicio.actualizarCliente(editado));
+            assertEquals(antes + 1, diario.contarRegistros());
+        }
+    }
+
+    @Test
+    void elIndiceDeCorreosSigueAltasCambiosYBajas() {
+        Repositorio<Cliente, String> repositorio = new RepositorioMemoria<>(FabricaRepositorios::claveCliente);
+        repositorio.guardar(cliente("11111111-1", "previo@correo.cl"));
+        ClienteService servicio = new ClienteService(repositorio);
+
+        // Los clientes que ya estaban en el repositorio se indexan al crear el servicio
+        assertEquals("11111111-1", servicio.buscarClientePorCorreo("PREVIO@correo.cl").orElseThrow().getRutOPasaporte());
+
+        assertTrue(servicio.registrarCliente(cliente("12.345.678-5", "ana@correo.cl")));
+        assertTrue(servicio.buscarClientePorCorreo(" Ana@Correo.CL ").isPresent());
+        assertFalse(servicio.registrarCliente(cliente("12.345.678-5", "otra@correo.cl")));
+        assertTrue(servicio.buscarClientePorCorreo("otra@correo.cl").isEmpty());
+
+        Cliente cambiado = cliente("12.345.678-5", "nueva@correo.cl");
+        assertTrue(servicio.actualizarCliente(cambiado));
+        assertTrue(servicio.buscarClientePorCorreo("ana@correo.cl").isEmpty());
+        assertSame(cambiado, servicio.buscarClientePorCorreo("nueva@correo.cl").orElseThrow());
+
+        // Dos clientes con el mismo correo: se retorna el primero mientras exista
+        assertTrue(servicio.registrarCliente(cliente("22222222-2", "nueva@correo.cl")));
+        assertSame(cambiado, servicio.buscarClientePorCorreo("nueva@correo.cl").orElseThrow());
+        assertTrue(servicio.eliminarCliente("12.345.678-5"));
+        assertEquals("22222222-2", servicio.buscarClientePorCorreo("nueva@correo.cl").orElseThrow().getRutOPasaporte());
+
+        // Un cambio de correo en el lugar no deja resultados obsoletos
+        Cliente previo = servicio.buscarPorRutOPasaporte("11111111-1");
+        previo.setCorreo("cambiado@correo.cl");
+        assertTrue(servicio.buscarClientePorCorreo("previo@correo.cl").isEmpty());
+    }
+
+    @Test
+    void actualizarLaInstanciaRegistradaQuitaSuCorreoAnteriorDelIndice() {
+        ClienteService servicio = new ClienteService();
+        assertTrue(servicio.registrarCliente(cliente("11111111-1", "previo@correo.cl")));
+
+        for (int i = 0; i < 10; i++) {
+            Cliente registrado = servicio.buscarPorRutOPasaporte("11111111-1");
+            registrado.setCorreo("cambio" + i + "@correo.cl");
+            assertTrue(servicio.actualizarCliente(registrado));
+        }
+
+        assertEquals(1, servicio.correosIndexados());
+        assertTrue(servicio.buscarClientePorCorreo("previo@correo.cl").isEmpty());
+        assertEquals("11111111-1", servicio.buscarClientePorCorreo("cambio9@correo.cl").orElseThrow().getRutOPasaporte());
+        assertTrue(servicio.eliminarCliente("11111111-1"));
+        assertEquals(0, servicio.correosIndexados());
+    }
+
+    @Test
+    void hilosConcurrentesNoDuplicanNiPierdenActualizaciones() throws Exception {
+        ClienteService servicio = new ClienteService();
+        int hilos = 8, clientes = 500, rondas = 50;
+        List<String> ruts = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) ruts.add("P" + (100000 + i));
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos + 1);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger registrados = new AtomicInteger();
+        AtomicInteger ausentesDuranteActualizacion = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        try {
+            // Todos los hilos intentan registrar los mismos RUT: solo uno por RUT debe lograrlo
+            for (int h = 0; h < hilos; h++) {
+                int hilo = h;
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    for (String rut : ruts) {
+                        if (servicio.registrarCliente(cliente(rut, "h" + hilo + "." + rut + "@correo.cl"))) {
+                            registrados.incrementAndGet();
+                        }
+                    }
+                    // Luego cada hilo actualiza su parte de los clientes varias veces
+                    for (int ronda = 0; ronda < rondas; ronda++) {
+                        for (int i = hilo; i < clientes; i += hilos) {
+                            servicio.actualizarCliente(cliente(ruts.get(i), "r" + ronda + "." + ruts.get(i) + "@correo.cl"));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            // Lector concurrente: un cliente ya registrado nunca debe desaparecer durante una actualización
+            tareas.add(executor.submit(() -> {
+                largada.await();
+                while (registrados.get() < clientes) Thread.onSpinWait();
+                for (int vuelta = 0; vuelta < 200; vuelta++) {
+                    for (String rut : ruts) {
+                        if (servicio.buscarClientePorIdentificador(rut).isEmpty()) ausentesDuranteActualizacion.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+            largada.countDown();
+            for (Future<?> tarea : tareas) tarea.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(clientes, registrados.get());
+        assertEquals(clientes, servicio.obtenerTodosLosClientes().size());
+        assertEquals(0, ausentesDuranteActualizacion.get());
+        String ultima = "r" + (rondas - 1) + ".";
+        for (String rut : ruts) {
+            assertEquals(ultima + rut + "@correo.cl", servicio.buscarPorRutOPasaporte(rut).getCorreo());
+            assertEquals(rut, servicio.buscarClientePorCorreo(ultima + rut + "@correo.cl").orElseThrow().getRutOPasaporte());
+            assertTrue(servicio.buscarClientePorCorreo("r0." + rut + "@correo.cl").isEmpty());
+        }
+    }
+
+    @Test
+    void buscaPorNombreSinTildesPorPrefijoYConErroresDeTipeo() {
+        ClienteService servicio = new ClienteService();
+        servicio.registrarCliente(new Cliente("José González Muñoz", "11111111-1", "+56911111111", "jose@correo.cl", "Av. Providencia 100"));
+        servicio.registrarCliente(new Cliente("Josefina Gómez", "22222222-2", "+56922222222", "josefina@correo.cl", "Ñuñoa 200"));
+        servicio.registrarCliente(new Cliente("María Jose Pérez", "33333333-3", "+56933333333", "maria@correo.cl", "Calle Larga 300"));
+
+        // Coincidencia exacta antes que por prefijo
+        List<String> jose = ruts(servicio.buscarPorNombre("JOSE", 10));
+        assertEquals(Set.of("11111111-1", "33333333-3"), Set.copyOf(jose.subList(0, 2)));
+        assertEquals("22222222-2", jose.get(2));
+        assertEquals(List.of("11111111-1"), ruts(servicio.buscarPorNombre("jose gonz", 10)));
+        assertEquals(List.of("11111111-1"), ruts(servicio.buscarPorNombre("munoz", 10)));
+        assertEquals(List.of("11111111-1"), ruts(servicio.buscarPorNombre("Gonzales", 10)));
+        assertEquals(1, servicio.buscarPorNombre("jose", 1).size());
+        assertTrue(servicio.buscarPorNombre("rodriguez", 10).isEmpty());
+        assertEquals(List.of("22222222-2"), ruts(servicio.buscarPorDomicilio("nunoa", 10)));
+
+        // El índice sigue a las actualizaciones y bajas
+        servicio.actualizarCliente(new Cliente("José Rodríguez", "11111111-1", "+56911111111", "jose@correo.cl", "Av. Providencia 100"));
+        assertTrue(servicio.buscarPorNombre("munoz", 10).isEmpty());
+        assertEquals(List.of("11111111-1"), ruts(servicio.buscarPorNombre("rodriguez", 10)));
+        servicio.eliminarCliente("33333333-3");
+        assertEquals(List.of("11111111-1", "22222222-2"), ruts(servicio.buscarPorNombre("jose", 10)));
+        assertTrue(servicio.buscarPorNombre("perez", 10).isEmpty());
+    }
+
+    @Test
+    void elIndiceDeNombresNoCreceConLasBajas() {
+        IndiceTexto indice = new IndiceTexto();
+        indice.agregar("fijo-1", "Ana Rojas");
+        indice.agregar("fijo-2", "Ana Rosales");
+        for (int i = 0; i < 10_000; i++) {
+            indice.agregar("temporal-" + i, "Ana Temporal " + i);
+            indice.quitar("temporal-" + i);
+        }
+        indice.agregar("fijo-3", "Ana Robles");
+
+        // Los números de las bajas se recuperan al renumerar; el orden de alta se conserva
+        assertTrue(indice.numerosAsignados() <= 2 * 64 + 3, "números asignados: " + indice.numerosAsignados());
+        assertEquals(3, indice.tamanio());
+        assertEquals(List.of("fijo-1", "fijo-2", "fijo-3"), claves(indice.buscar("ana ro", 10)));
+        assertEquals(List.of("fijo-1", "fijo-2", "fijo-3"), claves(indice.buscar("ana", 10)));
+        assertEquals(List.of("fijo-2"), claves(indice.buscar("rosales", 10)));
+        assertTrue(indice.buscar("temporal", 10).isEmpty());
+    }
+
+    private static List<String> claves(List<IndiceTexto.Resultado> resultados) {
+        return resultados.stream().map(r -> r.clave).toList();
+    }
+
+    @Test
+    void laActualizacionPorVersionRechazaCambiosSobreUnaVersionVieja() throws Exception {
+        ClienteService servicio = new ClienteService();
+        servicio.registrarCliente(cliente("11111111-1", "ana@correo.cl"));
+        Cliente registrado = servicio.buscarPorRutOPasaporte("11111111-1");
+
+        // Dos operadores editan copias leídas en la misma versión
+        Cliente primero = new Cliente(registrado);
+        Cliente segundo = new Cliente(registrado);
+        primero.setTelefono("+56900000001");
+        segundo.setTelefono("+56900000002");
+        assertTrue(servicio.actualizarCliente(primero, registrado.getVersion()));
+        assertEquals(registrado.getVersion() + 1, servicio.buscarPorRutOPasaporte("11111111-1").getVersion());
+
+        ConflictoDeVersionException conflicto = assertThrows(ConflictoDeVersionException.class,
+                () -> servicio.actualizarCliente(segundo, segundo.getVersion()));
+        assertEquals(primero.getVersion(), conflicto.getVersionActual());
+        assertEquals("+56900000001", servicio.buscarPorRutOPasaporte("11111111-1").getTelefono());
+
+        // Releyendo la versión vigente el segundo operador puede confirmar
+        assertTrue(servicio.actualizarCliente(segundo, primero.getVersion()));
+        assertFalse(servicio.actualizarCliente(cliente("99999999-9", "x@correo.cl"), 0));
+    }
+
+    private static List<String> ruts(List<Cliente> clientes) {
+        return clientes.stream().map(Cliente::getRutOPasaporte).toList();
+    }
+}
@@ -0,0 +1,112 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.Arriendo;
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.modelo.Reserva;
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark manual de la búsqueda de disponibilidad sobre una flota grande con su calendario.
+ *
+ * <p>Uso: {@code java ... DisponibilidadBenchmark [vehiculos] [reservasPorVehiculo]} (por defecto
+ * 50000 y 4, más un arriendo por cada dos vehículos).</p>
+ */
+public class DisponibilidadBenchmark {
+
+    private static final LocalDate INICIO = LocalDate.of(2025, 1, 1);
+    private static final int DIAS = 90;
+
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int reservasPorVehiculo = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Random azar = new Random(42);
+
+        long t0 = System.nanoTime();
+        FlotaVehiculosService flota = new FlotaVehiculosService();
+        for (int i = 0; i < cantidad; i++) {
+            String patente = String.format("PT-%06d", i);
+            Vehiculo vehiculo = i % 2 == 0
+                    ? new VehiculoCarga("V" + i, patente, "Volvo", "FH", 2020, "Disponible", null, 500 + azar.nextInt(40) * 250)
+                    : new VehiculoPasajeros("V" + i, patente, "Kia", "Rio", 2020, "Disponible", null, 2 + azar.nextInt(14));
+            vehiculo.setPrecioDiario(20_000 + azar.nextInt(200) * 500);
+            flota.agregarVehiculo(vehiculo);
+            if (azar.nextInt(20) == 0) flota.cambiarEstado(patente, "En Mantención");
+        }
+
+        ReservaService reservas = new ReservaService();
+        int codigo = 0;
+        for (int i = 0; i < cantidad; i++) {
+            String patente = String.format("PT-%06d", i);
+            LocalDate dia = INICIO;
+            for (int r = 0; r < reservasPorVehiculo; r++) {
+                dia = dia.plusDays(1 + azar.nextInt(DIAS / reservasPorVehiculo / 2));
+                LocalDate fin = dia.plusDays(1 + azar.nextInt(DIAS / reservasPorVehiculo / 2));
+                reservas.registrarReserva(new Reserva("R" + codigo++, "11111111-1", patente,
+                        dia.atStartOfDay(), fin.atStartOfDay(), true));
+                dia = fin;
+            }
+        }
+
+        Cliente cliente = new Cliente("Ana Pérez", "11111111-1", "+56911111111", "ana@correo.cl", "Calle 1");
+        Repositorio<Arriendo, String> historial = new RepositorioMemoria<>(Arriendo::getId);
+        for (int i = 0; i < cantidad; i += 2) {
+            LocalDate dia = INICIO.plusDays(azar.nextInt(DIAS));
+            historial.guardar(new Arriendo("A" + i, cliente, flota.buscarPorPatente(String.format("PT-%06d", i + 1)),
+                    dia, dia.plusDays(1 + azar.nextInt(10)), 0, 1000, "Básico"));
+        }
+        ArriendoService arriendos = new ArriendoService(historial);
+        DisponibilidadService disponibilidad = new DisponibilidadService(flota, reservas, arriendos);
+        System.out.printf("Flota de %d vehículos, %d reservas y %d arriendos cargada en %d ms%n",
+                cantidad, codigo, historial.contar(), (System.nanoTime() - t0) / 1_000_000);
+
+        LocalDate desde = INICIO.plusDays(30);
+        LocalDate hasta = desde.plusDays(7);
+        medir("carga >= 1000 kg", () -> disponibilidad.buscar(new DisponibilidadService.Consulta(desde, hasta)
+                .tipo(VehiculoCarga.class).capacidadMinima(1000)));
+        medir("carga >= 10000 kg", () -> disponibilidad.buscar(new DisponibilidadService.Consulta(desde, hasta)
+                .tipo(VehiculoCarga.class).capacidadMinima(10_000)));
+        medir("pasajeros >= 15", () -> disponibilidad.buscar(new DisponibilidadService.Consulta(desde, hasta)
+                .pasajerosMinimos(15)));
+        medir("pasajeros >= 8, <= 60000", () -> disponibilidad.buscar(new DisponibilidadService.Consulta(desde, hasta)
+                .pasajerosMinimos(8).precioMaximo(60_000)));
+        medir("cualquiera, 50 resultados", () -> disponibilidad.buscar(new DisponibilidadService.Consulta(desde, hasta)
+                .limite(50)));
+        medir("recorrido completo (referencia)", () -> recorrerFlota(flota, reservas, arriendos, desde, hasta));
+    }
+
+    /**
+     * Lo que habría que hacer sin índices: revisar cada vehículo de la flota.
+     */
+    private static List<Vehiculo> recorrerFlota(FlotaVehiculosService flota, ReservaService reservas,
+                                                ArriendoService arriendos, LocalDate desde, LocalDate hasta) {
+        return flota.vistaVehiculos().stream()
+                .filter(v -> v instanceof VehiculoCarga && ((VehiculoCarga) v).getCapacidadCarga() >= 1000)
+                .filter(v -> !"En Mantención".equals(v.getEstado()))
+                .filter(v -> arriendos.estaLibre(v.getPatente(), desde, hasta)
+                        && reservas.estaLibre(v.getPatente(), desde.atStartOfDay(), hasta.atStartOfDay()))
+                .sorted(java.util.Comparator.comparingDouble(Vehiculo::getPrecioDiario)
+                        .thenComparingDouble(v -> ((VehiculoCarga) v).getCapacidadCarga())
+                        .thenComparing(Vehiculo::getPatente))
+                .limit(20)
+                .collect(java.util.stream.Collectors.toList());
+    }
+
+    private static void medir(String nombre, Supplier<List<Vehiculo>> consulta) {
+        int repeticiones = 200;
+        int resultados = 0;
+        for (int i = 0; i < repeticiones / 4; i++) resultados = consulta.get().size();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < repeticiones; i++) resultados = consulta.get().size();
+        double micros = (System.nanoTime() - inicio) / 1_000.0 / repeticiones;
+        System.out.printf("%-32s %3d resultados %10.1f us%n", nombre, resultados, micros);
+    }
+}
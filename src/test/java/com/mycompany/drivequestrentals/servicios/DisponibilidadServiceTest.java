@@ -0,0 +1,118 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.Arriendo;
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.modelo.EstadoVehiculo;
+import com.mycompany.drivequestrentals.modelo.Reserva;
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DisponibilidadServiceTest {
+
+    private static final LocalDate DIA_3 = LocalDate.of(2025, 3, 3);
+    private static final LocalDate DIA_10 = LocalDate.of(2025, 3, 10);
+
+    @Test
+    void combinaAtributosReservasYArriendosYOrdenaPorConveniencia() throws Exception {
+        FlotaVehiculosService flota = new FlotaVehiculosService();
+        ReservaService reservas = new ReservaService();
+        ArriendoService arriendos = new ArriendoService();
+        DisponibilidadService disponibilidad = new DisponibilidadService(flota, reservas, arriendos);
+
+        flota.agregarVehiculo(carga("CA-00-01", 800, 50));
+        flota.agregarVehiculo(carga("CA-00-02", 1200, 60));
+        flota.agregarVehiculo(carga("CA-00-03", 5000, 60));
+        flota.agregarVehiculo(carga("CA-00-04", 1500, 40));
+        flota.agregarVehiculo(carga("CA-00-05", 2000, 45));
+        flota.agregarVehiculo(carga("CA-00-06", 3000, 30));
+        VehiculoPasajeros auto = new VehiculoPasajeros("P1", "PA-00-01", "Kia", "Rio", 2022, "Disponible", null, 5);
+        auto.setPrecioDiario(20);
+        flota.agregarVehiculo(auto);
+
+        // Reservada en medio del rango
+        reservas.registrarReserva(new Reserva("R1", "11111111-1", "CA-00-04",
+                DIA_3.plusDays(4).atStartOfDay(), DIA_3.plusDays(5).atStartOfDay(), true));
+        // Se devuelve el día 3, así que queda libre desde ese día
+        Cliente cliente = new Cliente("Ana Pérez", "11111111-1", "+56911111111", "ana@correo.cl", "Calle 1");
+        arriendos.registrarArriendo(new Arriendo("A1", cliente, flota.buscarPorPatente("CA-00-05"),
+                DIA_3.minusDays(5), DIA_3, 0, 1000, "Básico"));
+        flota.cambiarEstado("CA-00-06", EstadoVehiculo.EN_MANTENCION);
+
+        List<Vehiculo> furgones = disponibilidad.buscar(new DisponibilidadService.Consulta(DIA_3, DIA_10)
+                .tipo(VehiculoCarga.class).capacidadMinima(1000));
+        assertEquals(List.of("CA-00-05", "CA-00-02", "CA-00-03"), patentes(furgones));
+
+        List<Vehiculo> baratos = disponibilidad.buscar(new DisponibilidadService.Consulta(DIA_3, DIA_10).limite(2));
+        assertEquals(List.of("PA-00-01", "CA-00-05"), patentes(baratos));
+
+        // Un arriendo que ocupa el día 9 saca al vehículo del resultado
+        arriendos.registrarArriendo(new Arriendo("A2", cliente, flota.buscarPorPatente("CA-00-02"),
+                DIA_10.minusDays(1), DIA_10.plusDays(3), 0, 1000, "Básico"));
+        assertEquals(List.of("CA-00-05", "CA-00-03"), patentes(disponibilidad.buscar(
+                new DisponibilidadService.Consulta(DIA_3, DIA_10).capacidadMinima(1000).precioMaximo(60))));
+    }
+
+    @Test
+    void elDiaDeDevolucionNoCuentaComoArriendoVigente() throws Exception {
+        FlotaVehiculosService flota = new FlotaVehiculosService();
+        ArriendoService arriendos = new ArriendoService();
+        DisponibilidadService disponibilidad = new DisponibilidadService(flota, new ReservaService(), arriendos);
+        flota.agregarVehiculo(carga("CA-00-01", 800, 50));
+        flota.agregarVehiculo(carga("CA-00-02", 800, 60));
+        LocalDate hoy = LocalDate.now();
+        Cliente ana = new Cliente("Ana Pérez", "11111111-1", "+56911111111", "ana@correo.cl", "Calle 1");
+        Cliente luis = new Cliente("Luis Soto", "22222222-2", "+56922222222", "luis@correo.cl", "Calle 2");
+
+        // Se devuelve hoy: ni está vigente ni ocupa el vehículo
+        arriendos.registrarArriendo(new Arriendo("A1", ana, flota.buscarPorPatente("CA-00-01"),
+                hoy.minusDays(5), hoy, 0, 1000, "Básico"));
+        // Comienza hoy: está vigente y ocupa el vehículo
+        Arriendo vigente = new Arriendo("A2", luis, flota.buscarPorPatente("CA-00-02"), hoy, hoy.plusDays(2), 0, 1000, "Básico");
+        arriendos.registrarArriendo(vigente);
+
+        assertNull(arriendos.buscarArriendoActivoPorCliente("11111111-1"));
+        assertSame(vigente, arriendos.buscarArriendoActivoPorCliente("22222222-2"));
+        assertEquals(List.of("CA-00-01"), patentes(disponibilidad.buscar(new DisponibilidadService.Consulta(hoy, hoy.plusDays(1)))));
+    }
+
+    @Test
+    void laUtilizacionNoCuentaVehiculosEliminados() throws Exception {
+        CalendarioOcupacion calendario = new CalendarioOcupacion(DIA_3);
+        FlotaVehiculosService flota = new FlotaVehiculosService(
+                new RepositorioMemoria<>(FabricaRepositorios::claveVehiculo), calendario);
+        ReservaService reservas = new ReservaService(new RepositorioMemoria<>(Reserva::getCodigoReserva), null, calendario);
+        DisponibilidadService disponibilidad = new DisponibilidadService(flota, reservas,
+                new ArriendoService(new RepositorioMemoria<>(Arriendo::getId), calendario), calendario);
+        flota.agregarVehiculo(carga("CA-00-01", 800, 50));
+        flota.agregarVehiculo(carga("CA-00-02", 800, 50));
+        reservas.registrarReserva(new Reserva("R1", "11111111-1", "CA-00-01",
+                DIA_3.atStartOfDay(), DIA_3.plusDays(2).atStartOfDay(), true));
+        reservas.registrarReserva(new Reserva("R2", "11111111-1", "CA-00-02",
+                DIA_3.atStartOfDay(), DIA_3.plusDays(1).atStartOfDay(), true));
+        assertArrayEquals(new double[]{1.0, 0.5}, disponibilidad.utilizacionPorDia(DIA_3, DIA_3.plusDays(2)));
+
+        assertTrue(flota.eliminarVehiculo("CA-00-01"));
+        assertArrayEquals(new double[]{1.0, 0.0}, disponibilidad.utilizacionPorDia(DIA_3, DIA_3.plusDays(2)));
+        assertTrue(calendario.estaLibre("CA-00-01", DIA_3, DIA_3.plusDays(2)));
+    }
+
+    private static VehiculoCarga carga(String patente, double capacidad, double precio) {
+        VehiculoCarga vehiculo = new VehiculoCarga("V-" + patente, patente, "Volvo", "FH", 2020, "Disponible", null, capacidad);
+        vehiculo.setPrecioDiario(precio);
+        return vehiculo;
+    }
+
+    private static List<String> patentes(List<Vehiculo> vehiculos) {
+        return vehiculos.stream().map(Vehiculo::getPatente).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,138 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark manual de contención sobre la flota: muchos lectores consultando disponibilidad por
+ * patente mientras unos pocos escritores cambian estados, agregan y eliminan vehículos.
+ *
+ * <p>Uso: {@code java ... FlotaContencionBenchmark [vehiculos] [segundos]} (por defecto 5000 y 3).
+ * Se compara el servicio con una lista sincronizada recorrida por patente, como se hacía antes
+ * de indexar la flota en el repositorio.</p>
+ */
+public class FlotaContencionBenchmark {
+
+    private static final int LECTORES = 32;
+    private static final int ESCRITORES = 4;
+
+    /** Operaciones que se miden sobre cada implementación. */
+    private interface Flota {
+        Vehiculo buscar(String patente);
+        boolean agregar(Vehiculo vehiculo);
+        boolean eliminar(String patente);
+        void cambiarEstado(String patente, String estado);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        FlotaVehiculosService servicio = new FlotaVehiculosService();
+        medir("servicio indexado", cantidad, segundos, new Flota() {
+            public Vehiculo buscar(String patente) { return servicio.buscarPorPatente(patente); }
+            public boolean agregar(Vehiculo vehiculo) { return servicio.agregarVehiculo(vehiculo); }
+            public boolean eliminar(String patente) { return servicio.eliminarVehiculo(patente); }
+            public void cambiarEstado(String patente, String estado) { servicio.cambiarEstado(patente, estado); }
+        });
+
+        List<Vehiculo> lista = Collections.synchronizedList(new ArrayList<>());
+        medir("lista sincronizada", cantidad, segundos, new Flota() {
+            public Vehiculo buscar(String patente) {
+                synchronized (lista) {
+                    return lista.stream().filter(v -> v.getPatente().equalsIgnoreCase(patente)).findFirst().orElse(null);
+                }
+            }
+            public boolean agregar(Vehiculo vehiculo) {
+                synchronized (lista) {
+                    if (buscar(vehiculo.getPatente()) != null) return false;
+                    return lista.add(vehiculo);
+                }
+            }
+            public boolean eliminar(String patente) {
+                return lista.removeIf(v -> v.getPatente().equalsIgnoreCase(patente));
+            }
+            public void cambiarEstado(String patente, String estado) {
+                synchronized (lista) {
+                    Vehiculo vehiculo = buscar(patente);
+                    if (vehiculo != null) vehiculo.setEstado(estado);
+                }
+            }
+        });
+    }
+
+    private static void medir(String nombre, int cantidad, int segundos, Flota flota) throws Exception {
+        for (int i = 0; i < cantidad; i++) flota.agregar(vehiculo(i));
+
+        AtomicBoolean detener = new AtomicBoolean();
+        LongAdder lecturas = new LongAdder();
+        LongAdder escrituras = new LongAdder();
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> hilos = new ArrayList<>();
+        for (int h = 0; h < LECTORES; h++) {
+            hilos.add(new Thread(() -> {
+                esperar(largada);
+                ThreadLocalRandom azar = ThreadLocalRandom.current();
+                long disponibles = 0;
+                while (!detener.get()) {
+                    Vehiculo vehiculo = flota.buscar(patente(azar.nextInt(cantidad)).toLowerCase());
+                    if (vehiculo != null && vehiculo.isDisponible()) disponibles++;
+                    lecturas.increment();
+                }
+                if (disponibles < 0) System.out.println(disponibles);
+            }, "lector-" + h));
+        }
+        for (int h = 0; h < ESCRITORES; h++) {
+            int escritor = h;
+            hilos.add(new Thread(() -> {
+                esperar(largada);
+                ThreadLocalRandom azar = ThreadLocalRandom.current();
+                int siguiente = cantidad + escritor * 10_000_000;
+                while (!detener.get()) {
+                    if (escritor == 0) {
+                        // Alta y baja de un vehículo nuevo
+                        Vehiculo nuevo = vehiculo(siguiente++);
+                        flota.agregar(nuevo);
+                        flota.eliminar(nuevo.getPatente());
+                    } else {
+                        flota.cambiarEstado(patente(azar.nextInt(cantidad)), azar.nextBoolean() ? "Disponible" : "Arrendado");
+                    }
+                    escrituras.increment();
+                }
+            }, "escritor-" + h));
+        }
+        hilos.forEach(Thread::start);
+        largada.countDown();
+        Thread.sleep(segundos * 1000L);
+        detener.set(true);
+        for (Thread hilo : hilos) hilo.join();
+
+        System.out.printf("%-20s %d lectores, %d escritores, %d vehículos: %,.0f lecturas/s, %,.0f escrituras/s%n",
+                nombre, LECTORES, ESCRITORES, cantidad, lecturas.sum() / (double) segundos,
+                escrituras.sum() / (double) segundos);
+    }
+
+    private static Vehiculo vehiculo(int i) {
+        return new VehiculoPasajeros("V" + i, patente(i), "Kia", "Rio", 2022, "Disponible", null, 5);
+    }
+
+    private static String patente(int i) {
+        return String.format("PT-%08d", i);
+    }
+
+    private static void esperar(CountDownLatch largada) {
+        try {
+            largada.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.excepciones.ConflictoDeVersionException;
+import com.mycompany.drivequestrentals.modelo.EstadoVehiculo;
+import com.mycompany.drivequestrentals.modelo.Vehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+import com.mycompany.drivequestrentals.persistencia.DiarioCambios;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
+import com.mycompany.drivequestrentals.persistencia.codec.VehiculoCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlotaVehiculosServiceTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void indexaPorEstadoYTipoYValidaLasTransiciones() {
+        FlotaVehiculosService servicio = new FlotaVehiculosService();
+        servicio.agregarVehiculos(List.of(
+                new VehiculoCarga("V1", "AA-BB-11", "Volvo", "FH", 2019, "Disponible", null, 18000),
+                new VehiculoCarga("V2", "CC-DD-22", "Scania", "R450", 2020, "disponible", null, 20000),
+                new VehiculoPasajeros("V3", "EE-FF-33", "Kia", "Rio", 2022, "Disponible", null, 5)));
+
+        assertTrue(servicio.setDisponible("cc-dd-22", false));
+        assertEquals(Set.of("AA-BB-11"), patentes(servicio.listarPorEstado(EstadoVehiculo.DISPONIBLE, VehiculoCarga.class)));
+        assertEquals(Set.of("AA-BB-11", "EE-FF-33"), patentes(servicio.listarPorEstado(EstadoVehiculo.DISPONIBLE)));
+
+        assertTrue(servicio.cambiarEstado("CC-DD-22", "en mantencion"));
+        assertEquals(EstadoVehiculo.EN_MANTENCION, servicio.buscarPorPatente("CC-DD-22").getEstadoVehiculo());
+        assertEquals("En Mantención", servicio.buscarPorPatente("CC-DD-22").getEstado());
+        // Desde mantención solo se puede volver a disponible
+        assertThrows(IllegalStateException.class, () -> servicio.cambiarEstado("CC-DD-22", EstadoVehiculo.ARRENDADO));
+        assertThrows(IllegalArgumentException.class, () -> servicio.cambiarEstado("CC-DD-22", "Reservado"));
+        assertEquals(1, servicio.contarPorEstado(EstadoVehiculo.EN_MANTENCION));
+        assertEquals(0, servicio.contarPorEstado(EstadoVehiculo.ARRENDADO));
+
+        assertTrue(servicio.eliminarVehiculo("AA-BB-11"));
+        assertTrue(servicio.listarPorEstado(EstadoVehiculo.DISPONIBLE, VehiculoCarga.class).isEmpty());
+    }
+
+    @Test
+    void unVehiculoArrendadoNoSePuedeVolverAArrendar() throws Exception {
+        FlotaVehiculosService servicio = new FlotaVehiculosService();
+        servicio.agregarVehiculo(new VehiculoPasajeros("V1", "AA-BB-11", "Kia", "Rio", 2022, "Disponible", null, 5));
+        long leida = servicio.buscarPorPatente("AA-BB-11").getVersion();
+
+        assertTrue(servicio.cambiarEstado("AA-BB-11", EstadoVehiculo.ARRENDADO, leida));
+        // Un segundo operador que leyó la misma versión no puede confirmar otro arriendo
+        assertThrows(ConflictoDeVersionException.class,
+                () -> servicio.cambiarEstado("AA-BB-11", EstadoVehiculo.ARRENDADO, leida));
+        assertThrows(IllegalStateException.class, () -> servicio.setDisponible("AA-BB-11", false));
+        assertEquals(1, servicio.contarPorEstado(EstadoVehiculo.ARRENDADO));
+    }
+
+    @Test
+    void siElRepositorioFallaElVehiculoConservaSuEstado() {
+        AtomicBoolean fallar = new AtomicBoolean();
+        Repositorio<Vehiculo, String> repositorio = new RepositorioMemoria<>(FabricaRepositorios::claveVehiculo) {
+            @Override
+            public synchronized void guardar(Vehiculo vehiculo) {
+                if (fallar.get()) throw new UncheckedIOException(new IOException("disco lleno"));
+                super.guardar(vehiculo);
+            }
+        };
+        FlotaVehiculosService servicio = new FlotaVehiculosService(repositorio);
+        servicio.agregarVehiculo(new VehiculoPasajeros("V1", "AA-BB-11", "Kia", "Rio", 2022, "Disponible", null, 5));
+        Vehiculo vehiculo = servicio.buscarPorPatente("AA-BB-11");
+        long version = vehiculo.getVersion();
+
+        fallar.set(true);
+        assertThrows(UncheckedIOException.class, () -> servicio.cambiarEstado("AA-BB-11", EstadoVehiculo.ARRENDADO));
+        assertEquals(EstadoVehiculo.DISPONIBLE, vehiculo.getEstadoVehiculo());
+        assertEquals(version, vehiculo.getVersion());
+        assertEquals(1, servicio.contarPorEstado(EstadoVehiculo.DISPONIBLE));
+    }
+
+    @Test
+    void losCambiosDeAtributosMuevenLaPatenteEnLosIndices() {
+        FlotaVehiculosService servicio = new FlotaVehiculosService();
+        servicio.agregarVehiculos(List.of(
+                new VehiculoCarga("V1", "AA-BB-11", "Volvo", "FH", 2019, "Disponible", null, 18000),
+                new VehiculoPasajeros("V2", "CC-DD-22", "Kia", "Rio", 2022, "Disponible", null, 5)));
+        IndiceAtributos indice = servicio.getIndiceAtributos();
+
+        assertTrue(servicio.setPrecioDiario("aa-bb-11", 90000));
+        assertTrue(servicio.setCapacidadCarga("AA-BB-11", 25000));
+        assertTrue(servicio.setNumeroPasajeros("CC-DD-22", 7));
+        assertEquals(Set.of("AA-BB-11"), indice.porPrecio().get(90000.0));
+        assertEquals(Set.of("AA-BB-11"), indice.porCapacidad().get(25000.0));
+        // Los valores que ya nadie tiene no quedan como conjuntos vacíos
+        assertFalse(indice.porCapacidad().containsKey(18000.0));
+        assertFalse(indice.porPasajeros().containsKey(5));
+        assertEquals(Set.of("CC-DD-22"), indice.porPasajeros().get(7));
+
+        assertThrows(IllegalArgumentException.class, () -> servicio.setCapacidadCarga("CC-DD-22", 100));
+        assertThrows(IllegalArgumentException.class, () -> servicio.setPrecioDiario("AA-BB-11", -1));
+        assertEquals(90000, servicio.buscarPorPatente("AA-BB-11").getPrecioDiario());
+        assertFalse(servicio.setPrecioDiario("ZZ-ZZ-99", 1000));
+
+        assertTrue(servicio.eliminarVehiculo("AA-BB-11"));
+        assertFalse(indice.porPrecio().containsKey(90000.0));
+        assertTrue(indice.porCapacidad().isEmpty());
+    }
+
+    @Test
+    void reconstruyeElIndiceDesdeUnaFlotaMapeada() throws Exception {
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.MAPEADO, directorio)) {
+            FlotaVehiculosService servicio = new FlotaVehiculosService(fabrica.vehiculos());
+            servicio.agregarVehiculo(new VehiculoCarga("V1", "AA-BB-11", "Volvo", "FH", 2019, "Disponible", null, 18000));
+            servicio.agregarVehiculo(new VehiculoPasajeros("V2", "CC-DD-22", "Kia", "Rio", 2022, "Disponible", null, 5));
+            assertTrue(servicio.cambiarEstado("AA-BB-11", EstadoVehiculo.ARRENDADO));
+        }
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.MAPEADO, directorio)) {
+            FlotaVehiculosService servicio = new FlotaVehiculosService(fabrica.vehiculos());
+            assertEquals(Set.of("AA-BB-11"), patentes(servicio.listarPorEstado(EstadoVehiculo.ARRENDADO)));
+            assertEquals(Set.of("CC-DD-22"), patentes(servicio.listarPorEstado(EstadoVehiculo.DISPONIBLE)));
+        }
+    }
+
+    @Test
+    void cambiarElEstadoPersisteSoloEseVehiculo() throws Exception {
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            FlotaVehiculosService servicio = new FlotaVehiculosService(fabrica.vehiculos());
+            for (int i = 1; i <= 5; i++) {
+                servicio.agregarVehiculo(new VehiculoPasajeros("V" + i, "AA-BB-1" + i, "Kia", "Rio", 2022, "Disponible", null, 5));
+            }
+            DiarioCambios<Vehiculo> diario = new DiarioCambios<>(directorio.resolve("vehiculos.dat.diario").toString(),
+                    FabricaRepositorios::claveVehiculo, new VehiculoCodec());
+            int antes = diario.contarRegistros();
+
+            assertTrue(servicio.cambiarEstado("AA-BB-13", EstadoVehiculo.ARRENDADO));
+            assertEquals(antes + 1, diario.contarRegistros());
+        }
+    }
+
+    private static Set<String> patentes(List<? extends Vehiculo> vehiculos) {
+        return vehiculos.stream().map(Vehiculo::getPatente).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,64 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmark manual que compara la importación masiva de clientes con el registro fila a fila.
+ *
+ * <p>Uso: {@code java ... ImportacionBenchmark [filas] [MEMORIA|ARCHIVO]} (por defecto 200000 en memoria).
+ * Con ARCHIVO cada registro fila a fila es una escritura en el diario, y cada bloque importado una sola.</p>
+ */
+public class ImportacionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int filas = args.length == 0 ? 200_000 : Integer.parseInt(args[0]);
+        FabricaRepositorios.Respaldo respaldo = FabricaRepositorios.Respaldo.desde(args.length > 1 ? args[1] : null);
+        Path csv = Files.createTempFile("clientes", ".csv");
+        try (BufferedWriter salida = Files.newBufferedWriter(csv)) {
+            salida.write(ImportadorMasivo.ENCABEZADO_CLIENTES);
+            salida.newLine();
+            for (int i = 0; i < filas; i++) {
+                String rut = rut(10_000_000 + i);
+                salida.write(rut + ",Cliente " + i + ",+569" + (10_000_000 + i) + ",cliente" + i
+                        + "@correo.cl,Calle " + i);
+                salida.newLine();
+            }
+        }
+
+        // Fila a fila: interpretar y registrar como lo haría la interfaz
+        try (FabricaRepositorios repositorios = new FabricaRepositorios(respaldo, Files.createTempDirectory("uno-a-uno"))) {
+            ClienteService unoAUno = new ClienteService(repositorios.clientes());
+            long inicio = System.nanoTime();
+            for (String linea : Files.readAllLines(csv).subList(1, filas + 1)) {
+                String[] c = ImportadorMasivo.dividir(linea);
+                unoAUno.registrarCliente(new Cliente(c[1], c[0], c[2], c[3], c[4]));
+            }
+            long nanos = System.nanoTime() - inicio;
+            System.out.printf("%s fila a fila: %.1f ms (%.0f filas/s)%n", respaldo, nanos / 1e6, filas * 1e9 / nanos);
+        }
+
+        try (FabricaRepositorios repositorios = new FabricaRepositorios(respaldo, Files.createTempDirectory("masiva"));
+             ImportadorMasivo importador = new ImportadorMasivo(
+                     new ClienteService(repositorios.clientes()), new FlotaVehiculosService())) {
+            System.out.println(respaldo + " " + importador.importarClientes(csv.toString()).resumen(3));
+        }
+        Files.delete(csv);
+    }
+
+    /** RUT con su dígito verificador. */
+    private static String rut(int cuerpo) {
+        int suma = 0, multiplicador = 2;
+        for (int n = cuerpo; n > 0; n /= 10) {
+            suma += (n % 10) * multiplicador;
+            multiplicador = multiplicador == 7 ? 2 : multiplicador + 1;
+        }
+        int resto = suma % 11;
+        char dv = resto == 1 ? 'K' : resto == 0 ? '0' : (char) ('0' + 11 - resto);
+        return cuerpo + "-" + dv;
+    }
+}
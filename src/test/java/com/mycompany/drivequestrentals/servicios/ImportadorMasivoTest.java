@@ -0,0 +1,88 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.modelo.Cliente;
+import com.mycompany.drivequestrentals.modelo.EstadoVehiculo;
+import com.mycompany.drivequestrentals.modelo.VehiculoCarga;
+import com.mycompany.drivequestrentals.modelo.VehiculoPasajeros;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportadorMasivoTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void importaLasFilasValidasEInformaLasRechazadas() throws Exception {
+        ClienteService clientes = new ClienteService();
+        clientes.registrarCliente(new Cliente("Ya Existe", "22222222-2", "+56911111111", "ya@existe.cl", "Calle 1"));
+        Path csv = directorio.resolve("clientes.csv");
+        Files.write(csv, List.of(
+                ImportadorMasivo.ENCABEZADO_CLIENTES,
+                "12.345.678-5,Ana Pérez,+56912345678,ana@correo.cl,\"Av. Siempre Viva 742, Depto 3\"",
+                "11111111-2,RUT Malo,+56912345678,malo@correo.cl,Calle 2",
+                "11111111-1,Correo Malo,+56912345678,sin-arroba,Calle 3",
+                "",
+                "AB123456,Pasaporte,+56987654321,pasaporte@correo.cl,Calle 4",
+                "12.345.678-5,Repetida,+56912345678,otra@correo.cl,Calle 5",
+                "22222222-2,Registrada,+56912345678,reg@correo.cl,Calle 6",
+                "11111111-1,Teléfono Malo,123,tel@correo.cl,Calle 7",
+                "11111111-1,Bien,+56900000000,bien@correo.cl,Calle 8"));
+
+        ImportadorMasivo.InformeImportacion informe;
+        try (ImportadorMasivo importador = new ImportadorMasivo(clientes, new FlotaVehiculosService(), 2, 3)) {
+            informe = importador.importarClientes(csv.toString());
+        }
+
+        assertEquals(8, informe.getFilas());
+        assertEquals(3, informe.getImportadas());
+        assertEquals(List.of(3L, 4L, 7L, 8L, 9L),
+                informe.getRechazos().stream().map(ImportadorMasivo.Rechazo::getLinea).toList());
+        assertEquals("Duplicado dentro del archivo", informe.getRechazos().get(2).getMotivo());
+        assertEquals("Ya registrado", informe.getRechazos().get(3).getMotivo());
+        assertEquals("Av. Siempre Viva 742, Depto 3",
+                clientes.buscarPorRutOPasaporte("12.345.678-5").getDomicilio());
+        assertEquals(4, clientes.obtenerTodosLosClientes().size());
+    }
+
+    @Test
+    void importaVehiculosDeAmbosTipos() throws Exception {
+        FlotaVehiculosService flota = new FlotaVehiculosService();
+        Path csv = directorio.resolve("vehiculos.csv");
+        Files.write(csv, List.of(
+                ImportadorMasivo.ENCABEZADO_VEHICULOS,
+                "PASAJEROS,AA-BB-11,Toyota,Yaris,2020,Disponible,5",
+                "CARGA,CC-DD-22,Volvo,FH,2018,Disponible,12000.5",
+                "MOTO,EE-FF-33,Honda,CB,2021,Disponible,1",
+                "PASAJEROS,GG-HH-44,Kia,Rio,1800,Disponible,5",
+                "PASAJEROS,II-JJ-55,Kia,Rio,2020,Reservado,5"));
+
+        try (ImportadorMasivo importador = new ImportadorMasivo(new ClienteService(), flota)) {
+            ImportadorMasivo.InformeImportacion informe = importador.importarVehiculos(csv.toString());
+            assertEquals(2, informe.getImportadas());
+            assertEquals(3, informe.getRechazos().size());
+            assertTrue(informe.getFilasPorSegundo() > 0);
+        }
+        assertEquals(12000.5, ((VehiculoCarga) flota.buscarPorPatente("cc-dd-22")).getCapacidadCarga());
+        assertNull(flota.buscarPorPatente("II-JJ-55"));
+        // Fuera de la importación, un estado desconocido de datos antiguos deja el vehículo en mantención
+        assertEquals(EstadoVehiculo.EN_MANTENCION, new VehiculoPasajeros("V-1", "II-JJ-55", "Kia", "Rio", 2020,
+                "Reservado", null, 5).getEstadoVehiculo());
+    }
+
+    @Test
+    void rechazaUnArchivoSinElEncabezadoEsperado() throws Exception {
+        Path csv = directorio.resolve("otro.csv");
+        Files.write(csv, List.of("a,b,c"));
+        try (ImportadorMasivo importador = new ImportadorMasivo(new ClienteService(), new FlotaVehiculosService())) {
+            assertThrows(IOException.class, () -> importador.importarClientes(csv.toString()));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.mycompany.drivequestrentals.servicios;
+
+import com.mycompany.drivequestrentals.excepciones.ReservaDuplicadaException;
+import com.mycompany.drivequestrentals.excepciones.ReservaSolapadaException;
+import com.mycompany.drivequestrentals.modelo.Reserva;
+import com.mycompany.drivequestrentals.persistencia.DiarioCambios;
+import com.mycompany.drivequestrentals.persistencia.FabricaRepositorios;
+import com.mycompany.drivequestrentals.persistencia.MapaIdentidad;
+import com.mycompany.drivequestrentals.persistencia.Repositorio;
+import com.mycompany.drivequestrentals.persistencia.RepositorioMemoria;
+import com.mycompany.drivequestrentals.persistencia.codec.ReservaCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReservaServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Test
+    void detectaSolapamientosSoloDelMismoVehiculo() throws Exception {
+        ReservaService servicio = new ReservaService();
+        servicio.registrarReserva(reserva("R1", "AA-BB-11", 0, 3));
+        servicio.registrarReserva(reserva("R2", "AA-BB-11", 5, 8));
+        // Termina justo cuando empieza la siguiente: no se solapan
+        servicio.registrarReserva(reserva("R3", "AA-BB-11", 3, 5));
+        servicio.registrarReserva(reserva("R4", "CC-DD-22", 0, 10));
+
+        assertThrows(ReservaSolapadaException.class, () -> servicio.registrarReserva(reserva("R5", "aa-bb-11", 7, 9)));
+        assertThrows(ReservaSolapadaException.class, () -> servicio.registrarReserva(reserva("R6", "AA-BB-11", -1, 20)));
+        assertThrows(ReservaDuplicadaException.class, () -> servicio.registrarReserva(reserva("R1", "EE-FF-33", 0, 1)));
+        assertThrows(IllegalArgumentException.class, () -> servicio.registrarReserva(reserva("R7", "EE-FF-33", 2, 1)));
+
+        assertTrue(servicio.eliminarReserva("R2"));
+        servicio.registrarReserva(reserva("R5", "AA-BB-11", 7, 9));
+
+        // Al reconstruir el servicio desde el repositorio se recuperan las agendas
+        Repositorio<Reserva, String> repositorio = new RepositorioMemoria<>(Reserva::getCodigoReserva);
+        repositorio.guardarTodos(servicio.listarReservas());
+        ReservaService reabierto = new ReservaService(repositorio);
+        assertThrows(ReservaSolapadaException.class, () -> reabierto.registrarReserva(reserva("R8", "AA-BB-11", 8, 12)));
+    }
+
+    @Test
+    void registraEnParaleloSinSolapamientosNiCodigosRepetidos() throws Exception {
+        ReservaService servicio = new ReservaService();
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> intentos = new ArrayList<>();
+        // Cada vehículo recibe 20 intentos sobre las mismas 5 franjas, y el código se repite entre vehículos
+        for (int v = 0; v < 8; v++) {
+            for (int i = 0; i < 20; i++) {
+                String patente = "VH-" + v;
+                String codigo = "R" + (i % 5) + "-" + (v % 4);
+                int dia = (i % 5) * 2;
+                intentos.add(hilos.submit(() -> {
+                    try {
+                        servicio.registrarReserva(reserva(codigo, patente, dia, dia + 2));
+                        return true;
+                    } catch (ReservaSolapadaException | ReservaDuplicadaException e) {
+                        return false;
+                    }
+                }));
+            }
+        }
+        int registradas = 0;
+        for (Future<Boolean> intento : intentos) {
+            if (intento.get()) registradas++;
+        }
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(10, TimeUnit.SECONDS));
+
+        // 20 códigos distintos, y cada uno gana en un solo vehículo
+        assertEquals(20, registradas);
+        List<Reserva> todas = servicio.listarReservas();
+        for (Reserva a : todas) {
+            for (Reserva b : todas) {
+                if (a != b) assertFalse(a.seSolapaCon(b), a + " se solapa con " + b);
+            }
+        }
+    }
+
+    @Test
+    void confirmarUnaReservaPersisteSoloEsaReserva(@TempDir Path directorio) throws Exception {
+        try (FabricaRepositorios fabrica = new FabricaRepositorios(FabricaRepositorios.Respaldo.ARCHIVO, directorio)) {
+            ReservaService servicio = new ReservaService(fabrica.reservas(), fabrica.filtroReservas());
+            for (int i = 0; i < 5; i++) servicio.registrarReserva(reserva("R" + i, "AA-BB-11", 2 * i, 2 * i + 1));
+            DiarioCambios<Reserva> diario = new DiarioCambios<>(directorio.resolve("reservas.dat.diario").toString(),
+                    Reserva::getCodigoReserva, new ReservaCodec(new MapaIdentidad()));
+            int antes = diario.contarRegistros();
+
+            assertTrue(servicio.confirmarReserva("R3"));
+            assertEquals(antes + 1, diario.contarRegistros());
+        }
+    }
+
+    private static Reserva reserva(String codigo, String patente, int diaInicio, int diaFin) {
+        return new Reserva(codigo, "11111111-1", patente, BASE.plusDays(diaInicio), BASE.plusDays(diaFin), false);
+    }
+}